@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.adapter.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.R;
+import org.onebusaway.android.io.JacksonSerializer;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.ui.ArrivalsListAdapterBase;
+import org.onebusaway.android.ui.ArrivalsListAdapterStyleA;
+import org.onebusaway.android.ui.ArrivalsListAdapterStyleB;
+
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getInstrumentation;
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Measures the time to lay out frames of the arrivals list while scrolling and refreshing a stop
+ * with more than 100 arrivals, and checks that refreshes reuse the existing rows
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArrivalsListBenchmarkTest {
+
+    private static final String TAG = "ArrivalsListBenchmark";
+
+    private static final long NOW = 1700000000000L;
+
+    private static final int ROUTES = 12;
+
+    private static final int HEADSIGNS = 2;
+
+    private static final int TRIPS = 5;
+
+    private static final int FRAMES = 60;
+
+    private static final int SCROLL_DISTANCE = 150;
+
+    // Median time to lay out a frame, which should fit well within a 60 fps frame
+    private static final long MAX_MEDIAN_FRAME_TIME = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void testStyleA() {
+        final ObaArrivalInfo[] arrivals = makeArrivals(NOW);
+        assertTrue(arrivals.length >= 100);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                benchmark(new ArrivalsListAdapterStyleA(getTargetContext()), arrivals);
+            }
+        });
+    }
+
+    @Test
+    public void testStyleB() {
+        final ObaArrivalInfo[] arrivals = makeArrivals(NOW);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ArrivalsListAdapterStyleB adapter =
+                        new ArrivalsListAdapterStyleB(getTargetContext());
+                ListView list = benchmark(adapter, arrivals);
+
+                // The next refresh rebinds the rows that are already in the cards
+                Set<View> rows = getArrivalRows(list);
+                long now = NOW + TimeUnit.SECONDS.toMillis(30) * (FRAMES + 1);
+                adapter.setData(makeArrivals(now), new ArrayList<String>(), now);
+                layout(list);
+                Set<View> refreshedRows = getArrivalRows(list);
+                assertFalse(refreshedRows.isEmpty());
+                assertTrue(rows.containsAll(refreshedRows));
+            }
+        });
+    }
+
+    /**
+     * Scrolls to the bottom of the list and refreshes it at each frame, logging the frame times
+     *
+     * @return the list, scrolled to the bottom
+     */
+    private ListView benchmark(ArrivalsListAdapterBase adapter, ObaArrivalInfo[] arrivals) {
+        String name = adapter.getClass().getSimpleName();
+        adapter.setData(arrivals, new ArrayList<String>(), NOW);
+        assertTrue(adapter.getCount() > 0);
+
+        ListView list = new ListView(getTargetContext());
+        list.setAdapter(adapter);
+        long start = System.nanoTime();
+        layout(list);
+        Log.d(TAG, name + " first frame: " + toMillis(System.nanoTime() - start) + "ms");
+        assertTrue(list.getChildCount() > 0);
+
+        long[] scrollFrames = new long[FRAMES];
+        long[] refreshFrames = new long[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            start = System.nanoTime();
+            list.scrollListBy(SCROLL_DISTANCE);
+            layout(list);
+            scrollFrames[i] = System.nanoTime() - start;
+
+            // The times of the refresh move ahead, like with the periodic refresh of the fragment
+            long now = NOW + TimeUnit.SECONDS.toMillis(30) * (i + 1);
+            ObaArrivalInfo[] refreshed = makeArrivals(now);
+            start = System.nanoTime();
+            adapter.setData(refreshed, new ArrayList<String>(), now);
+            layout(list);
+            refreshFrames[i] = System.nanoTime() - start;
+        }
+        long scrollMedian = logFrames(name + " scroll", scrollFrames);
+        long refreshMedian = logFrames(name + " refresh", refreshFrames);
+        assertTrue(scrollMedian < MAX_MEDIAN_FRAME_TIME);
+        assertTrue(refreshMedian < MAX_MEDIAN_FRAME_TIME);
+        return list;
+    }
+
+    private static Set<View> getArrivalRows(ListView list) {
+        Set<View> rows = new HashSet<>();
+        for (int i = 0; i < list.getChildCount(); i++) {
+            ViewGroup table = list.getChildAt(i).findViewById(R.id.arrivalTimeLayout);
+            for (int j = 0; j < table.getChildCount(); j++) {
+                rows.add(table.getChildAt(j));
+            }
+        }
+        return rows;
+    }
+
+    private static void layout(ListView list) {
+        list.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        list.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Logs the median and the 90th percentile of the frame times
+     *
+     * @return the median frame time, in nanoseconds
+     */
+    private static long logFrames(String name, long[] frames) {
+        long[] sorted = frames.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        long p90 = sorted[(int) (sorted.length * 0.9)];
+        Log.d(TAG, name + " frames: median " + toMillis(median) + "ms, 90th percentile "
+                + toMillis(p90) + "ms, max " + toMillis(sorted[sorted.length - 1]) + "ms");
+        return median;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    /**
+     * Creates arrivals for a busy stop, for ROUTES routes with HEADSIGNS headsigns each and TRIPS
+     * real-time trips per headsign
+     *
+     * @param now current time, used to keep the same trips arriving over time
+     */
+    private static ObaArrivalInfo[] makeArrivals(long now) {
+        StringBuilder json = new StringBuilder("[");
+        for (int r = 0; r < ROUTES; r++) {
+            for (int h = 0; h < HEADSIGNS; h++) {
+                for (int t = 0; t < TRIPS; t++) {
+                    long scheduled = NOW + TimeUnit.MINUTES.toMillis(3 + r + 12 * t);
+                    // Buses are running a little late, and a little more with each refresh
+                    long predicted = scheduled + TimeUnit.MINUTES.toMillis(h)
+                            + (now - NOW) / 10;
+                    if (json.length() > 1) {
+                        json.append(',');
+                    }
+                    json.append('{')
+                            .append("\"routeId\":\"Test_").append(r).append("\",")
+                            .append("\"routeShortName\":\"").append(r + 1).append("\",")
+                            .append("\"tripId\":\"Test_").append(r).append('_').append(h)
+                            .append('_').append(t).append("\",")
+                            .append("\"tripHeadsign\":\"Headsign ").append(h).append("\",")
+                            .append("\"stopId\":\"Test_1\",")
+                            .append("\"stopSequence\":10,")
+                            .append("\"scheduledArrivalTime\":").append(scheduled).append(',')
+                            .append("\"predictedArrivalTime\":").append(predicted).append(',')
+                            .append("\"scheduledDepartureTime\":").append(scheduled).append(',')
+                            .append("\"predictedDepartureTime\":").append(predicted).append(',')
+                            .append("\"predicted\":true,")
+                            .append("\"status\":\"default\"")
+                            .append('}');
+                }
+            }
+        }
+        json.append(']');
+        ObaArrivalInfo[] arrivals = ((JacksonSerializer) JacksonSerializer.getInstance())
+                .deserializeFromResponse(json.toString(), ObaArrivalInfo[].class);
+        assertNotNull(arrivals);
+        assertEquals(ROUTES * HEADSIGNS * TRIPS, arrivals.length);
+        return arrivals;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.app.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.app.StartupOrchestrator;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getInstrumentation;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests the startup orchestrator, and the time the startup of the app keeps the main thread busy
+ * before the first activity can use the results of the startup
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupOrchestratorTest {
+
+    private static final String TAG = "StartupOrchestratorTest";
+
+    // Time the startup of the app may take before the first activity can use its results
+    private static final long FIRST_FRAME_BUDGET_MS = 1500;
+
+    // Time the MAIN steps of the app may keep the main thread busy
+    private static final long MAIN_THREAD_BUDGET_MS = 300;
+
+    private static final long STEP_MS = 200;
+
+    private static final long TIMEOUT_S = 10;
+
+    @Test
+    public void testApplicationStartup() throws Exception {
+        StartupOrchestrator startup = Application.getStartup();
+        assertTrue(startup.await(TIMEOUT_S, TimeUnit.SECONDS));
+        for (StartupOrchestrator.Timing timing : startup.getTimings()) {
+            Log.d(TAG, timing.toString());
+        }
+        Log.d(TAG, "First frame after " + startup.getFirstFrameMillis() + "ms");
+
+        String[] steps = {
+                Application.STEP_OBA,
+                Application.STEP_REGION,
+                Application.STEP_ANALYTICS,
+                Application.STEP_LAUNCH_COUNT,
+                Application.STEP_DONATIONS,
+                Application.STEP_OPEN311,
+                Application.STEP_NOTIFICATION_CHANNELS,
+                Application.STEP_DATABASE,
+                Application.STEP_STOP_USER_INFO,
+                Application.STEP_HIDDEN_ALERTS,
+                Application.STEP_TRAVEL_BEHAVIOR,
+                Application.STEP_PUSH
+        };
+        double mainThreadMillis = 0;
+        for (String step : steps) {
+            StartupOrchestrator.Timing timing = startup.getTiming(step);
+            assertNotNull(step, timing);
+            switch (timing.getStage()) {
+                case MAIN:
+                    mainThreadMillis += timing.getDurationMillis();
+                    assertFalse(step, timing.isFailed());
+                    break;
+                case FIRST_FRAME:
+                    assertTrue(step, timing.getEndMillis() <= startup.getFirstFrameMillis());
+                    assertFalse(step, timing.isFailed());
+                    break;
+                case IDLE:
+                    assertTrue(step, timing.getStartMillis() >= startup.getFirstFrameMillis());
+                    break;
+            }
+        }
+
+        // Notifications can be posted as soon as onCreate() returns, even on a cold start
+        assertEquals(StartupOrchestrator.Stage.MAIN,
+                startup.getTiming(Application.STEP_NOTIFICATION_CHANNELS).getStage());
+
+        // Reading the region from the database doesn't block the main thread
+        assertEquals(StartupOrchestrator.Stage.FIRST_FRAME,
+                startup.getTiming(Application.STEP_REGION).getStage());
+        assertTrue(startup.getTiming(Application.STEP_ANALYTICS).getStartMillis()
+                >= startup.getTiming(Application.STEP_REGION).getEndMillis());
+        assertTrue(startup.getFirstFrameMillis() >= 0);
+        assertTrue(startup.getFirstFrameMillis() < FIRST_FRAME_BUDGET_MS);
+        assertTrue(mainThreadMillis < MAIN_THREAD_BUDGET_MS);
+    }
+
+    @Test
+    public void testParallelStepsAndDependencies() throws Exception {
+        final StartupOrchestrator startup = new StartupOrchestrator()
+                .add("a", StartupOrchestrator.Stage.FIRST_FRAME, sleep())
+                .add("b", StartupOrchestrator.Stage.FIRST_FRAME, sleep())
+                .add("c", StartupOrchestrator.Stage.MAIN, () -> {
+                }, "a", "b")
+                .add("d", StartupOrchestrator.Stage.BACKGROUND, sleep(), "c");
+        startOnMainThread(startup);
+        assertTrue(startup.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        StartupOrchestrator.Timing a = startup.getTiming("a");
+        StartupOrchestrator.Timing b = startup.getTiming("b");
+        StartupOrchestrator.Timing c = startup.getTiming("c");
+        StartupOrchestrator.Timing d = startup.getTiming("d");
+
+        // a and b ran at the same time, off the main thread
+        assertTrue(a.getStartMillis() < b.getEndMillis() && b.getStartMillis() < a.getEndMillis());
+        assertFalse(a.getThreadName().equals(b.getThreadName()));
+        assertFalse(a.getThreadName().equals(Looper.getMainLooper().getThread().getName()));
+
+        // c waited for both, and d didn't delay the first frame
+        assertTrue(c.getStartMillis() >= Math.max(a.getEndMillis(), b.getEndMillis()));
+        assertEquals(Looper.getMainLooper().getThread().getName(), c.getThreadName());
+        assertTrue(d.getStartMillis() >= c.getEndMillis());
+        assertTrue(startup.getFirstFrameMillis() < STEP_MS * 2);
+        assertTrue(startup.getFirstFrameMillis() < d.getEndMillis());
+    }
+
+    @Test
+    public void testStartDoesNotWaitForFirstFrame() throws Exception {
+        final StartupOrchestrator startup = new StartupOrchestrator()
+                .add("region", StartupOrchestrator.Stage.FIRST_FRAME, sleep());
+        final AtomicLong startMillis = new AtomicLong();
+        final AtomicLong readyMillis = new AtomicLong(-1);
+        final CountDownLatch ready = new CountDownLatch(1);
+        getInstrumentation().runOnMainSync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            startup.start();
+            startMillis.set(SystemClock.elapsedRealtime() - start);
+            startup.runWhenReady(() -> {
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    readyMillis.set(SystemClock.elapsedRealtime() - start);
+                }
+                ready.countDown();
+            });
+        });
+        // The main thread is free while the step runs, and the activity is told when it's done
+        assertTrue(startMillis.get() < STEP_MS);
+        assertTrue(ready.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(readyMillis.get() >= STEP_MS);
+        assertTrue(startup.getTiming("region").getEndMillis() <= startup.getFirstFrameMillis());
+
+        // Once ready, tasks run right away
+        final boolean[] ranNow = new boolean[1];
+        getInstrumentation().runOnMainSync(() -> startup.runWhenReady(() -> ranNow[0] = true));
+        assertTrue(ranNow[0]);
+    }
+
+    @Test
+    public void testIdleStepsRunAfterFirstFrame() throws Exception {
+        final StartupOrchestrator startup = new StartupOrchestrator()
+                .add("first", StartupOrchestrator.Stage.FIRST_FRAME, sleep())
+                .add("optional", StartupOrchestrator.Stage.IDLE, () -> {
+                    if (Looper.myLooper() != Looper.getMainLooper()) {
+                        throw new IllegalStateException("Not on the main thread");
+                    }
+                }, "first")
+                .add("failing", StartupOrchestrator.Stage.IDLE, () -> {
+                    throw new RuntimeException("Expected");
+                });
+        startOnMainThread(startup);
+        assertTrue(startup.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        StartupOrchestrator.Timing optional = startup.getTiming("optional");
+        assertFalse(optional.isFailed());
+        assertTrue(optional.getStartMillis() >= startup.getFirstFrameMillis());
+        // A failed step is recorded, and doesn't stop the startup
+        assertTrue(startup.getTiming("failing").isFailed());
+    }
+
+    @Test
+    public void testUnknownDependency() {
+        StartupOrchestrator startup = new StartupOrchestrator()
+                .add("a", StartupOrchestrator.Stage.IDLE, () -> {
+                });
+        try {
+            startup.add("b", StartupOrchestrator.Stage.MAIN, () -> {
+            }, "c");
+            fail("Dependencies must be added first");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            startup.add("b", StartupOrchestrator.Stage.FIRST_FRAME, () -> {
+            }, "a");
+            fail("The first frame can't wait for idle steps");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static Runnable sleep() {
+        return () -> SystemClock.sleep(STEP_MS);
+    }
+
+    /**
+     * Starts the orchestrator like Application.onCreate() does
+     */
+    private static void startOnMainThread(final StartupOrchestrator startup) {
+        getInstrumentation().runOnMainSync(startup::start);
+    }
+}
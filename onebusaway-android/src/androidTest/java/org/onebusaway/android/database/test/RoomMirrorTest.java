@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.database.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.database.RoomMirror;
+import org.onebusaway.android.database.recentStops.RecentStopsManager;
+import org.onebusaway.android.database.widealerts.AlertsRepository;
+import org.onebusaway.android.database.widealerts.entity.AlertEntity;
+import org.onebusaway.android.ui.survey.utils.SurveyDbHelper;
+import org.onebusaway.android.util.BackgroundExecutor;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+import kotlin.Unit;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the repositories of the Room database never block the main thread, by calling them
+ * while all the threads that read the database are busy
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomMirrorTest {
+
+    // Time the calls to the repositories may take on the main thread, all together
+    private static final long MAIN_THREAD_BUDGET_MS = 100;
+
+    private static final long TIMEOUT_S = 10;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private CountDownLatch mRelease;
+
+    private CountDownLatch mBusy;
+
+    @Before
+    public void before() throws Exception {
+        RecentStopsManager.resetForTesting();
+        AlertsRepository.resetForTesting();
+        SurveyDbHelper.resetForTesting();
+
+        // Keep all the threads of the DISK pool busy until the test releases them
+        int threads = BackgroundExecutor.Pool.DISK.getThreadCount();
+        mRelease = new CountDownLatch(1);
+        mBusy = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            BackgroundExecutor.getInstance().execute(BackgroundExecutor.Pool.DISK, () -> {
+                mBusy.countDown();
+                try {
+                    mRelease.await(TIMEOUT_S, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // Released
+                }
+            });
+        }
+        assertTrue(mBusy.await(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void after() {
+        mRelease.countDown();
+    }
+
+    @Test
+    public void testRepositoriesDontBlockTheMainThread() throws Exception {
+        final Context context = getTargetContext();
+        final String alertId = "test-" + System.nanoTime();
+        final List<Boolean> results = Collections.synchronizedList(new ArrayList<Boolean>());
+        final CountDownLatch loaded = new CountDownLatch(3);
+        final CountDownLatch done = new CountDownLatch(1);
+        final long[] elapsed = new long[1];
+
+        // Posted rather than run with runOnMainSync(), so a blocked main thread fails the test
+        // instead of hanging it
+        mMainHandler.post(() -> {
+            long start = SystemClock.uptimeMillis();
+            results.add(AlertsRepository.isAlertExists(context, alertId));
+            AlertsRepository.insertAlert(context, new AlertEntity(alertId));
+            results.add(RecentStopsManager.getRecentStops(context).isEmpty());
+            results.add(SurveyDbHelper.isSurveyCompleted(context, -1));
+            AlertsRepository.whenLoaded(context, loaded::countDown);
+            RecentStopsManager.whenLoaded(context, loaded::countDown);
+            SurveyDbHelper.whenLoaded(context, loaded::countDown);
+            elapsed[0] = SystemClock.uptimeMillis() - start;
+            done.countDown();
+        });
+        assertTrue("The main thread is blocked", done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] < MAIN_THREAD_BUDGET_MS);
+
+        // Nothing is loaded while the database threads are busy
+        assertEquals(Arrays.asList(false, true, false), results);
+        assertEquals(3, loaded.getCount());
+
+        mRelease.countDown();
+        assertTrue(loaded.await(TIMEOUT_S, TimeUnit.SECONDS));
+        // The alert inserted before the alerts were loaded is kept
+        assertTrue(AlertsRepository.isAlertExists(context, alertId));
+        assertFalse(SurveyDbHelper.isSurveyCompleted(context, -1));
+    }
+
+    @Test
+    public void testChangesBeforeLoadAreAppliedInOrder() throws Exception {
+        final List<String> operations = Collections.synchronizedList(new ArrayList<String>());
+        final RoomMirror<Set<Integer>> mirror = new RoomMirror<>(
+                Collections.<Integer>emptySet(), continuation -> {
+            operations.add("load");
+            return new HashSet<>(Collections.singletonList(1));
+        });
+
+        mirror.update(value -> {
+            Set<Integer> result = new HashSet<>(value);
+            result.add(2);
+            return result;
+        }, continuation -> {
+            operations.add("write");
+            return Unit.INSTANCE;
+        });
+        assertNull(mirror.getValue());
+
+        final CountDownLatch loaded = new CountDownLatch(1);
+        mirror.whenLoaded(loaded::countDown);
+        mRelease.countDown();
+        assertTrue(loaded.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), mirror.getValue());
+        // The data is read before the change is written, so the change isn't applied twice
+        SystemClock.sleep(100);
+        assertEquals(Arrays.asList("load", "write"), operations);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.directions.model.ItineraryDescription;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * Tests the conversion of the OTP trip IDs of itineraries to OBA trip IDs
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItineraryDescriptionTest {
+
+    @Test
+    public void testWithoutAgencies() {
+        assertEquals("1_1234", ItineraryDescription.toObaId("1:1234", "HART", null, null));
+        assertEquals("HART_1234", ItineraryDescription.toObaId("1234", "HART", null, null));
+        assertEquals("HART_1234", ItineraryDescription.toObaId("HART_1234", "HART", null, null));
+        assertNull(ItineraryDescription.toObaId(null, "HART", null, null));
+    }
+
+    @Test
+    public void testFeedIdIsAgencyId() {
+        Map<String, String> agencies = new HashMap<>();
+        agencies.put("1", "King County Metro");
+        agencies.put("40", "Sound Transit");
+        assertEquals("40_100479",
+                ItineraryDescription.toObaId("40:100479", "ST", "Sound Transit", agencies));
+    }
+
+    @Test
+    public void testFeedIdIsNotAgencyId() {
+        Map<String, String> agencies = new HashMap<>();
+        agencies.put("1", "King County Metro");
+        agencies.put("40", "Sound Transit");
+        // Matched by the GTFS agency ID of the leg
+        assertEquals("1_5678", ItineraryDescription.toObaId("kcm:5678", "1", null, agencies));
+        // Matched by the agency ID of newer OTP servers, which has a feed prefix
+        assertEquals("1_5678",
+                ItineraryDescription.toObaId("kcm:5678", "kcm:1", null, agencies));
+        // Matched by the agency name
+        assertEquals("40_100479",
+                ItineraryDescription.toObaId("st:100479", "ST", "sound transit ", agencies));
+    }
+
+    @Test
+    public void testOnlyAgency() {
+        Map<String, String> agencies = new HashMap<>();
+        agencies.put("HART", "Hillsborough Area Regional Transit");
+        assertEquals("HART_1234",
+                ItineraryDescription.toObaId("hart:1234", "1", "HART", agencies));
+    }
+
+    @Test
+    public void testUnknownAgency() {
+        Map<String, String> agencies = new HashMap<>();
+        agencies.put("1", "King County Metro");
+        agencies.put("40", "Sound Transit");
+        // The trip isn't served by the region, so its status is unknown
+        assertNull(ItineraryDescription.toObaId("ct:29", "CT", "Community Transit", agencies));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.directions.util.CustomAddress;
+import org.onebusaway.android.directions.util.OtpClient;
+import org.onebusaway.android.directions.util.TripRequestBuilder;
+import org.opentripplanner.api.ws.Request;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import java.util.Date;
+import java.util.Locale;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the URLs of trip plan requests built by OtpClient from a TripRequestBuilder
+ */
+@RunWith(AndroidJUnit4.class)
+public class OtpClientTest {
+
+    private static final String BASE_URL = "https://otp.example.com/otp";
+
+    private static final String FROM = "4202 E Fowler Ave, Tampa, FL";
+
+    private static final String TO = "Café Hey, 1540 N Franklin St, Tampa";
+
+    @Test
+    public void testAddressesAreEncodedOnce() {
+        Request request = new TripRequestBuilder(new Bundle())
+                .setFrom(makeAddress(FROM))
+                .setTo(makeAddress(TO))
+                .setDateTime(new Date())
+                .buildRequest();
+        String url = new OtpClient(BASE_URL).buildUrl(request, false);
+
+        assertTrue(url.startsWith(BASE_URL + "/routers/default/plan?"));
+        Uri uri = Uri.parse(url);
+        assertEquals(FROM, uri.getQueryParameter("fromPlace"));
+        assertEquals(TO, uri.getQueryParameter("toPlace"));
+        assertTrue(url.contains("fromPlace=4202%20E%20Fowler%20Ave%2C%20Tampa%2C%20FL"));
+        // An encoded percent sign means a value was encoded twice
+        assertFalse(url.contains("%25"));
+    }
+
+    @Test
+    public void testOldUrlStructure() {
+        Request request = new TripRequestBuilder(new Bundle())
+                .setFrom(makeAddress(FROM))
+                .setTo(makeAddress(TO))
+                .setDateTime(new Date())
+                .buildRequest();
+        String url = new OtpClient(BASE_URL).buildUrl(request, true);
+
+        assertTrue(url.startsWith(BASE_URL + "/plan?"));
+        assertEquals(FROM, Uri.parse(url).getQueryParameter("fromPlace"));
+    }
+
+    /**
+     * @return an address typed by the user, which has no coordinates
+     */
+    private static CustomAddress makeAddress(String line) {
+        CustomAddress address = new CustomAddress(Locale.US);
+        address.setAddressLine(0, line);
+        return address;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.directions.util.CustomAddress;
+import org.onebusaway.android.directions.util.PlacesAutocomplete;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the place autocomplete for trip planning with a local stand-in for the geocoder, counting
+ * the geocoder requests made while typing and measuring the time from the last keystroke to the
+ * suggestions
+ */
+@RunWith(AndroidJUnit4.class)
+public class PlacesAutocompleteTest {
+
+    private static final String TAG = "PlacesAutocompleteTest";
+
+    private static final long DEBOUNCE_MS = 100;
+
+    private static final long KEYSTROKE_MS = 30;
+
+    private static final long GEOCODER_MS = 200;
+
+    // Time allowed for the threads and the local places on top of the debounce and the geocoder
+    private static final long LATENCY_MARGIN_MS = 250;
+
+    private static final String[] PLACES = {
+            "E Fowler Ave",
+            "Fowler St",
+            "Fletcher Ave",
+            "Bruce B Downs Blvd"
+    };
+
+    private StandInGeocoder mGeocoder;
+
+    private List<CustomAddress> mLocalPlaces;
+
+    private PlacesAutocomplete mAutocomplete;
+
+    // Plays the role of the thread of the Filter of the adapter
+    private ExecutorService mFilterThread;
+
+    @Before
+    public void before() {
+        PlacesAutocomplete.clearRecentPlacesForTesting();
+        mGeocoder = new StandInGeocoder();
+        mLocalPlaces = new ArrayList<>();
+        mAutocomplete = new PlacesAutocomplete(mGeocoder, true, query -> mLocalPlaces,
+                DEBOUNCE_MS);
+        mFilterThread = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void after() {
+        mFilterThread.shutdownNow();
+    }
+
+    @Test
+    public void testKeystrokesAreCoalesced() throws Exception {
+        long start = SystemClock.uptimeMillis();
+        List<CustomAddress> results = type("fowler ave").get();
+        long latency = SystemClock.uptimeMillis() - start - KEYSTROKE_MS * 9;
+        Log.d(TAG, "Typing to suggestion latency: " + latency + "ms, geocoder requests: "
+                + mGeocoder.mRequests.get());
+
+        assertEquals(1, mGeocoder.mRequests.get());
+        assertEquals(1, results.size());
+        assertEquals("E Fowler Ave", results.get(0).toString());
+        assertTrue(latency < DEBOUNCE_MS + GEOCODER_MS + LATENCY_MARGIN_MS);
+    }
+
+    @Test
+    public void testSupersededRequestIsCancelled() throws Exception {
+        Future<List<CustomAddress>> first = type("fow");
+        // Let the geocoder start for "fow"
+        SystemClock.sleep(DEBOUNCE_MS + GEOCODER_MS / 2);
+        assertEquals(1, mGeocoder.mRequests.get());
+
+        Future<List<CustomAddress>> second = type("fowl");
+        assertNull(first.get());
+        List<CustomAddress> results = second.get();
+        assertEquals(2, results.size());
+        assertEquals(2, mGeocoder.mRequests.get());
+        assertEquals(1, mGeocoder.mInterrupted.get());
+    }
+
+    @Test
+    public void testNarrowingPrefixIsCached() throws Exception {
+        assertEquals(2, type("fowler").get().size());
+        assertEquals(1, mGeocoder.mRequests.get());
+
+        long start = SystemClock.uptimeMillis();
+        List<CustomAddress> results = type("fowler a").get();
+        long latency = SystemClock.uptimeMillis() - start - KEYSTROKE_MS * 7;
+        Log.d(TAG, "Cached suggestion latency: " + latency + "ms");
+
+        // Served from the results of "fowler", without waiting for the user to stop typing
+        assertEquals(1, mGeocoder.mRequests.get());
+        assertEquals(1, results.size());
+        assertEquals("E Fowler Ave", results.get(0).toString());
+        assertTrue(latency < DEBOUNCE_MS);
+
+        // Typing the same text again doesn't call the geocoder either
+        assertEquals(2, type("fowler").get().size());
+        assertEquals(1, mGeocoder.mRequests.get());
+    }
+
+    @Test
+    public void testInexhaustiveResultsAreNotNarrowed() throws Exception {
+        mAutocomplete = new PlacesAutocomplete(mGeocoder, false, query -> mLocalPlaces,
+                DEBOUNCE_MS);
+        assertEquals(2, type("fowler").get().size());
+        assertEquals(1, mGeocoder.mRequests.get());
+
+        // A geocoder returning a page of fuzzy matches may have more matches for "fowler a"
+        assertEquals(1, type("fowler a").get().size());
+        assertEquals(2, mGeocoder.mRequests.get());
+
+        // The results of the same text are still cached
+        assertEquals(2, type("fowler").get().size());
+        assertEquals(2, mGeocoder.mRequests.get());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        mGeocoder.mOffline = true;
+        assertEquals(0, type("fowler").get().size());
+        assertEquals(1, mGeocoder.mRequests.get());
+
+        // Neither the same text nor a narrower one are served from the failed request
+        mGeocoder.mOffline = false;
+        assertEquals(2, type("fowler").get().size());
+        assertEquals(2, mGeocoder.mRequests.get());
+        mGeocoder.mOffline = true;
+        mAutocomplete.clearCache();
+        assertEquals(0, type("fowl").get().size());
+        mGeocoder.mOffline = false;
+        assertEquals(1, type("fowler a").get().size());
+        assertEquals(4, mGeocoder.mRequests.get());
+    }
+
+    @Test
+    public void testLocalPlacesAreFirst() throws Exception {
+        mLocalPlaces.add(makeAddress("Fowler Ave @ 50th St"));
+        PlacesAutocomplete.addRecentPlace(makeAddress("Fowler St"));
+
+        List<CustomAddress> results = type("fowl").get();
+        assertEquals(3, results.size());
+        assertEquals("Fowler Ave @ 50th St", results.get(0).toString());
+        // The recent place isn't repeated among the geocoder results
+        assertEquals("Fowler St", results.get(1).toString());
+        assertEquals("E Fowler Ave", results.get(2).toString());
+    }
+
+    /**
+     * Types the text one character at a time, like the Filter of the adapter does
+     *
+     * @return the suggestions for the whole text
+     */
+    private Future<List<CustomAddress>> type(String text) {
+        Future<List<CustomAddress>> last = null;
+        for (int i = 1; i <= text.length(); i++) {
+            if (i > 1) {
+                SystemClock.sleep(KEYSTROKE_MS);
+            }
+            final String query = text.substring(0, i);
+            mAutocomplete.onQueryChanged(query);
+            last = mFilterThread.submit(() -> mAutocomplete.getSuggestions(query));
+        }
+        assertNotNull(last);
+        return last;
+    }
+
+    private static CustomAddress makeAddress(String name) {
+        CustomAddress address = new CustomAddress();
+        address.setFeatureName(name);
+        address.setLatitude(28.0587);
+        address.setLongitude(-82.4139);
+        return address;
+    }
+
+    /**
+     * Returns all the places with a word starting with each word of the query, after GEOCODER_MS,
+     * or null if it's offline
+     */
+    private static class StandInGeocoder implements PlacesAutocomplete.PlaceSource {
+
+        final AtomicInteger mRequests = new AtomicInteger();
+
+        final AtomicInteger mInterrupted = new AtomicInteger();
+
+        volatile boolean mOffline;
+
+        @Override
+        public List<CustomAddress> find(String query) {
+            mRequests.incrementAndGet();
+            try {
+                Thread.sleep(GEOCODER_MS);
+            } catch (InterruptedException e) {
+                mInterrupted.incrementAndGet();
+                return Collections.emptyList();
+            }
+            if (mOffline) {
+                return null;
+            }
+            List<CustomAddress> results = new ArrayList<>();
+            String[] words = query.toLowerCase(Locale.US).split(" ");
+            for (String place : PLACES) {
+                boolean matches = true;
+                for (String word : words) {
+                    matches &= (" " + place.toLowerCase(Locale.US)).contains(" " + word);
+                }
+                if (matches) {
+                    results.add(makeAddress(place));
+                }
+            }
+            return results;
+        }
+    }
+}
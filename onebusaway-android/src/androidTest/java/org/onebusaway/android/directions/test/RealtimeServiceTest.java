@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.directions.realtime.RealtimeService;
+import org.onebusaway.android.directions.util.OTPConstants;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the schedule of the checks of RealtimeService
+ */
+@RunWith(AndroidJUnit4.class)
+public class RealtimeServiceTest {
+
+    private static final long NOW = 1500000000000L;
+
+    @Test
+    public void testChecksAreSuspendedUntilQueryWindow() {
+        Date start = new Date(NOW + TimeUnit.HOURS.toMillis(3));
+        assertEquals(start.getTime() - OTPConstants.REALTIME_SERVICE_QUERY_WINDOW,
+                RealtimeService.getNextCheckTime(start, NOW));
+    }
+
+    @Test
+    public void testChecksBeforeDeparture() {
+        // Every 5 minutes, without skipping the start of the near departure window
+        Date start = new Date(NOW + TimeUnit.MINUTES.toMillis(40));
+        assertEquals(NOW + OTPConstants.FAR_UPDATE_INTERVAL_TRIP_TIME,
+                RealtimeService.getNextCheckTime(start, NOW));
+        start = new Date(NOW + TimeUnit.MINUTES.toMillis(12));
+        assertEquals(start.getTime() - OTPConstants.REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW,
+                RealtimeService.getNextCheckTime(start, NOW));
+
+        // Every 30 seconds near the departure
+        start = new Date(NOW + TimeUnit.MINUTES.toMillis(5));
+        assertEquals(NOW + OTPConstants.NEAR_UPDATE_INTERVAL_TRIP_TIME,
+                RealtimeService.getNextCheckTime(start, NOW));
+    }
+
+    @Test
+    public void testChecksAfterDeparture() {
+        Date start = new Date(NOW - TimeUnit.MINUTES.toMillis(5));
+        assertEquals(NOW + OTPConstants.DEFAULT_UPDATE_INTERVAL_TRIP_TIME,
+                RealtimeService.getNextCheckTime(start, NOW));
+        assertEquals(NOW + OTPConstants.DEFAULT_UPDATE_INTERVAL_TRIP_TIME,
+                RealtimeService.getNextCheckTime(null, NOW));
+    }
+
+    @Test
+    public void testCheckWindow() {
+        // Checks every 30 seconds may only be a few seconds late
+        long window = RealtimeService.getCheckWindow(NOW,
+                NOW + OTPConstants.NEAR_UPDATE_INTERVAL_TRIP_TIME);
+        assertTrue(window > 0);
+        assertTrue(window <= TimeUnit.SECONDS.toMillis(3));
+
+        // Far checks may be late by a minute at most
+        assertEquals(OTPConstants.REALTIME_SERVICE_MAX_ALARM_WINDOW,
+                RealtimeService.getCheckWindow(NOW, NOW + TimeUnit.HOURS.toMillis(3)));
+        assertEquals(0, RealtimeService.getCheckWindow(NOW, NOW));
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.FeedCache;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.request.survey.model.StudyResponse;
+import org.onebusaway.android.io.request.weather.models.ObaWeatherResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the weather and study feeds are shared through FeedCache, counting the requests
+ * made to local stand-ins of their endpoints as the screens showing them are recreated
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeedCacheTest {
+
+    private static final String REGION = "1";
+
+    private static final String OTHER_REGION = "2";
+
+    private static final String WEATHER_JSON = "{\"current_forecast\":{\"icon\":\"clear-day\","
+            + "\"summary\":\"Clear\",\"temperature\":%d},\"region_identifier\":1}";
+
+    private static final String STUDIES_JSON = "{\"surveys\":[{\"id\":1,\"name\":\"Survey\","
+            + "\"show_on_stops\":true,\"questions\":[]}]}";
+
+    private File mDirectory;
+
+    // Runs the background downloads when the test asks for it
+    private final List<Runnable> mBackground = new ArrayList<>();
+
+    private final Executor mExecutor = mBackground::add;
+
+    private final Endpoint<ObaWeatherResponse> mWeather = new Endpoint<>(
+            ObaWeatherResponse.class);
+
+    private final Endpoint<StudyResponse> mStudies = new Endpoint<>(StudyResponse.class);
+
+    /**
+     * Stands in for an endpoint of the sidecar server, and counts the requests made to it
+     */
+    private static class Endpoint<T> implements FeedCache.Fetcher<T> {
+
+        private final Class<T> mClass;
+
+        String mJson;
+
+        int mRequests;
+
+        boolean mOffline;
+
+        Endpoint(Class<T> cls) {
+            mClass = cls;
+        }
+
+        @Override
+        public T fetch(Writer json) {
+            mRequests++;
+            if (mOffline) {
+                return null;
+            }
+            try {
+                json.write(mJson);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return ObaApi.getSerializer(mClass).deserializeFromResponse(mJson, mClass);
+        }
+    }
+
+    @Before
+    public void before() {
+        mDirectory = new File(getTargetContext().getCacheDir(), "feed-cache-test");
+        FileUtils.deleteQuietly(mDirectory);
+        mWeather.mJson = String.format(WEATHER_JSON, 70);
+        mStudies.mJson = STUDIES_JSON;
+    }
+
+    @After
+    public void after() {
+        FileUtils.deleteQuietly(mDirectory);
+    }
+
+    @Test
+    public void testSharedAcrossRecreation() {
+        FeedCache cache = new FeedCache(mDirectory, mExecutor);
+
+        // The home screen shows the weather and the studies, and is recreated
+        for (int i = 0; i < 3; i++) {
+            ObaWeatherResponse weather = cache.get(FeedCache.WEATHER, REGION, mWeather);
+            assertEquals(70.0, weather.getCurrent_forecast().getTemperature());
+            StudyResponse studies = cache.get(FeedCache.STUDIES, REGION, mStudies);
+            assertEquals(1, studies.getSurveys().size());
+        }
+        // A stop shows the studies too
+        cache.get(FeedCache.STUDIES, REGION, mStudies);
+        assertEquals(1, mWeather.mRequests);
+        assertEquals(1, mStudies.mRequests);
+
+        // The app is restarted, so the responses are read from disk
+        cache = new FeedCache(mDirectory, mExecutor);
+        assertEquals(70.0, cache.get(FeedCache.WEATHER, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+        assertNotNull(cache.get(FeedCache.STUDIES, REGION, mStudies));
+        assertEquals(1, mWeather.mRequests);
+        assertEquals(1, mStudies.mRequests);
+        assertTrue(mBackground.isEmpty());
+
+        // Responses are kept by region
+        cache.get(FeedCache.WEATHER, OTHER_REGION, mWeather);
+        assertEquals(2, mWeather.mRequests);
+    }
+
+    @Test
+    public void testCallersGetCopies() {
+        FeedCache cache = new FeedCache(mDirectory, mExecutor);
+        StudyResponse first = cache.get(FeedCache.STUDIES, REGION, mStudies);
+
+        // A caller changing its response, like SurveyManager removing the hero question, doesn't
+        // change the responses of the next callers
+        first.getSurveys().remove(0);
+        for (int i = 0; i < 2; i++) {
+            StudyResponse next = cache.get(FeedCache.STUDIES, REGION, mStudies);
+            assertNotSame(first, next);
+            assertEquals(1, next.getSurveys().size());
+            next.getSurveys().remove(0);
+        }
+        assertEquals(1, mStudies.mRequests);
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() {
+        FeedCache.Feed<ObaWeatherResponse> feed = new FeedCache.Feed<ObaWeatherResponse>(
+                "weather", ObaWeatherResponse.class, 0, TimeUnit.HOURS.toMillis(1)) {
+            @Override
+            protected boolean isValid(ObaWeatherResponse response) {
+                return response.getCurrent_forecast() != null;
+            }
+        };
+        FeedCache cache = new FeedCache(mDirectory, mExecutor);
+        cache.get(feed, REGION, mWeather);
+        assertEquals(1, mWeather.mRequests);
+
+        // The stale response is returned right away, and downloaded again once in the background
+        mWeather.mJson = String.format(WEATHER_JSON, 80);
+        assertEquals(70.0, cache.get(feed, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+        assertEquals(70.0, cache.get(feed, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+        assertEquals(1, mWeather.mRequests);
+        assertEquals(1, mBackground.size());
+        mBackground.remove(0).run();
+        assertEquals(2, mWeather.mRequests);
+
+        // The next screen gets the new response, also after a restart
+        assertEquals(80.0, cache.get(feed, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+        assertEquals(80.0, new FeedCache(mDirectory, mExecutor).get(feed, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+
+        // A failed download keeps the stale response
+        mWeather.mOffline = true;
+        assertEquals(2, mBackground.size());
+        while (!mBackground.isEmpty()) {
+            mBackground.remove(0).run();
+        }
+        assertEquals(4, mWeather.mRequests);
+        assertEquals(80.0, cache.get(feed, REGION, mWeather)
+                .getCurrent_forecast().getTemperature());
+    }
+
+    @Test
+    public void testTooOld() {
+        FeedCache.Feed<StudyResponse> feed = new FeedCache.Feed<StudyResponse>("studies",
+                StudyResponse.class, 0, 0) {
+            @Override
+            protected boolean isValid(StudyResponse response) {
+                return response.getSurveys() != null;
+            }
+        };
+        FeedCache cache = new FeedCache(mDirectory, mExecutor);
+        cache.get(feed, REGION, mStudies);
+
+        // Responses older than the maximum age are downloaded before returning
+        assertNotNull(cache.get(feed, REGION, mStudies));
+        assertEquals(2, mStudies.mRequests);
+        assertTrue(mBackground.isEmpty());
+
+        // ...and aren't returned if the download fails
+        mStudies.mOffline = true;
+        assertNull(cache.get(feed, REGION, mStudies));
+        assertEquals(3, mStudies.mRequests);
+
+        // Errors aren't stored
+        mStudies.mOffline = false;
+        mStudies.mJson = "{\"code\":500}";
+        assertNull(cache.get(feed, OTHER_REGION, mStudies));
+        assertNull(new FeedCache(mDirectory, mExecutor).get(feed, OTHER_REGION, mStudies));
+        assertEquals(5, mStudies.mRequests);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ObaConnectionFactory;
+import org.onebusaway.android.io.RouteRepository;
+import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
+
+import android.net.Uri;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the stop list and the map of a route share the stops-for-route responses of
+ * RouteRepository, counting the requests made as the screens are opened, rotated and navigated
+ * back to
+ */
+public class RouteRepositoryTest extends ObaTestCase {
+
+    private static final String ROUTE_ID = "1_44";
+
+    private File mDirectory;
+
+    private final AtomicInteger mRequests = new AtomicInteger();
+
+    private volatile boolean mOffline = false;
+
+    @Before
+    @Override
+    public void before() {
+        super.before();
+        mDirectory = new File(getTargetContext().getCacheDir(), "route-repository-test");
+        FileUtils.deleteQuietly(mDirectory);
+
+        // Count the requests sent to the mock server
+        final ObaConnectionFactory mock = ObaApi.getDefaultContext().getConnectionFactory();
+        ObaApi.getDefaultContext().setConnectionFactory(new ObaConnectionFactory() {
+            @Override
+            public ObaConnection newConnection(Uri uri) throws IOException {
+                mRequests.incrementAndGet();
+                if (mOffline) {
+                    throw new IOException("Offline");
+                }
+                return mock.newConnection(uri);
+            }
+        });
+    }
+
+    @After
+    @Override
+    public void after() {
+        FileUtils.deleteQuietly(mDirectory);
+        super.after();
+    }
+
+    @Test
+    public void testSharedAcrossScreens() {
+        RouteRepository repository = new RouteRepository(mDirectory, RouteRepository.TTL);
+
+        // Open the stop list of the route, and rotate the device
+        ObaStopsForRouteResponse list = getStops(repository, false);
+        assertEquals(0, list.getShapes().length);
+        assertEquals(1, mRequests.get());
+        getStops(repository, false);
+        assertEquals(1, mRequests.get());
+
+        // Open the map of the route, which needs the shapes, and rotate the device
+        ObaStopsForRouteResponse map = getStops(repository, true);
+        assertTrue(map.getShapes().length > 0);
+        assertEquals(2, mRequests.get());
+        assertTrue(getStops(repository, true) == map);
+        assertEquals(2, mRequests.get());
+
+        // Go back to the stop list, which is satisfied by the response with shapes
+        assertTrue(getStops(repository, false) == map);
+        assertEquals(list.getStops().size(), map.getStops().size());
+        assertEquals(2, mRequests.get());
+    }
+
+    @Test
+    public void testStoredOnDisk() {
+        getStops(new RouteRepository(mDirectory, RouteRepository.TTL), true);
+        assertEquals(1, mRequests.get());
+
+        // The process was restarted, so the responses are read from disk
+        RouteRepository repository = new RouteRepository(mDirectory, RouteRepository.TTL);
+        ObaStopsForRouteResponse map = getStops(repository, true);
+        assertTrue(map.getShapes().length > 0);
+        assertTrue(map.getShapes()[0].getPoints().size() > 0);
+        getStops(repository, false);
+        assertEquals(1, mRequests.get());
+    }
+
+    @Test
+    public void testExpired() {
+        getStops(new RouteRepository(mDirectory, RouteRepository.TTL), true);
+        assertEquals(1, mRequests.get());
+
+        // Expired responses are downloaded again
+        RouteRepository repository = new RouteRepository(mDirectory, 0);
+        getStops(repository, true);
+        assertEquals(2, mRequests.get());
+
+        // ...but still used if the download fails
+        mOffline = true;
+        ObaStopsForRouteResponse map = getStops(repository, true);
+        assertEquals(3, mRequests.get());
+        assertTrue(map.getShapes().length > 0);
+    }
+
+    private static ObaStopsForRouteResponse getStops(RouteRepository repository,
+            boolean includeShapes) {
+        ObaStopsForRouteResponse response = repository.getStopsForRoute(getTargetContext(),
+                ROUTE_ID, includeShapes);
+        assertOK(response);
+        return response;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onebusaway.android.io.ScheduleStore;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaRouteSchedule;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.ObaScheduleForStopRequest;
+import org.onebusaway.android.io.request.ObaScheduleForStopResponse;
+
+import android.text.format.Time;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests storing the schedules of a stop from the recorded schedule-for-stop responses in
+ * /res/raw, and building scheduled arrivals from them
+ */
+public class ScheduleStoreTest extends ObaTestCase {
+
+    private static final String STOP_ID = "1_75403";
+
+    private static final int MINUTES_AFTER = 65;
+
+    private ScheduleStore mStore;
+
+    private File mDirectory;
+
+    private ObaScheduleForStopResponse[] mDays;
+
+    private long[] mServiceDates;
+
+    // The time of the first recorded response
+    private long mNow;
+
+    // The time zone of the agency of the stop
+    private TimeZone mTimeZone;
+
+    @Before
+    @Override
+    public void before() {
+        super.before();
+        mDirectory = new File(getTargetContext().getCacheDir(), "schedule-store-test");
+        FileUtils.deleteQuietly(mDirectory);
+        mStore = new ScheduleStore(mDirectory);
+
+        Time date = new Time();
+        date.year = 2012;
+        date.month = 6;
+        date.monthDay = 30;
+        mDays = new ObaScheduleForStopResponse[]{
+                new ObaScheduleForStopRequest.Builder(getTargetContext(), STOP_ID)
+                        .build()
+                        .call(),
+                new ObaScheduleForStopRequest.Builder(getTargetContext(), STOP_ID)
+                        .setDate(date)
+                        .build()
+                        .call()
+        };
+        assertOK(mDays[0]);
+        assertOK(mDays[1]);
+        mNow = mDays[0].getCurrentTime();
+        mTimeZone = ScheduleStore.getTimeZone(mDays[0]);
+        mServiceDates = new long[]{ScheduleStore.getMidnight(mNow, 0, mTimeZone),
+                ScheduleStore.getMidnight(mNow, 1, mTimeZone)};
+    }
+
+    @After
+    @Override
+    public void after() {
+        FileUtils.deleteQuietly(mDirectory);
+        super.after();
+    }
+
+    @Test
+    public void testSaveAndRead() {
+        assertNull(mStore.read(STOP_ID));
+        assertEquals(0, mStore.getCoveredUntil(STOP_ID));
+
+        assertTrue(mStore.save(STOP_ID, mServiceDates, mDays, mNow));
+        ScheduleStore.StopSchedule schedule = mStore.read(STOP_ID);
+        assertNotNull(schedule);
+        assertEquals(STOP_ID, schedule.getStopId());
+        assertEquals(mNow, schedule.getFetchedAt());
+        assertEquals(ScheduleStore.getMidnight(mNow, 2, mTimeZone), schedule.getCoveredUntil());
+        assertEquals(schedule.getCoveredUntil(), mStore.getCoveredUntil(STOP_ID));
+        assertEquals(countStopTimes(mDays[0], 0, Long.MAX_VALUE)
+                + countStopTimes(mDays[1], 0, Long.MAX_VALUE), schedule.getStopTimeCount());
+
+        // The store is more compact than the responses
+        File file = new File(mDirectory, STOP_ID + ".sched");
+        assertTrue(file.exists());
+        assertTrue(file.length() < 20 * 1024);
+    }
+
+    @Test
+    public void testScheduledArrivals() {
+        assertNull(mStore.getScheduledArrivals(STOP_ID, mNow, MINUTES_AFTER));
+        assertTrue(mStore.save(STOP_ID, mServiceDates, mDays, mNow));
+
+        ObaArrivalInfoResponse response = mStore.getScheduledArrivals(STOP_ID, mNow,
+                MINUTES_AFTER);
+        assertOK(response);
+        assertTrue(response.isScheduleOnly());
+        assertEquals(STOP_ID, response.getStop().getId());
+        assertEquals(mDays[0].getStop().getName(), response.getStop().getName());
+
+        long from = mNow - TimeUnit.MINUTES.toMillis(5);
+        long to = mNow + TimeUnit.MINUTES.toMillis(MINUTES_AFTER);
+        ObaArrivalInfo[] arrivals = response.getArrivalInfo();
+        assertEquals(countStopTimes(mDays[0], from, to) + countStopTimes(mDays[1], from, to),
+                arrivals.length);
+        assertTrue(arrivals.length > 0);
+        long last = 0;
+        for (ObaArrivalInfo arrival : arrivals) {
+            assertEquals(STOP_ID, arrival.getStopId());
+            assertFalse(arrival.getPredicted());
+            assertTrue(arrival.getScheduledDepartureTime() >= from);
+            assertTrue(arrival.getScheduledDepartureTime() <= to);
+            assertTrue(arrival.getScheduledDepartureTime() >= last);
+            last = arrival.getScheduledDepartureTime();
+            assertFalse(arrival.getHeadsign() == null || arrival.getHeadsign().isEmpty());
+            assertEquals(mServiceDates[0], arrival.getServiceDate());
+
+            ObaRoute route = response.getRefs().getRoute(arrival.getRouteId());
+            assertNotNull(route);
+            ObaRoute recorded = mDays[0].getRoute(arrival.getRouteId());
+            assertEquals(recorded.getShortName(), route.getShortName());
+            assertEquals(recorded.getShortName(), arrival.getShortName());
+            assertEquals(recorded.getColor(), route.getColor());
+            assertEquals(recorded.getAgencyId(), route.getAgencyId());
+            assertNotNull(response.getRefs().getAgency(route.getAgencyId()));
+        }
+
+        // The schedule doesn't cover the days after the ones that were downloaded
+        assertNull(mStore.getScheduledArrivals(STOP_ID,
+                ScheduleStore.getMidnight(mNow, 2, mTimeZone), MINUTES_AFTER));
+    }
+
+    @Test
+    public void testServiceDatesUseAgencyTimeZone() {
+        // The days are counted in the time zone of the agency, not the one of the device
+        assertEquals("America/Los_Angeles", mTimeZone.getID());
+        assertEquals(mDays[1].getDate(), mServiceDates[1]);
+    }
+
+    @Test
+    public void testInvalidFiles() throws Exception {
+        assertTrue(mStore.save(STOP_ID, mServiceDates, mDays, mNow));
+        File file = new File(mDirectory, STOP_ID + ".sched");
+        FileUtils.writeStringToFile(file, "not a schedule", "UTF-8");
+        assertNull(mStore.read(STOP_ID));
+        assertFalse(file.exists());
+
+        assertTrue(mStore.save(STOP_ID, mServiceDates, mDays, mNow));
+        mStore.retain(Collections.singleton(STOP_ID));
+        assertNotNull(mStore.read(STOP_ID));
+        mStore.retain(Collections.<String>emptySet());
+        assertNull(mStore.read(STOP_ID));
+    }
+
+    private static int countStopTimes(ObaScheduleForStopResponse response, long from, long to) {
+        int count = 0;
+        for (ObaRouteSchedule route : response.getRouteSchedules()) {
+            if (response.getRoute(route.getRouteId()) == null) {
+                continue;
+            }
+            for (ObaRouteSchedule.Direction direction : route.getDirectionSchedules()) {
+                for (ObaRouteSchedule.Time time : direction.getStopTimes()) {
+                    if (time.getDepartureTime() >= from && time.getDepartureTime() <= to) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
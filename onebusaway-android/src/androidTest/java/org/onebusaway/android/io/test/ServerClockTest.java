@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.ServerClock;
+import org.onebusaway.android.util.CountdownTicker;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the estimate of the time of the server with the clocks of the device skewed and drifting
+ */
+@RunWith(AndroidJUnit4.class)
+public class ServerClockTest {
+
+    private static final long SERVER_START = 1700000000000L;
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final long SKEW = -TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Clocks of the device that only move when the test moves them
+     */
+    private static class FakeClock implements ServerClock.Clock {
+
+        long mWallTime;
+
+        long mElapsed;
+
+        @Override
+        public long currentTimeMillis() {
+            return mWallTime;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return mElapsed;
+        }
+
+        void advance(long ms) {
+            mWallTime += ms;
+            mElapsed += ms;
+        }
+    }
+
+    private FakeClock mDevice;
+
+    private ServerClock mClock;
+
+    @Before
+    public void before() {
+        mDevice = new FakeClock();
+        // The device is 5 minutes late
+        mDevice.mWallTime = SERVER_START + SKEW;
+        mDevice.mElapsed = 1000;
+        mClock = new ServerClock(mDevice);
+    }
+
+    @Test
+    public void testDeviceTimeUntilSynchronized() {
+        assertFalse(mClock.isSynchronized());
+        assertTrue(mClock.needsSync());
+        assertEquals(mDevice.mWallTime, mClock.currentTimeMillis());
+        assertEquals(0, mClock.getOffset());
+    }
+
+    @Test
+    public void testSkewedDeviceClock() {
+        // The server reads its clock half way through a round trip of 200ms
+        long requestTime = mDevice.mElapsed;
+        mDevice.advance(100);
+        long serverTime = SERVER_START + 100;
+        mDevice.advance(100);
+        mClock.onServerTime(serverTime, requestTime, mDevice.mElapsed);
+
+        assertTrue(mClock.isSynchronized());
+        assertFalse(mClock.needsSync());
+        assertEquals(SERVER_START + 200, mClock.currentTimeMillis());
+        assertEquals(-SKEW, mClock.getOffset());
+
+        // The estimate follows the monotonic clock, not the time of the device
+        mDevice.mWallTime += TimeUnit.HOURS.toMillis(1);
+        mDevice.mElapsed += MINUTE;
+        assertEquals(SERVER_START + 200 + MINUTE, mClock.currentTimeMillis());
+
+        mDevice.mElapsed += ServerClock.SYNC_INTERVAL;
+        assertTrue(mClock.needsSync());
+    }
+
+    @Test
+    public void testErrorBoundedByHalfTheRoundTrip() {
+        // The server reads its clock as soon as it receives the request
+        long requestTime = mDevice.mElapsed;
+        long serverTime = SERVER_START;
+        mDevice.advance(800);
+        mClock.onServerTime(serverTime, requestTime, mDevice.mElapsed);
+
+        long actual = SERVER_START + 800;
+        assertTrue(Math.abs(mClock.currentTimeMillis() - actual) <= 400);
+    }
+
+    @Test
+    public void testSlowResponsesAreIgnored() {
+        long requestTime = mDevice.mElapsed;
+        mDevice.advance(TimeUnit.SECONDS.toMillis(20));
+        mClock.onServerTime(SERVER_START, requestTime, mDevice.mElapsed);
+        assertFalse(mClock.isSynchronized());
+
+        mClock.onServerTime(0, mDevice.mElapsed, mDevice.mElapsed);
+        assertFalse(mClock.isSynchronized());
+    }
+
+    @Test
+    public void testDriftingDeviceClock() {
+        // The monotonic clock of the device runs 1% slower than the clock of the server
+        long serverTime = SERVER_START;
+        mClock.onServerTime(serverTime, mDevice.mElapsed, mDevice.mElapsed);
+
+        for (int i = 0; i < 20; i++) {
+            mDevice.advance(MINUTE);
+            serverTime += MINUTE + MINUTE / 100;
+            mClock.onServerTime(serverTime, mDevice.mElapsed, mDevice.mElapsed);
+        }
+        // Without the samples, the estimate would be 12s late
+        assertTrue(Math.abs(mClock.currentTimeMillis() - serverTime) < 1000);
+
+        // An estimate that wasn't refreshed for a long time is replaced by the next sample
+        mDevice.advance(TimeUnit.HOURS.toMillis(1));
+        serverTime += TimeUnit.HOURS.toMillis(1) + TimeUnit.HOURS.toMillis(1) / 100;
+        mClock.onServerTime(serverTime, mDevice.mElapsed, mDevice.mElapsed);
+        assertEquals(serverTime, mClock.currentTimeMillis());
+    }
+
+    @Test
+    public void testDelayToNextTick() {
+        assertEquals(MINUTE + 50, CountdownTicker.getDelayToNextTick(SERVER_START / MINUTE
+                * MINUTE));
+        assertEquals(50 + 50, CountdownTicker.getDelayToNextTick(SERVER_START / MINUTE * MINUTE
+                + MINUTE - 50));
+    }
+}
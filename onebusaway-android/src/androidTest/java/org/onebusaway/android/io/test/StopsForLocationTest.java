@@ -19,12 +19,15 @@ import org.junit.Test;
 import org.onebusaway.android.io.elements.ObaAgency;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaStopElement;
 import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
 import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
 import org.onebusaway.android.util.LocationUtils;
 
 import android.location.Location;
 
+import java.util.Arrays;
+
 import static androidx.test.InstrumentationRegistry.getTargetContext;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
@@ -110,5 +113,30 @@ public class StopsForLocationTest extends ObaTestCase {
         assertTrue(response.getOutOfRange());
     }
 
+    @Test
+    public void testRouteTypes() {
+        final Location pt = LocationUtils.makeLocation(47.610980, -122.33845);
+
+        ObaStopsForLocationResponse response =
+                new ObaStopsForLocationRequest.Builder(getTargetContext(), pt)
+                        .build()
+                        .call();
+        assertOK(response);
+        final ObaStop[] list = response.getStops();
+        assertTrue(list.length > 0);
+        assertEquals(0, list[0].getRouteTypes());
+
+        ObaStopElement.setRouteTypes(Arrays.asList(list), response.getRoutes());
+        for (ObaStop stop : list) {
+            int routeTypes = 0;
+            for (String routeId : stop.getRouteIds()) {
+                routeTypes |= 1 << response.getRoute(routeId).getType();
+            }
+            assertEquals(stop.getId(), routeTypes, stop.getRouteTypes());
+        }
+        // Buses serve the first stop
+        assertTrue((list[0].getRouteTypes() & (1 << ObaRoute.TYPE_BUS)) != 0);
+    }
+
     // TODO: Span & radius
 }
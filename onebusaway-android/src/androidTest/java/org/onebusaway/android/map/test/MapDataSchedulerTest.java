@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.map.MapDataScheduler;
+import org.onebusaway.android.util.test.ManualSchedulerClock;
+
+import android.content.Context;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.loader.content.AsyncTaskLoader;
+import androidx.loader.content.Loader;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Counts how many times a map data loader is executed while the camera events of scripted pans
+ * are fed to a MapDataScheduler.
+ *
+ * The scheduler runs on a manual clock, so the pans take no real time.  Like StopMapController,
+ * each update of the scheduler passes the current viewport to an AsyncTaskLoader, which only
+ * loads a viewport it didn't load yet, and the test counts the executions of loadInBackground().
+ */
+@RunWith(AndroidJUnit4.class)
+public class MapDataSchedulerTest {
+
+    private static final long DEBOUNCE_TIME = 300;
+
+    private static final long MIN_INTERVAL = 2000;
+
+    // Time between two camera frames
+    private static final long FRAME_TIME = 16;
+
+    // Time allowed for a load on the loader's thread pool
+    private static final long LOAD_TIMEOUT = 5000;
+
+    private ManualSchedulerClock mClock;
+
+    private MapDataScheduler mScheduler;
+
+    private CountingLoader mLoader;
+
+    // Center of the map viewport, moved by the pans
+    private int mViewport = 0;
+
+    private final Semaphore mDelivered = new Semaphore(0);
+
+    private int mDeliveredCount = 0;
+
+    @Before
+    public void before() {
+        mClock = new ManualSchedulerClock();
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mLoader = new CountingLoader(getTargetContext());
+                mLoader.registerListener(0, new Loader.OnLoadCompleteListener<Integer>() {
+                    @Override
+                    public void onLoadComplete(Loader<Integer> loader, Integer viewport) {
+                        mDelivered.release();
+                    }
+                });
+                mLoader.startLoading();
+                mScheduler = new MapDataScheduler(mClock, DEBOUNCE_TIME, MIN_INTERVAL,
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                mLoader.update(mViewport);
+                            }
+                        });
+            }
+        });
+    }
+
+    @After
+    public void after() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mScheduler.cancel();
+                mLoader.reset();
+            }
+        });
+    }
+
+    @Test
+    public void testPanLoadsOnce() throws InterruptedException {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // A one second pan used to trigger a load for every frame
+                pan(1000);
+                mClock.advance(DEBOUNCE_TIME / 2);
+            }
+        });
+        assertEquals(0, mLoader.getLoadCount());
+
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mClock.advance(DEBOUNCE_TIME);
+            }
+        });
+        awaitLoads(1);
+        assertEquals(1, mScheduler.getUpdateCount());
+    }
+
+    @Test
+    public void testPansAreRateLimited() throws InterruptedException {
+        final long[] firstLoad = new long[1];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pan(200);
+                mClock.advance(DEBOUNCE_TIME);
+                firstLoad[0] = mClock.uptimeMillis();
+            }
+        });
+        awaitLoads(1);
+
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Two more short pans, within the minimum interval after the first load
+                mClock.advance(100);
+                pan(200);
+                mClock.advance(100);
+                pan(200);
+                mClock.advance(DEBOUNCE_TIME * 2);
+            }
+        });
+        // The second and third pans are coalesced into a single load, after the first one
+        assertEquals(1, mScheduler.getUpdateCount());
+        assertEquals(1, mLoader.getLoadCount());
+        assertTrue(mScheduler.isPending());
+
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mClock.advanceTo(firstLoad[0] + MIN_INTERVAL);
+            }
+        });
+        awaitLoads(2);
+        assertEquals(2, mScheduler.getUpdateCount());
+    }
+
+    @Test
+    public void testSameViewportIsNotLoadedAgain() throws InterruptedException {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pan(200);
+                mClock.advance(DEBOUNCE_TIME);
+            }
+        });
+        awaitLoads(1);
+
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // e.g., the camera is idle again after a tap that didn't move the map
+                mScheduler.requestUpdate();
+                mClock.advance(MIN_INTERVAL);
+            }
+        });
+        assertEquals(2, mScheduler.getUpdateCount());
+        assertEquals(1, mLoader.getLoadCount());
+    }
+
+    @Test
+    public void testMovingWithoutIdleDoesNotLoad() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (long t = 0; t < 500; t += FRAME_TIME) {
+                    mViewport++;
+                    mScheduler.onViewportChanging();
+                    mClock.advance(FRAME_TIME);
+                }
+                mClock.advance(DEBOUNCE_TIME * 2);
+            }
+        });
+        assertFalse(mClock.hasPending());
+        assertEquals(0, mScheduler.getUpdateCount());
+        assertEquals(0, mLoader.getLoadCount());
+    }
+
+    @Test
+    public void testCancel() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pan(200);
+                mClock.advance(DEBOUNCE_TIME / 2);
+                mScheduler.cancel();
+                mClock.advance(DEBOUNCE_TIME * 2);
+            }
+        });
+        assertFalse(mScheduler.isPending());
+        assertEquals(0, mScheduler.getUpdateCount());
+        assertEquals(0, mLoader.getLoadCount());
+    }
+
+    /**
+     * Feeds the camera events of a pan to the scheduler - a camera move for each frame, and
+     * camera idle at the end.  Must be called on the main thread.
+     *
+     * @param duration duration of the pan, in milliseconds
+     */
+    private void pan(long duration) {
+        for (long t = 0; t < duration; t += FRAME_TIME) {
+            mViewport++;
+            mScheduler.onViewportChanging();
+            mClock.advance(FRAME_TIME);
+        }
+        mScheduler.requestUpdate();
+    }
+
+    /**
+     * Waits until the given total number of loads were delivered, and checks that the loader
+     * didn't run more loads than that
+     */
+    private void awaitLoads(int count) throws InterruptedException {
+        int delivered = count - mDeliveredCount;
+        assertTrue(mDelivered.tryAcquire(delivered, LOAD_TIMEOUT, TimeUnit.MILLISECONDS));
+        mDeliveredCount = count;
+        assertEquals(count, mLoader.getLoadCount());
+    }
+
+    private static void runOnMainSync(Runnable r) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(r);
+    }
+
+    /**
+     * Loads the viewport it's updated with, like StopMapController's stops loaders, and counts
+     * its loads
+     */
+    private static class CountingLoader extends AsyncTaskLoader<Integer> {
+
+        private final AtomicInteger mLoads = new AtomicInteger();
+
+        private Integer mRequest;
+
+        CountingLoader(Context context) {
+            super(context);
+        }
+
+        @Override
+        public Integer loadInBackground() {
+            mLoads.incrementAndGet();
+            return mRequest;
+        }
+
+        @Override
+        protected void onStartLoading() {
+            if (takeContentChanged()) {
+                forceLoad();
+            }
+        }
+
+        int getLoadCount() {
+            return mLoads.get();
+        }
+
+        void update(int viewport) {
+            if (mRequest != null && mRequest.intValue() == viewport) {
+                // This viewport is already loading (or loaded)
+                return;
+            }
+            mRequest = viewport;
+            onContentChanged();
+        }
+    }
+}
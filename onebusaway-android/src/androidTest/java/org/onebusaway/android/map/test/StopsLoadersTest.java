@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map.test;
+
+import org.junit.Test;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaReferences;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.map.MapModeController;
+import org.onebusaway.android.map.StopMapController;
+import org.onebusaway.android.map.StopsRequest;
+import org.onebusaway.android.map.StopsResponse;
+import org.onebusaway.android.util.LocationUtils;
+import org.opentripplanner.routing.bike_rental.BikeRentalStation;
+
+import android.app.Activity;
+import android.location.Location;
+import android.os.Bundle;
+import android.view.View;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import androidx.loader.content.Loader;
+
+import static androidx.test.InstrumentationRegistry.getInstrumentation;
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the loaders of StopMapController, using the recorded stops-for-location response in
+ * /res/raw for the server
+ */
+public class StopsLoadersTest extends ObaTestCase {
+
+    // Time allowed for a load on the loader's thread pool
+    private static final long LOAD_TIMEOUT = 5000;
+
+    private static final double SPAN = 0.02;
+
+    private static final float ZOOM = 16;
+
+    // The provider rounds the bounds of the viewport to 6 decimals
+    private static final double EPSILON = 1e-6;
+
+    private final BlockingQueue<StopsResponse> mDelivered = new LinkedBlockingQueue<>();
+
+    private final Loader.OnLoadCompleteListener<StopsResponse> mListener =
+            (loader, response) -> mDelivered.add(response);
+
+    @Test
+    public void testStopsLoader() throws InterruptedException {
+        final StopsRequest viewport = makeViewport();
+        final StopMapController.StopsLoader loader = new StopMapController.StopsLoader(
+                getTargetContext(), new StubCallback(), false);
+        getInstrumentation().runOnMainSync(() -> {
+            loader.registerListener(0, mListener);
+            loader.startLoading();
+            loader.update(viewport);
+        });
+        StopsResponse response = mDelivered.poll(LOAD_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(response);
+        assertSame(viewport, response.getRequest());
+        assertEquals(ObaApi.OBA_OK, response.getResponse().getCode());
+        assertTrue(response.getResponse().getStops().length > 0);
+
+        // The same viewport doesn't need another request, but a zoomed out one does
+        assertTrue(loader.fulfills(makeViewport()));
+        assertFalse(loader.fulfills(new StopsRequest(viewport.getCenter(), SPAN * 2, SPAN * 2,
+                ZOOM - 1)));
+        getInstrumentation().runOnMainSync(loader::reset);
+    }
+
+    @Test
+    public void testPrefetchedStopsAreUsed() throws InterruptedException {
+        final StopMapController.StopsLoader prefetchLoader = new StopMapController.StopsLoader(
+                getTargetContext(), new StubCallback(), true);
+        getInstrumentation().runOnMainSync(() -> {
+            prefetchLoader.registerListener(0, mListener);
+            prefetchLoader.startLoading();
+            prefetchLoader.update(makeViewport());
+        });
+        final StopsResponse prefetched = mDelivered.poll(LOAD_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(prefetched);
+
+        // The map stops within the prefetched area, so its stops are shown without a request
+        final StopMapController.StopsLoader loader = new StopMapController.StopsLoader(
+                getTargetContext(), new StubCallback(), false);
+        getInstrumentation().runOnMainSync(() -> {
+            loader.registerListener(0, mListener);
+            loader.startLoading();
+            loader.setPrefetchedResponse(prefetched);
+            loader.update(makeViewport());
+        });
+        assertSame(prefetched, mDelivered.poll());
+        getInstrumentation().runOnMainSync(() -> {
+            prefetchLoader.reset();
+            loader.reset();
+        });
+    }
+
+    @Test
+    public void testStopsCacheLoader() throws InterruptedException {
+        // Stores the stops of the viewport in the provider
+        StopMapController.StopsLoader loader = new StopMapController.StopsLoader(
+                getTargetContext(), new StubCallback(), false);
+        getInstrumentation().runOnMainSync(() -> loader.update(makeViewport()));
+        StopsResponse response = loader.loadInBackground();
+        assertEquals(ObaApi.OBA_OK, response.getResponse().getCode());
+
+        final StopsRequest viewport = makeViewport();
+        final StopMapController.StopsCacheLoader cacheLoader =
+                new StopMapController.StopsCacheLoader(getTargetContext(), new StubCallback());
+        getInstrumentation().runOnMainSync(() -> {
+            cacheLoader.registerListener(0, mListener);
+            cacheLoader.startLoading();
+            cacheLoader.update(viewport);
+        });
+        StopsResponse cached = mDelivered.poll(LOAD_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(cached);
+        assertSame(viewport, cached.getRequest());
+        ObaStop[] stops = cached.getResponse().getStops();
+        assertTrue(stops.length > 0);
+        for (ObaStop stop : stops) {
+            assertTrue(Math.abs(stop.getLatitude() - viewport.getCenter().getLatitude())
+                    <= SPAN / 2 + EPSILON);
+            assertTrue(Math.abs(stop.getLongitude() - viewport.getCenter().getLongitude())
+                    <= SPAN / 2 + EPSILON);
+        }
+        getInstrumentation().runOnMainSync(cacheLoader::reset);
+    }
+
+    /**
+     * @return the viewport of the recorded response for downtown Seattle
+     */
+    private static StopsRequest makeViewport() {
+        return new StopsRequest(LocationUtils.makeLocation(47.61098, -122.33845), SPAN, SPAN,
+                ZOOM);
+    }
+
+    /**
+     * The loaders only tell the map to show their progress
+     */
+    private static class StubCallback implements MapModeController.Callback {
+
+        @Override
+        public Activity getActivity() {
+            return null;
+        }
+
+        @Override
+        public View getView() {
+            return null;
+        }
+
+        @Override
+        public void showProgress(boolean show) {
+        }
+
+        @Override
+        public String getMapMode() {
+            return null;
+        }
+
+        @Override
+        public void setMapMode(String mode, Bundle args) {
+        }
+
+        @Override
+        public MapModeController.ObaMapView getMapView() {
+            return null;
+        }
+
+        @Override
+        public void showStops(List<ObaStop> stops, ObaReferences refs) {
+        }
+
+        @Override
+        public void redrawStops() {
+        }
+
+        @Override
+        public void setFocusStop(ObaStop stop) {
+        }
+
+        @Override
+        public void showBikeStations(List<BikeRentalStation> bikeStations) {
+        }
+
+        @Override
+        public void clearBikeStations() {
+        }
+
+        @Override
+        public boolean setMyLocation(boolean useDefaultZoom, boolean animateToLocation) {
+            return false;
+        }
+
+        @Override
+        public void notifyOutOfRange() {
+        }
+
+        @Override
+        public void zoomToRegion() {
+        }
+
+        @Override
+        public Location getSouthWest() {
+            return null;
+        }
+
+        @Override
+        public Location getNorthEast() {
+            return null;
+        }
+    }
+}
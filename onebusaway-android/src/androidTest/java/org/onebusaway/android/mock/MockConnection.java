@@ -23,6 +23,7 @@ import android.util.Log;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.net.HttpURLConnection;
 
@@ -62,6 +63,17 @@ public class MockConnection implements ObaConnection {
         return Resources.read(mContext, Resources.getTestUri(response));
     }
 
+    @Override
+    public InputStream getInputStream() throws IOException {
+        Log.d(TAG, "Get URI: " + mUri);
+        String response = mUriMap.getUri(mUri);
+        if ("__404__".equals(response)) {
+            mResponseCode = HttpURLConnection.HTTP_NOT_FOUND;
+            throw new FileNotFoundException();
+        }
+        return mContext.getContentResolver().openInputStream(Resources.getTestUri(response));
+    }
+
     @Override
     public Reader post(String string) throws IOException {
         throw new RuntimeException("Not implemented");
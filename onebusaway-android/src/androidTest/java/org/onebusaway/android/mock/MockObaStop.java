@@ -96,6 +96,11 @@ public class MockObaStop {
             return routes;
         }
 
+        @Override
+        public int getRouteTypes() {
+            return 0;
+        }
+
         @Override
         public String getId() {
             return "Hillsborough Area Regional Transit_26";
@@ -97,6 +97,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -139,6 +140,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -181,6 +183,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -223,6 +226,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -265,6 +269,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -307,6 +312,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -347,6 +353,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 
@@ -387,6 +394,7 @@ public class MockRegion {
                 false,
                 false,
                 "https://onebusaway.co",
+                null,
                 null);
     }
 }
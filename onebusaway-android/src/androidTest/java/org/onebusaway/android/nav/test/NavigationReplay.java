@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.onebusaway.android.nav.NavigationServiceProvider;
+import org.onebusaway.android.nav.model.Path;
+import org.onebusaway.android.nav.model.PathLink;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays recorded trips through a headless NavigationServiceProvider as fast as possible.
+ * Instead of sleeping between fixes (as NavigationTest does), a virtual clock is advanced to the
+ * recorded time of each fix, so a replay is deterministic and its speed only depends on the cost
+ * of the proximity and alert logic.
+ */
+public class NavigationReplay {
+
+    private final float mGetReadyDistance;
+
+    /**
+     * @param getReadyDistance distance (in meters) from the second to last stop at which the
+     *                         "Get Ready" alert should be triggered
+     */
+    public NavigationReplay(float getReadyDistance) {
+        mGetReadyDistance = getReadyDistance;
+    }
+
+    public NavigationReplay() {
+        this(NavigationServiceProvider.DISTANCE_THRESHOLD);
+    }
+
+    /**
+     * Replays a single trace through a new NavigationServiceProvider
+     *
+     * @param trace trace to replay
+     * @return the alerts triggered by the trace and the time spent processing each fix
+     */
+    public Result replay(NavigationTrace trace) {
+        NavigationServiceProvider provider = new NavigationServiceProvider(trace.getTripId(),
+                trace.getDestinationId(), true);
+        Location[] locations = trace.getLocations();
+        long[] times = trace.getTimes();
+        Result result = new Result(trace, locations.length);
+
+        PathLink link = new PathLink(locations.length > 0 ? locations[0].getTime() : 0L, null,
+                trace.getSecondToLastLocation(), trace.getDestinationLocation(),
+                trace.getTripId());
+        provider.navigate(new Path(new ArrayList<>(Collections.singletonList(link))));
+        provider.setGetReadyDistance(mGetReadyDistance);
+
+        Location prevLocation = null;
+        for (int i = 0; i < locations.length && !provider.getFinished(); i++) {
+            Location l = locations[i];
+            result.mVirtualTime = times[i];
+
+            // Skip duplicate fixes in the recorded logs, like NavigationTest
+            if (prevLocation == null || !LocationUtils.isDuplicate(prevLocation, l)) {
+                long start = System.nanoTime();
+                provider.locationUpdated(l);
+                result.mFixNanos[result.mFixCount++] = System.nanoTime() - start;
+            }
+            prevLocation = l;
+
+            if (provider.getGetReady() && result.mGetReadyIndex == NavigationTrace.UNKNOWN_INDEX) {
+                result.mGetReadyIndex = i;
+                result.mGetReadyTime = result.mVirtualTime;
+            }
+            if (provider.getFinished()) {
+                result.mPullCordIndex = i;
+                result.mPullCordTime = result.mVirtualTime;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replays all of the provided traces in parallel using one thread per available processor
+     *
+     * @param traces traces to replay
+     * @return the results, in the same order as the provided traces
+     */
+    public List<Result> replayAll(List<NavigationTrace> traces)
+            throws InterruptedException, ExecutionException {
+        int threads = Math.min(Math.max(1, traces.size()),
+                Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(traces.size());
+            for (final NavigationTrace trace : traces) {
+                futures.add(executor.submit(() -> replay(trace)));
+            }
+            List<Result> results = new ArrayList<>(traces.size());
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds a human-readable report of the alert accuracy and per-fix processing latency for the
+     * provided results
+     */
+    public static String report(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("trace\tgetReady(idx,m,ms)\tpullCord(idx,m,ms)\tfixes\tp50us\tp99us\tmaxus\n");
+        for (Result r : results) {
+            sb.append(String.format(Locale.US, "%s\t%d,%.1f,%d\t%d,%.1f,%d\t%d\t%.1f\t%.1f\t%.1f\n",
+                    r.getTrace().getName(),
+                    r.getGetReadyIndex(), r.getGetReadyDistanceError(), r.getGetReadyTimeError(),
+                    r.getPullCordIndex(), r.getPullCordDistanceError(), r.getPullCordTimeError(),
+                    r.getFixCount(),
+                    r.getFixLatencyPercentile(50) / 1000d,
+                    r.getFixLatencyPercentile(99) / 1000d,
+                    r.getFixLatencyPercentile(100) / 1000d));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Outcome of replaying a single trace.  Distance errors are the distance (in meters) between
+     * the fix where an alert was triggered and the fix where it was expected, and time errors are
+     * the (signed) difference in milliseconds between them - negative values mean the alert was
+     * triggered early.  Errors are NaN (distance) or 0 (time) if the alert wasn't triggered or
+     * the trace doesn't define where it was expected.
+     */
+    public static class Result {
+
+        private final NavigationTrace mTrace;
+
+        private final long[] mFixNanos;
+
+        private int mFixCount = 0;
+
+        private long mVirtualTime = 0;
+
+        private int mGetReadyIndex = NavigationTrace.UNKNOWN_INDEX;
+
+        private long mGetReadyTime = 0;
+
+        private int mPullCordIndex = NavigationTrace.UNKNOWN_INDEX;
+
+        private long mPullCordTime = 0;
+
+        private long[] mSortedFixNanos;
+
+        Result(NavigationTrace trace, int numLocations) {
+            mTrace = trace;
+            mFixNanos = new long[numLocations];
+        }
+
+        public NavigationTrace getTrace() {
+            return mTrace;
+        }
+
+        public int getGetReadyIndex() {
+            return mGetReadyIndex;
+        }
+
+        public int getPullCordIndex() {
+            return mPullCordIndex;
+        }
+
+        public float getGetReadyDistanceError() {
+            return distanceError(mGetReadyIndex, mTrace.getExpectedGetReadyIndex());
+        }
+
+        public float getPullCordDistanceError() {
+            return distanceError(mPullCordIndex, mTrace.getExpectedPullCordIndex());
+        }
+
+        public long getGetReadyTimeError() {
+            return timeError(mGetReadyIndex, mGetReadyTime, mTrace.getExpectedGetReadyIndex());
+        }
+
+        public long getPullCordTimeError() {
+            return timeError(mPullCordIndex, mPullCordTime, mTrace.getExpectedPullCordIndex());
+        }
+
+        /**
+         * @return the number of fixes that were passed to the NavigationServiceProvider
+         */
+        public int getFixCount() {
+            return mFixCount;
+        }
+
+        /**
+         * @param percentile percentile between 0 and 100
+         * @return the time (in nanoseconds) the NavigationServiceProvider spent processing a fix
+         * at the given percentile
+         */
+        public long getFixLatencyPercentile(int percentile) {
+            if (mFixCount == 0) {
+                return 0;
+            }
+            if (mSortedFixNanos == null) {
+                mSortedFixNanos = Arrays.copyOf(mFixNanos, mFixCount);
+                Arrays.sort(mSortedFixNanos);
+            }
+            int index = (int) Math.ceil(percentile / 100d * mFixCount) - 1;
+            return mSortedFixNanos[Math.max(0, Math.min(mFixCount - 1, index))];
+        }
+
+        private float distanceError(int actualIndex, int expectedIndex) {
+            if (actualIndex == NavigationTrace.UNKNOWN_INDEX
+                    || expectedIndex == NavigationTrace.UNKNOWN_INDEX) {
+                return Float.NaN;
+            }
+            return mTrace.getLocations()[actualIndex]
+                    .distanceTo(mTrace.getLocations()[expectedIndex]);
+        }
+
+        private long timeError(int actualIndex, long actualTime, int expectedIndex) {
+            if (actualIndex == NavigationTrace.UNKNOWN_INDEX
+                    || expectedIndex == NavigationTrace.UNKNOWN_INDEX) {
+                return 0;
+            }
+            return actualTime - mTrace.getTimes()[expectedIndex];
+        }
+    }
+}
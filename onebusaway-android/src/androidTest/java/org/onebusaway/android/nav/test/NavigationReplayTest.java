@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.onebusaway.android.nav.test.NavigationTest.checkCI;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.util.Log;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.mock.Resources;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays all recorded trips used by NavigationTest through a headless NavigationServiceProvider
+ * in parallel, and reports the accuracy of the alerts and the cost of processing each fix.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NavigationReplayTest extends ObaTestCase {
+
+    private static final String TAG = "NavigationReplayTest";
+
+    private static final int MAX_TRIP_NUMBER = 40;
+
+    @Test
+    public void testReplayAllTrips() throws Exception {
+        checkCI();
+        List<NavigationTrace> traces = loadRecordedTraces();
+        assertFalse(traces.isEmpty());
+
+        List<NavigationReplay.Result> results = new NavigationReplay().replayAll(traces);
+        Log.d(TAG, NavigationReplay.report(results));
+
+        assertEquals(traces.size(), results.size());
+        for (NavigationReplay.Result r : results) {
+            NavigationTrace trace = r.getTrace();
+            assertTrue(trace.getName() + " never triggered Get Ready",
+                    r.getGetReadyIndex() != NavigationTrace.UNKNOWN_INDEX);
+            if (trace.getExpectedPullCordIndex() != NavigationTrace.UNKNOWN_INDEX) {
+                assertTrue(trace.getName() + " triggered Pull the Cord too soon",
+                        r.getPullCordIndex() == NavigationTrace.UNKNOWN_INDEX
+                                || r.getPullCordIndex() >= trace.getExpectedGetReadyIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testReplayIsDeterministic() throws IOException {
+        NavigationTrace trace = loadCsvTrace("nav_trip2c");
+        NavigationReplay replay = new NavigationReplay();
+        NavigationReplay.Result first = replay.replay(trace);
+        NavigationReplay.Result second = replay.replay(trace);
+
+        assertEquals(first.getGetReadyIndex(), second.getGetReadyIndex());
+        assertEquals(first.getPullCordIndex(), second.getPullCordIndex());
+        assertEquals(first.getFixCount(), second.getFixCount());
+    }
+
+    @Test
+    public void testGetReadyDistance() throws IOException {
+        NavigationTrace trace = loadCsvTrace("nav_trip2c");
+        NavigationReplay.Result defaultResult = new NavigationReplay().replay(trace);
+        NavigationReplay.Result widerResult = new NavigationReplay(1000).replay(trace);
+
+        // A larger "Get Ready" radius can only trigger the alert earlier in the trip
+        assertTrue(widerResult.getGetReadyIndex() <= defaultResult.getGetReadyIndex());
+    }
+
+    @Test
+    public void testGpxTrace() throws IOException {
+        String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\"><trk><trkseg>"
+                + "<trkpt lat=\"28.0500\" lon=\"-82.4139\"><ele>0</ele><time>2015-12-01T03:01:44Z</time></trkpt>"
+                + "<trkpt lat=\"28.0597\" lon=\"-82.4139\"><ele>0</ele><time>2015-12-01T03:01:54Z</time></trkpt>"
+                + "</trkseg></trk></gpx>";
+        Location destination = new Location(LocationManager.GPS_PROVIDER);
+        destination.setLatitude(28.0617);
+        destination.setLongitude(-82.4139);
+        Location secondToLast = new Location(LocationManager.GPS_PROVIDER);
+        secondToLast.setLatitude(28.0600);
+        secondToLast.setLongitude(-82.4139);
+
+        NavigationTrace trace = NavigationTrace.fromGpx("test", new StringReader(gpx),
+                destination, secondToLast);
+        assertEquals(2, trace.getLocations().length);
+        assertEquals(10000, trace.getTimes()[1]);
+
+        NavigationReplay.Result result = new NavigationReplay().replay(trace);
+        assertEquals(1, result.getGetReadyIndex());
+        assertEquals(NavigationTrace.UNKNOWN_INDEX, result.getPullCordIndex());
+        assertTrue(Float.isNaN(result.getGetReadyDistanceError()));
+    }
+
+    /**
+     * Loads all nav_tripN.csv and nav_tripNc.csv files from the test resources
+     */
+    private List<NavigationTrace> loadRecordedTraces() throws IOException {
+        List<NavigationTrace> traces = new ArrayList<>();
+        for (int i = 1; i <= MAX_TRIP_NUMBER; i++) {
+            for (String suffix : new String[]{"", "c"}) {
+                try {
+                    traces.add(loadCsvTrace("nav_trip" + i + suffix));
+                } catch (FileNotFoundException e) {
+                    // Not all trips were recorded in both a bus and a car
+                }
+            }
+        }
+        return traces;
+    }
+
+    private NavigationTrace loadCsvTrace(String name) throws IOException {
+        Reader reader = Resources.read(getTargetContext(), Resources.getTestUri(name));
+        return NavigationTrace.fromCsv(name, IOUtils.toString(reader));
+    }
+}
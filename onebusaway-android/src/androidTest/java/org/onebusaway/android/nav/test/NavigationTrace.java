@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.util.Xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * A recorded trip (GPS fixes plus the destination of the trip) that can be replayed through the
+ * NavigationServiceProvider by NavigationReplay.  Traces can be loaded from the CSV files used by
+ * NavigationTest (see DESTINATION_REMINDERS.md for the format) or from GPX tracks, such as the
+ * ones in the gpx_files directory.
+ */
+public class NavigationTrace {
+
+    /**
+     * Value of the expected alert indexes when the trace doesn't include them (e.g., GPX tracks)
+     */
+    public static final int UNKNOWN_INDEX = -1;
+
+    private final String mName;
+
+    private final String mTripId;
+
+    private final String mDestinationId;
+
+    private final Location mDestinationLocation;
+
+    private final Location mSecondToLastLocation;
+
+    private final Location[] mLocations;
+
+    // Time of each fix (in milliseconds) relative to the first fix in the trace
+    private final long[] mTimes;
+
+    private final int mExpectedGetReadyIndex;
+
+    private final int mExpectedPullCordIndex;
+
+    private NavigationTrace(String name, String tripId, String destinationId,
+            Location destinationLocation, Location secondToLastLocation, Location[] locations,
+            long[] times, int expectedGetReadyIndex, int expectedPullCordIndex) {
+        mName = name;
+        mTripId = tripId;
+        mDestinationId = destinationId;
+        mDestinationLocation = destinationLocation;
+        mSecondToLastLocation = secondToLastLocation;
+        mLocations = locations;
+        mTimes = times;
+        mExpectedGetReadyIndex = expectedGetReadyIndex;
+        mExpectedPullCordIndex = expectedPullCordIndex;
+    }
+
+    /**
+     * Parses a trace recorded by the app.  The first line contains the trip ID, destination stop
+     * ID and location, and the second to last stop ID and location.  Each following line is a
+     * fix formatted as:
+     * index,getReady,pullTheCord,realtime nanos elapsed,time,lat,lng,altitude,speed,bearing,accuracy,satellites,provider
+     *
+     * The first row where getReady (or pullTheCord) is true is used as the expected index for
+     * that alert.
+     *
+     * @param name name of the trace, used in reports
+     * @param csv  contents of the CSV file
+     * @return the parsed trace
+     */
+    public static NavigationTrace fromCsv(String name, String csv) {
+        String[] lines = csv.split("\n");
+
+        String[] details = lines[0].split(",");
+        Location destination = newLocation(Double.parseDouble(details[2]),
+                Double.parseDouble(details[3]));
+        Location secondToLast = newLocation(Double.parseDouble(details[5]),
+                Double.parseDouble(details[6]));
+
+        Location[] locations = new Location[lines.length - 1];
+        long[] nanos = new long[locations.length];
+        boolean useElapsedNanos = true;
+        int expectedGetReadyIndex = UNKNOWN_INDEX;
+        int expectedPullCordIndex = UNKNOWN_INDEX;
+
+        for (int i = 1; i < lines.length; i++) {
+            String[] values = lines[i].split(",");
+            Location l = new Location(values[12].trim());
+            l.setTime(Long.parseLong(values[4]));
+            l.setLatitude(Double.parseDouble(values[5]));
+            l.setLongitude(Double.parseDouble(values[6]));
+            l.setAltitude(Double.parseDouble(values[7]));
+            l.setSpeed(Float.parseFloat(values[8]));
+            l.setBearing(Float.parseFloat(values[9]));
+            l.setAccuracy(Float.parseFloat(values[10]));
+            locations[i - 1] = l;
+
+            if (values[3].equals("")) {
+                useElapsedNanos = false;
+            } else {
+                nanos[i - 1] = Long.parseLong(values[3]);
+            }
+            if (expectedGetReadyIndex == UNKNOWN_INDEX && Boolean.parseBoolean(values[1])) {
+                expectedGetReadyIndex = i - 1;
+            }
+            if (expectedPullCordIndex == UNKNOWN_INDEX && Boolean.parseBoolean(values[2])) {
+                expectedPullCordIndex = i - 1;
+            }
+        }
+
+        // Prefer elapsed realtime nanos (monotonic) over wall clock time, like NavigationTest
+        long[] times = new long[locations.length];
+        for (int i = 1; i < locations.length; i++) {
+            long delta;
+            if (useElapsedNanos) {
+                delta = (nanos[i] - nanos[i - 1]) / 1000000;
+            } else {
+                delta = locations[i].getTime() - locations[i - 1].getTime();
+            }
+            times[i] = times[i - 1] + Math.max(0, delta);
+        }
+
+        return new NavigationTrace(name, details[0], details[1], destination, secondToLast,
+                locations, times, expectedGetReadyIndex, expectedPullCordIndex);
+    }
+
+    /**
+     * Parses the track points of a GPX file.  GPX files don't include the trip being navigated, so
+     * the destination and second to last stop must be provided by the caller, and the expected
+     * alert indexes are unknown.
+     *
+     * @param name                 name of the trace, used in reports
+     * @param reader               reader for the GPX document
+     * @param destination          location of the destination stop
+     * @param secondToLast         location of the stop before the destination stop
+     * @return the parsed trace
+     */
+    public static NavigationTrace fromGpx(String name, Reader reader, Location destination,
+            Location secondToLast) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setInput(reader);
+            Location current = null;
+            String tag = null;
+            for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT;
+                    event = parser.next()) {
+                if (event == XmlPullParser.START_TAG) {
+                    tag = parser.getName();
+                    if ("trkpt".equals(tag)) {
+                        current = newLocation(
+                                Double.parseDouble(parser.getAttributeValue(null, "lat")),
+                                Double.parseDouble(parser.getAttributeValue(null, "lon")));
+                    }
+                } else if (event == XmlPullParser.TEXT && current != null) {
+                    String text = parser.getText().trim();
+                    if ("ele".equals(tag) && !text.isEmpty()) {
+                        current.setAltitude(Double.parseDouble(text));
+                    } else if ("time".equals(tag) && !text.isEmpty()) {
+                        current.setTime(format.parse(text).getTime());
+                    }
+                } else if (event == XmlPullParser.END_TAG) {
+                    if ("trkpt".equals(parser.getName()) && current != null) {
+                        locations.add(current);
+                        current = null;
+                    }
+                    tag = null;
+                }
+            }
+        } catch (XmlPullParserException | ParseException e) {
+            throw new IOException("Invalid GPX file " + name, e);
+        }
+
+        long[] times = new long[locations.size()];
+        for (int i = 1; i < times.length; i++) {
+            times[i] = times[i - 1] + Math.max(0,
+                    locations.get(i).getTime() - locations.get(i - 1).getTime());
+        }
+        return new NavigationTrace(name, null, null, destination, secondToLast,
+                locations.toArray(new Location[0]), times, UNKNOWN_INDEX, UNKNOWN_INDEX);
+    }
+
+    private static Location newLocation(double lat, double lng) {
+        Location l = new Location(LocationManager.GPS_PROVIDER);
+        l.setLatitude(lat);
+        l.setLongitude(lng);
+        return l;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public String getTripId() {
+        return mTripId;
+    }
+
+    public String getDestinationId() {
+        return mDestinationId;
+    }
+
+    public Location getDestinationLocation() {
+        return mDestinationLocation;
+    }
+
+    public Location getSecondToLastLocation() {
+        return mSecondToLastLocation;
+    }
+
+    public Location[] getLocations() {
+        return mLocations;
+    }
+
+    /**
+     * @return the time of each fix, in milliseconds since the first fix in the trace
+     */
+    public long[] getTimes() {
+        return mTimes;
+    }
+
+    public int getExpectedGetReadyIndex() {
+        return mExpectedGetReadyIndex;
+    }
+
+    public int getExpectedPullCordIndex() {
+        return mExpectedPullCordIndex;
+    }
+}
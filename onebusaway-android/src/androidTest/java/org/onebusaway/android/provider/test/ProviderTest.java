@@ -19,12 +19,20 @@ import org.junit.Test;
 import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.provider.ObaProvider;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.test.ProviderTestCase2;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+
 /**
  * Tests the provider that stores and reads persistent OBA data on the device
  */
@@ -149,4 +157,110 @@ public class ProviderTest extends ProviderTestCase2<ObaProvider> {
 
         c.close();
     }
+
+    @Test
+    public void testApplyBatch() throws Exception {
+        ContentResolver cr = getMockContentResolver();
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ops.add(ContentProviderOperation.newInsert(ObaContract.Stops.CONTENT_URI)
+                    .withValues(makeStop("1_" + i))
+                    .build());
+        }
+        cr.applyBatch(ObaContract.AUTHORITY, ops);
+        assertEquals(100, countStops(cr));
+
+        // If any operation fails, the whole batch is rolled back
+        ops.clear();
+        ops.add(ContentProviderOperation.newInsert(ObaContract.Stops.CONTENT_URI)
+                .withValues(makeStop("1_100"))
+                .build());
+        ops.add(ContentProviderOperation.newUpdate(
+                Uri.withAppendedPath(ObaContract.Stops.CONTENT_URI, "1_MISSING"))
+                .withValue(ObaContract.Stops.USE_COUNT, 1)
+                .withExpectedCount(1)
+                .build());
+        try {
+            cr.applyBatch(ObaContract.AUTHORITY, ops);
+            fail("Batch should have failed");
+        } catch (OperationApplicationException e) {
+            // Expected
+        }
+        assertEquals(100, countStops(cr));
+    }
+
+    @Test
+    public void testServiceAlertsBatch() {
+        ContentResolver cr = getMockContentResolver();
+        // An alert that was seen and hidden before
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.ServiceAlerts._ID, "alert_1");
+        values.put(ObaContract.ServiceAlerts.HIDDEN, 1);
+        cr.insert(ObaContract.ServiceAlerts.CONTENT_URI, values);
+
+        ObaContract.ServiceAlerts.insertIfMissing(cr,
+                Arrays.asList("alert_1", "alert_2", "alert_3"));
+
+        Cursor c = cr.query(ObaContract.ServiceAlerts.CONTENT_URI,
+                new String[]{ObaContract.ServiceAlerts._ID}, null, null, null);
+        assertNotNull(c);
+        assertEquals(3, c.getCount());
+        c.close();
+
+        // Existing alerts keep their hidden state
+        Set<String> hidden = ObaContract.ServiceAlerts.getHiddenIds(cr);
+        assertTrue(hidden.contains("alert_1"));
+        assertFalse(hidden.contains("alert_2"));
+
+        // Nothing to add
+        ObaContract.ServiceAlerts.insertIfMissing(cr, Arrays.asList("alert_2"));
+        ObaContract.ServiceAlerts.insertIfMissing(cr, new ArrayList<String>());
+        c = cr.query(ObaContract.ServiceAlerts.CONTENT_URI,
+                new String[]{ObaContract.ServiceAlerts._ID}, null, null, null);
+        assertNotNull(c);
+        assertEquals(3, c.getCount());
+        c.close();
+    }
+
+    public void testCancelledQuery() {
+        ContentResolver cr = getMockContentResolver();
+        cr.insert(ObaContract.Stops.CONTENT_URI, makeStop("1_11060-TEST"));
+
+        // The provider passes the signal to SQLite, which aborts the query
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+        try {
+            Cursor c = getProvider().query(ObaContract.Stops.CONTENT_URI,
+                    new String[]{ObaContract.Stops._ID}, null, null, null, signal);
+            if (c != null) {
+                c.close();
+            }
+            fail("The query wasn't cancelled");
+        } catch (OperationCanceledException e) {
+            // Expected
+        }
+        assertEquals(1, countStops(cr));
+    }
+
+    private static ContentValues makeStop(String stopId) {
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.Stops._ID, stopId);
+        values.put(ObaContract.Stops.CODE, stopId);
+        values.put(ObaContract.Stops.NAME, "Test stop " + stopId);
+        values.put(ObaContract.Stops.DIRECTION, "N");
+        values.put(ObaContract.Stops.USE_COUNT, 0);
+        values.put(ObaContract.Stops.LATITUDE, 47.617676);
+        values.put(ObaContract.Stops.LONGITUDE, -122.314523);
+        return values;
+    }
+
+    private static int countStops(ContentResolver cr) {
+        Cursor c = cr.query(ObaContract.Stops.CONTENT_URI,
+                new String[]{ObaContract.Stops._COUNT}, null, null, null);
+        assertNotNull(c);
+        c.moveToNext();
+        int count = c.getInt(0);
+        c.close();
+        return count;
+    }
 }
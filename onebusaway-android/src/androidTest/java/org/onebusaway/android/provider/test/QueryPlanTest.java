@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.provider.test;
+
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.provider.ObaProvider;
+import org.onebusaway.android.ui.QueryUtils;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.ProviderTestCase2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that the queries run by ObaContract and the stop and route lists search an index instead
+ * of scanning the tables, using EXPLAIN QUERY PLAN on the database created by the provider
+ */
+public class QueryPlanTest extends ProviderTestCase2<ObaProvider> {
+
+    private SQLiteDatabase mDb;
+
+    public QueryPlanTest() {
+        super(ObaProvider.class, ObaContract.AUTHORITY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // Creates the database
+        Cursor c = getMockContentResolver().query(ObaContract.Stops.CONTENT_URI,
+                new String[]{ObaContract.Stops._ID}, null, null, null);
+        assertNotNull(c);
+        c.close();
+        mDb = SQLiteDatabase.openDatabase(
+                ObaProvider.getDatabasePath(getMockContext()).getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDb.close();
+        super.tearDown();
+    }
+
+    public void testStopsAndRoutesById() {
+        assertUsesIndex("SELECT * FROM " + ObaContract.Stops.PATH
+                + " WHERE " + ObaContract.Stops._ID + "=?", "1_1");
+        assertUsesIndex("SELECT * FROM " + ObaContract.Routes.PATH
+                + " WHERE " + ObaContract.Routes._ID + "=?", "1_1");
+    }
+
+    public void testRecentStopsAndRoutes() {
+        assertUsesIndex(recentQuery(ObaContract.Stops.PATH, ObaContract.Stops.ACCESS_TIME,
+                ObaContract.Stops.USE_COUNT, ObaContract.Stops.REGION_ID));
+        assertUsesIndex(recentQuery(ObaContract.Routes.PATH, ObaContract.Routes.ACCESS_TIME,
+                ObaContract.Routes.USE_COUNT, ObaContract.Routes.REGION_ID));
+    }
+
+    public void testStarredStopsAndRoutes() {
+        assertUsesIndex("SELECT * FROM " + ObaContract.Stops.PATH
+                + " WHERE " + ObaContract.Stops.FAVORITE + "=1 AND "
+                + QueryUtils.getRegionWhere(ObaContract.Stops.REGION_ID, 1));
+        assertUsesIndex("SELECT * FROM " + ObaContract.Routes.PATH
+                + " WHERE " + ObaContract.Routes.FAVORITE + "=1 AND "
+                + QueryUtils.getRegionWhere(ObaContract.Routes.REGION_ID, 1));
+    }
+
+    public void testStopRouteFilters() {
+        assertUsesIndex("SELECT " + ObaContract.StopRouteFilters.ROUTE_ID
+                + " FROM " + ObaContract.StopRouteFilters.PATH
+                + " WHERE " + ObaContract.StopRouteFilters.STOP_ID + "=?", "1_1");
+    }
+
+    public void testRouteHeadsignFavorites() {
+        String columns = ObaContract.RouteHeadsignFavorites.ROUTE_ID + ","
+                + ObaContract.RouteHeadsignFavorites.HEADSIGN + ","
+                + ObaContract.RouteHeadsignFavorites.STOP_ID + ","
+                + ObaContract.RouteHeadsignFavorites.EXCLUDE;
+        String from = " FROM " + ObaContract.RouteHeadsignFavorites.PATH + " WHERE ";
+        assertUsesIndex("SELECT " + columns + from
+                        + ObaContract.RouteHeadsignFavorites.ROUTE_ID + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.HEADSIGN + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.STOP_ID + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.EXCLUDE + "=?",
+                "1_1", "Downtown", "1_2", "0");
+        assertUsesIndex("SELECT " + columns + from
+                        + ObaContract.RouteHeadsignFavorites.ROUTE_ID + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.STOP_ID + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.EXCLUDE + "=?",
+                "1_1", "1_2", "0");
+        assertUsesIndex("SELECT " + columns + from
+                        + ObaContract.RouteHeadsignFavorites.ROUTE_ID + "=? AND "
+                        + ObaContract.RouteHeadsignFavorites.EXCLUDE + "=?",
+                "1_1", "0");
+    }
+
+    public void testTrips() {
+        assertUsesIndex("SELECT * FROM " + ObaContract.Trips.PATH
+                + " WHERE " + ObaContract.Trips.STOP_ID + "=?", "1_1");
+        assertUsesIndex("SELECT * FROM " + ObaContract.Trips.PATH
+                + " WHERE (" + ObaContract.Trips._ID + "=? AND "
+                + ObaContract.Trips.STOP_ID + "=?)", "1_1", "1_2");
+        assertUsesIndex("DELETE FROM " + ObaContract.TripAlerts.PATH
+                + " WHERE " + ObaContract.TripAlerts.TRIP_ID + "=? AND "
+                + ObaContract.TripAlerts.STOP_ID + "=?", "1_1", "1_2");
+    }
+
+    public void testServiceAlerts() {
+        assertUsesIndex("SELECT " + ObaContract.ServiceAlerts._ID
+                + " FROM " + ObaContract.ServiceAlerts.PATH
+                + " WHERE " + ObaContract.ServiceAlerts.HIDDEN + "=1");
+        assertUsesIndex("SELECT " + ObaContract.ServiceAlerts._ID
+                + " FROM " + ObaContract.ServiceAlerts.PATH
+                + " WHERE " + ObaContract.ServiceAlerts._ID + " IN (?,?)", "1_1", "1_2");
+    }
+
+    public void testRegions() {
+        assertUsesIndex("SELECT * FROM " + ObaContract.RegionBounds.PATH
+                + " WHERE (" + ObaContract.RegionBounds.REGION_ID + " = 1)");
+        assertUsesIndex("SELECT * FROM " + ObaContract.RegionOpen311Servers.PATH
+                + " WHERE (" + ObaContract.RegionOpen311Servers.REGION_ID + " = 1)");
+    }
+
+    public void testNavStops() {
+        assertUsesIndex("SELECT * FROM " + ObaContract.NavStops.PATH
+                + " WHERE " + ObaContract.NavStops.NAV_ID + "=?"
+                + " ORDER BY " + ObaContract.NavStops.SEQUENCE + " ASC", "1");
+    }
+
+    /**
+     * Builds the query of QueryUtils.newRecentQuery() for the given table
+     */
+    private static String recentQuery(String table, String accessTime, String useCount,
+            String regionId) {
+        return "SELECT * FROM " + table
+                + " WHERE ((" + accessTime + " IS NOT NULL AND " + accessTime + " > 0) OR ("
+                + useCount + " > 0)) AND " + QueryUtils.getRegionWhere(regionId, 1)
+                + " ORDER BY " + accessTime + " desc, " + useCount + " desc LIMIT 20";
+    }
+
+    /**
+     * Asserts that each step of the plan of the query searches or scans an index, and that
+     * the rows don't need to be sorted
+     */
+    private void assertUsesIndex(String sql, String... args) {
+        List<String> plan = new ArrayList<>();
+        Cursor c = mDb.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) {
+                plan.add(c.getString(detail));
+            }
+        } finally {
+            c.close();
+        }
+        assertFalse(sql, plan.isEmpty());
+        for (String step : plan) {
+            String message = sql + ": " + step;
+            assertFalse(message, step.contains("TEMP B-TREE"));
+            if (step.startsWith("SCAN") || step.startsWith("SEARCH")) {
+                assertTrue(message, step.contains(" USING "));
+            }
+        }
+    }
+}
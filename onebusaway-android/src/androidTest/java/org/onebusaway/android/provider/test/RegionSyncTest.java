@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.provider.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaRegionElement;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.region.RegionSync;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that syncing the regions writes only what changed, using the regions bundled with the app
+ * as the baseline
+ */
+@RunWith(AndroidJUnit4.class)
+public class RegionSyncTest {
+
+    // Time for the content notifications to be delivered
+    private static final long NOTIFICATION_MS = 200;
+
+    private ContentResolver mResolver;
+
+    private List<ObaRegion> mBaseline;
+
+    private int mUsable;
+
+    private final AtomicInteger mNotifications = new AtomicInteger();
+
+    private final ContentObserver mObserver = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            mNotifications.incrementAndGet();
+        }
+    };
+
+    @Before
+    public void before() {
+        mResolver = getTargetContext().getContentResolver();
+        mResolver.delete(ObaContract.Regions.CONTENT_URI, null, null);
+        mResolver.delete(ObaContract.RegionBounds.CONTENT_URI, null, null);
+        mResolver.delete(ObaContract.RegionOpen311Servers.CONTENT_URI, null, null);
+        RegionSync.resetForTesting();
+
+        mBaseline = RegionUtils.getRegionsFromResources(getTargetContext());
+        for (ObaRegion region : mBaseline) {
+            if (RegionUtils.isRegionUsable(region)) {
+                mUsable++;
+            }
+        }
+    }
+
+    @After
+    public void after() {
+        mResolver.unregisterContentObserver(mObserver);
+        RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+    }
+
+    @Test
+    public void testUnchangedCatalogIsNotWritten() {
+        RegionSync.Result result = RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+        assertNotNull(result);
+        assertEquals(mUsable, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(0, result.getDeleted());
+
+        observe();
+        result = RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+        assertTrue(result.isSkipped());
+
+        // Without the hash, the catalog is compared with the provider row by row
+        RegionSync.resetForTesting();
+        result = RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+        assertFalse(result.isSkipped());
+        assertFalse(result.hasChanges());
+
+        SystemClock.sleep(NOTIFICATION_MS);
+        assertEquals(0, mNotifications.get());
+    }
+
+    @Test
+    public void testOnlyChangedRegionsAreWritten() {
+        RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+
+        // Rename the first region, and remove the last usable one
+        List<ObaRegion> changed = new ArrayList<>();
+        ObaRegion renamed = null;
+        ObaRegion removed = null;
+        for (ObaRegion region : mBaseline) {
+            if (RegionUtils.isRegionUsable(region)) {
+                removed = region;
+            }
+        }
+        for (ObaRegion region : mBaseline) {
+            if (region == removed) {
+                continue;
+            }
+            if (renamed == null && RegionUtils.isRegionUsable(region)) {
+                renamed = rename(region, region.getName() + " (renamed)");
+                changed.add(renamed);
+            } else {
+                changed.add(region);
+            }
+        }
+        assertNotNull(renamed);
+
+        observe();
+        RegionSync.Result result = RegionUtils.saveToProvider(getTargetContext(), changed);
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getDeleted());
+        SystemClock.sleep(NOTIFICATION_MS);
+        assertTrue(mNotifications.get() > 0);
+
+        List<ObaRegion> stored = RegionUtils.readRegionsFromProvider(getTargetContext());
+        assertNotNull(stored);
+        assertEquals(mUsable - 1, stored.size());
+        for (ObaRegion region : stored) {
+            assertFalse(region.getId() == removed.getId());
+            if (region.getId() == renamed.getId()) {
+                assertEquals(renamed.getName(), region.getName());
+                // The bounds of the updated region are kept
+                assertEquals(renamed.getBounds().length, region.getBounds().length);
+            }
+        }
+
+        // Going back to the baseline restores the removed region
+        result = RegionUtils.saveToProvider(getTargetContext(), mBaseline);
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getDeleted());
+    }
+
+    private void observe() {
+        mResolver.registerContentObserver(ObaContract.Regions.CONTENT_URI, true, mObserver);
+        mResolver.registerContentObserver(ObaContract.RegionBounds.CONTENT_URI, true, mObserver);
+        mResolver.registerContentObserver(ObaContract.RegionOpen311Servers.CONTENT_URI, true,
+                mObserver);
+    }
+
+    private static ObaRegion rename(ObaRegion r, String name) {
+        return new ObaRegionElement(r.getId(), name, r.getActive(), r.getObaBaseUrl(),
+                r.getSiriBaseUrl(), (ObaRegionElement.Bounds[]) r.getBounds(),
+                (ObaRegionElement.Open311Server[]) r.getOpen311Servers(), r.getLanguage(),
+                r.getContactEmail(), r.getSupportsObaDiscoveryApis(),
+                r.getSupportsObaRealtimeApis(), r.getSupportsSiriRealtimeApis(),
+                r.getTwitterUrl(), r.getExperimental(), r.getStopInfoUrl(), r.getOtpBaseUrl(),
+                r.getOtpContactEmail(), r.getSupportsOtpBikeshare(),
+                r.getSupportsEmbeddedSocial(), r.getPaymentAndroidAppId(),
+                r.getPaymentWarningTitle(), r.getPaymentWarningBody(),
+                r.isTravelBehaviorDataCollectionEnabled(), r.isEnrollParticipantsInStudy(),
+                r.getSidecarBaseUrl(), r.getPlausibleAnalyticsServerUrl(),
+                (ObaRegionElement.GtfsRealtimeFeed[]) r.getGtfsRealtimeFeeds());
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.realtime.test;
+
+import org.junit.Test;
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaTripStatus;
+import org.onebusaway.android.io.request.ObaArrivalInfoRequest;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.ObaTripsForRouteRequest;
+import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.mock.MockRegion;
+import org.onebusaway.android.mock.Resources;
+import org.onebusaway.android.realtime.GtfsRealtimeDecoder;
+import org.onebusaway.android.realtime.RealtimeIndex;
+import org.onebusaway.android.realtime.RealtimeUpdates;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests decoding the GTFS-realtime snapshots recorded in /res/raw into a RealtimeIndex, logging
+ * the decode time and the bytes allocated for each feed, and updating OBA responses from the
+ * index
+ */
+public class GtfsRealtimeDecoderTest extends ObaTestCase {
+
+    private static final String TAG = "GtfsRealtimeDecoderTest";
+
+    // Time of the first vehicle positions snapshot, in seconds
+    private static final long VEHICLES_TIME = 1444073094;
+
+    private static final int HART_VEHICLES = 38;
+
+    private static final int OTHER_VEHICLES = 300;
+
+    private static final String HART = "Hillsborough Area Regional Transit";
+
+    private static final String HART_ROUTE_ID = HART + "_5";
+
+    private static final String KCM = "1";
+
+    private final RealtimeIndex mIndex = new RealtimeIndex();
+
+    @Test
+    public void testVehiclePositions() throws IOException {
+        GtfsRealtimeDecoder.Result result = replay("gtfs_rt_vehicle_positions_hart_1",
+                RealtimeIndex.Feed.VEHICLE_POSITIONS, HART);
+        int vehicles = HART_VEHICLES + OTHER_VEHICLES;
+        assertFalse(result.isNotModified());
+        assertEquals(vehicles, result.getEntityCount());
+        assertEquals(vehicles, result.getUpdatedCount());
+        assertEquals(0, result.getRemovedCount());
+        assertEquals(vehicles, mIndex.getVehicleCount());
+        assertEquals(VEHICLES_TIME * 1000,
+                mIndex.getFeedTimestamp(RealtimeIndex.Feed.VEHICLE_POSITIONS, HART));
+
+        RealtimeIndex.Vehicle moved = mIndex.getVehicleForTrip(HART + "_101446");
+        assertNotNull(moved);
+        assertEquals(HART + "_2415", moved.getId());
+        assertEquals(HART_ROUTE_ID, moved.getRouteId());
+        assertEquals(28.066561, moved.getLatitude(), 0.00001);
+        assertEquals(-82.433471, moved.getLongitude(), 0.00001);
+        assertEquals(90f, moved.getBearing());
+        assertEquals((VEHICLES_TIME - 5) * 1000, moved.getTimestamp());
+        RealtimeIndex.Vehicle unchanged = mIndex.getVehicleForTrip(HART + "_98718");
+        assertSame(unchanged, mIndex.getVehicle(HART + "_2321"));
+
+        // The same snapshot is skipped after its header
+        result = replay("gtfs_rt_vehicle_positions_hart_1", RealtimeIndex.Feed.VEHICLE_POSITIONS,
+                HART);
+        assertTrue(result.isNotModified());
+        assertEquals(0, result.getEntityCount());
+
+        // Only the vehicles that moved are decoded again, and the one that's not in the next
+        // snapshot is removed
+        result = replay("gtfs_rt_vehicle_positions_hart_2", RealtimeIndex.Feed.VEHICLE_POSITIONS,
+                HART);
+        assertEquals(vehicles - 1, result.getEntityCount());
+        assertEquals(vehicles / 2, result.getUpdatedCount());
+        assertEquals(1, result.getRemovedCount());
+        assertEquals(vehicles - 1, mIndex.getVehicleCount());
+        assertNull(mIndex.getVehicle(HART + "_" + (5000 + OTHER_VEHICLES - 1)));
+
+        RealtimeIndex.Vehicle newer = mIndex.getVehicleForTrip(HART + "_101446");
+        assertEquals(180f, newer.getBearing());
+        assertEquals((VEHICLES_TIME + 25) * 1000, newer.getTimestamp());
+        assertSame(unchanged, mIndex.getVehicleForTrip(HART + "_98718"));
+    }
+
+    @Test
+    public void testAgenciesDontCollide() throws IOException {
+        // Two agencies whose feeds use the same GTFS IDs
+        replay("gtfs_rt_vehicle_positions_hart_1", RealtimeIndex.Feed.VEHICLE_POSITIONS, HART);
+        GtfsRealtimeDecoder.Result result = replay("gtfs_rt_vehicle_positions_hart_2",
+                RealtimeIndex.Feed.VEHICLE_POSITIONS, KCM);
+        int vehicles = HART_VEHICLES + OTHER_VEHICLES;
+        assertFalse(result.isNotModified());
+        assertEquals(vehicles - 1, result.getUpdatedCount());
+        // The full dataset of one agency doesn't remove the vehicles of the other
+        assertEquals(0, result.getRemovedCount());
+        assertEquals(2 * vehicles - 1, mIndex.getVehicleCount());
+
+        assertEquals(90f, mIndex.getVehicleForTrip(HART + "_101446").getBearing());
+        assertEquals(180f, mIndex.getVehicleForTrip(KCM + "_101446").getBearing());
+        assertNotNull(mIndex.getVehicle(HART + "_" + (5000 + OTHER_VEHICLES - 1)));
+        assertNull(mIndex.getVehicle(KCM + "_" + (5000 + OTHER_VEHICLES - 1)));
+        assertEquals(VEHICLES_TIME * 1000,
+                mIndex.getFeedTimestamp(RealtimeIndex.Feed.VEHICLE_POSITIONS, HART));
+
+        // Clearing the data of one agency keeps the other
+        mIndex.clear(RealtimeIndex.Feed.VEHICLE_POSITIONS, KCM);
+        assertEquals(vehicles, mIndex.getVehicleCount());
+        assertNull(mIndex.getVehicleForTrip(KCM + "_101446"));
+    }
+
+    @Test
+    public void testInterruptedFeedIsDecodedAgain() throws IOException {
+        try (InputStream in = new FailingInputStream(open("gtfs_rt_vehicle_positions_hart_1"),
+                16 * 1024)) {
+            GtfsRealtimeDecoder.decode(in, RealtimeIndex.Feed.VEHICLE_POSITIONS, HART, mIndex);
+            fail("The download should have failed");
+        } catch (IOException e) {
+            // Expected
+        }
+        int partial = mIndex.getVehicleCount();
+        assertTrue(partial > 0);
+        assertTrue(partial < HART_VEHICLES + OTHER_VEHICLES);
+        assertEquals(0, mIndex.getFeedTimestamp(RealtimeIndex.Feed.VEHICLE_POSITIONS, HART));
+
+        // The same snapshot downloaded again isn't skipped, and completes the index
+        GtfsRealtimeDecoder.Result result = replay("gtfs_rt_vehicle_positions_hart_1",
+                RealtimeIndex.Feed.VEHICLE_POSITIONS, HART);
+        assertFalse(result.isNotModified());
+        assertEquals(HART_VEHICLES + OTHER_VEHICLES - partial, result.getUpdatedCount());
+        assertEquals(HART_VEHICLES + OTHER_VEHICLES, mIndex.getVehicleCount());
+        assertEquals(VEHICLES_TIME * 1000,
+                mIndex.getFeedTimestamp(RealtimeIndex.Feed.VEHICLE_POSITIONS, HART));
+    }
+
+    @Test
+    public void testTripUpdates() throws IOException {
+        GtfsRealtimeDecoder.Result result = replay("gtfs_rt_trip_updates_1_75403",
+                RealtimeIndex.Feed.TRIP_UPDATES, KCM);
+        assertEquals(402, result.getEntityCount());
+        assertEquals(402, mIndex.getTripUpdateCount());
+
+        RealtimeIndex.TripUpdate update = mIndex.getTripUpdate("1_18198879");
+        assertEquals("1_3691", update.getVehicleId());
+        assertEquals(2, update.getStopTimeUpdateCount());
+        // The predicted time at the stop
+        assertEquals(1343587200000L, update.getPredictedTime("1_75403", 1343586847000L, true));
+        assertEquals(1343587200000L, update.getPredictedTime("1_75403", 1343586847000L,
+                false));
+        // The delay of the last stop before a stop without predictions
+        assertEquals(1343589000000L + 353000, update.getPredictedTime("1_75410",
+                1343589000000L, true));
+        // ...and nothing before the first stop with a prediction
+        assertEquals(RealtimeIndex.NO_PREDICTION, update.getPredictedTime("1_75300",
+                1343586000000L, true));
+
+        result = replay("gtfs_rt_trip_updates_1_75403", RealtimeIndex.Feed.TRIP_UPDATES, KCM);
+        assertTrue(result.isNotModified());
+        assertSame(update, mIndex.getTripUpdate("1_18198879"));
+    }
+
+    @Test
+    public void testUpdateVehicles() throws IOException {
+        ObaRegion tampa = MockRegion.getTampa(getTargetContext());
+        assertNotNull(tampa);
+        Application.get().setCurrentRegion(tampa);
+        try {
+            ObaTripsForRouteResponse response = new ObaTripsForRouteRequest.Builder(
+                    getTargetContext(), HART_ROUTE_ID)
+                    .setIncludeStatus(true)
+                    .build()
+                    .call();
+            assertOK(response);
+            replay("gtfs_rt_vehicle_positions_hart_1", RealtimeIndex.Feed.VEHICLE_POSITIONS,
+                    HART);
+
+            ObaTripsForRouteResponse updated = RealtimeUpdates.updateVehicles(response, mIndex);
+            assertOK(updated);
+            assertEquals(response.getTrips().length, updated.getTrips().length);
+            ObaTripStatus status = updated.getTrips()[0].getStatus();
+            assertEquals(response.getTrips()[0].getId(), updated.getTrips()[0].getId());
+            assertEquals(response.getTrips()[0].getStatus().getVehicleId(),
+                    status.getVehicleId());
+            assertEquals(28.066561, status.getLastKnownLocation().getLatitude(), 0.00001);
+            assertEquals(-82.433471, status.getPosition().getLongitude(), 0.00001);
+            assertEquals((VEHICLES_TIME - 5) * 1000, status.getLastLocationUpdateTime());
+            // Due east
+            assertEquals(0.0, status.getOrientation());
+            assertTrue(status.isPredicted());
+
+            // The response of the server isn't changed
+            assertEquals(0, response.getTrips()[0].getStatus().getLastLocationUpdateTime());
+            assertSame(response.getTrip(response.getTrips()[0].getId()),
+                    updated.getTrip(updated.getTrips()[0].getId()));
+        } finally {
+            Application.get().setCurrentRegion(null);
+        }
+    }
+
+    @Test
+    public void testUpdateArrivals() throws IOException {
+        ObaArrivalInfoResponse response = new ObaArrivalInfoRequest.Builder(getTargetContext(),
+                "1_75403").build().call();
+        assertOK(response);
+        replay("gtfs_rt_trip_updates_1_75403", RealtimeIndex.Feed.TRIP_UPDATES, KCM);
+
+        ObaArrivalInfoResponse updated = RealtimeUpdates.updateArrivals(response, mIndex);
+        assertOK(updated);
+        assertTrue(updated.isFromRealtimeFeed());
+        assertFalse(response.isFromRealtimeFeed());
+        ObaArrivalInfo[] arrivals = updated.getArrivalInfo();
+        assertEquals(3, arrivals.length);
+        assertEquals(response.getStop().getId(), updated.getStop().getId());
+
+        // Predicted at the stop
+        assertEquals("1_18198879", arrivals[0].getTripId());
+        assertEquals(1343587200000L, arrivals[0].getPredictedArrivalTime());
+        assertEquals(1343587200000L, arrivals[0].getPredictedDepartureTime());
+        assertEquals(1343587070000L, arrivals[0].getLastUpdateTime());
+        assertTrue(arrivals[0].getPredicted());
+        assertEquals(response.getArrivalInfo()[0].getScheduledArrivalTime(),
+                arrivals[0].getScheduledArrivalTime());
+
+        // Delayed at an earlier stop
+        assertEquals("1_18198857", arrivals[1].getTripId());
+        assertEquals(1343588098000L + 300000, arrivals[1].getPredictedArrivalTime());
+
+        // Not in the feed
+        assertSame(response.getArrivalInfo()[2], arrivals[2]);
+
+        // The response of the server isn't changed
+        assertEquals(1343587122000L, response.getArrivalInfo()[0].getPredictedArrivalTime());
+    }
+
+    /**
+     * Decodes a recorded snapshot into the index, and logs how long it took and how many bytes
+     * were allocated
+     */
+    private GtfsRealtimeDecoder.Result replay(String name, RealtimeIndex.Feed feed,
+            String agencyId) throws IOException {
+        try (InputStream in = open(name)) {
+            long allocated = getAllocatedBytes();
+            long start = SystemClock.elapsedRealtimeNanos();
+            GtfsRealtimeDecoder.Result result = GtfsRealtimeDecoder.decode(in, feed, agencyId,
+                    mIndex);
+            long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+            Log.i(TAG, name + ": " + result + " in " + elapsed / 1000 + " us, "
+                    + (getAllocatedBytes() - allocated) / 1024 + " KB allocated");
+            return result;
+        }
+    }
+
+    private static InputStream open(String name) throws IOException {
+        return new BufferedInputStream(getTargetContext().getContentResolver()
+                .openInputStream(Resources.getTestUri(name)));
+    }
+
+    /**
+     * Fails like a dropped connection after some bytes of a download
+     */
+    private static final class FailingInputStream extends FilterInputStream {
+
+        private int mRemaining;
+
+        FailingInputStream(InputStream in, int bytes) {
+            super(in);
+            mRemaining = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (mRemaining <= 0) {
+                throw new IOException("Connection reset");
+            }
+            mRemaining--;
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (mRemaining <= 0) {
+                throw new IOException("Connection reset");
+            }
+            int read = super.read(b, off, Math.min(len, mRemaining));
+            if (read > 0) {
+                mRemaining -= read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the runtime so far, which include other threads
+     */
+    private static long getAllocatedBytes() {
+        String bytes = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        return bytes != null ? Long.parseLong(bytes) : 0;
+    }
+}
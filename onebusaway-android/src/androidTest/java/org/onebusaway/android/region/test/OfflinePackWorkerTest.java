@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.region.OfflinePackWorker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Tests the changes OfflinePackWorker writes to the provider for the IDs on the server and the
+ * rows already stored
+ */
+@RunWith(AndroidJUnit4.class)
+public class OfflinePackWorkerTest {
+
+    private static final Set<String> NONE = Collections.emptySet();
+
+    @Test
+    public void testAddedChangedAndRemoved() {
+        OfflinePackWorker.Diff diff = new OfflinePackWorker.Diff(
+                ids("1_100", "1_101", "1_102"), ids("1_10", "1_11"),
+                ids("1_100", "1_101", "1_102", "1_103"), ids("1_10", "1_11"),
+                ids("1_100", "1_103", "1_104", "3_500"), ids("1_10", "1_12"),
+                ids("1_100", "1_103", "1_104"), ids("1_10", "1_12"),
+                NONE);
+
+        assertEquals(ids("1_101", "1_102"), diff.getAddedStopIds());
+        assertEquals(ids("1_100"), diff.getChangedStopIds());
+        // 3_500 is in the provider, but not in this region
+        assertEquals(ids("1_104"), diff.getRemovedStopIds());
+
+        assertEquals(ids("1_11"), diff.getAddedRouteIds());
+        assertEquals(ids("1_10"), diff.getChangedRouteIds());
+        assertEquals(ids("1_12"), diff.getRemovedRouteIds());
+    }
+
+    @Test
+    public void testNothingChanged() {
+        OfflinePackWorker.Diff diff = new OfflinePackWorker.Diff(NONE, NONE,
+                ids("1_100"), ids("1_10"), ids("1_100"), ids("1_10"), ids("1_100"), ids("1_10"),
+                NONE);
+
+        assertEquals(NONE, diff.getAddedStopIds());
+        assertEquals(NONE, diff.getChangedStopIds());
+        assertEquals(NONE, diff.getRemovedStopIds());
+        assertEquals(NONE, diff.getAddedRouteIds());
+        assertEquals(NONE, diff.getChangedRouteIds());
+        assertEquals(NONE, diff.getRemovedRouteIds());
+    }
+
+    @Test
+    public void testIncompleteAgencyIsNotRemoved() {
+        // The server listed only some of the IDs of agency 40 (e.g., the limit was exceeded)
+        OfflinePackWorker.Diff diff = new OfflinePackWorker.Diff(
+                ids("1_101", "40_201"), ids("1_11", "40_21"),
+                ids("1_101", "40_201"), ids("1_11", "40_21"),
+                ids("1_100", "40_200", "40_201"), ids("1_10", "40_20"),
+                ids("1_100", "40_200", "40_201"), ids("1_10", "40_20"),
+                ids("40"));
+
+        // Other agencies are still synced, and agency 40 gets its inserts and updates
+        assertEquals(ids("1_101"), diff.getAddedStopIds());
+        assertEquals(ids("40_201"), diff.getChangedStopIds());
+        assertEquals(ids("1_100"), diff.getRemovedStopIds());
+        assertEquals(ids("1_11", "40_21"), diff.getAddedRouteIds());
+        assertEquals(NONE, diff.getChangedRouteIds());
+        assertEquals(ids("1_10"), diff.getRemovedRouteIds());
+    }
+
+    private static Set<String> ids(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
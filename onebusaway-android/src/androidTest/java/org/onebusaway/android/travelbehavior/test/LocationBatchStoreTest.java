@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.travelbehavior.io.LocationBatchStore;
+import org.onebusaway.android.travelbehavior.io.LocationUploader;
+import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
+
+import android.location.Location;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the throttling and batching of travel behavior locations, using a fake uploader instead
+ * of Firebase
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocationBatchStoreTest {
+
+    private static final long START_TIME = 1700000000000L;
+
+    private File mDirectory;
+
+    private LocationBatchStore mStore;
+
+    private FakeUploader mUploader;
+
+    @Before
+    public void before() throws IOException {
+        mDirectory = new File(getTargetContext().getCacheDir(), "location-batch-test");
+        FileUtils.deleteDirectory(mDirectory);
+        mStore = new LocationBatchStore(mDirectory);
+        mUploader = new FakeUploader();
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(mDirectory);
+    }
+
+    @Test
+    public void testThrottle() {
+        Location first = makeLocation(28.0587, -82.4139, 10, START_TIME);
+        assertTrue(LocationBatchStore.shouldKeep(null, first));
+
+        // Inaccurate fix
+        Location inaccurate = makeLocation(28.0587, -82.4139, 500, START_TIME);
+        assertFalse(LocationBatchStore.shouldKeep(null, inaccurate));
+
+        // About 110m away, but too soon after the last fix
+        Location soon = makeLocation(28.0597, -82.4139, 10,
+                START_TIME + LocationBatchStore.MIN_TIME / 2);
+        assertFalse(LocationBatchStore.shouldKeep(first, soon));
+
+        // About 110m away, after the minimum time
+        Location moved = makeLocation(28.0597, -82.4139, 10,
+                START_TIME + LocationBatchStore.MIN_TIME);
+        assertTrue(LocationBatchStore.shouldKeep(first, moved));
+
+        // Didn't move
+        Location stationary = makeLocation(28.0587, -82.4139, 10,
+                START_TIME + LocationBatchStore.MIN_TIME * 2);
+        assertFalse(LocationBatchStore.shouldKeep(first, stationary));
+
+        // Didn't move, but for a long time
+        stationary.setTime(START_TIME + LocationBatchStore.STATIONARY_TIME);
+        assertTrue(LocationBatchStore.shouldKeep(first, stationary));
+
+        // Older than the last fix
+        Location stale = makeLocation(28.0697, -82.4139, 10, START_TIME - 60000);
+        assertFalse(LocationBatchStore.shouldKeep(first, stale));
+    }
+
+    @Test
+    public void testFlushUploadsAllRecordsOnce() {
+        // A burst of fixes, one per second while moving about 10m per fix
+        int stored = 0;
+        for (int i = 0; i < 120; i++) {
+            Location l = makeLocation(28.0587 + i * 0.0001, -82.4139, 10, START_TIME + i * 1000);
+            if (mStore.add("1-record", l)) {
+                stored++;
+            }
+        }
+        // One fix every 30 seconds
+        assertEquals(4, stored);
+        assertTrue(mStore.add("2-record", makeLocation(27.9681, -82.4764, 5, START_TIME)));
+
+        assertTrue(mStore.flush("user", mUploader));
+        assertEquals(1, mUploader.mCalls);
+        assertEquals(2, mUploader.mUploaded.size());
+        assertEquals(4, mUploader.mUploaded.get("1-record").size());
+        assertEquals(1, mUploader.mUploaded.get("2-record").size());
+        assertEquals(28.0587, mUploader.mUploaded.get("1-record").get(0).lat, 0.000001);
+        assertFalse(mStore.hasBatches());
+
+        // Nothing left to upload
+        assertTrue(mStore.flush("user", mUploader));
+        assertEquals(1, mUploader.mCalls);
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        mStore.add("1-record", makeLocation(28.0587, -82.4139, 10, START_TIME));
+
+        mUploader.mFail = true;
+        assertFalse(mStore.flush("user", mUploader));
+        assertTrue(mStore.hasBatches());
+
+        // A fix captured after the failed upload is uploaded with the failed batch
+        mStore.add("1-record", makeLocation(28.0597, -82.4139, 10,
+                START_TIME + LocationBatchStore.MIN_TIME));
+
+        mUploader.mFail = false;
+        assertTrue(mStore.flush("user", mUploader));
+        assertEquals(2, mUploader.mUploaded.get("1-record").size());
+        assertFalse(mStore.hasBatches());
+    }
+
+    private static Location makeLocation(double lat, double lon, float accuracy, long time) {
+        Location l = new Location("test");
+        l.setLatitude(lat);
+        l.setLongitude(lon);
+        l.setAccuracy(accuracy);
+        l.setTime(time);
+        return l;
+    }
+
+    private static class FakeUploader implements LocationUploader {
+
+        boolean mFail = false;
+
+        int mCalls = 0;
+
+        final Map<String, List<TravelBehaviorInfo.LocationInfo>> mUploaded = new HashMap<>();
+
+        @Override
+        public void upload(String userId,
+                Map<String, List<TravelBehaviorInfo.LocationInfo>> batches) throws Exception {
+            if (mFail) {
+                throw new IOException("Offline");
+            }
+            mCalls++;
+            for (Map.Entry<String, List<TravelBehaviorInfo.LocationInfo>> entry
+                    : batches.entrySet()) {
+                List<TravelBehaviorInfo.LocationInfo> l = mUploaded.get(entry.getKey());
+                if (l == null) {
+                    l = new ArrayList<>();
+                    mUploaded.put(entry.getKey(), l);
+                }
+                l.addAll(entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.ui.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ObaConnectionFactory;
+import org.onebusaway.android.io.ScheduleStore;
+import org.onebusaway.android.io.ServerClock;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.ObaScheduleForStopRequest;
+import org.onebusaway.android.io.request.ObaScheduleForStopResponse;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.ui.ArrivalsListLoader;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.format.Time;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.TimeZone;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that ArrivalsListLoader falls back to the stored schedule of the stop when the arrivals
+ * request fails, using the recorded responses in /res/raw and failing the mock connection
+ */
+public class ArrivalsListLoaderTest extends ObaTestCase {
+
+    private static final String STOP_ID = "1_75403";
+
+    private ScheduleStore mStore;
+
+    @Before
+    @Override
+    public void before() {
+        super.before();
+        // Store the recorded schedules, and set the clock of the device to the time they were
+        // recorded at, so they cover "now"
+        Time date = new Time();
+        date.year = 2012;
+        date.month = 6;
+        date.monthDay = 30;
+        ObaScheduleForStopResponse[] days = new ObaScheduleForStopResponse[]{
+                new ObaScheduleForStopRequest.Builder(getTargetContext(), STOP_ID)
+                        .build()
+                        .call(),
+                new ObaScheduleForStopRequest.Builder(getTargetContext(), STOP_ID)
+                        .setDate(date)
+                        .build()
+                        .call()
+        };
+        assertOK(days[0]);
+        assertOK(days[1]);
+        final long now = days[0].getCurrentTime();
+        ServerClock.setInstanceForTesting(new ServerClock(new ServerClock.Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            public long elapsedRealtime() {
+                return SystemClock.elapsedRealtime();
+            }
+        }));
+        mStore = ScheduleStore.getInstance(getTargetContext());
+        TimeZone timeZone = ScheduleStore.getTimeZone(days[0]);
+        assertTrue(mStore.save(STOP_ID, new long[]{ScheduleStore.getMidnight(now, 0, timeZone),
+                ScheduleStore.getMidnight(now, 1, timeZone)}, days, now));
+    }
+
+    @After
+    @Override
+    public void after() {
+        mStore.retain(Collections.<String>emptySet());
+        ServerClock.setInstanceForTesting(null);
+        super.after();
+    }
+
+    @Test
+    public void testNetworkErrorShowsSchedule() {
+        failConnections(new IOException("Network is unreachable"));
+        ArrivalsListLoader loader = new ArrivalsListLoader(getTargetContext(), STOP_ID);
+
+        ObaArrivalInfoResponse response = loader.loadInBackground();
+        assertOK(response);
+        assertTrue(response.isScheduleOnly());
+        // A failed request doesn't widen the window of arrivals
+        assertEquals(ArrivalsListLoader.DEFAULT_MINUTES_AFTER, loader.getMinutesAfter());
+        assertEquals(STOP_ID, response.getStop().getId());
+        assertTrue(response.getArrivalInfo().length > 0);
+
+        // Scheduled arrivals aren't a good response
+        loader.deliverResult(response);
+        assertNull(loader.getLastGoodResponse());
+    }
+
+    @Test
+    public void testRecentResponseIsKept() {
+        ArrivalsListLoader loader = new ArrivalsListLoader(getTargetContext(), STOP_ID);
+        ObaArrivalInfoResponse good = loader.loadInBackground();
+        assertOK(good);
+        assertFalse(good.isScheduleOnly());
+        loader.deliverResult(good);
+        assertNotNull(loader.getLastGoodResponse());
+
+        // The fragment shows the last good response, which is less than 10 minutes old
+        failConnections(new IOException("Network is unreachable"));
+        ObaArrivalInfoResponse response = loader.loadInBackground();
+        assertEquals(ObaApi.OBA_IO_EXCEPTION, response.getCode());
+        assertFalse(response.isScheduleOnly());
+        loader.deliverResult(response);
+        assertEquals(good, loader.getLastGoodResponse());
+    }
+
+    @Test
+    public void testStopNotFoundDoesNotShowSchedule() {
+        failConnections(new FileNotFoundException());
+        ArrivalsListLoader loader = new ArrivalsListLoader(getTargetContext(), STOP_ID);
+
+        ObaArrivalInfoResponse response = loader.loadInBackground();
+        assertEquals(ObaApi.OBA_NOT_FOUND, response.getCode());
+        assertFalse(response.isScheduleOnly());
+    }
+
+    /**
+     * Fails all the following requests with the given exception, until ObaMock restores its
+     * connections at the end of the test
+     */
+    private void failConnections(final IOException e) {
+        ObaApi.getDefaultContext().setConnectionFactory(new ObaConnectionFactory() {
+            @Override
+            public ObaConnection newConnection(Uri uri) throws IOException {
+                throw e;
+            }
+        });
+    }
+}
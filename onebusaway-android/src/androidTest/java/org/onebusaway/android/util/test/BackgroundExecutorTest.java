@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.util.BackgroundExecutor;
+
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getInstrumentation;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the background executor with a deterministic scheduler, and that the default pools keep
+ * the number of threads bounded
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackgroundExecutorTest {
+
+    private static final long TIMEOUT_S = 10;
+
+    private ManualScheduler mScheduler;
+
+    private BackgroundExecutor mExecutor;
+
+    @Before
+    public void before() {
+        mScheduler = new ManualScheduler();
+        mExecutor = BackgroundExecutor.getInstance();
+        mExecutor.setSchedulerForTesting(mScheduler);
+    }
+
+    @After
+    public void after() {
+        mExecutor.setSchedulerForTesting(null);
+    }
+
+    @Test
+    public void testResultIsDeliveredOnTheMainThread() {
+        final List<String> results = new ArrayList<>();
+        getInstrumentation().runOnMainSync(() -> {
+            TestOwner owner = new TestOwner();
+            mExecutor.submit(owner, BackgroundExecutor.Pool.NETWORK, () -> "result",
+                    results::add);
+
+            assertEquals(1, mScheduler.runBackground());
+            assertTrue(results.isEmpty());
+            assertEquals(1, mScheduler.runMain());
+            assertEquals(Collections.singletonList("result"), results);
+            // The task doesn't observe its owner anymore
+            assertEquals(0, owner.mRegistry.getObserverCount());
+        });
+    }
+
+    @Test
+    public void testWorkIsCancelledWhenOwnerIsDestroyed() {
+        final List<String> results = new ArrayList<>();
+        getInstrumentation().runOnMainSync(() -> {
+            TestOwner owner = new TestOwner();
+
+            // Destroyed before the work runs
+            BackgroundExecutor.Task first = mExecutor.submit(owner,
+                    BackgroundExecutor.Pool.DISK, () -> "first", results::add);
+            owner.destroy();
+            assertTrue(first.isCancelled());
+            assertTrue(mScheduler.mFutures.get(0).isCancelled());
+            assertEquals(0, mScheduler.runBackground());
+
+            // Submitted after the owner is destroyed
+            BackgroundExecutor.Task second = mExecutor.submit(owner,
+                    BackgroundExecutor.Pool.DISK, () -> "second", results::add);
+            assertTrue(second.isCancelled());
+            assertEquals(0, mScheduler.runBackground());
+            assertEquals(0, mScheduler.runMain());
+            assertTrue(results.isEmpty());
+        });
+    }
+
+    @Test
+    public void testResultIsDroppedWhenOwnerIsDestroyedWhileRunning() {
+        final List<String> results = new ArrayList<>();
+        getInstrumentation().runOnMainSync(() -> {
+            TestOwner owner = new TestOwner();
+            mExecutor.submit(owner, BackgroundExecutor.Pool.CPU, () -> "result", results::add);
+            assertEquals(1, mScheduler.runBackground());
+            owner.destroy();
+            assertEquals(1, mScheduler.runMain());
+            assertTrue(results.isEmpty());
+            assertEquals(0, owner.mRegistry.getObserverCount());
+        });
+    }
+
+    @Test
+    public void testFailedWorkDoesNotCallBack() {
+        final List<String> results = new ArrayList<>();
+        getInstrumentation().runOnMainSync(() -> {
+            mExecutor.submit(null, BackgroundExecutor.Pool.NETWORK, () -> {
+                throw new IllegalStateException("Expected");
+            }, results::add);
+            mExecutor.execute(BackgroundExecutor.Pool.NETWORK, () -> {
+                throw new IllegalStateException("Expected");
+            });
+            assertEquals(2, mScheduler.runBackground());
+            mScheduler.runMain();
+            assertTrue(results.isEmpty());
+        });
+    }
+
+    @Test
+    public void testPoolsAreBounded() throws Exception {
+        mExecutor.setSchedulerForTesting(null);
+        int count = BackgroundExecutor.Pool.NETWORK.getThreadCount() * 5;
+        final CountDownLatch done = new CountDownLatch(count);
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        for (int i = 0; i < count; i++) {
+            mExecutor.getExecutor(BackgroundExecutor.Pool.NETWORK).execute(() -> {
+                threads.add(Thread.currentThread().getName());
+                SystemClock.sleep(20);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(threads.size() <= BackgroundExecutor.Pool.NETWORK.getThreadCount());
+        for (String thread : threads) {
+            assertTrue(thread, thread.startsWith("oba-network-"));
+        }
+    }
+
+    @Test
+    public void testDefaultSchedulerDeliversResults() throws Exception {
+        mExecutor.setSchedulerForTesting(null);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final List<Boolean> onMainThread = new ArrayList<>();
+        getInstrumentation().runOnMainSync(() -> mExecutor.submit(null,
+                BackgroundExecutor.Pool.CPU, () -> 1 + 1, result -> {
+                    onMainThread.add(Thread.currentThread() ==
+                            Looper.getMainLooper().getThread());
+                    delivered.countDown();
+                }));
+        assertTrue(delivered.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(true), onMainThread);
+    }
+
+    /**
+     * An activity or a fragment, as seen by the executor
+     */
+    private static class TestOwner implements LifecycleOwner {
+
+        final LifecycleRegistry mRegistry = new LifecycleRegistry(this);
+
+        TestOwner() {
+            mRegistry.setCurrentState(Lifecycle.State.RESUMED);
+        }
+
+        void destroy() {
+            mRegistry.setCurrentState(Lifecycle.State.DESTROYED);
+        }
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return mRegistry;
+        }
+    }
+
+    /**
+     * Queues the work and the results, and runs them when the test asks for it
+     */
+    private static class ManualScheduler implements BackgroundExecutor.Scheduler {
+
+        final List<FutureTask<?>> mFutures = new ArrayList<>();
+
+        private final List<FutureTask<?>> mBackground = new ArrayList<>();
+
+        private final List<Runnable> mMain = new ArrayList<>();
+
+        @Override
+        public Future<?> submit(BackgroundExecutor.Pool pool, Runnable work) {
+            FutureTask<?> future = new FutureTask<Void>(work, null);
+            mFutures.add(future);
+            mBackground.add(future);
+            return future;
+        }
+
+        @Override
+        public void postToMain(Runnable task) {
+            mMain.add(task);
+        }
+
+        /**
+         * @return the number of queued work that ran, not counting cancelled work
+         */
+        int runBackground() {
+            int count = 0;
+            List<FutureTask<?>> queued = new ArrayList<>(mBackground);
+            mBackground.clear();
+            for (FutureTask<?> future : queued) {
+                if (!future.isCancelled()) {
+                    future.run();
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return the number of results that were posted to the main thread
+         */
+        int runMain() {
+            List<Runnable> queued = new ArrayList<>(mMain);
+            mMain.clear();
+            for (Runnable task : queued) {
+                task.run();
+            }
+            return queued.size();
+        }
+    }
+}
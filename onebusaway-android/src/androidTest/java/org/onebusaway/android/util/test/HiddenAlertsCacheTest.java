@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.HiddenAlertsCache;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the cache of hidden service alerts reflects the alerts the app hides and shows as
+ * soon as it writes them, without waiting for the provider's notification
+ */
+@RunWith(AndroidJUnit4.class)
+public class HiddenAlertsCacheTest {
+
+    private static final String ALERT_ID = "HiddenAlertsCacheTest_1";
+
+    private ContentResolver mResolver;
+
+    private Uri mAlertUri;
+
+    private HiddenAlertsCache mCache;
+
+    @Before
+    public void before() {
+        mResolver = getTargetContext().getContentResolver();
+        mAlertUri = Uri.withAppendedPath(ObaContract.ServiceAlerts.CONTENT_URI, ALERT_ID);
+        mResolver.delete(mAlertUri, null, null);
+        mCache = HiddenAlertsCache.getInstance(getTargetContext());
+    }
+
+    @After
+    public void after() {
+        mResolver.delete(mAlertUri, null, null);
+    }
+
+    @Test
+    public void testLocalWritesAreVisibleImmediately() {
+        assertFalse(mCache.isHidden(ALERT_ID));
+
+        mCache.setHidden(ALERT_ID, true);
+        assertTrue(mCache.isHidden(ALERT_ID));
+        assertTrue(ObaContract.ServiceAlerts.isHidden(ALERT_ID));
+
+        mCache.setHidden(ALERT_ID, false);
+        assertFalse(mCache.isHidden(ALERT_ID));
+        assertFalse(ObaContract.ServiceAlerts.isHidden(ALERT_ID));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.onebusaway.android.util.SchedulerClock;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A SchedulerClock that only moves when advanced by the test, and runs the work that is due on
+ * the thread advancing it, so tests of schedulers don't depend on real timing
+ */
+public class ManualSchedulerClock extends SchedulerClock {
+
+    private static class Post {
+
+        final Runnable mRunnable;
+
+        final long mTime;
+
+        final long mSequence;
+
+        Post(Runnable runnable, long time, long sequence) {
+            mRunnable = runnable;
+            mTime = time;
+            mSequence = sequence;
+        }
+    }
+
+    // Wall clock time at uptime 0 (2026-01-01T00:00:00Z)
+    private static final long EPOCH_OFFSET = 1767225600000L;
+
+    private final List<Post> mPosts = new ArrayList<>();
+
+    // Starts after 0, which schedulers may use for "never"
+    private long mNow = 1000;
+
+    private long mSequence = 0;
+
+    public ManualSchedulerClock() {
+        super(null);
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mNow;
+    }
+
+    /**
+     * @return a wall clock time that moves with the uptime of this clock
+     */
+    @Override
+    public long currentTimeMillis() {
+        return EPOCH_OFFSET + mNow;
+    }
+
+    @Override
+    public void postAtTime(Runnable r, long uptimeMillis) {
+        mPosts.add(new Post(r, uptimeMillis, mSequence++));
+    }
+
+    @Override
+    public void removeCallbacks(Runnable r) {
+        Iterator<Post> i = mPosts.iterator();
+        while (i.hasNext()) {
+            if (i.next().mRunnable == r) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Advances the clock by the given time, running the work that becomes due in order
+     */
+    public void advance(long millis) {
+        advanceTo(mNow + millis);
+    }
+
+    /**
+     * Advances the clock to the given uptime, running the work that becomes due in order
+     */
+    public void advanceTo(long uptimeMillis) {
+        Post next;
+        while ((next = nextPost(uptimeMillis)) != null) {
+            mPosts.remove(next);
+            mNow = Math.max(mNow, next.mTime);
+            // The work may post or remove other work
+            next.mRunnable.run();
+        }
+        mNow = Math.max(mNow, uptimeMillis);
+    }
+
+    /**
+     * @return true if any work is waiting to be run
+     */
+    public boolean hasPending() {
+        return !mPosts.isEmpty();
+    }
+
+    private Post nextPost(long until) {
+        Post next = null;
+        for (Post p : mPosts) {
+            if (p.mTime <= until && (next == null || p.mTime < next.mTime
+                    || (p.mTime == next.mTime && p.mSequence < next.mSequence))) {
+                next = p;
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.util.RefreshScheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that refreshes of different screens are aligned on the same tick of the refresh clock,
+ * and that the refresh period adapts to the arrivals.  The scheduler runs on a manual clock, so
+ * the tests don't depend on real timing.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RefreshSchedulerTest {
+
+    private ManualSchedulerClock mClock;
+
+    private RefreshScheduler mScheduler;
+
+    private final AtomicInteger mRefreshesA = new AtomicInteger();
+
+    private final AtomicInteger mRefreshesB = new AtomicInteger();
+
+    private final AtomicInteger mRefreshesC = new AtomicInteger();
+
+    private RefreshScheduler.Subscription mA;
+
+    private RefreshScheduler.Subscription mB;
+
+    private RefreshScheduler.Subscription mC;
+
+    @Before
+    public void before() {
+        mClock = new ManualSchedulerClock();
+        mScheduler = new RefreshScheduler(mClock);
+        mA = mScheduler.subscribe(new CountingRefresh(mRefreshesA));
+        mB = mScheduler.subscribe(new CountingRefresh(mRefreshesB));
+        mC = mScheduler.subscribe(new CountingRefresh(mRefreshesC));
+    }
+
+    @Test
+    public void testRefreshesAreAligned() {
+        mA.schedule(1000);
+        // Within a quarter of its delay of A, so it should run with A
+        mB.schedule(1200);
+        // Too far from A, so it should run on its own
+        mC.schedule(2000);
+
+        mClock.advance(999);
+        assertEquals(0, mRefreshesA.get());
+        assertEquals(0, mScheduler.getTickCount());
+
+        mClock.advance(1);
+        assertEquals(1, mRefreshesA.get());
+        assertEquals(1, mRefreshesB.get());
+        assertEquals(0, mRefreshesC.get());
+        assertEquals(1, mScheduler.getTickCount());
+
+        mClock.advance(1000);
+        assertEquals(1, mRefreshesC.get());
+        assertEquals(2, mScheduler.getTickCount());
+        assertFalse(mClock.hasPending());
+    }
+
+    @Test
+    public void testCancel() {
+        mA.schedule(500);
+        mB.schedule(500);
+        mA.cancel();
+        assertFalse(mA.isScheduled());
+
+        mClock.advance(500);
+        assertEquals(0, mRefreshesA.get());
+        assertEquals(1, mRefreshesB.get());
+        assertFalse(mB.isScheduled());
+    }
+
+    @Test
+    public void testResume() {
+        long period = RefreshScheduler.DEFAULT_REFRESH_PERIOD;
+
+        // Last refreshed 20 seconds ago, so the next refresh is due in 40 seconds
+        long lastRefresh = mClock.currentTimeMillis() - TimeUnit.SECONDS.toMillis(20);
+        mA.resume(lastRefresh, period);
+        assertEquals(0, mRefreshesA.get());
+        assertTrue(mA.isScheduled());
+        mClock.advance(TimeUnit.SECONDS.toMillis(40) - 1);
+        assertEquals(0, mRefreshesA.get());
+        mClock.advance(1);
+        assertEquals(1, mRefreshesA.get());
+
+        // The period elapsed while the screen wasn't visible, so it's refreshed now
+        lastRefresh = mClock.currentTimeMillis() - period;
+        mB.resume(lastRefresh, period);
+        assertEquals(1, mRefreshesB.get());
+        assertFalse(mB.isScheduled());
+
+        // Never refreshed
+        mC.resume(0, period);
+        assertEquals(1, mRefreshesC.get());
+    }
+
+    @Test
+    public void testRefreshPeriod() {
+        long minute = TimeUnit.MINUTES.toMillis(1);
+        // Real-time arrival in 2 minutes
+        assertEquals(RefreshScheduler.IMMINENT_REFRESH_PERIOD,
+                RefreshScheduler.getRefreshPeriod(2 * minute, true, true));
+        // Real-time arrival in 10 minutes
+        assertEquals(RefreshScheduler.DEFAULT_REFRESH_PERIOD,
+                RefreshScheduler.getRefreshPeriod(10 * minute, true, false));
+        // Scheduled arrival in 2 minutes, without real-time data
+        assertEquals(RefreshScheduler.RELAXED_REFRESH_PERIOD,
+                RefreshScheduler.getRefreshPeriod(2 * minute, false, false));
+        // Real-time arrival in an hour
+        assertEquals(RefreshScheduler.RELAXED_REFRESH_PERIOD,
+                RefreshScheduler.getRefreshPeriod(60 * minute, true, false));
+        // No arrivals
+        assertEquals(RefreshScheduler.RELAXED_REFRESH_PERIOD,
+                RefreshScheduler.getRefreshPeriod(Long.MAX_VALUE, false, false));
+    }
+
+    private static class CountingRefresh implements Runnable {
+
+        private final AtomicInteger mCount;
+
+        CountingRefresh(AtomicInteger count) {
+            mCount = count;
+        }
+
+        @Override
+        public void run() {
+            mCount.incrementAndGet();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.mock.MockRegion;
+import org.onebusaway.android.region.RegionIndex;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.RegionUtils;
 
@@ -146,6 +147,42 @@ public class RegionUtilTest {
         assertApproximateEquals(-82.445851f, (float) results[3]);
     }
 
+    @Test
+    public void testRegionIndex() {
+        ArrayList<ObaRegion> list = new ArrayList<>();
+        list.add(mPsRegion);
+        list.add(mTampaRegion);
+        list.add(mAtlantaRegion);
+        RegionIndex index = new RegionIndex(list);
+
+        // Regions are kept in order of ID
+        assertEquals(RegionUtils.TAMPA_REGION_ID, index.getRegions().get(0).getId());
+
+        double[] expected = new double[4];
+        RegionUtils.getRegionSpan(mTampaRegion, expected);
+        double[] span = index.getRegionSpan(mTampaRegion);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], span[i]);
+        }
+
+        // The index should find the same region as measuring the distance to every region
+        for (double lat = -80; lat <= 80; lat += 10) {
+            for (double lon = -180; lon < 180; lon += 15) {
+                ObaRegion closest = null;
+                float minDistance = Float.MAX_VALUE;
+                for (ObaRegion region : new ObaRegion[]{mPsRegion, mTampaRegion}) {
+                    float distance = RegionUtils.getDistanceAway(region, lat, lon);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        closest = region;
+                    }
+                }
+                // Atlanta isn't active, so it shouldn't be returned
+                assertEquals(closest, index.getClosestRegion(lat, lon, false, Double.MAX_VALUE));
+            }
+        }
+    }
+
     public void testIsLocationWithinRegion() {
         assertTrue(RegionUtils.isLocationWithinRegion(mSeattleLoc, mPsRegion));
         assertFalse(RegionUtils.isLocationWithinRegion(mTampaLoc, mPsRegion));
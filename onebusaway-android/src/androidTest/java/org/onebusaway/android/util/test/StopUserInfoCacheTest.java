@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.StopUserInfoCache;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the cache of the user data of stops is updated one stop at a time, and ignores
+ * stops cached from the server
+ */
+@RunWith(AndroidJUnit4.class)
+public class StopUserInfoCacheTest {
+
+    private static final String STOP_ID = "StopUserInfoCacheTest_1";
+
+    private static final long TIMEOUT = 5000;
+
+    private ContentResolver mResolver;
+
+    private Uri mStopUri;
+
+    private StopUserInfoCache mCache;
+
+    @Before
+    public void before() {
+        mResolver = getTargetContext().getContentResolver();
+        mStopUri = Uri.withAppendedPath(ObaContract.Stops.CONTENT_URI, STOP_ID);
+        mResolver.delete(mStopUri, null, null);
+        mCache = new StopUserInfoCache(mResolver);
+    }
+
+    @After
+    public void after() {
+        mResolver.delete(mStopUri, null, null);
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        assertNull(mCache.get(STOP_ID));
+        int queries = mCache.getQueryCount();
+
+        // Caching a stop from the server doesn't change user data
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.Stops.CODE, "1");
+        values.put(ObaContract.Stops.NAME, "Fowler Ave & 50th St");
+        values.put(ObaContract.Stops.DIRECTION, "N");
+        values.put(ObaContract.Stops.LATITUDE, 28.0587);
+        values.put(ObaContract.Stops.LONGITUDE, -82.4139);
+        ObaContract.Stops.insertOrUpdate(STOP_ID, values, true);
+        ObaContract.Stops.insertOrUpdate(STOP_ID, new ContentValues(values), true);
+
+        // Starring the stop reads only that stop
+        ObaContract.Stops.markAsFavorite(getTargetContext(), mStopUri, true);
+        waitFor(new Condition() {
+            @Override
+            public boolean isMet() {
+                StopUserInfoCache.UserInfo info = mCache.get(STOP_ID);
+                return info != null && info.isFavorite();
+            }
+        });
+        assertEquals(queries + 1, mCache.getQueryCount());
+        assertNull(mCache.get(STOP_ID).getUserName());
+
+        // Naming the stop
+        values = new ContentValues();
+        values.put(ObaContract.Stops.USER_NAME, "Home");
+        mResolver.update(mStopUri, values, null, null);
+        waitFor(new Condition() {
+            @Override
+            public boolean isMet() {
+                StopUserInfoCache.UserInfo info = mCache.get(STOP_ID);
+                return info != null && "Home".equals(info.getUserName());
+            }
+        });
+
+        // Removing all user data removes the stop from the cache
+        values = new ContentValues();
+        values.putNull(ObaContract.Stops.USER_NAME);
+        values.put(ObaContract.Stops.FAVORITE, 0);
+        mResolver.update(mStopUri, values, null, null);
+        waitFor(new Condition() {
+            @Override
+            public boolean isMet() {
+                return mCache.get(STOP_ID) == null;
+            }
+        });
+    }
+
+    @Test
+    public void testLocalWritesAreVisibleImmediately() {
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.Stops.CODE, "1");
+        values.put(ObaContract.Stops.NAME, "Fowler Ave & 50th St");
+        values.put(ObaContract.Stops.DIRECTION, "N");
+        values.put(ObaContract.Stops.LATITUDE, 28.0587);
+        values.put(ObaContract.Stops.LONGITUDE, -82.4139);
+        ObaContract.Stops.insertOrUpdate(STOP_ID, values, true);
+
+        // Like the arrivals list does after the user stars the stop
+        assertTrue(ObaContract.Stops.markAsFavorite(getTargetContext(), mStopUri, true));
+        mCache.put(STOP_ID, null, true);
+        assertTrue(mCache.get(STOP_ID).isFavorite());
+
+        // The notification for the write doesn't replace the data with older data
+        waitFor(new Condition() {
+            @Override
+            public boolean isMet() {
+                return mCache.getQueryCount() > 1;
+            }
+        });
+        assertTrue(mCache.get(STOP_ID).isFavorite());
+
+        mCache.put(STOP_ID, null, false);
+        assertNull(mCache.get(STOP_ID));
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+    }
+
+    /**
+     * Waits for the change notification to be delivered to the cache
+     */
+    private static void waitFor(Condition condition) {
+        long end = SystemClock.uptimeMillis() + TIMEOUT;
+        while (!condition.isMet() && SystemClock.uptimeMillis() < end) {
+            SystemClock.sleep(20);
+        }
+        assertTrue(condition.isMet());
+    }
+}
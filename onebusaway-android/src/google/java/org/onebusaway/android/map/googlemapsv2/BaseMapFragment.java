@@ -123,7 +123,7 @@ public class BaseMapFragment extends SupportMapFragment
         implements MapModeController.Callback, ObaRegionsTask.Callback,
         MapModeController.ObaMapView,
         LocationSource, LocationHelper.Listener,
-        GoogleMap.OnCameraMoveListener,
+        GoogleMap.OnCameraMoveListener, GoogleMap.OnCameraIdleListener,
         StopOverlay.OnFocusChangedListener, OnMapReadyCallback,
         VehicleOverlay.Controller, LayersSpeedDialAdapter.LayerActivationListener {
 
@@ -369,8 +369,9 @@ public class BaseMapFragment extends SupportMapFragment
 
         // Set location source
         mMap.setLocationSource(this);
-        // Listener for camera changes
+        // Listeners for camera changes
         mMap.setOnCameraMoveListener(this);
+        mMap.setOnCameraIdleListener(this);
         // Hide MyLocation button on map, since we have our own button
         uiSettings.setMyLocationButtonEnabled(false);
         // Hide Toolbar
@@ -1019,6 +1020,17 @@ public class BaseMapFragment extends SupportMapFragment
         return mCenterLocation;
     }
 
+    @Override
+    public boolean getMapCenter(Location center) {
+        if (mMap == null) {
+            return false;
+        }
+        LatLng target = mMap.getCameraPosition().target;
+        center.setLatitude(target.latitude);
+        center.setLongitude(target.longitude);
+        return true;
+    }
+
     /**
      * Sets the map center to the given parameter
      *
@@ -1274,7 +1286,18 @@ public class BaseMapFragment extends SupportMapFragment
 
     @Override
     public void onCameraMove() {
-        Log.d(TAG, "onCameraChange");
+        // Called for every frame while the camera moves - just let the controllers know so they
+        // can hold off on loading data until the camera is idle
+        if (mControllers != null) {
+            for (MapModeController controller : mControllers) {
+                controller.notifyMapChanging();
+            }
+        }
+    }
+
+    @Override
+    public void onCameraIdle() {
+        Log.d(TAG, "onCameraIdle");
         if (mControllers != null) {
             for (MapModeController controller : mControllers) {
                 controller.notifyMapChanged();
@@ -29,6 +29,7 @@ import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaStopElement;
 
 import android.app.Activity;
 import android.content.Context;
@@ -59,11 +60,9 @@ import android.widget.Toast;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
@@ -121,6 +120,40 @@ public class StopOverlay implements MarkerListeners {
     private static final Bitmap[] general_stop_icons_focused = new Bitmap[NUM_DIRECTIONS];
     private static final Bitmap[] transit_mode_icons = new Bitmap[ObaRoute.NUM_TYPES];
 
+    /**
+     * Route types with a mode icon, in the order in which they are chosen when a stop is served
+     * by routes of several types
+     */
+    private static final int[] MODE_ICON_ORDER = {
+            ObaRoute.TYPE_RAIL,
+            ObaRoute.TYPE_SUBWAY,
+            ObaRoute.TYPE_TRAM,
+            ObaRoute.TYPE_BUS,
+            ObaRoute.TYPE_FERRY
+    };
+
+    /**
+     * The route type whose icon is shown for each bitmask of route types returned by
+     * ObaStop.getRouteTypes(), or -1 to show no icon
+     */
+    private static final int[] MODE_ICON_FOR_ROUTE_TYPES = new int[1 << ObaRoute.NUM_TYPES];
+
+    static {
+        for (int routeTypes = 0; routeTypes < MODE_ICON_FOR_ROUTE_TYPES.length; routeTypes++) {
+            MODE_ICON_FOR_ROUTE_TYPES[routeTypes] = -1;
+            for (int type : MODE_ICON_ORDER) {
+                if ((routeTypes & ObaStopElement.getRouteTypeBit(type)) != 0) {
+                    MODE_ICON_FOR_ROUTE_TYPES[routeTypes] = type;
+                    break;
+                }
+            }
+        }
+    }
+
+    // Created from transit_mode_icons the first time each one is shown
+    private final BitmapDescriptor[] mModeIconDescriptors =
+            new BitmapDescriptor[ObaRoute.NUM_TYPES];
+
     private static final float FOCUS_ICON_SCALE = 1.5f;
 
     private static final float ICON_LARGE_ZOOM_LEVEL = 17f;
@@ -890,6 +923,8 @@ public class StopOverlay implements MarkerListeners {
         synchronized void populate(List<ObaStop> stops, List<ObaRoute> routes) {
             int count = 0;
 
+            addRoutes(routes);
+
             if (mStopMarkers.size() >= FUZZY_MAX_MARKER_COUNT) {
                 // We've exceed our max, so clear the current marker cache and start over
                 Log.d(TAG, "Exceed max marker cache of " + FUZZY_MAX_MARKER_COUNT
@@ -902,7 +937,8 @@ public class StopOverlay implements MarkerListeners {
 
                 // Make sure the currently focused stop still exists on the map
                 if (mCurrentFocusStop != null && mFocusedRoutes != null) {
-                    addMarkerToMap(mCurrentFocusStop, mFocusedRoutes);
+                    addRoutes(mFocusedRoutes);
+                    addMarkerToMap(mCurrentFocusStop);
                     count++;
                 }
             }
@@ -911,7 +947,7 @@ public class StopOverlay implements MarkerListeners {
                 Marker existingMarker = mStopMarkers.get(stop.getId());
 
                 if (existingMarker == null) {
-                    addMarkerToMap(stop, routes);
+                    addMarkerToMap(stop);
                     count++;
                 } else if (existingMarker != mCurrentFocusMarker) {
                     updateMarkerIcon(stop, existingMarker);
@@ -932,19 +968,26 @@ public class StopOverlay implements MarkerListeners {
         }
 
         /**
-         * Places a marker on the map for this stop, and adds it to our marker HashMap
+         * Adds the routes that serve the stops being added to the map to our route HashMap
          *
-         * @param stop   ObaStop that should be shown on the map
-         * @param routes A list of ObaRoutes that serve this stop
+         * @param routes A list of ObaRoutes that serve the stops
          */
-        private synchronized void addMarkerToMap(ObaStop stop, List<ObaRoute> routes) {
+        private void addRoutes(List<ObaRoute> routes) {
             for (ObaRoute route : routes) {
                 // ObaRoutes may have already been added for other stops, so check before adding
                 if (!mStopRoutes.containsKey(route.getId())) {
                     mStopRoutes.put(route.getId(), route);
                 }
             }
+        }
 
+        /**
+         * Places a marker on the map for this stop, and adds it to our marker HashMap.  The routes
+         * serving the stop must have been added with addRoutes().
+         *
+         * @param stop   ObaStop that should be shown on the map
+         */
+        private synchronized void addMarkerToMap(ObaStop stop) {
             float ZINDEX_RANGE = 0.1f;
             float ZINDEX_CIRCLE = 1.0f;
             float ZINDEX_MODE = 1.2f;
@@ -1050,34 +1093,30 @@ public class StopOverlay implements MarkerListeners {
         }
 
         private BitmapDescriptor getMarkerModeIcon(ObaStop stop) {
-            List<ObaRoute> routes = new ArrayList<>(stop.getRouteIds().length);
-            for (String routeId : stop.getRouteIds()) {
-                if (mStopRoutes.containsKey(routeId)) {
-                    routes.add(mStopRoutes.get(routeId));
-                }
+            int routeTypes = stop.getRouteTypes();
+            if (routeTypes == 0) {
+                // Not set when the response was loaded, e.g. for a stop focused from an intent
+                routeTypes = getRouteTypes(stop);
             }
-            Set<Integer> routeTypes = getRouteTypes(routes);
-            if (routeTypes.contains(ObaRoute.TYPE_RAIL)) {
-                return BitmapDescriptorFactory.fromBitmap(transit_mode_icons[ObaRoute.TYPE_RAIL]);
-            } else if (routeTypes.contains(ObaRoute.TYPE_SUBWAY)) {
-                return BitmapDescriptorFactory.fromBitmap(transit_mode_icons[ObaRoute.TYPE_SUBWAY]);
-            } else if (routeTypes.contains(ObaRoute.TYPE_TRAM)) {
-                return BitmapDescriptorFactory.fromBitmap(transit_mode_icons[ObaRoute.TYPE_TRAM]);
-            } else if (routeTypes.contains(ObaRoute.TYPE_BUS)) {
-                return BitmapDescriptorFactory.fromBitmap(transit_mode_icons[ObaRoute.TYPE_BUS]);
-            } else if (routeTypes.contains(ObaRoute.TYPE_FERRY)) {
-                return BitmapDescriptorFactory.fromBitmap(transit_mode_icons[ObaRoute.TYPE_FERRY]);
-            } else {
+            int type = MODE_ICON_FOR_ROUTE_TYPES[routeTypes];
+            if (type == -1) {
                 return null;
             }
+            if (mModeIconDescriptors[type] == null) {
+                mModeIconDescriptors[type] =
+                        BitmapDescriptorFactory.fromBitmap(transit_mode_icons[type]);
+            }
+            return mModeIconDescriptors[type];
         }
 
-        private Set<Integer> getRouteTypes(List<ObaRoute> routes) {
-            Set<Integer> routeTypes = new HashSet<>(ObaRoute.NUM_TYPES);
-            for (ObaRoute route : routes) {
-                routeTypes.add(route.getType());
+        private int getRouteTypes(ObaStop stop) {
+            int routeTypes = 0;
+            for (String routeId : stop.getRouteIds()) {
+                ObaRoute route = mStopRoutes.get(routeId);
+                if (route != null) {
+                    routeTypes |= ObaStopElement.getRouteTypeBit(route.getType());
+                }
             }
-
             return routeTypes;
         }
 
@@ -1317,7 +1356,8 @@ public class StopOverlay implements MarkerListeners {
             } else {
                 // Make sure the currently focused stop still exists on the map
                 if (mCurrentFocusStop != null && mFocusedRoutes != null) {
-                    addMarkerToMap(mCurrentFocusStop, mFocusedRoutes);
+                    addRoutes(mFocusedRoutes);
+                    addMarkerToMap(mCurrentFocusStop);
                 }
             }
         }
@@ -46,16 +46,22 @@ import com.onesignal.OneSignal;
 
 import org.onebusaway.android.BuildConfig;
 import org.onebusaway.android.R;
+import org.onebusaway.android.database.recentStops.RecentStopsManager;
+import org.onebusaway.android.database.widealerts.AlertsRepository;
 import org.onebusaway.android.donations.DonationsManager;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.region.OfflinePackWorker;
 import org.onebusaway.android.travelbehavior.TravelBehaviorManager;
+import org.onebusaway.android.ui.survey.utils.SurveyDbHelper;
 import org.onebusaway.android.util.BuildFlavorUtils;
+import org.onebusaway.android.util.HiddenAlertsCache;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
 import org.onebusaway.android.util.ReminderUtils;
+import org.onebusaway.android.util.StopUserInfoCache;
 import org.onebusaway.android.widealerts.GtfsAlerts;
 
 import java.net.URI;
@@ -83,6 +89,20 @@ public class Application extends MultiDexApplication {
     public static final String CHANNEL_ARRIVAL_REMINDERS_ID = "arrival_reminders";
     public static final String CHANNEL_DESTINATION_ALERT_ID = "destination_alerts";
 
+    // Names of the startup steps, for the timings
+    public static final String STEP_OBA = "oba";
+    public static final String STEP_REGION = "region";
+    public static final String STEP_ANALYTICS = "analytics";
+    public static final String STEP_LAUNCH_COUNT = "launch_count";
+    public static final String STEP_DONATIONS = "donations";
+    public static final String STEP_OPEN311 = "open311";
+    public static final String STEP_NOTIFICATION_CHANNELS = "notification_channels";
+    public static final String STEP_DATABASE = "database";
+    public static final String STEP_STOP_USER_INFO = "stop_user_info";
+    public static final String STEP_HIDDEN_ALERTS = "hidden_alerts";
+    public static final String STEP_TRAVEL_BEHAVIOR = "travel_behavior";
+    public static final String STEP_PUSH = "push";
+
     private SharedPreferences mPrefs;
 
     private DonationsManager mDonationsManager;
@@ -108,6 +128,8 @@ public class Application extends MultiDexApplication {
 
     private Plausible mPlausible;
 
+    private StartupOrchestrator mStartup;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -115,23 +137,48 @@ public class Application extends MultiDexApplication {
         mApp = this;
         mPrefs = PreferenceManager.getDefaultSharedPreferences(this);
 
-        initOba();
-        initObaRegion();
-        initOpen311(getCurrentRegion());
-
-        reportAnalytics();
-
-        createNotificationChannels();
-
-        TravelBehaviorManager.startCollectingData(getApplicationContext());
-
-        incrementAppLaunchCount();
-
-        initOneSignal();
-
-        mDonationsManager = new DonationsManager(mPrefs, mFirebaseAnalytics, getResources(), getAppLaunchCount());
+        mStartup = new StartupOrchestrator()
+                // Sets the theme, so it must be done before the first activity is created
+                .add(STEP_OBA, StartupOrchestrator.Stage.MAIN, this::initOba)
+                .add(STEP_REGION, StartupOrchestrator.Stage.FIRST_FRAME, this::initObaRegion)
+                .add(STEP_ANALYTICS, StartupOrchestrator.Stage.FIRST_FRAME,
+                        this::reportAnalytics, STEP_REGION)
+                .add(STEP_LAUNCH_COUNT, StartupOrchestrator.Stage.FIRST_FRAME,
+                        this::incrementAppLaunchCount)
+                .add(STEP_DONATIONS, StartupOrchestrator.Stage.FIRST_FRAME,
+                        () -> mDonationsManager = new DonationsManager(mPrefs, mFirebaseAnalytics,
+                                getResources(), getAppLaunchCount()),
+                        STEP_ANALYTICS, STEP_LAUNCH_COUNT)
+                .add(STEP_OPEN311, StartupOrchestrator.Stage.BACKGROUND,
+                        () -> initOpen311(getCurrentRegion()), STEP_REGION)
+                // Channels must exist before any receiver or service posts a notification, which
+                // can happen as soon as onCreate() returns
+                .add(STEP_NOTIFICATION_CHANNELS, StartupOrchestrator.Stage.MAIN,
+                        this::createNotificationChannels)
+                .add(STEP_DATABASE, StartupOrchestrator.Stage.BACKGROUND, this::loadDatabase)
+                // Loads the names and stars of stops, so the stop screens don't query on the
+                // main thread
+                .add(STEP_STOP_USER_INFO, StartupOrchestrator.Stage.BACKGROUND,
+                        () -> StopUserInfoCache.getInstance(getApplicationContext()))
+                // Loads the alerts hidden by the user, so the arrivals list doesn't query on the
+                // main thread
+                .add(STEP_HIDDEN_ALERTS, StartupOrchestrator.Stage.BACKGROUND,
+                        () -> HiddenAlertsCache.getInstance(getApplicationContext()))
+                .add(STEP_TRAVEL_BEHAVIOR, StartupOrchestrator.Stage.IDLE,
+                        () -> TravelBehaviorManager.startCollectingData(getApplicationContext()))
+                .add(STEP_PUSH, StartupOrchestrator.Stage.IDLE, this::initOneSignal);
+        mStartup.start();
+    }
 
-        mGtfsAlerts = new GtfsAlerts(getApplicationContext());
+    /**
+     * Starts loading the data of the Room database that the screens read, so it's in memory by
+     * the time they need it
+     */
+    private void loadDatabase() {
+        Context context = getApplicationContext();
+        RecentStopsManager.load(context);
+        AlertsRepository.load(context);
+        SurveyDbHelper.load(context);
     }
 
     /**
@@ -159,7 +206,29 @@ public class Application extends MultiDexApplication {
     public static DonationsManager getDonationsManager() { return get().mDonationsManager; }
 
     public static GtfsAlerts getGtfsAlerts() {
-        return get().mGtfsAlerts;
+        Application app = get();
+        synchronized (app) {
+            if (app.mGtfsAlerts == null) {
+                app.mGtfsAlerts = new GtfsAlerts(app.getApplicationContext());
+            }
+            return app.mGtfsAlerts;
+        }
+    }
+
+    /**
+     * Runs the task on the main thread once the region and the other FIRST_FRAME steps of the
+     * startup are loaded, or right away if they already are.  Must be called from the main
+     * thread.
+     */
+    public static void runWhenStartupReady(Runnable task) {
+        get().mStartup.runWhenReady(task);
+    }
+
+    /**
+     * @return the orchestrator that ran the startup of the app, with the timings of its steps
+     */
+    public static StartupOrchestrator getStartup() {
+        return get().mStartup;
     }
 
     private static String appLaunchCountPreferencesKey = "appLaunchCountPreferencesKey";
@@ -354,6 +423,9 @@ public class Application extends MultiDexApplication {
                 setUseOldOtpApiUrlVersion(false);
                 buildPlausibleInstance(region);
             }
+            if (region.getSupportsObaDiscoveryApis()) {
+                OfflinePackWorker.schedule(this, regionChanged);
+            }
         } else {
             //User must have just entered a custom API URL via Preferences, so clear the region info
             ObaApi.getDefaultContext().setRegion(null);
@@ -581,7 +653,7 @@ public class Application extends MultiDexApplication {
         ObaApi.getDefaultContext().setRegion(region);
     }
 
-    private void initOpen311(ObaRegion region) {
+    private synchronized void initOpen311(ObaRegion region) {
         if (BuildConfig.DEBUG) {
             Open311Manager.getSettings().setDebugMode(true);
             Open311Manager.getSettings().setDryRun(true);
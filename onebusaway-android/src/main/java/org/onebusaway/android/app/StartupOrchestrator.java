@@ -0,0 +1,449 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.app;
+
+import org.onebusaway.android.util.BackgroundExecutor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of the startup of the app as a dependency graph, and records how long each step
+ * took.
+ *
+ * Each step has a stage that says where and when it runs (see Stage).  A step runs once all the
+ * steps it depends on have finished, and a step can only depend on steps added before it, so the
+ * graph can't have cycles.  Steps that fail are logged and count as finished, so a failure never
+ * blocks the startup.  The background steps run on the CPU pool of the BackgroundExecutor.
+ *
+ * Must be started from the main thread, which it doesn't block for the background steps: the
+ * activities wait for the steps they need with runWhenReady().
+ */
+public class StartupOrchestrator {
+
+    private static final String TAG = "StartupOrchestrator";
+
+    public enum Stage {
+        /**
+         * Runs on the main thread when the orchestrator starts, e.g. for work that must be done
+         * on the main thread before any activity is created
+         */
+        MAIN,
+        /**
+         * Runs on a background thread, in parallel with the other steps, and must be finished
+         * before the activities use its results (see runWhenReady())
+         */
+        FIRST_FRAME,
+        /**
+         * Runs on a background thread, in parallel with the other steps, without delaying the
+         * first frame
+         */
+        BACKGROUND,
+        /**
+         * Runs on the main thread once the main thread is idle and the FIRST_FRAME steps have
+         * finished, for optional work
+         */
+        IDLE
+    }
+
+    /**
+     * When a step ran and how long it took, relative to the start of the orchestrator
+     */
+    public static class Timing {
+
+        private final String mName;
+
+        private final Stage mStage;
+
+        private final String mThreadName;
+
+        private final long mStartNanos;
+
+        private final long mDurationNanos;
+
+        private final boolean mFailed;
+
+        Timing(String name, Stage stage, String threadName, long startNanos, long durationNanos,
+                boolean failed) {
+            mName = name;
+            mStage = stage;
+            mThreadName = threadName;
+            mStartNanos = startNanos;
+            mDurationNanos = durationNanos;
+            mFailed = failed;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public Stage getStage() {
+            return mStage;
+        }
+
+        public String getThreadName() {
+            return mThreadName;
+        }
+
+        /**
+         * @return the time between the start of the orchestrator and the start of the step, in
+         * milliseconds
+         */
+        public double getStartMillis() {
+            return mStartNanos / 1e6;
+        }
+
+        public double getDurationMillis() {
+            return mDurationNanos / 1e6;
+        }
+
+        /**
+         * @return the time between the start of the orchestrator and the end of the step, in
+         * milliseconds
+         */
+        public double getEndMillis() {
+            return (mStartNanos + mDurationNanos) / 1e6;
+        }
+
+        /**
+         * @return true if the step threw an exception
+         */
+        public boolean isFailed() {
+            return mFailed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s (%s, %s): +%.1fms, %.1fms%s", mName,
+                    mStage, mThreadName, getStartMillis(), getDurationMillis(),
+                    mFailed ? ", failed" : "");
+        }
+    }
+
+    private static class Step {
+
+        final String mName;
+
+        final Stage mStage;
+
+        final Runnable mTask;
+
+        final List<Step> mDependencies = new ArrayList<>();
+
+        final List<Step> mDependents = new ArrayList<>();
+
+        final CountDownLatch mDone = new CountDownLatch(1);
+
+        // Number of dependencies that haven't finished yet, guarded by the orchestrator
+        int mPending;
+
+        Step(String name, Stage stage, Runnable task) {
+            mName = name;
+            mStage = stage;
+            mTask = task;
+        }
+    }
+
+    private final Map<String, Step> mSteps = new LinkedHashMap<>();
+
+    private final Map<String, Timing> mTimings =
+            Collections.synchronizedMap(new LinkedHashMap<String, Timing>());
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final List<Step> mReadyIdleSteps = new ArrayList<>();
+
+    private final List<Runnable> mReadyTasks = new ArrayList<>();
+
+    private Executor mExecutor;
+
+    private long mStartNanos;
+
+    private volatile long mFirstFrameNanos = -1;
+
+    private boolean mStarted = false;
+
+    private boolean mIdle = false;
+
+    // Number of MAIN and FIRST_FRAME steps that haven't finished yet
+    private int mFirstFramePending;
+
+    private boolean mReady = false;
+
+    /**
+     * Adds a step to the startup
+     *
+     * @param name      unique name of the step, used for the timings
+     * @param stage     where and when the step runs
+     * @param task      the work of the step
+     * @param dependsOn names of steps, added before this one, that must finish before this step
+     *                  runs
+     * @return this orchestrator
+     */
+    public synchronized StartupOrchestrator add(String name, Stage stage, Runnable task,
+            String... dependsOn) {
+        if (mStarted) {
+            throw new IllegalStateException("Steps can't be added after the startup began");
+        }
+        if (mSteps.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup step " + name);
+        }
+        Step step = new Step(name, stage, task);
+        for (String dependency : dependsOn) {
+            Step other = mSteps.get(dependency);
+            if (other == null) {
+                throw new IllegalArgumentException(
+                        "Startup step " + name + " depends on unknown step " + dependency);
+            }
+            if (stage != Stage.IDLE && other.mStage == Stage.IDLE) {
+                throw new IllegalArgumentException(
+                        "Startup step " + name + " can't wait for idle step " + dependency);
+            }
+            step.mDependencies.add(other);
+            other.mDependents.add(step);
+        }
+        step.mPending = step.mDependencies.size();
+        mSteps.put(name, step);
+        return this;
+    }
+
+    /**
+     * Starts the steps that don't depend on other steps, then runs the MAIN steps on the calling
+     * thread.  Returns when all MAIN steps have finished, without waiting for the FIRST_FRAME
+     * steps.
+     */
+    public void start() {
+        List<Step> mainSteps = new ArrayList<>();
+        synchronized (this) {
+            if (mStarted) {
+                throw new IllegalStateException("The startup already began");
+            }
+            mStarted = true;
+            mStartNanos = System.nanoTime();
+            mExecutor = BackgroundExecutor.getInstance()
+                    .getExecutor(BackgroundExecutor.Pool.CPU);
+            for (Step step : mSteps.values()) {
+                if (step.mStage == Stage.MAIN || step.mStage == Stage.FIRST_FRAME) {
+                    mFirstFramePending++;
+                }
+            }
+            if (mFirstFramePending == 0) {
+                ready();
+            }
+            for (Step step : mSteps.values()) {
+                if (step.mStage == Stage.MAIN) {
+                    mainSteps.add(step);
+                } else if (step.mPending == 0) {
+                    dispatch(step);
+                }
+            }
+        }
+        runWhenIdle(() -> {
+            synchronized (StartupOrchestrator.this) {
+                mIdle = true;
+                releaseIdleSteps();
+            }
+        });
+        for (Step step : mainSteps) {
+            awaitDependencies(step);
+            run(step);
+        }
+    }
+
+    /**
+     * Runs the task on the main thread once the MAIN and FIRST_FRAME steps have finished, or
+     * right away if they already have.  Must be called from the main thread.
+     */
+    public void runWhenReady(Runnable task) {
+        synchronized (this) {
+            if (!mReady) {
+                mReadyTasks.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+
+    /**
+     * Waits for all steps to finish.  Must not be called from the main thread before the IDLE
+     * steps ran, or it won't return before the timeout.
+     *
+     * @return true if all steps finished, false if the timeout elapsed first
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        for (Step step : mSteps.values()) {
+            if (!step.mDone.await(end - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the time spent between the start of the orchestrator and the end of the last MAIN
+     * or FIRST_FRAME step, in milliseconds, or -1 if they haven't finished yet
+     */
+    public double getFirstFrameMillis() {
+        long nanos = mFirstFrameNanos;
+        return nanos < 0 ? -1 : nanos / 1e6;
+    }
+
+    /**
+     * @return the timings of the steps that finished, in the order they finished
+     */
+    public List<Timing> getTimings() {
+        synchronized (mTimings) {
+            return new ArrayList<>(mTimings.values());
+        }
+    }
+
+    /**
+     * @return the timing of the step, or null if the step hasn't finished yet
+     */
+    public Timing getTiming(String name) {
+        return mTimings.get(name);
+    }
+
+    /**
+     * Runs the task on the main thread the next time the message queue of the main thread is
+     * idle.  Must be called from the main thread.
+     */
+    public static void runWhenIdle(Runnable task) {
+        Looper.myQueue().addIdleHandler(() -> {
+            task.run();
+            return false;
+        });
+    }
+
+    /**
+     * Runs the step, now that its dependencies are done, on its thread.  Called with the lock
+     * held.
+     */
+    private void dispatch(Step step) {
+        switch (step.mStage) {
+            case MAIN:
+                // Run in order by start()
+                break;
+            case IDLE:
+                mReadyIdleSteps.add(step);
+                releaseIdleSteps();
+                break;
+            default:
+                mExecutor.execute(() -> run(step));
+                break;
+        }
+    }
+
+    private void run(Step step) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            step.mTask.run();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Startup step " + step.mName + " failed", e);
+            failed = true;
+        }
+        long end = System.nanoTime();
+        mTimings.put(step.mName, new Timing(step.mName, step.mStage,
+                Thread.currentThread().getName(), start - mStartNanos, end - start, failed));
+        finished(step);
+    }
+
+    private void finished(Step step) {
+        boolean all;
+        synchronized (this) {
+            step.mDone.countDown();
+            if ((step.mStage == Stage.MAIN || step.mStage == Stage.FIRST_FRAME)
+                    && --mFirstFramePending == 0) {
+                ready();
+            }
+            for (Step dependent : step.mDependents) {
+                if (--dependent.mPending == 0) {
+                    dispatch(dependent);
+                }
+            }
+            all = mTimings.size() == mSteps.size();
+        }
+        if (all) {
+            for (Timing timing : getTimings()) {
+                Log.d(TAG, timing.toString());
+            }
+        }
+    }
+
+    /**
+     * Called with the lock held when the MAIN and FIRST_FRAME steps have finished
+     */
+    private void ready() {
+        mReady = true;
+        mFirstFrameNanos = System.nanoTime() - mStartNanos;
+        Log.d(TAG, String.format(Locale.US, "Ready for the first frame after %.1fms",
+                getFirstFrameMillis()));
+        for (Runnable task : mReadyTasks) {
+            mMainHandler.post(task);
+        }
+        mReadyTasks.clear();
+        releaseIdleSteps();
+    }
+
+    /**
+     * Posts the IDLE steps whose dependencies are done, once the main thread was idle and the
+     * steps of the first frame have finished.  Called with the lock held.
+     */
+    private void releaseIdleSteps() {
+        if (!mIdle || !mReady) {
+            return;
+        }
+        for (Step step : mReadyIdleSteps) {
+            mMainHandler.post(() -> run(step));
+        }
+        mReadyIdleSteps.clear();
+    }
+
+    private static void awaitDependencies(Step step) {
+        for (Step dependency : step.mDependencies) {
+            awaitUninterruptibly(dependency.mDone);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
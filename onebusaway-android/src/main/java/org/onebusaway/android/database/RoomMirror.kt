@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.database
+
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import org.onebusaway.android.util.BackgroundExecutor
+
+/**
+ * An in-memory copy of data stored in the Room database, so the data can be read and observed
+ * from any thread without waiting on SQLite.
+ *
+ * The copy is loaded once, on the DISK pool of the BackgroundExecutor.  Changes are applied to the
+ * copy right away and persisted in the background in the order they were made; changes made
+ * before the copy is loaded are applied on top of what was loaded.  The database is only read or
+ * written from the background, so none of the methods block.
+ *
+ * @param empty  the value used if the data can't be loaded
+ * @param reader reads the data from the database
+ */
+class RoomMirror<T : Any>(private val empty: T, private val reader: suspend () -> T) {
+
+    companion object {
+        private const val TAG = "RoomMirror"
+    }
+
+    private val lock = Any()
+
+    private val state = MutableStateFlow<T?>(null)
+
+    // Guarded by lock
+    private val pending = mutableListOf<(T) -> T>()
+
+    private val waiting = mutableListOf<Runnable>()
+
+    private var loading = false
+
+    // Reads and writes of the database, run one at a time in the order they were queued
+    private val operations = Channel<suspend () -> Unit>(Channel.UNLIMITED)
+
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    init {
+        CoroutineScope(diskDispatcher() + SupervisorJob()).launch {
+            for (operation in operations) {
+                try {
+                    operation()
+                } catch (e: Exception) {
+                    Log.e(TAG, "Database operation failed", e)
+                }
+            }
+        }
+    }
+
+    /**
+     * The data, or null until it's loaded.  Collect it to observe the changes.
+     */
+    val data: StateFlow<T?> = state.asStateFlow()
+
+    /**
+     * @return the data, or null if it isn't loaded yet
+     */
+    val value: T?
+        get() = state.value
+
+    /**
+     * Starts loading the data in the background, if it isn't loaded or loading already
+     */
+    fun load() {
+        synchronized(lock) {
+            if (loading) return
+            loading = true
+        }
+        operations.trySend {
+            val loaded = try {
+                reader()
+            } catch (e: Exception) {
+                Log.e(TAG, "Couldn't load the data", e)
+                empty
+            }
+            val callbacks: List<Runnable>
+            synchronized(lock) {
+                // Another load may have started if the mirror was reset meanwhile
+                if (!loading || state.value != null) return@trySend
+                state.value = pending.fold(loaded) { value, change -> change(value) }
+                pending.clear()
+                callbacks = waiting.toList()
+                waiting.clear()
+            }
+            callbacks.forEach { mainHandler.post(it) }
+        }
+    }
+
+    /**
+     * Runs the callback once the data is loaded: right away if it's loaded already, or else on
+     * the main thread after it's loaded.  Starts loading the data if needed.
+     */
+    fun whenLoaded(callback: Runnable) {
+        synchronized(lock) {
+            if (state.value == null) {
+                waiting.add(callback)
+                load()
+                return
+            }
+        }
+        callback.run()
+    }
+
+    /**
+     * Applies the change to the data now, or once it's loaded, and queues the write to the
+     * database
+     *
+     * @param change  returns the new data from the current data, without side effects
+     * @param persist writes the change to the database
+     */
+    fun update(change: (T) -> T, persist: suspend () -> Unit) {
+        load()
+        synchronized(lock) {
+            val current = state.value
+            if (current != null) {
+                state.value = change(current)
+            } else {
+                pending.add(change)
+            }
+        }
+        operations.trySend(persist)
+    }
+
+    /**
+     * Forgets the data, so it's loaded again from the database the next time it's used
+     */
+    fun resetForTesting() {
+        synchronized(lock) {
+            loading = false
+            pending.clear()
+            state.value = null
+        }
+    }
+
+    private fun diskDispatcher() = BackgroundExecutor.getInstance()
+        .getExecutor(BackgroundExecutor.Pool.DISK).asCoroutineDispatcher()
+}
@@ -1,13 +1,10 @@
 package org.onebusaway.android.database.recentStops
 
 import android.content.Context
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.flow.StateFlow
 import org.onebusaway.android.app.Application
 import org.onebusaway.android.database.DatabaseProvider
+import org.onebusaway.android.database.RoomMirror
 import org.onebusaway.android.database.recentStops.entity.RegionEntity
 import org.onebusaway.android.database.recentStops.entity.StopEntity
 import org.onebusaway.android.io.elements.ObaStop
@@ -15,27 +12,68 @@ import org.onebusaway.android.io.elements.ObaStop
 /**
  * Manages recent stops data by interacting with the database.
  * Handles saving new stops, and retrieving recent stops.
+ *
+ * The recent stops of all regions are kept in memory (see RoomMirror), so none of the methods
+ * block.
  */
 object RecentStopsManager {
 
     // Maximum stops count to save
     private var MAX_STOP_COUNT = 5
 
+    private var mirror: RoomMirror<List<StopEntity>>? = null
+
+    @Synchronized
+    private fun mirror(context: Context): RoomMirror<List<StopEntity>> {
+        return mirror ?: RoomMirror<List<StopEntity>>(emptyList()) {
+            DatabaseProvider.getDatabase(context).stopDao().getAllStops()
+                .sortedBy { it.timestamp }
+        }.also { mirror = it }
+    }
+
     /**
      * Inserts a region into the database if it does not already exist.
      *
      * @param regionId The ID of the region to insert.
      */
     private suspend fun insertRegion(context: Context, regionId: Int) {
-        val db = DatabaseProvider.getDatabase(context)
-        val regionDao = db.regionDao()
+        val regionDao = DatabaseProvider.getDatabase(context).regionDao()
+        val existingRegion = regionDao.getRegionByID(regionId)
+        if (existingRegion == null) {
+            regionDao.insertRegion(RegionEntity(regionId))
+        }
+    }
 
-        withContext(Dispatchers.IO) {
-            val existingRegion = regionDao.getRegionByID(regionId)
-            if (existingRegion == null) {
-                regionDao.insertRegion(RegionEntity(regionId))
-            }
+    /**
+     * Applies to the stops in memory what saving the stop does to the database.
+     */
+    private fun withStop(stops: List<StopEntity>, stop: StopEntity): List<StopEntity> {
+        val result = stops.toMutableList()
+        val region = result.filter { it.regionId == stop.regionId }
+        if (region.size >= MAX_STOP_COUNT) {
+            result.remove(region.minByOrNull { it.timestamp })
         }
+        result.removeAll { it.stop_id == stop.stop_id }
+        result.add(stop)
+        return result
+    }
+
+    /**
+     * Starts loading the recent stops from the database, if they aren't loaded yet.
+     */
+    @JvmStatic
+    fun load(context: Context) {
+        mirror(context).load()
+    }
+
+    /**
+     * Runs the callback once the recent stops are loaded, so getRecentStops() can be trusted.
+     *
+     * @param callback Runs right away if the stops are loaded, or else on the main thread.
+     */
+    @JvmStatic
+    fun whenLoaded(context: Context, callback: Runnable) {
+        mirror(context).whenLoaded(callback)
     }
 
     /**
@@ -46,12 +84,10 @@ object RecentStopsManager {
     @JvmStatic
     fun saveStop(context: Context, stop: ObaStop) {
         val regionId = Application.get().currentRegion?.id?.toInt() ?: return
+        val stopDao = DatabaseProvider.getDatabase(context).stopDao()
+        val entity = StopEntity(stop.id, stop.name, regionId, System.currentTimeMillis())
 
-        val db = DatabaseProvider.getDatabase(context)
-        val stopDao = db.stopDao()
-
-        CoroutineScope(Dispatchers.IO).launch {
-            val currentTime = System.currentTimeMillis()
+        mirror(context).update({ withStop(it, entity) }) {
             val stopCount = stopDao.getStopCount(regionId)
 
             if (stopCount >= MAX_STOP_COUNT) {
@@ -60,25 +96,33 @@ object RecentStopsManager {
             }
 
             insertRegion(context, regionId)
-            stopDao.insertStop(StopEntity(stop.id, stop.name, regionId, currentTime))
+            stopDao.insertStop(entity)
         }
     }
 
     /**
      * Retrieves a list of recent stop IDs for the current region.
      *
-     * @return A list of recent stop IDs or an empty list if none are found.
+     * @return A list of recent stop IDs or an empty list if none are found or the stops aren't
+     * loaded yet.
      */
     fun getRecentStops(context: Context): List<String> {
-        return runBlocking {
-            val db = DatabaseProvider.getDatabase(context)
-            val stopDao = db.stopDao()
-
-            withContext(Dispatchers.IO) {
-                val regionId = Application.get().currentRegion.id.toInt()
-                val stops = stopDao.getRecentStopsForRegion(regionId)
-                stops.map { it.stop_id }
-            }
-        }
+        val regionId = Application.get().currentRegion?.id?.toInt() ?: return emptyList()
+        val stops = mirror(context)
+        stops.load()
+        return stops.value.orEmpty().filter { it.regionId == regionId }.map { it.stop_id }
+    }
+
+    /**
+     * @return The recent stops of all regions, oldest first, or null until they're loaded.
+     */
+    fun recentStops(context: Context): StateFlow<List<StopEntity>?> {
+        return mirror(context).data
+    }
+
+    @JvmStatic
+    @Synchronized
+    fun resetForTesting() {
+        mirror?.resetForTesting()
     }
 }
@@ -13,6 +13,9 @@ interface StopDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertStop(stop: StopEntity): Long
 
+    @Query("SELECT * FROM stops")
+    suspend fun getAllStops(): List<StopEntity>
+
     @Query("SELECT * FROM stops WHERE regionId = :regionId")
     suspend fun getRecentStopsForRegion(regionId: Int): List<StopEntity>
 
@@ -1,34 +1,59 @@
 package org.onebusaway.android.database.widealerts
 
 import android.content.Context
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.flow.StateFlow
 import org.onebusaway.android.database.DatabaseProvider
+import org.onebusaway.android.database.RoomMirror
 import org.onebusaway.android.database.widealerts.entity.AlertEntity
 
-/** Provides methods to interact with the alerts database. */
+/**
+ * Provides methods to interact with the alerts database.
+ *
+ * The IDs of the alerts are kept in memory (see RoomMirror), so none of the methods block.
+ */
 object AlertsRepository {
 
+    private var mirror: RoomMirror<Set<String>>? = null
+
+    @Synchronized
+    private fun mirror(context: Context): RoomMirror<Set<String>> {
+        return mirror ?: RoomMirror<Set<String>>(emptySet()) {
+            DatabaseProvider.getDatabase(context).alertsDao().getAllAlerts()
+                .mapTo(HashSet()) { it.id }
+        }.also { mirror = it }
+    }
+
+    /**
+     * Starts loading the alerts from the database, if they aren't loaded yet.
+     */
+    @JvmStatic
+    fun load(context: Context) {
+        mirror(context).load()
+    }
+
+    /**
+     * Runs the callback once the alerts are loaded, so isAlertExists() can be trusted.
+     *
+     * @param context The context to access the database.
+     * @param callback Runs right away if the alerts are loaded, or else on the main thread.
+     */
+    @JvmStatic
+    fun whenLoaded(context: Context, callback: Runnable) {
+        mirror(context).whenLoaded(callback)
+    }
+
     /**
      * Checks if an alert exists in the database.
      *
      * @param context The context to access the database.
      * @param alertId The ID of the alert to check.
-     * @return True if the alert exists, false otherwise.
+     * @return True if the alert exists, false otherwise or if the alerts aren't loaded yet.
      */
     @JvmStatic
-     fun isAlertExists(context: Context, alertId: String): Boolean {
-        val db = DatabaseProvider.getDatabase(context)
-        val alertDao = db.alertsDao()
-
-        return runBlocking {
-            withContext(Dispatchers.IO) {
-                alertDao.getAlertById(alertId) != null
-            }
-        }
+    fun isAlertExists(context: Context, alertId: String): Boolean {
+        val alerts = mirror(context)
+        alerts.load()
+        return alerts.value?.contains(alertId) ?: false
     }
 
     /**
@@ -39,11 +64,22 @@ object AlertsRepository {
      */
     @JvmStatic
     fun insertAlert(context: Context, alert: AlertEntity) {
-        val db = DatabaseProvider.getDatabase(context)
-        val alertDao = db.alertsDao()
-
-        CoroutineScope(Dispatchers.IO).launch {
+        val alertDao = DatabaseProvider.getDatabase(context).alertsDao()
+        mirror(context).update({ it + alert.id }) {
             alertDao.insertAlert(alert)
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The IDs of the alerts in the database, or null until they're loaded.
+     */
+    fun alertIds(context: Context): StateFlow<Set<String>?> {
+        return mirror(context).data
+    }
+
+    @JvmStatic
+    @Synchronized
+    fun resetForTesting() {
+        mirror?.resetForTesting()
+    }
+}
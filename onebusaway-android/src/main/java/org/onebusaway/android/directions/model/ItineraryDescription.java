@@ -24,6 +24,8 @@ import org.opentripplanner.routing.core.TraverseMode;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Itinerary desciption is a list of trips and a rank. This is for the Realtime service.
@@ -34,17 +36,40 @@ public class ItineraryDescription {
 
     private List<String> mTripIds;
 
+    // OBA trip IDs of the transit legs, used to check their status without re-planning the trip
+    private List<String> mObaTripIds;
+
+    // Schedule deviations (in seconds) of the transit legs when the itinerary was planned
+    private List<Long> mDepartureDelays;
+
+    private Date mStartDate;
+
     private Date mEndDate;
 
     public ItineraryDescription(Itinerary itinerary) {
+        this(itinerary, null);
+    }
+
+    /**
+     * @param obaAgencies names of the agencies of the OBA region, by agency ID, used to find the
+     *                    OBA trip IDs of the transit legs, or null to use the OTP feed IDs
+     */
+    public ItineraryDescription(Itinerary itinerary, Map<String, String> obaAgencies) {
         mTripIds = new ArrayList<>();
+        mObaTripIds = new ArrayList<>();
+        mDepartureDelays = new ArrayList<>();
         for (Leg leg : itinerary.legs) {
             TraverseMode traverseMode = TraverseMode.valueOf(leg.mode);
             if (traverseMode.isTransit()) {
                 mTripIds.add(leg.tripId);
+                mObaTripIds.add(toObaId(leg.tripId, leg.agencyId, leg.agencyName,
+                        obaAgencies));
+                mDepartureDelays.add((long) leg.departureDelay);
             }
         }
 
+        Leg first = itinerary.legs.get(0);
+        mStartDate = ConversionUtils.parseOtpDate(first.startTime);
         Leg last = itinerary.legs.get(itinerary.legs.size() - 1);
         mEndDate = ConversionUtils.parseOtpDate(last.endTime);
     }
@@ -54,6 +79,88 @@ public class ItineraryDescription {
         mEndDate = endDate;
     }
 
+    public ItineraryDescription(List<String> tripIds, List<String> obaTripIds,
+            List<Long> departureDelays, Date startDate, Date endDate) {
+        mTripIds = tripIds;
+        mObaTripIds = obaTripIds;
+        mDepartureDelays = departureDelays;
+        mStartDate = startDate;
+        mEndDate = endDate;
+    }
+
+    /**
+     * Converts an OTP ID (e.g., "1:1234", or "1234" with agency ID "1") to the format used by the
+     * OBA REST API (e.g., "1_1234").
+     *
+     * The feed ID of OTP isn't always the agency ID of OBA, so when the agencies of the region are
+     * known, the OBA agency is the first of them that matches the feed ID, the agency ID or the
+     * agency name of the leg, or the only agency of the region.
+     *
+     * @param otpId       OTP ID to convert
+     * @param agencyId    agency ID of the leg, may be null
+     * @param agencyName  agency name of the leg, may be null
+     * @param obaAgencies names of the agencies of the OBA region by agency ID, or null if they
+     *                    aren't known
+     * @return the OBA ID, or null if otpId is null or doesn't belong to an agency of the region
+     */
+    public static String toObaId(String otpId, String agencyId, String agencyName,
+            Map<String, String> obaAgencies) {
+        if (otpId == null) {
+            return null;
+        }
+        String feedId = null;
+        String id = otpId;
+        int separator = otpId.indexOf(':');
+        if (separator > 0) {
+            feedId = otpId.substring(0, separator);
+            id = otpId.substring(separator + 1);
+        }
+        if (agencyId != null && agencyId.indexOf(':') > 0) {
+            // Agency IDs also have a feed prefix on newer OTP servers
+            agencyId = agencyId.substring(agencyId.indexOf(':') + 1);
+        }
+        if (obaAgencies == null) {
+            if (feedId != null) {
+                return feedId + "_" + id;
+            }
+            if (agencyId != null && !otpId.startsWith(agencyId + "_")) {
+                return agencyId + "_" + otpId;
+            }
+            return otpId;
+        }
+        String obaAgencyId = findObaAgency(feedId, agencyId, agencyName, obaAgencies);
+        if (obaAgencyId == null) {
+            return null;
+        }
+        if (feedId == null && id.startsWith(obaAgencyId + "_")) {
+            return id;
+        }
+        return obaAgencyId + "_" + id;
+    }
+
+    private static String findObaAgency(String feedId, String agencyId, String agencyName,
+            Map<String, String> obaAgencies) {
+        if (feedId != null && obaAgencies.containsKey(feedId)) {
+            return feedId;
+        }
+        if (agencyId != null && obaAgencies.containsKey(agencyId)) {
+            return agencyId;
+        }
+        if (agencyName != null) {
+            String name = agencyName.trim().toLowerCase(Locale.US);
+            for (Map.Entry<String, String> agency : obaAgencies.entrySet()) {
+                if (agency.getValue() != null
+                        && name.equals(agency.getValue().trim().toLowerCase(Locale.US))) {
+                    return agency.getKey();
+                }
+            }
+        }
+        if (obaAgencies.size() == 1) {
+            return obaAgencies.keySet().iterator().next();
+        }
+        return null;
+    }
+
     /**
      * Check if this itinerary matches the itinerary of another ItineraryDescription
      *
@@ -103,6 +210,13 @@ public class ItineraryDescription {
         return mEndDate;
     }
 
+    /**
+     * @return the departure time of the first leg, or null if it's unknown
+     */
+    public Date getStartDate() {
+        return mStartDate;
+    }
+
     /**
      *
      * @return true if the itinerary's end date has passed
@@ -117,4 +231,19 @@ public class ItineraryDescription {
     public List<String> getTripIds() {
         return mTripIds;
     }
+
+    /**
+     * return list of OBA trip IDs for the transit legs, or null if unknown
+     */
+    public List<String> getObaTripIds() {
+        return mObaTripIds;
+    }
+
+    /**
+     * return list of schedule deviations (in seconds) of the transit legs when the itinerary was
+     * planned, or null if unknown
+     */
+    public List<Long> getDepartureDelays() {
+        return mDepartureDelays;
+    }
 }
@@ -35,6 +35,15 @@ import org.onebusaway.android.directions.model.ItineraryDescription;
 import org.onebusaway.android.directions.tasks.TripRequest;
 import org.onebusaway.android.directions.util.OTPConstants;
 import org.onebusaway.android.directions.util.TripRequestBuilder;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaAgency;
+import org.onebusaway.android.io.elements.ObaAgencyWithCoverage;
+import org.onebusaway.android.io.elements.ObaTripStatus;
+import org.onebusaway.android.io.elements.Status;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageRequest;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageResponse;
+import org.onebusaway.android.io.request.ObaTripDetailsRequest;
+import org.onebusaway.android.io.request.ObaTripDetailsResponse;
 import org.opentripplanner.api.model.Itinerary;
 import org.opentripplanner.api.model.Leg;
 import org.opentripplanner.api.model.TripPlan;
@@ -42,13 +51,21 @@ import org.opentripplanner.api.model.TripPlan;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This service is started after a trip is planned by the user so they can be notified if the
  * trip results for their request change in the near future. For example, if a user plans a trip,
  * and then the top result for that trip gets delayed by 20 minutes, the user will be notified
  * that new trip results are available.
+ *
+ * To avoid re-planning the whole trip on the OTP server for each check, the status of the transit
+ * legs of the itinerary is checked using the OBA trip details API, and the trip is only re-planned
+ * if one of the legs deviates from the planned schedule by more than
+ * OTPConstants.REALTIME_SERVICE_DELAY_THRESHOLD (or its status can't be determined).  Checks are
+ * more frequent as the departure time of the itinerary gets closer.
  */
 public class RealtimeService extends IntentService {
 
@@ -56,6 +73,9 @@ public class RealtimeService extends IntentService {
 
     private static final String ITINERARY_DESC = ".ItineraryDesc";
     private static final String ITINERARY_END_DATE = ".ItineraryEndDate";
+    private static final String ITINERARY_START_DATE = ".ItineraryStartDate";
+    private static final String ITINERARY_OBA_TRIP_IDS = ".ItineraryObaTripIds";
+    private static final String ITINERARY_DEPARTURE_DELAYS = ".ItineraryDepartureDelays";
 
     public RealtimeService() {
         super("RealtimeService");
@@ -113,9 +133,9 @@ public class RealtimeService extends IntentService {
         if (realtimeLegsOnItineraries) {
             Log.d(TAG, "Starting realtime updates for itinerary");
 
-            // init alarm mgr
-            getAlarmManager().setInexactRepeating(AlarmManager.RTC, new Date().getTime(),
-                    OTPConstants.DEFAULT_UPDATE_INTERVAL_TRIP_TIME, getAlarmIntent(params));
+            // Run the first check now, subsequent checks are scheduled after each check
+            long now = System.currentTimeMillis();
+            setAlarm(AlarmManager.RTC, now, now, getAlarmIntent(getSimplifiedBundle(params)));
         } else {
             Log.d(TAG, "No realtime legs on itinerary");
         }
@@ -154,7 +174,8 @@ public class RealtimeService extends IntentService {
             }
             PendingIntent pendingIntent = PendingIntent.getBroadcast(getApplicationContext(),
                     0, future, flags);
-            getAlarmManager().set(AlarmManager.RTC_WAKEUP, queryStart.getTime(), pendingIntent);
+            setAlarm(AlarmManager.RTC_WAKEUP, System.currentTimeMillis(), queryStart.getTime(),
+                    pendingIntent);
         }
 
         return reschedule;
@@ -168,10 +189,134 @@ public class RealtimeService extends IntentService {
             disableListenForTripUpdates();
             return;
         }
-        checkForItineraryChange(target, builder, desc);
+        if (desc.isExpired()) {
+            Log.d(TAG, "End of trip has passed.");
+            disableListenForTripUpdates();
+            return;
+        }
+
+        long[] deviations = getTransitLegDeviations(desc);
+        if (deviations != null && !isDeviationOverThreshold(desc, deviations)) {
+            Log.d(TAG, "Transit legs are within the schedule deviation threshold.");
+            scheduleNextCheck(bundle, desc);
+            return;
+        }
+
+        Log.d(TAG, "Transit legs changed, re-planning the itinerary.");
+        checkForItineraryChange(target, builder, desc, bundle, deviations);
+    }
+
+    /**
+     * Gets the current schedule deviation of each transit leg of the itinerary from the OBA server
+     *
+     * @param desc description of the itinerary being monitored
+     * @return the current schedule deviation (in seconds) of each transit leg, in the same order
+     * as desc.getObaTripIds(), or null if the status of a leg can't be determined and the
+     * itinerary should be re-planned
+     */
+    private long[] getTransitLegDeviations(ItineraryDescription desc) {
+        List<String> tripIds = desc.getObaTripIds();
+        List<Long> plannedDelays = desc.getDepartureDelays();
+        if (tripIds == null || plannedDelays == null || tripIds.isEmpty()) {
+            return null;
+        }
+        long[] deviations = new long[tripIds.size()];
+        for (int i = 0; i < tripIds.size(); i++) {
+            if (tripIds.get(i) == null) {
+                return null;
+            }
+            ObaTripDetailsResponse response = new ObaTripDetailsRequest.Builder(
+                    getApplicationContext(), tripIds.get(i))
+                    .setIncludeTrip(false)
+                    .setIncludeSchedule(false)
+                    .build()
+                    .call();
+            if (response == null || response.getCode() != ObaApi.OBA_OK) {
+                Log.d(TAG, "Unable to get status of trip " + tripIds.get(i));
+                return null;
+            }
+            ObaTripStatus status = response.getStatus();
+            if (status == null || Status.CANCELED.equals(status.getStatus())) {
+                Log.d(TAG, "No status or canceled trip " + tripIds.get(i));
+                return null;
+            }
+            // Without real-time information, assume the trip is still running as planned
+            deviations[i] = status.isPredicted() ? status.getScheduleDeviation()
+                    : plannedDelays.get(i);
+        }
+        return deviations;
+    }
+
+    private boolean isDeviationOverThreshold(ItineraryDescription desc, long[] deviations) {
+        List<Long> plannedDelays = desc.getDepartureDelays();
+        for (int i = 0; i < deviations.length; i++) {
+            long change = deviations[i] - plannedDelays.get(i);
+            if (Math.abs(change) > OTPConstants.REALTIME_SERVICE_DELAY_THRESHOLD) {
+                Log.d(TAG, "Schedule deviation changed by " + change + " sec on leg " + i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Schedules the next check of the itinerary (see getNextCheckTime())
+     *
+     * @param bundle simplified bundle for the itinerary, from getSimplifiedBundle()
+     * @param desc   description of the itinerary being monitored
+     */
+    private void scheduleNextCheck(Bundle bundle, ItineraryDescription desc) {
+        long now = System.currentTimeMillis();
+        long nextCheck = getNextCheckTime(desc.getStartDate(), now);
+        Log.d(TAG, "Next check at " + new Date(nextCheck));
+        setAlarm(AlarmManager.RTC, now, nextCheck, getAlarmIntent(bundle));
+    }
+
+    /**
+     * Returns the time of the next check of an itinerary.  Checks are more frequent when the
+     * departure time of the itinerary is near, and are suspended until
+     * REALTIME_SERVICE_QUERY_WINDOW before the departure if the itinerary departs far in the
+     * future.
+     *
+     * @param start departure time of the itinerary, or null if it's unknown
+     * @param now   current time, in milliseconds since the epoch
+     * @return the time of the next check, in milliseconds since the epoch
+     */
+    public static long getNextCheckTime(Date start, long now) {
+        long untilStart = start != null ? start.getTime() - now : 0;
+        if (untilStart > OTPConstants.REALTIME_SERVICE_QUERY_WINDOW) {
+            return start.getTime() - OTPConstants.REALTIME_SERVICE_QUERY_WINDOW;
+        } else if (untilStart > OTPConstants.REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW) {
+            return Math.min(now + OTPConstants.FAR_UPDATE_INTERVAL_TRIP_TIME,
+                    start.getTime() - OTPConstants.REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW);
+        } else if (untilStart > 0) {
+            return now + OTPConstants.NEAR_UPDATE_INTERVAL_TRIP_TIME;
+        } else {
+            return now + OTPConstants.DEFAULT_UPDATE_INTERVAL_TRIP_TIME;
+        }
+    }
+
+    /**
+     * Returns how long after its scheduled time a check may run.  Inexact alarms can be deferred
+     * by minutes, which would skip the checks every 30 seconds before the departure, so the
+     * window is a tenth of the time until the check, up to REALTIME_SERVICE_MAX_ALARM_WINDOW.
+     *
+     * @param now       current time, in milliseconds since the epoch
+     * @param nextCheck time of the check, in milliseconds since the epoch
+     * @return the length of the window, in milliseconds
+     */
+    public static long getCheckWindow(long now, long nextCheck) {
+        return Math.max(0, Math.min((nextCheck - now) / 10,
+                OTPConstants.REALTIME_SERVICE_MAX_ALARM_WINDOW));
+    }
+
+    private void setAlarm(int type, long now, long time, PendingIntent intent) {
+        getAlarmManager().setWindow(type, time, getCheckWindow(now, time), intent);
     }
 
-    private void checkForItineraryChange(final Class<? extends Activity> source, final TripRequestBuilder builder, final ItineraryDescription itineraryDescription) {
+    private void checkForItineraryChange(final Class<? extends Activity> source,
+            final TripRequestBuilder builder, final ItineraryDescription itineraryDescription,
+            final Bundle bundle, final long[] deviations) {
 
         Log.d(TAG, "Check for change");
 
@@ -207,6 +352,13 @@ public class RealtimeService extends IntentService {
                         // Otherwise, we are still good.
                         Log.d(TAG, "Itinerary exists and no large schedule deviation.");
                         checkDisableDueToTimeout(itineraryDescription);
+                        if (!itineraryDescription.isExpired()) {
+                            // Use the current deviations as the new baseline for the transit legs
+                            if (deviations != null) {
+                                bundle.putLongArray(ITINERARY_DEPARTURE_DELAYS, deviations);
+                            }
+                            scheduleNextCheck(bundle, getItineraryDescription(bundle));
+                        }
 
                         return;
                     }
@@ -298,10 +450,13 @@ public class RealtimeService extends IntentService {
         return (AlarmManager) getApplicationContext().getSystemService(Context.ALARM_SERVICE);
     }
 
-    private PendingIntent getAlarmIntent(Bundle bundle) {
+    /**
+     * @param extras simplified bundle from getSimplifiedBundle(), or null if the intent is only
+     *               used to cancel the alarm
+     */
+    private PendingIntent getAlarmIntent(Bundle extras) {
         Intent intent = new Intent(OTPConstants.INTENT_CHECK_TRIP_TIME);
-        if (bundle != null) {
-            Bundle extras = getSimplifiedBundle(bundle);
+        if (extras != null) {
             intent.putExtras(extras);
         }
         int flags;
@@ -325,7 +480,40 @@ public class RealtimeService extends IntentService {
     private ItineraryDescription getItineraryDescription(Bundle bundle) {
         String ids[] = bundle.getStringArray(ITINERARY_DESC);
         long date = bundle.getLong(ITINERARY_END_DATE);
-        return new ItineraryDescription(Arrays.asList(ids), new Date(date));
+        String obaIds[] = bundle.getStringArray(ITINERARY_OBA_TRIP_IDS);
+        long delays[] = bundle.getLongArray(ITINERARY_DEPARTURE_DELAYS);
+        if (obaIds == null || delays == null || obaIds.length != delays.length) {
+            return new ItineraryDescription(Arrays.asList(ids), new Date(date));
+        }
+        List<Long> delayList = new ArrayList<>(delays.length);
+        for (long delay : delays) {
+            delayList.add(delay);
+        }
+        Date startDate = bundle.containsKey(ITINERARY_START_DATE) ?
+                new Date(bundle.getLong(ITINERARY_START_DATE)) : null;
+        return new ItineraryDescription(Arrays.asList(ids), Arrays.asList(obaIds), delayList,
+                startDate, new Date(date));
+    }
+
+    /**
+     * Gets the agencies of the current OBA region, to find the OBA trip IDs of the transit legs
+     *
+     * @return the names of the agencies by agency ID, or null if they can't be determined
+     */
+    private Map<String, String> getObaAgencies() {
+        ObaAgenciesWithCoverageResponse response =
+                ObaAgenciesWithCoverageRequest.newRequest(getApplicationContext()).call();
+        if (response == null || response.getCode() != ObaApi.OBA_OK
+                || response.getAgencies().length == 0) {
+            Log.d(TAG, "Unable to get the agencies of the region");
+            return null;
+        }
+        Map<String, String> agencies = new HashMap<>();
+        for (ObaAgencyWithCoverage agencyWithCoverage : response.getAgencies()) {
+            ObaAgency agency = response.getAgency(agencyWithCoverage.getId());
+            agencies.put(agencyWithCoverage.getId(), agency != null ? agency.getName() : null);
+        }
+        return agencies;
     }
 
     private Class getNotificationTarget(Bundle bundle) {
@@ -340,7 +528,7 @@ public class RealtimeService extends IntentService {
 
     private Bundle getSimplifiedBundle(Bundle params) {
         Itinerary itinerary = getItinerary(params);
-        ItineraryDescription desc = new ItineraryDescription(itinerary);
+        ItineraryDescription desc = new ItineraryDescription(itinerary, getObaAgencies());
 
         Bundle extras = new Bundle();
         new TripRequestBuilder(params).copyIntoBundleSimple(extras);
@@ -349,6 +537,18 @@ public class RealtimeService extends IntentService {
         String[] ids = idList.toArray(new String[idList.size()]);
         extras.putStringArray(ITINERARY_DESC, ids);
         extras.putLong(ITINERARY_END_DATE, desc.getEndDate().getTime());
+        if (desc.getStartDate() != null) {
+            extras.putLong(ITINERARY_START_DATE, desc.getStartDate().getTime());
+        }
+        List<String> obaIdList = desc.getObaTripIds();
+        extras.putStringArray(ITINERARY_OBA_TRIP_IDS,
+                obaIdList.toArray(new String[obaIdList.size()]));
+        List<Long> delayList = desc.getDepartureDelays();
+        long[] delays = new long[delayList.size()];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = delayList.get(i);
+        }
+        extras.putLongArray(ITINERARY_DEPARTURE_DELAYS, delays);
 
         Class<? extends Activity> source = (Class<? extends Activity>)
                 params.getSerializable(OTPConstants.NOTIFICATION_TARGET);
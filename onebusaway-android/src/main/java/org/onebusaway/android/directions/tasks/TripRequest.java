@@ -19,21 +19,13 @@ package org.onebusaway.android.directions.tasks;
 import android.os.AsyncTask;
 import android.util.Log;
 
-import org.onebusaway.android.app.Application;
-import org.onebusaway.android.directions.util.JacksonConfig;
+import org.onebusaway.android.directions.util.OtpClient;
 import org.opentripplanner.api.model.TripPlan;
 import org.opentripplanner.api.ws.Message;
 import org.opentripplanner.api.ws.Request;
 import org.opentripplanner.api.ws.Response;
-import org.opentripplanner.routing.core.TraverseMode;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
 
 /**
  * AsyncTask that invokes a trip planning request to the OTP Server
@@ -52,13 +44,11 @@ public class TripRequest extends AsyncTask<Request, Integer, Long> {
 
     public static int NO_SERVER_SELECTED = 1000;
 
-    // Constants that are defined in OTPApp in CUTR OTP Android app
     private static final String TAG = "TripRequest";
-    private static final String FOLDER_STRUCTURE_PREFIX_NEW = "/routers/default";
-    public static final String OTP_RENTAL_QUALIFIER = "_RENT";
-    public static final String PLAN_LOCATION = "/plan";
-    public static final int HTTP_CONNECTION_TIMEOUT = 15000;
-    public static final int HTTP_SOCKET_TIMEOUT = 15000;
+    public static final String OTP_RENTAL_QUALIFIER = OtpClient.OTP_RENTAL_QUALIFIER;
+    public static final String PLAN_LOCATION = OtpClient.PLAN_LOCATION;
+    public static final int HTTP_CONNECTION_TIMEOUT = OtpClient.HTTP_CONNECTION_TIMEOUT;
+    public static final int HTTP_SOCKET_TIMEOUT = OtpClient.HTTP_SOCKET_TIMEOUT;
 
     private Response mResponse;
 
@@ -68,10 +58,27 @@ public class TripRequest extends AsyncTask<Request, Integer, Long> {
 
     private Callback mCallback;
 
+    private final OtpClient mClient;
+
+    // True if the request was aborted by the caller, in which case the callback isn't notified
+    private volatile boolean mAborted = false;
+
     // change Server object to baseUrl string.
     public TripRequest(String baseUrl, Callback callback) {
         mBaseUrl = baseUrl;
         mCallback = callback;
+        mClient = new OtpClient(baseUrl);
+    }
+
+    /**
+     * Aborts this request, closing its connection to the server, without notifying the callback.
+     * Should be called when the results of the request are no longer needed (e.g., the user
+     * changed the trip parameters and a new request is being made).
+     */
+    public void abort() {
+        mAborted = true;
+        cancel(true);
+        mClient.cancel();
     }
 
     /**
@@ -86,16 +93,17 @@ public class TripRequest extends AsyncTask<Request, Integer, Long> {
             mCallback.onTripRequestFailure(NO_SERVER_SELECTED, null);
             return null;
         } else {
-            String prefix = FOLDER_STRUCTURE_PREFIX_NEW;
-            boolean useOldUrlVersion = Application.get().getUseOldOtpApiUrlVersion();
             for (Request req : reqs) {
-                mResponse = requestPlan(req, prefix, mBaseUrl, useOldUrlVersion);
+                mResponse = requestPlan(req);
             }
         }
         return totalSize;
     }
 
     protected void onCancelled(Long result) {
+        if (mAborted) {
+            return;
+        }
         mCallback.onTripRequestFailure(Message.REQUEST_TIMEOUT.getId(), mRequestUrl);
     }
 
@@ -117,94 +125,19 @@ public class TripRequest extends AsyncTask<Request, Integer, Long> {
         }
     }
 
-    protected Response requestPlan(Request requestParams, String prefix, String baseURL,
-                                   boolean useOldUrlStructure) {
-        HashMap<String, String> tmp = requestParams.getParameters();
-
-        Collection c = tmp.entrySet();
-        Iterator itr = c.iterator();
-
-        String params = "";
-        boolean first = true;
-        while (itr.hasNext()) {
-            if (first) {
-                params += "?" + itr.next();
-                first = false;
-            } else {
-                params += "&" + itr.next();
-            }
-        }
-
-        if (requestParams.getBikeRental()) {
-            String updatedString;
-            if (prefix.equals(FOLDER_STRUCTURE_PREFIX_NEW)) {
-                updatedString = params.replace(TraverseMode.BICYCLE.toString(),
-                        TraverseMode.BICYCLE.toString() + OTP_RENTAL_QUALIFIER);
-            } else {
-                updatedString = params.replace(TraverseMode.BICYCLE.toString(),
-                        TraverseMode.BICYCLE.toString() + ", " + TraverseMode.WALK.toString());
-            }
-            params = updatedString;
-        }
-
-        String u;
-
-        if (!useOldUrlStructure) {
-            u = baseURL + prefix + PLAN_LOCATION + params;
-        } else {
-            u = baseURL + PLAN_LOCATION + params;
-        }
-
-        // Save url for error reporting purposes
-        mRequestUrl = u;
-
-        Log.d(TAG, "URL: " + u);
-
-        HttpURLConnection urlConnection = null;
-        URL url;
-        Response plan = null;
-
+    protected Response requestPlan(Request requestParams) {
         try {
-            url = new URL(u);
-
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setConnectTimeout(HTTP_CONNECTION_TIMEOUT);
-            urlConnection.setReadTimeout(HTTP_SOCKET_TIMEOUT);
-            plan = JacksonConfig.getObjectReaderInstance()
-                    .readValue(urlConnection.getInputStream());
-
-            if (useOldUrlStructure) {
-                // If the old url structure is successful then cache it
-                Application.get().setUseOldOtpApiUrlVersion(true);
-            }
-        } catch (java.net.SocketTimeoutException e) {
-            Log.e(TAG, "Timeout fetching JSON or XML: " + e);
-            e.printStackTrace();
-            cancel(true);
-        } catch (FileNotFoundException e) {
-            if (!useOldUrlStructure) {
-                Log.v(TAG, "The OTP url might be old, trying  old url structure");
-                if (urlConnection != null) {
-                    urlConnection.disconnect();
-                }
-                return requestPlan(requestParams, prefix, baseURL, true);
-            } else {
-                Log.e(TAG, "Error fetching JSON or XML: " + e);
+            return mClient.plan(requestParams);
+        } catch (IOException e) {
+            if (!mAborted) {
+                Log.e(TAG, "Error fetching JSON: " + e);
                 e.printStackTrace();
                 cancel(true);
             }
-        } catch (IOException e) {
-            Log.e(TAG, "Error fetching JSON or XML: " + e);
-            e.printStackTrace();
-            cancel(true);
-            // Reset timestamps to show there was an error
-            // requestStartTime = 0;
-            // requestEndTime = 0;
+            return null;
         } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
+            // Save url for error reporting purposes
+            mRequestUrl = mClient.getRequestUrl();
         }
-        return plan;
     }
 }
@@ -226,4 +226,8 @@ public class CustomAddress extends Address {
     public boolean isTransitCategory() {
         return isTransitCategory;
     }
+
+    public void setTransitCategory(boolean transitCategory) {
+        isTransitCategory = transitCategory;
+    }
 }
@@ -33,8 +33,19 @@ public class OTPConstants {
 
     public static final long DEFAULT_UPDATE_INTERVAL_TRIP_TIME = TimeUnit.SECONDS.toMillis(60);
 
+    // Interval between realtime checks while the itinerary departs more than REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW from now
+    public static final long FAR_UPDATE_INTERVAL_TRIP_TIME = TimeUnit.MINUTES.toMillis(5);
+
+    // Interval between realtime checks while the itinerary departs in less than REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW
+    public static final long NEAR_UPDATE_INTERVAL_TRIP_TIME = TimeUnit.SECONDS.toMillis(30);
+
+    public static final long REALTIME_SERVICE_NEAR_DEPARTURE_WINDOW = TimeUnit.MINUTES.toMillis(10);
+
     public static final long REALTIME_SERVICE_QUERY_WINDOW = TimeUnit.HOURS.toMillis(1);
 
+    // Longest time a realtime check may run after its scheduled time, so the system can batch it with other alarms
+    public static final long REALTIME_SERVICE_MAX_ALARM_WINDOW = TimeUnit.MINUTES.toMillis(1);
+
     public static final long REALTIME_SERVICE_DELAY_THRESHOLD = TimeUnit.MINUTES.toSeconds(2);
 
     public static final String FORMAT_OTP_SERVER_DATE_RESPONSE = "yyyy-MM-dd\'T\'HH:mm:ssZZ";
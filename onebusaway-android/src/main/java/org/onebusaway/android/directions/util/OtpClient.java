@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.util;
+
+import org.onebusaway.android.app.Application;
+import org.opentripplanner.api.ws.Request;
+import org.opentripplanner.api.ws.Response;
+import org.opentripplanner.routing.core.TraverseMode;
+
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Executes trip planning requests against an OTP server.
+ *
+ * Responses are requested gzipped and streamed directly into the shared Jackson ObjectReader.  On
+ * success the response stream is closed without disconnecting, so that HttpURLConnection can
+ * return the socket to its keep-alive pool and reuse it for the next request to the same server.
+ * A request in progress can be aborted from another thread with cancel(), which closes the
+ * socket.
+ *
+ * Older OTP servers don't use the "/routers/default" URL prefix - the URL structure used by each
+ * server is probed on the first request and remembered for following requests.
+ */
+public class OtpClient {
+
+    private static final String TAG = "OtpClient";
+
+    private static final String FOLDER_STRUCTURE_PREFIX_NEW = "/routers/default";
+
+    public static final String OTP_RENTAL_QUALIFIER = "_RENT";
+
+    public static final String PLAN_LOCATION = "/plan";
+
+    public static final int HTTP_CONNECTION_TIMEOUT = 15000;
+
+    public static final int HTTP_SOCKET_TIMEOUT = 15000;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    // Base URL -> true if the server uses the old URL structure, false if it uses the new one
+    private static final Map<String, Boolean> sUseOldUrlStructure = new ConcurrentHashMap<>();
+
+    private final String mBaseUrl;
+
+    private volatile HttpURLConnection mConnection;
+
+    private volatile boolean mCanceled = false;
+
+    private String mRequestUrl;
+
+    public OtpClient(String baseUrl) {
+        mBaseUrl = baseUrl;
+    }
+
+    /**
+     * Forgets the URL structure used by all servers, so it is probed again on the next request
+     */
+    public static void clearUrlStructureCache() {
+        sUseOldUrlStructure.clear();
+    }
+
+    /**
+     * Requests a trip plan from the OTP server.  Must not be called on the main thread.
+     *
+     * @param request parameters of the trip plan
+     * @return the response of the server
+     * @throws IOException if the request failed or was canceled
+     */
+    public Response plan(Request request) throws IOException {
+        Boolean useOld = sUseOldUrlStructure.get(mBaseUrl);
+        if (useOld == null && Application.get().getUseOldOtpApiUrlVersion()) {
+            // Persisted by previous versions of the app for the current server
+            useOld = true;
+        }
+
+        if (useOld != null) {
+            return plan(request, useOld);
+        }
+
+        // Probe the new URL structure first, and fall back to the old one if it doesn't exist
+        try {
+            Response response = plan(request, false);
+            sUseOldUrlStructure.put(mBaseUrl, false);
+            return response;
+        } catch (FileNotFoundException e) {
+            if (mCanceled) {
+                throw e;
+            }
+            Log.v(TAG, "The OTP url might be old, trying old url structure");
+        }
+        Response response = plan(request, true);
+        sUseOldUrlStructure.put(mBaseUrl, true);
+        Application.get().setUseOldOtpApiUrlVersion(true);
+        return response;
+    }
+
+    private Response plan(Request request, boolean useOldUrlStructure) throws IOException {
+        mRequestUrl = buildUrl(request, useOldUrlStructure);
+        Log.d(TAG, "URL: " + mRequestUrl);
+
+        if (mCanceled) {
+            throw new IOException("Request canceled");
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(mRequestUrl).openConnection();
+        connection.setConnectTimeout(HTTP_CONNECTION_TIMEOUT);
+        connection.setReadTimeout(HTTP_SOCKET_TIMEOUT);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        mConnection = connection;
+
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE);
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            Response response = JacksonConfig.getObjectReaderInstance().readValue(in);
+            // Closing (but not disconnecting) returns the socket to the keep-alive pool
+            in.close();
+            return response;
+        } catch (IOException e) {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            connection.disconnect();
+            throw e;
+        } finally {
+            mConnection = null;
+        }
+    }
+
+    /**
+     * Aborts the request in progress (if any) and any following request made with this client
+     */
+    public void cancel() {
+        mCanceled = true;
+        HttpURLConnection connection = mConnection;
+        if (connection != null) {
+            // Disconnecting closes the socket, which unblocks any pending read
+            connection.disconnect();
+        }
+    }
+
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * @return the URL of the last request made by this client, for error reporting purposes
+     */
+    public String getRequestUrl() {
+        return mRequestUrl;
+    }
+
+    /**
+     * Builds the URL of a trip plan request.  Parameter values are expected to be unencoded, and
+     * are encoded here.
+     *
+     * @param request            parameters of the trip plan
+     * @param useOldUrlStructure true if the server doesn't use the "/routers/default" prefix, in
+     *                           which case it doesn't know the BICYCLE_RENT mode either
+     */
+    public String buildUrl(Request request, boolean useOldUrlStructure) {
+        Uri.Builder builder = Uri.parse(useOldUrlStructure ? mBaseUrl + PLAN_LOCATION
+                : mBaseUrl + FOLDER_STRUCTURE_PREFIX_NEW + PLAN_LOCATION).buildUpon();
+
+        String bicycle = TraverseMode.BICYCLE.toString();
+        String bikeRental = useOldUrlStructure ? bicycle + ", " + TraverseMode.WALK.toString()
+                : bicycle + OTP_RENTAL_QUALIFIER;
+        for (Map.Entry<String, String> param : request.getParameters().entrySet()) {
+            String value = param.getValue();
+            if (value != null && request.getBikeRental()) {
+                value = value.replace(bicycle, bikeRental);
+            }
+            builder.appendQueryParameter(param.getKey(), value);
+        }
+        return builder.build().toString();
+    }
+}
@@ -25,26 +25,25 @@ import android.widget.Filterable;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import org.onebusaway.android.BuildConfig;
 import org.onebusaway.android.R;
 import org.onebusaway.android.io.elements.ObaRegion;
-import org.onebusaway.android.util.LocationUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class PlacesAutoCompleteAdapter extends org.onebusaway.android.util.ArrayAdapter<CustomAddress> implements Filterable {
 
-    private Context mContext;
     private ObaRegion mRegion;
 
+    private PlacesAutocomplete mAutocomplete;
+
     private List<CustomAddress> mResultList = new ArrayList<CustomAddress>();
 
     public PlacesAutoCompleteAdapter(Context context, int viewId,
                                      ObaRegion region) {
         super(context, viewId);
-        this.mContext = context;
         this.mRegion = region;
+        mAutocomplete = PlacesAutocomplete.create(context, region);
     }
 
     @Override
@@ -64,29 +63,40 @@ public class PlacesAutoCompleteAdapter extends org.onebusaway.android.util.Array
     @Override
     public Filter getFilter() {
         Filter filter = new Filter() {
+            @Override
+            public void filter(CharSequence constraint, FilterListener listener) {
+                // Cancels the geocoding of the previous text before this text is queued
+                mAutocomplete.onQueryChanged(constraint);
+                super.filter(constraint, listener);
+            }
+
             @Override
             protected Filter.FilterResults performFiltering(CharSequence constraint) {
                 FilterResults filterResults = new FilterResults();
                 if (constraint != null) {
                     // Retrieve the autocomplete results
-                    if (BuildConfig.USE_PELIAS_GEOCODING) {
-                        mResultList = LocationUtils.processPeliasGeocoding(mContext, mRegion, constraint.toString());
+                    List<CustomAddress> results =
+                            mAutocomplete.getSuggestions(constraint.toString());
+                    if (results == null) {
+                        // Superseded by newer text, keep showing the current results
+                        results = mResultList;
                     } else {
-                        // Use Google Places SDK
-                        mResultList = LocationUtils.processGooglePlacesGeocoding(mContext, mRegion, constraint.toString());
-                    }
-                    if (mResultList != null){
-                        Log.d("Geocode", "Num of results: " + mResultList.size());
-                        // Assign the data to the FilterResults
-                        filterResults.values = mResultList;
-                        filterResults.count = mResultList.size();
+                        Log.d("Geocode", "Num of results: " + results.size());
                     }
+                    // Assign the data to the FilterResults
+                    filterResults.values = results;
+                    filterResults.count = results.size();
                 }
                 return filterResults;
             }
 
             @Override
+            @SuppressWarnings("unchecked")
             protected void publishResults(CharSequence constraint, FilterResults results) {
+                if (results != null && results.values != null) {
+                    // Replaced here on the main thread, since the list is read by the views
+                    mResultList = (List<CustomAddress>) results.values;
+                }
                 if (results != null && results.count > 0) {
                     notifyDataSetChanged();
                 } else {
@@ -102,6 +112,7 @@ public class PlacesAutoCompleteAdapter extends org.onebusaway.android.util.Array
 
     public void setRegion(ObaRegion region) {
         this.mRegion = region;
+        mAutocomplete = PlacesAutocomplete.create(getContext(), region);
     }
 
     @Override
@@ -0,0 +1,438 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.directions.util;
+
+import org.onebusaway.android.BuildConfig;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.ui.QueryUtils;
+import org.onebusaway.android.util.BackgroundExecutor;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Suggests places while the user types an address for trip planning.
+ *
+ * Keystrokes are coalesced: the geocoder is only called once the user stops typing for
+ * DEBOUNCE_MS, and a geocoder call still running when the text changes again is cancelled and
+ * its result dropped, so results can't arrive out of order.  Geocoder results are cached by
+ * query.  If the geocoder returns all the places matching a query, which Pelias and Google don't
+ * since they return one page of fuzzy matches, the suggestions for a query narrowing a previous
+ * one are filtered from the cached results without calling the geocoder.  Places known
+ * locally (the user's stops and recently chosen places) are ranked before the geocoder results.
+ *
+ * onQueryChanged() is called on the main thread when the text changes, and getSuggestions() on a
+ * single background thread, like the thread of a Filter.
+ */
+public class PlacesAutocomplete {
+
+    private static final String TAG = "PlacesAutocomplete";
+
+    /**
+     * Time without keystrokes before the geocoder is called
+     */
+    public static final long DEBOUNCE_MS = 300;
+
+    /**
+     * Source of places matching a query
+     */
+    public interface PlaceSource {
+
+        /**
+         * Runs on a background thread, and may be interrupted if the query is superseded
+         *
+         * @return the places matching the query, or null if there was an error
+         */
+        List<CustomAddress> find(String query);
+    }
+
+    private static final int CACHE_SIZE = 50;
+
+    private static final int MAX_LOCAL_PLACES = 3;
+
+    private static final int MAX_RECENT_PLACES = 10;
+
+    // Shared by all autocomplete fields, so a slow geocoder call doesn't hold the Filter threads
+    private static final Executor mExecutor =
+            BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.NETWORK);
+
+    // Places chosen by the user from the suggestions, most recent first
+    private static final LinkedList<CustomAddress> mRecentPlaces = new LinkedList<>();
+
+    private final PlaceSource mGeocoder;
+
+    // True if the geocoder returns all the places matching a query
+    private final boolean mExhaustive;
+
+    private final PlaceSource mLocalPlaces;
+
+    private final long mDebounceMs;
+
+    private final Object mLock = new Object();
+
+    // Latest text of the field, guarded by mLock
+    private String mLatestQuery;
+
+    // Geocoder call running for a query, guarded by mLock
+    private Future<List<CustomAddress>> mInFlight;
+
+    private final Map<String, CacheEntry> mCache =
+            new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private static class CacheEntry {
+
+        final List<CustomAddress> results;
+
+        // True if the results are all the matches of the geocoder for the query
+        final boolean complete;
+
+        CacheEntry(List<CustomAddress> results, boolean complete) {
+            this.results = results;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * @param geocoder    source of places from a geocoder
+     * @param exhaustive  true if the geocoder returns all the places matching a query, so the
+     *                    places of a longer query can be filtered from them
+     * @param localPlaces source of places known locally, ranked before the geocoder results
+     * @param debounceMs  time without keystrokes before the geocoder is called
+     */
+    public PlacesAutocomplete(PlaceSource geocoder, boolean exhaustive, PlaceSource localPlaces,
+            long debounceMs) {
+        mGeocoder = geocoder;
+        mExhaustive = exhaustive;
+        mLocalPlaces = localPlaces;
+        mDebounceMs = debounceMs;
+    }
+
+    /**
+     * Creates an autocomplete using the geocoder of the build and the stops of the user
+     */
+    public static PlacesAutocomplete create(final Context context, final ObaRegion region) {
+        final Context appContext = context.getApplicationContext();
+        PlaceSource geocoder = new PlaceSource() {
+            @Override
+            public List<CustomAddress> find(String query) {
+                if (BuildConfig.USE_PELIAS_GEOCODING) {
+                    return LocationUtils.processPeliasGeocoding(appContext, region, query);
+                } else {
+                    return LocationUtils.processGooglePlacesGeocoding(appContext, region, query);
+                }
+            }
+        };
+        // The geocoders return a page of fuzzy matches, which is then filtered to the region
+        return new PlacesAutocomplete(geocoder, false, new KnownPlaces(appContext, region),
+                DEBOUNCE_MS);
+    }
+
+    /**
+     * Called when the text of the field changes, before getSuggestions() is called for it.
+     * Cancels the geocoder call for the previous text, if it's still running.
+     */
+    public void onQueryChanged(CharSequence query) {
+        synchronized (mLock) {
+            mLatestQuery = query != null ? query.toString() : null;
+            if (mInFlight != null) {
+                mInFlight.cancel(true);
+                mInFlight = null;
+            }
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the suggestions for the query, waiting for the user to stop typing and for the
+     * geocoder if the suggestions can't be served from the cache
+     *
+     * @return the suggestions, or null if the query was superseded by newer text
+     */
+    public List<CustomAddress> getSuggestions(String query) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CustomAddress> remote = getCached(key);
+        if (remote == null) {
+            remote = geocode(query, key);
+            if (remote == null) {
+                return null;
+            }
+        }
+        List<CustomAddress> local = mLocalPlaces != null ? mLocalPlaces.find(key) : null;
+        return merge(local, findRecentPlaces(key), remote);
+    }
+
+    /**
+     * Remembers a place chosen by the user, so it's suggested first next time
+     */
+    public static void addRecentPlace(CustomAddress address) {
+        synchronized (mRecentPlaces) {
+            String label = address.toString();
+            for (Iterator<CustomAddress> it = mRecentPlaces.iterator(); it.hasNext(); ) {
+                if (it.next().toString().equals(label)) {
+                    it.remove();
+                }
+            }
+            mRecentPlaces.addFirst(address);
+            if (mRecentPlaces.size() > MAX_RECENT_PLACES) {
+                mRecentPlaces.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Forgets the places chosen by the user, so tests don't see the places of other tests
+     */
+    public static void clearRecentPlacesForTesting() {
+        synchronized (mRecentPlaces) {
+            mRecentPlaces.clear();
+        }
+    }
+
+    /**
+     * Clears the cached geocoder results, e.g. when the region changes
+     */
+    public void clearCache() {
+        synchronized (mCache) {
+            mCache.clear();
+        }
+    }
+
+    /**
+     * Waits for the user to stop typing and calls the geocoder
+     *
+     * @return the geocoder results, or null if the query was superseded
+     */
+    private List<CustomAddress> geocode(final String query, String key) {
+        Future<List<CustomAddress>> future;
+        synchronized (mLock) {
+            if (mLatestQuery == null) {
+                // onQueryChanged() isn't called by the caller
+                mLatestQuery = query;
+            }
+            long end = SystemClock.uptimeMillis() + mDebounceMs;
+            long now;
+            while (query.equals(mLatestQuery) && (now = SystemClock.uptimeMillis()) < end) {
+                try {
+                    mLock.wait(end - now);
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+            if (!query.equals(mLatestQuery)) {
+                return null;
+            }
+            FutureTask<List<CustomAddress>> task = new FutureTask<>(() -> mGeocoder.find(query));
+            mExecutor.execute(task);
+            future = task;
+            mInFlight = future;
+        }
+
+        List<CustomAddress> results;
+        try {
+            results = future.get();
+        } catch (CancellationException | InterruptedException e) {
+            return null;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Geocoding failed: " + e.getCause());
+            results = null;
+        } finally {
+            synchronized (mLock) {
+                if (mInFlight == future) {
+                    mInFlight = null;
+                }
+            }
+        }
+        if (results == null) {
+            // Errors aren't cached, so the next keystroke tries again
+            return Collections.emptyList();
+        }
+        synchronized (mCache) {
+            mCache.put(key, new CacheEntry(results, mExhaustive));
+        }
+        return results;
+    }
+
+    /**
+     * @return the cached results for the query, or the cached results of a prefix of the query
+     * narrowed to the query, or null if neither is cached
+     */
+    private List<CustomAddress> getCached(String key) {
+        synchronized (mCache) {
+            CacheEntry entry = mCache.get(key);
+            if (entry != null) {
+                return entry.results;
+            }
+            for (int length = key.length() - 1; length > 0; length--) {
+                entry = mCache.get(key.substring(0, length));
+                if (entry != null && entry.complete) {
+                    List<CustomAddress> narrowed = new ArrayList<>();
+                    for (CustomAddress address : entry.results) {
+                        if (matches(address, key)) {
+                            narrowed.add(address);
+                        }
+                    }
+                    mCache.put(key, new CacheEntry(narrowed, true));
+                    return narrowed;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<CustomAddress> findRecentPlaces(String key) {
+        List<CustomAddress> places = new ArrayList<>();
+        synchronized (mRecentPlaces) {
+            for (CustomAddress address : mRecentPlaces) {
+                if (matches(address, key)) {
+                    places.add(address);
+                }
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Merges the lists of places in order, dropping places with the same label as an earlier one
+     */
+    @SafeVarargs
+    private static List<CustomAddress> merge(List<CustomAddress>... lists) {
+        List<CustomAddress> result = new ArrayList<>();
+        Set<String> labels = new HashSet<>();
+        for (List<CustomAddress> list : lists) {
+            if (list == null) {
+                continue;
+            }
+            for (CustomAddress address : list) {
+                if (labels.add(address.toString())) {
+                    result.add(address);
+                }
+            }
+        }
+        return result;
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.getDefault());
+    }
+
+    /**
+     * @return true if each word of the normalized query starts a word of the place's label
+     */
+    static boolean matches(CustomAddress address, String key) {
+        String[] labelWords = normalize(address.toString()).split("[\\s,]+");
+        for (String word : key.split("[\\s,]+")) {
+            boolean found = false;
+            for (String labelWord : labelWords) {
+                if (labelWord.startsWith(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the user starred, named or visited, with a name matching the query
+     */
+    static class KnownPlaces implements PlaceSource {
+
+        private static final String[] PROJECTION = {
+                ObaContract.Stops.UI_NAME,
+                ObaContract.Stops.LATITUDE,
+                ObaContract.Stops.LONGITUDE
+        };
+
+        private final ContentResolver mResolver;
+
+        private final ObaRegion mRegion;
+
+        KnownPlaces(Context context, ObaRegion region) {
+            mResolver = context.getContentResolver();
+            mRegion = region;
+        }
+
+        @Override
+        public List<CustomAddress> find(String query) {
+            List<CustomAddress> places = new ArrayList<>();
+            String where = "(" + ObaContract.Stops.NAME + " LIKE ? OR "
+                    + ObaContract.Stops.NAME + " LIKE ? OR "
+                    + ObaContract.Stops.USER_NAME + " LIKE ?) AND ("
+                    + ObaContract.Stops.FAVORITE + "=1 OR "
+                    + ObaContract.Stops.USE_COUNT + ">0 OR "
+                    + ObaContract.Stops.USER_NAME + " IS NOT NULL)";
+            if (mRegion != null) {
+                where += " AND " + QueryUtils.getRegionWhere(ObaContract.Stops.REGION_ID,
+                        mRegion.getId());
+            }
+            String[] args = {query + "%", "% " + query + "%", query + "%"};
+            Uri uri = ObaContract.Stops.CONTENT_URI.buildUpon()
+                    .appendQueryParameter("limit", String.valueOf(MAX_LOCAL_PLACES))
+                    .build();
+            Cursor c = mResolver.query(uri, PROJECTION, where, args,
+                    ObaContract.Stops.FAVORITE + " DESC, " + ObaContract.Stops.USE_COUNT
+                            + " DESC");
+            if (c != null) {
+                try {
+                    while (c.moveToNext()) {
+                        CustomAddress address = new CustomAddress();
+                        address.setFeatureName(c.getString(0));
+                        address.setLatitude(c.getDouble(1));
+                        address.setLongitude(c.getDouble(2));
+                        address.setTransitCategory(true);
+                        places.add(address);
+                    }
+                } finally {
+                    c.close();
+                }
+            }
+            return places;
+        }
+    }
+}
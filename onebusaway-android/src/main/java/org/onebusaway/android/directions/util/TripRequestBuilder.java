@@ -25,16 +25,15 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.directions.tasks.TripRequest;
 import org.onebusaway.android.ui.TripModes;
+import org.onebusaway.android.util.BackgroundExecutor;
 import org.onebusaway.android.util.RegionUtils;
 import org.opentripplanner.api.ws.Request;
 import org.opentripplanner.routing.core.OptimizeType;
 import org.opentripplanner.routing.core.TraverseMode;
 
-import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -43,7 +42,6 @@ import java.util.List;
 
 public class TripRequestBuilder {
 
-    private static final String ENCODING = "UTF-8";
     private static final String TAG = "TripRequestBuilder";
 
     private static final String ARRIVE_BY = ".ARRIVE_BY";
@@ -213,7 +211,11 @@ public class TripRequestBuilder {
         return mBundle.getString(MODE_SET);
     }
 
-    public TripRequest execute(Activity activity) {
+    /**
+     * @return the parameters of the trip plan request to the OTP server.  Addresses aren't
+     * encoded here - OtpClient encodes all parameters when building the URL.
+     */
+    public Request buildRequest() {
         String from = getAddressString(getFrom());
         String to = getAddressString(getTo());
 
@@ -248,6 +250,11 @@ public class TripRequestBuilder {
 
         // Our default. This could be configurable.
         request.setShowIntermediateStops(true);
+        return request;
+    }
+
+    public TripRequest execute(Activity activity) {
+        Request request = buildRequest();
 
         // TripRequest will accept a null value and give a user-friendly error
         String otpBaseUrl;
@@ -276,7 +283,8 @@ public class TripRequestBuilder {
             tripRequest = new TripRequest(fmtOtpBaseUrl, mListener);
         }
 
-        tripRequest.execute(request);
+        tripRequest.executeOnExecutor(
+                BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.NETWORK), request);
         return tripRequest;
     }
 
@@ -295,13 +303,7 @@ public class TripRequestBuilder {
             return String.format(OTPConstants.OTP_LOCALE, "%g,%g", lat, lon);
         }
         // Not set via geocoder OR via location service. Use raw string (set in TripPlanFragment to first line of address).
-        String line = address.getAddressLine(0);
-        try {
-            return URLEncoder.encode(line, ENCODING);
-        } catch (UnsupportedEncodingException ex) {
-            Log.e(TAG, "Error encoding address: " + ex);
-            return "";
-        }
+        return address.getAddressLine(0);
     }
 
     public TripRequestBuilder setDateTime(Date d) {
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import org.apache.commons.io.FileUtils;
+import org.onebusaway.android.io.request.survey.model.StudyResponse;
+import org.onebusaway.android.io.request.weather.models.ObaWeatherResponse;
+import org.onebusaway.android.util.BackgroundExecutor;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the responses of auxiliary feeds, like the weather and the available studies, in memory
+ * and on disk, so every screen showing them shares one download that survives the recreation of
+ * the screens and restarts of the app.
+ *
+ * Responses are keyed by feed and by a key given by the caller, usually the region ID.  A response
+ * younger than the TTL of its feed is returned as is.  An older response that is younger than the
+ * maximum age of its feed is also returned, and downloaded again in the background for the next
+ * caller.  Otherwise the response is downloaded before returning.
+ *
+ * Responses are held as JSON, and each caller gets its own copy, so callers can change the
+ * responses they get (e.g. SurveyManager removes the hero question of a survey).
+ */
+public class FeedCache {
+
+    private static final String TAG = "FeedCache";
+
+    private static final String DIRECTORY = "feeds";
+
+    private static final String EXTENSION = ".json";
+
+    private static final int MAX_RESPONSES_IN_MEMORY = 16;
+
+    /**
+     * Downloads the response of a feed
+     */
+    public interface Fetcher<T> {
+
+        /**
+         * @param json receives the body of the response
+         * @return the response, or null if it couldn't be downloaded
+         */
+        T fetch(Writer json);
+    }
+
+    /**
+     * A feed, with the time after which its responses are downloaded again and the time after
+     * which they aren't used anymore
+     */
+    public abstract static class Feed<T> {
+
+        private final String mName;
+
+        private final Class<T> mClass;
+
+        private final long mTtl;
+
+        private final long mMaxAge;
+
+        public Feed(String name, Class<T> cls, long ttl, long maxAge) {
+            mName = name;
+            mClass = cls;
+            mTtl = ttl;
+            mMaxAge = maxAge;
+        }
+
+        /**
+         * @return true if the response contains the feed, and false if it's an error
+         */
+        protected abstract boolean isValid(T response);
+    }
+
+    public static final Feed<ObaWeatherResponse> WEATHER = new Feed<ObaWeatherResponse>(
+            "weather", ObaWeatherResponse.class, TimeUnit.MINUTES.toMillis(30),
+            TimeUnit.HOURS.toMillis(3)) {
+        @Override
+        protected boolean isValid(ObaWeatherResponse response) {
+            return response.getCurrent_forecast() != null;
+        }
+    };
+
+    public static final Feed<StudyResponse> STUDIES = new Feed<StudyResponse>("studies",
+            StudyResponse.class, TimeUnit.HOURS.toMillis(2), TimeUnit.DAYS.toMillis(1)) {
+        @Override
+        protected boolean isValid(StudyResponse response) {
+            return response.getSurveys() != null;
+        }
+    };
+
+    private static FeedCache mInstance;
+
+    private static final class Entry {
+
+        final String json;
+
+        final long fetchedAt;
+
+        Entry(String json, long fetchedAt) {
+            this.json = json;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final File mDirectory;
+
+    private final Executor mExecutor;
+
+    private final LruCache<String, Entry> mMemory = new LruCache<>(MAX_RESPONSES_IN_MEMORY);
+
+    // Locks by key, so concurrent loads of the same response share one download
+    private final Map<String, Object> mLocks = new HashMap<>();
+
+    // Keys of the responses being downloaded again in the background
+    private final Set<String> mRevalidating = new HashSet<>();
+
+    /**
+     * @param directory directory the responses are stored in
+     * @param executor  executor the responses older than their TTL are downloaded again on
+     */
+    public FeedCache(File directory, Executor executor) {
+        mDirectory = directory;
+        mExecutor = executor;
+    }
+
+    public static synchronized FeedCache getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new FeedCache(new File(context.getApplicationContext().getCacheDir(),
+                    DIRECTORY), BackgroundExecutor.getInstance()
+                    .getExecutor(BackgroundExecutor.Pool.NETWORK));
+        }
+        return mInstance;
+    }
+
+    /**
+     * Returns the response of a feed, from memory or disk if one that isn't too old is stored,
+     * otherwise from the fetcher.  Performs network and file I/O, so it shouldn't be called on
+     * the main thread.
+     *
+     * @param key the key of the response within the feed, e.g. the ID of the region
+     * @return a new copy of the response, or null if it couldn't be downloaded
+     */
+    public <T> T get(Feed<T> feed, String key, Fetcher<T> fetcher) {
+        String fileKey = Uri.encode(feed.mName + "_" + key);
+        synchronized (getLock(fileKey)) {
+            Entry entry = mMemory.get(fileKey);
+            if (entry == null) {
+                entry = read(fileKey);
+                if (entry != null) {
+                    mMemory.put(fileKey, entry);
+                }
+            }
+            if (entry != null) {
+                long age = System.currentTimeMillis() - entry.fetchedAt;
+                if (age < feed.mMaxAge) {
+                    T response = parse(feed, entry.json);
+                    if (response != null) {
+                        if (age >= feed.mTtl) {
+                            revalidate(feed, fileKey, fetcher);
+                        }
+                        return response;
+                    }
+                    mMemory.remove(fileKey);
+                    new File(mDirectory, fileKey + EXTENSION).delete();
+                }
+            }
+            return fetch(feed, fileKey, fetcher);
+        }
+    }
+
+    /**
+     * Removes all responses from memory and disk
+     */
+    public synchronized void clear() {
+        mMemory.evictAll();
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    private synchronized Object getLock(String key) {
+        Object lock = mLocks.get(key);
+        if (lock == null) {
+            lock = new Object();
+            mLocks.put(key, lock);
+        }
+        return lock;
+    }
+
+    /**
+     * Downloads a response again in the background, unless it's already being downloaded
+     */
+    private <T> void revalidate(final Feed<T> feed, final String fileKey,
+            final Fetcher<T> fetcher) {
+        synchronized (this) {
+            if (!mRevalidating.add(fileKey)) {
+                return;
+            }
+        }
+        mExecutor.execute(() -> {
+            try {
+                fetch(feed, fileKey, fetcher);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Couldn't download " + fileKey + " - " + e);
+            } finally {
+                synchronized (FeedCache.this) {
+                    mRevalidating.remove(fileKey);
+                }
+            }
+        });
+    }
+
+    private <T> T fetch(Feed<T> feed, String fileKey, Fetcher<T> fetcher) {
+        StringWriter json = new StringWriter();
+        T response = fetcher.fetch(json);
+        if (response == null || !feed.isValid(response)) {
+            Log.d(TAG, "Couldn't download " + fileKey);
+            return null;
+        }
+        synchronized (getLock(fileKey)) {
+            mMemory.put(fileKey, new Entry(json.toString(), System.currentTimeMillis()));
+            write(fileKey, json.toString());
+        }
+        return response;
+    }
+
+    /**
+     * @return the response in the JSON, or null if it isn't a valid response of the feed
+     */
+    private static <T> T parse(Feed<T> feed, String json) {
+        T response = ObaApi.getSerializer(feed.mClass).deserializeFromResponse(json,
+                feed.mClass);
+        return response != null && feed.isValid(response) ? response : null;
+    }
+
+    private Entry read(String fileKey) {
+        File file = new File(mDirectory, fileKey + EXTENSION);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return new Entry(FileUtils.readFileToString(file, "UTF-8"), file.lastModified());
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't read " + file.getName() + " - " + e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void write(String fileKey, String json) {
+        File file = new File(mDirectory, fileKey + EXTENSION);
+        File temp = new File(mDirectory, file.getName() + ".tmp");
+        try {
+            FileUtils.writeStringToFile(temp, json, "UTF-8");
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't store " + file.getName() + " - " + e);
+            temp.delete();
+        }
+    }
+}
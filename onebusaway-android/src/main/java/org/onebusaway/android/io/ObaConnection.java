@@ -16,6 +16,7 @@
 package org.onebusaway.android.io;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 
 /**
@@ -34,6 +35,11 @@ public interface ObaConnection {
 
     public Reader get() throws IOException;
 
+    /**
+     * Like get(), for binary responses such as protocol buffers
+     */
+    public InputStream getInputStream() throws IOException;
+
     public Reader post(String string) throws IOException;
 
     public int getResponseCode() throws IOException;
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaShape;
+import org.onebusaway.android.io.request.ObaStopsForRouteRequest;
+import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the stops-for-route responses of the recently viewed routes in memory and on disk, so the
+ * stop list of a route (RouteInfoListFragment) and its map (RouteMapController) share a single
+ * download, which is also reused across configuration changes and back navigation.
+ *
+ * Responses are keyed by region and route, and are downloaded again after TTL.  A response with
+ * shapes also satisfies a request without shapes.  The shapes of responses held in memory are
+ * decoded once, in the background.  If a download fails, an expired response is returned
+ * instead, if there is one.
+ */
+public class RouteRepository {
+
+    private static final String TAG = "RouteRepository";
+
+    private static final String DIRECTORY = "routes";
+
+    private static final String EXTENSION = ".json.gz";
+
+    private static final String SHAPES_EXTENSION = ".shapes.json.gz";
+
+    public static final long TTL = TimeUnit.DAYS.toMillis(1);
+
+    private static final int MAX_ROUTES_IN_MEMORY = 8;
+
+    private static RouteRepository mInstance;
+
+    private static final class Entry {
+
+        final ObaStopsForRouteResponse response;
+
+        final boolean withShapes;
+
+        final long fetchedAt;
+
+        Entry(ObaStopsForRouteResponse response, boolean withShapes, long fetchedAt) {
+            this.response = response;
+            this.withShapes = withShapes;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean satisfies(boolean includeShapes) {
+            return withShapes || !includeShapes;
+        }
+    }
+
+    private final File mDirectory;
+
+    private final long mTtl;
+
+    private final LruCache<String, Entry> mMemory = new LruCache<>(MAX_ROUTES_IN_MEMORY);
+
+    // Locks by key, so concurrent loads of the same route share one download
+    private final Map<String, Object> mLocks = new HashMap<>();
+
+    /**
+     * @param directory directory the responses are stored in
+     * @param ttl       time after which responses are downloaded again, in milliseconds
+     */
+    public RouteRepository(File directory, long ttl) {
+        mDirectory = directory;
+        mTtl = ttl;
+    }
+
+    public static synchronized RouteRepository getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new RouteRepository(new File(context.getApplicationContext()
+                    .getCacheDir(), DIRECTORY), TTL);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Returns the stops of a route, from memory or disk if a response that isn't older than the
+     * TTL is stored, otherwise from the server.  Performs network and file I/O, so it shouldn't
+     * be called on the main thread.
+     *
+     * @param routeId       the ID of the route
+     * @param includeShapes true if the response should include the shapes of the route
+     */
+    public ObaStopsForRouteResponse getStopsForRoute(Context context, String routeId,
+            boolean includeShapes) {
+        String key = getKey(routeId);
+        synchronized (getLock(key)) {
+            long now = System.currentTimeMillis();
+            Entry entry = mMemory.get(key);
+            if (entry == null || !entry.satisfies(includeShapes)) {
+                Entry stored = read(key, includeShapes);
+                if (stored != null) {
+                    entry = stored;
+                    mMemory.put(key, entry);
+                }
+            }
+            if (entry != null && entry.satisfies(includeShapes)
+                    && now - entry.fetchedAt < mTtl) {
+                return entry.response;
+            }
+
+            StringWriter json = new StringWriter();
+            ObaStopsForRouteResponse response = new ObaStopsForRouteRequest.Builder(context,
+                    routeId)
+                    .setIncludeShapes(includeShapes)
+                    .build()
+                    .call(json);
+            if (response.getCode() != ObaApi.OBA_OK) {
+                if (entry != null && entry.satisfies(includeShapes)) {
+                    Log.d(TAG, "Using expired stops for route " + routeId + " - "
+                            + response.getCode());
+                    return entry.response;
+                }
+                return response;
+            }
+            decodeShapes(response);
+            mMemory.put(key, new Entry(response, includeShapes, now));
+            write(key, includeShapes, json.toString());
+            return response;
+        }
+    }
+
+    /**
+     * Removes all responses from memory and disk
+     */
+    public synchronized void clear() {
+        mMemory.evictAll();
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    private synchronized Object getLock(String key) {
+        Object lock = mLocks.get(key);
+        if (lock == null) {
+            lock = new Object();
+            mLocks.put(key, lock);
+        }
+        return lock;
+    }
+
+    /**
+     * @return the key of a route in the current region
+     */
+    private static String getKey(String routeId) {
+        ObaRegion region = Application.get().getCurrentRegion();
+        String prefix = region != null ? String.valueOf(region.getId())
+                : "custom" + String.valueOf(Application.get().getCustomApiUrl()).hashCode();
+        return Uri.encode(prefix + "_" + routeId);
+    }
+
+    /**
+     * Decodes the shapes now, so the map doesn't decode them on the main thread
+     */
+    private static void decodeShapes(ObaStopsForRouteResponse response) {
+        for (ObaShape shape : response.getShapes()) {
+            shape.getPoints();
+        }
+    }
+
+    /**
+     * @return the most recent stored response of a route that satisfies the request, or null if
+     * there isn't one
+     */
+    private Entry read(String key, boolean includeShapes) {
+        Entry entry = read(new File(mDirectory, key + SHAPES_EXTENSION), true);
+        if (!includeShapes) {
+            Entry withoutShapes = read(new File(mDirectory, key + EXTENSION), false);
+            if (entry == null || (withoutShapes != null
+                    && withoutShapes.fetchedAt > entry.fetchedAt)) {
+                entry = withoutShapes;
+            }
+        }
+        return entry;
+    }
+
+    private static Entry read(File file, boolean withShapes) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            Reader reader = new InputStreamReader(new GZIPInputStream(
+                    new FileInputStream(file)), "UTF-8");
+            ObaStopsForRouteResponse response;
+            try {
+                response = ObaApi.getSerializer(ObaStopsForRouteResponse.class)
+                        .deserialize(reader, ObaStopsForRouteResponse.class);
+            } finally {
+                reader.close();
+            }
+            if (response == null || response.getCode() != ObaApi.OBA_OK) {
+                file.delete();
+                return null;
+            }
+            decodeShapes(response);
+            return new Entry(response, withShapes, file.lastModified());
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't read " + file.getName() + " - " + e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void write(String key, boolean withShapes, String json) {
+        if (!mDirectory.exists()) {
+            mDirectory.mkdirs();
+        }
+        File file = new File(mDirectory, key + (withShapes ? SHAPES_EXTENSION : EXTENSION));
+        File temp = new File(mDirectory, file.getName() + ".tmp");
+        try {
+            Writer writer = new OutputStreamWriter(new GZIPOutputStream(
+                    new FileOutputStream(temp)), "UTF-8");
+            try {
+                writer.write(json);
+            } finally {
+                writer.close();
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+            if (withShapes) {
+                // The response with shapes replaces the one without them
+                new File(mDirectory, key + EXTENSION).delete();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't store " + file.getName() + " - " + e);
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.onebusaway.android.io.elements.ObaAgency;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaRouteSchedule;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.ObaScheduleForStopResponse;
+
+import android.content.Context;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the full-day schedules of stops on disk (see ScheduleWorker), so the arrivals screen can
+ * show scheduled arrivals when real-time arrivals can't be retrieved, e.g., in a tunnel or a dead
+ * zone.
+ *
+ * Each stop is stored in its own gzipped file.  The stop, its routes and agencies, and the
+ * headsigns are written once, and each stop time only refers to them by index, with its times in
+ * seconds from the first time in the file.
+ */
+public class ScheduleStore {
+
+    private static final String TAG = "ScheduleStore";
+
+    private static final String DIRECTORY = "schedules";
+
+    private static final String EXTENSION = ".sched";
+
+    // Changed when the format of the files changes, so older files are ignored
+    private static final int VERSION = 1;
+
+    // Scheduled arrivals that left up to this long ago are still shown, like the arrivals API
+    private static final long MINUTES_BEFORE = 5;
+
+    private static ScheduleStore mInstance;
+
+    private final File mDirectory;
+
+    /**
+     * @param directory directory the schedules are stored in
+     */
+    public ScheduleStore(File directory) {
+        mDirectory = directory;
+    }
+
+    public static synchronized ScheduleStore getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new ScheduleStore(new File(context.getApplicationContext().getFilesDir(),
+                    DIRECTORY));
+        }
+        return mInstance;
+    }
+
+    /**
+     * A stop time of a schedule
+     */
+    private static final class StopTime {
+
+        final int route;
+
+        final int headsign;
+
+        final int serviceDate;
+
+        final String tripId;
+
+        final long arrivalTime;
+
+        final long departureTime;
+
+        StopTime(int route, int headsign, int serviceDate, String tripId, long arrivalTime,
+                long departureTime) {
+            this.route = route;
+            this.headsign = headsign;
+            this.serviceDate = serviceDate;
+            this.tripId = tripId;
+            this.arrivalTime = arrivalTime;
+            this.departureTime = departureTime;
+        }
+    }
+
+    /**
+     * The schedule of a stop, as stored on disk
+     */
+    public static final class StopSchedule {
+
+        private long mFetchedAt;
+
+        private long mCoveredUntil;
+
+        private String[] mStop;
+
+        private double mLat;
+
+        private double mLon;
+
+        // id, name, url, timezone
+        private final List<String[]> mAgencies = new ArrayList<>();
+
+        // id, shortName, longName, description, url, color, textColor, agencyId, type
+        private final List<String[]> mRoutes = new ArrayList<>();
+
+        private final List<String> mHeadsigns = new ArrayList<>();
+
+        private long[] mServiceDates;
+
+        // Sorted by departure time
+        private final List<StopTime> mTimes = new ArrayList<>();
+
+        private StopSchedule() {
+        }
+
+        public String getStopId() {
+            return mStop[0];
+        }
+
+        /**
+         * @return the time the schedule was downloaded at, in milliseconds since epoch
+         */
+        public long getFetchedAt() {
+            return mFetchedAt;
+        }
+
+        /**
+         * @return the end of the last day of the schedule, in milliseconds since epoch
+         */
+        public long getCoveredUntil() {
+            return mCoveredUntil;
+        }
+
+        public int getStopTimeCount() {
+            return mTimes.size();
+        }
+
+        /**
+         * Builds the scheduled arrivals at the stop, in the same form as a response to an
+         * arrivals request, so it can be shown by the same code.  The arrivals aren't predicted,
+         * and the response is marked as schedule-only (see
+         * ObaArrivalInfoResponse.isScheduleOnly()).
+         *
+         * @param now          the current time, in milliseconds since epoch
+         * @param minutesAfter arrivals up to this many minutes after now are included
+         * @return the scheduled arrivals, or null if they couldn't be built
+         */
+        public ObaArrivalInfoResponse toArrivalInfoResponse(long now, int minutesAfter) {
+            long from = now - TimeUnit.MINUTES.toMillis(MINUTES_BEFORE);
+            long to = now + TimeUnit.MINUTES.toMillis(minutesAfter);
+            try {
+                JSONArray arrivals = new JSONArray();
+                for (StopTime time : mTimes) {
+                    if (time.departureTime < from) {
+                        continue;
+                    }
+                    if (time.departureTime > to) {
+                        break;
+                    }
+                    String[] route = mRoutes.get(time.route);
+                    arrivals.put(new JSONObject()
+                            .put("routeId", route[0])
+                            .put("routeShortName", route[1])
+                            .put("routeLongName", route[2])
+                            .put("tripId", time.tripId)
+                            .put("tripHeadsign", mHeadsigns.get(time.headsign))
+                            .put("stopId", getStopId())
+                            .put("scheduledArrivalTime", time.arrivalTime)
+                            .put("scheduledDepartureTime", time.departureTime)
+                            .put("serviceDate", mServiceDates[time.serviceDate])
+                            .put("status", "default")
+                            .put("predicted", false));
+                }
+
+                JSONArray routeIds = new JSONArray();
+                JSONArray routes = new JSONArray();
+                for (String[] route : mRoutes) {
+                    routeIds.put(route[0]);
+                    routes.put(new JSONObject()
+                            .put("id", route[0])
+                            .put("shortName", route[1])
+                            .put("longName", route[2])
+                            .put("description", route[3])
+                            .put("url", route[4])
+                            .put("color", route[5])
+                            .put("textColor", route[6])
+                            .put("agencyId", route[7])
+                            .put("type", Integer.parseInt(route[8])));
+                }
+                JSONArray agencies = new JSONArray();
+                for (String[] agency : mAgencies) {
+                    agencies.put(new JSONObject()
+                            .put("id", agency[0])
+                            .put("name", agency[1])
+                            .put("url", agency[2])
+                            .put("timezone", agency[3]));
+                }
+                JSONObject stop = new JSONObject()
+                        .put("id", mStop[0])
+                        .put("name", mStop[1])
+                        .put("code", mStop[2])
+                        .put("direction", mStop[3])
+                        .put("lat", mLat)
+                        .put("lon", mLon)
+                        .put("routeIds", routeIds);
+
+                JSONObject references = new JSONObject()
+                        .put("stops", new JSONArray().put(stop))
+                        .put("routes", routes)
+                        .put("agencies", agencies);
+                JSONObject entry = new JSONObject()
+                        .put("stopId", getStopId())
+                        .put("arrivalsAndDepartures", arrivals);
+                JSONObject response = new JSONObject()
+                        .put("version", "2")
+                        .put("code", ObaApi.OBA_OK)
+                        .put("currentTime", now)
+                        .put("text", "OK")
+                        .put("data", new JSONObject()
+                                .put("references", references)
+                                .put("entry", entry));
+
+                ObaArrivalInfoResponse result = ObaApi
+                        .getSerializer(ObaArrivalInfoResponse.class)
+                        .deserializeFromResponse(response.toString(),
+                                ObaArrivalInfoResponse.class);
+                if (result != null) {
+                    result.setScheduleOnly(true);
+                }
+                return result;
+            } catch (JSONException | NumberFormatException e) {
+                Log.e(TAG, "Couldn't build scheduled arrivals - " + e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stores the schedule of a stop, replacing the one already stored.  Performs file I/O, so it
+     * shouldn't be called on the main thread.
+     *
+     * @param stopId       the ID of the stop
+     * @param serviceDates the days of the schedules, as the midnight of each day in the time
+     *                     zone of the agency (see getTimeZone()) in milliseconds since epoch, in
+     *                     ascending order
+     * @param days         the schedule of each day, as returned by ObaScheduleForStopRequest
+     * @param now          the current time, in milliseconds since epoch
+     * @return true if the schedule was stored
+     */
+    public synchronized boolean save(String stopId, long[] serviceDates,
+            ObaScheduleForStopResponse[] days, long now) {
+        StopSchedule schedule = build(stopId, serviceDates, days, now);
+        if (schedule == null) {
+            return false;
+        }
+        if (!mDirectory.exists()) {
+            mDirectory.mkdirs();
+        }
+        File file = getFile(stopId);
+        File temp = new File(mDirectory, file.getName() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(temp))));
+            try {
+                write(out, schedule);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't store schedule of " + stopId + " - " + e);
+            temp.delete();
+            return false;
+        }
+        // Replace the old schedule at once, so a reader never sees a partial file
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Couldn't replace schedule of " + stopId);
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the schedule of a stop.  Performs file I/O, so it shouldn't be called on the main
+     * thread.
+     *
+     * @return the schedule of the stop, or null if it isn't stored or can't be read
+     */
+    public synchronized StopSchedule read(String stopId) {
+        File file = getFile(stopId);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(file))));
+            try {
+                return read(in, false);
+            } finally {
+                in.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Partially written or older file
+            Log.e(TAG, "Couldn't read schedule of " + stopId + " - " + e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * @return the end of the last day of the stored schedule of a stop, in milliseconds since
+     * epoch, or 0 if it isn't stored
+     */
+    public synchronized long getCoveredUntil(String stopId) {
+        File file = getFile(stopId);
+        if (!file.exists()) {
+            return 0;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(file))));
+            try {
+                return read(in, true).getCoveredUntil();
+            } finally {
+                in.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Builds the scheduled arrivals at a stop from its stored schedule (see
+     * StopSchedule.toArrivalInfoResponse())
+     *
+     * @return the scheduled arrivals, or null if the schedule of the stop isn't stored or
+     * doesn't cover the current time
+     */
+    public ObaArrivalInfoResponse getScheduledArrivals(String stopId, long now,
+            int minutesAfter) {
+        StopSchedule schedule = read(stopId);
+        if (schedule == null || schedule.getCoveredUntil() <= now) {
+            return null;
+        }
+        return schedule.toArrivalInfoResponse(now, minutesAfter);
+    }
+
+    /**
+     * Removes the schedules of the stops that aren't in the provided set
+     */
+    public synchronized void retain(Set<String> stopIds) {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<String> keep = new HashSet<>();
+        for (String stopId : stopIds) {
+            keep.add(getFile(stopId).getName());
+        }
+        for (File f : files) {
+            if (!keep.contains(f.getName())) {
+                f.delete();
+            }
+        }
+    }
+
+    private File getFile(String stopId) {
+        return new File(mDirectory, Uri.encode(stopId) + EXTENSION);
+    }
+
+    /**
+     * @return the midnight of the day daysLater days after the provided time in the provided
+     * time zone, in milliseconds since epoch
+     */
+    public static long getMidnight(long time, int daysLater, TimeZone timeZone) {
+        Calendar cal = new GregorianCalendar(timeZone);
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        cal.add(Calendar.DAY_OF_MONTH, daysLater);
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * @return the time zone of the agency serving the stop, which its service days are in, or
+     * the time zone of the device if the response doesn't include it
+     */
+    public static TimeZone getTimeZone(ObaScheduleForStopResponse response) {
+        String id = response.getTimeZone();
+        if (TextUtils.isEmpty(id)) {
+            for (ObaRouteSchedule routeSchedule : response.getRouteSchedules()) {
+                ObaRoute route = response.getRoute(routeSchedule.getRouteId());
+                ObaAgency agency = route != null ? response.getAgency(route.getAgencyId())
+                        : null;
+                if (agency != null && !TextUtils.isEmpty(agency.getTimezone())) {
+                    id = agency.getTimezone();
+                    break;
+                }
+            }
+        }
+        return TextUtils.isEmpty(id) ? TimeZone.getDefault() : TimeZone.getTimeZone(id);
+    }
+
+    private static StopSchedule build(String stopId, long[] serviceDates,
+            ObaScheduleForStopResponse[] days, long now) {
+        if (days.length == 0 || days.length != serviceDates.length) {
+            return null;
+        }
+        StopSchedule schedule = new StopSchedule();
+        schedule.mFetchedAt = now;
+        schedule.mCoveredUntil = getMidnight(serviceDates[serviceDates.length - 1], 1,
+                getTimeZone(days[0]));
+        schedule.mServiceDates = serviceDates;
+
+        ObaStop stop = days[0].getStop();
+        if (stop == null) {
+            return null;
+        }
+        schedule.mStop = new String[]{stopId, stop.getName(), stop.getStopCode(),
+                stop.getDirection()};
+        schedule.mLat = stop.getLatitude();
+        schedule.mLon = stop.getLongitude();
+
+        Map<String, Integer> routes = new LinkedHashMap<>();
+        Map<String, Integer> agencies = new LinkedHashMap<>();
+        Map<String, Integer> headsigns = new LinkedHashMap<>();
+        for (int day = 0; day < days.length; day++) {
+            ObaScheduleForStopResponse response = days[day];
+            for (ObaRouteSchedule routeSchedule : response.getRouteSchedules()) {
+                String routeId = routeSchedule.getRouteId();
+                Integer routeIndex = routes.get(routeId);
+                if (routeIndex == null) {
+                    ObaRoute route = response.getRoute(routeId);
+                    if (route == null) {
+                        continue;
+                    }
+                    routeIndex = routes.size();
+                    routes.put(routeId, routeIndex);
+                    schedule.mRoutes.add(new String[]{routeId, route.getShortName(),
+                            route.getLongName(), route.getDescription(), route.getUrl(),
+                            toHex(route.getColor()), toHex(route.getTextColor()),
+                            route.getAgencyId(), String.valueOf(route.getType())});
+                    if (!agencies.containsKey(route.getAgencyId())) {
+                        ObaAgency agency = response.getAgency(route.getAgencyId());
+                        if (agency != null) {
+                            agencies.put(agency.getId(), agencies.size());
+                            schedule.mAgencies.add(new String[]{agency.getId(), agency.getName(),
+                                    agency.getUrl(), agency.getTimezone()});
+                        }
+                    }
+                }
+                for (ObaRouteSchedule.Direction direction
+                        : routeSchedule.getDirectionSchedules()) {
+                    for (ObaRouteSchedule.Time time : direction.getStopTimes()) {
+                        String headsign = TextUtils.isEmpty(time.getStopHeadsign())
+                                ? direction.getTripHeadsign() : time.getStopHeadsign();
+                        Integer headsignIndex = headsigns.get(headsign);
+                        if (headsignIndex == null) {
+                            headsignIndex = headsigns.size();
+                            headsigns.put(headsign, headsignIndex);
+                            schedule.mHeadsigns.add(headsign);
+                        }
+                        schedule.mTimes.add(new StopTime(routeIndex, headsignIndex, day,
+                                time.getTripId(), time.getArrivalTime(),
+                                time.getDepartureTime()));
+                    }
+                }
+            }
+        }
+        Collections.sort(schedule.mTimes, new Comparator<StopTime>() {
+            @Override
+            public int compare(StopTime a, StopTime b) {
+                return Long.compare(a.departureTime, b.departureTime);
+            }
+        });
+        return schedule;
+    }
+
+    /**
+     * @return the color as in the API responses (e.g., "FF0000"), or null if it isn't set
+     */
+    private static String toHex(Integer color) {
+        return color == null ? null : String.format("%06X", color & 0xFFFFFF);
+    }
+
+    private static void write(DataOutputStream out, StopSchedule schedule) throws IOException {
+        out.writeInt(VERSION);
+        out.writeLong(schedule.mCoveredUntil);
+        out.writeLong(schedule.mFetchedAt);
+        writeStrings(out, schedule.mStop);
+        out.writeDouble(schedule.mLat);
+        out.writeDouble(schedule.mLon);
+
+        out.writeInt(schedule.mAgencies.size());
+        for (String[] agency : schedule.mAgencies) {
+            writeStrings(out, agency);
+        }
+        out.writeInt(schedule.mRoutes.size());
+        for (String[] route : schedule.mRoutes) {
+            writeStrings(out, route);
+        }
+        out.writeInt(schedule.mHeadsigns.size());
+        for (String headsign : schedule.mHeadsigns) {
+            writeString(out, headsign);
+        }
+        out.writeInt(schedule.mServiceDates.length);
+        for (long serviceDate : schedule.mServiceDates) {
+            out.writeLong(serviceDate);
+        }
+
+        // Times are whole seconds from the first time of the schedule
+        long base = schedule.mTimes.isEmpty() ? 0 : schedule.mTimes.get(0).departureTime;
+        out.writeLong(base);
+        out.writeInt(schedule.mTimes.size());
+        for (StopTime time : schedule.mTimes) {
+            out.writeShort(time.route);
+            out.writeShort(time.headsign);
+            out.writeByte(time.serviceDate);
+            writeString(out, time.tripId);
+            out.writeInt((int) TimeUnit.MILLISECONDS.toSeconds(time.departureTime - base));
+            out.writeInt((int) TimeUnit.MILLISECONDS.toSeconds(time.departureTime
+                    - time.arrivalTime));
+        }
+    }
+
+    private static StopSchedule read(DataInputStream in, boolean headerOnly) throws IOException {
+        if (in.readInt() != VERSION) {
+            throw new IOException("Unknown version");
+        }
+        StopSchedule schedule = new StopSchedule();
+        schedule.mCoveredUntil = in.readLong();
+        schedule.mFetchedAt = in.readLong();
+        if (headerOnly) {
+            return schedule;
+        }
+        schedule.mStop = readStrings(in, 4);
+        schedule.mLat = in.readDouble();
+        schedule.mLon = in.readDouble();
+
+        int agencies = in.readInt();
+        for (int i = 0; i < agencies; i++) {
+            schedule.mAgencies.add(readStrings(in, 4));
+        }
+        int routes = in.readInt();
+        for (int i = 0; i < routes; i++) {
+            schedule.mRoutes.add(readStrings(in, 9));
+        }
+        int headsigns = in.readInt();
+        for (int i = 0; i < headsigns; i++) {
+            schedule.mHeadsigns.add(readString(in));
+        }
+        schedule.mServiceDates = new long[in.readInt()];
+        for (int i = 0; i < schedule.mServiceDates.length; i++) {
+            schedule.mServiceDates[i] = in.readLong();
+        }
+
+        long base = in.readLong();
+        int times = in.readInt();
+        for (int i = 0; i < times; i++) {
+            int route = in.readShort();
+            int headsign = in.readShort();
+            int serviceDate = in.readByte();
+            String tripId = readString(in);
+            long departureTime = base + TimeUnit.SECONDS.toMillis(in.readInt());
+            long arrivalTime = departureTime - TimeUnit.SECONDS.toMillis(in.readInt());
+            schedule.mTimes.add(new StopTime(route, headsign, serviceDate, tripId, arrivalTime,
+                    departureTime));
+        }
+        return schedule;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in, int count) throws IOException {
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = readString(in);
+        }
+        return strings;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
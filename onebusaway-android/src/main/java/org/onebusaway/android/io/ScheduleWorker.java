@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.request.ObaScheduleForStopRequest;
+import org.onebusaway.android.io.request.ObaScheduleForStopResponse;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.ui.QueryUtils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.text.format.DateUtils;
+import android.text.format.Time;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Periodically downloads the schedules of today and tomorrow for the starred and recently viewed
+ * stops into the ScheduleStore, so the arrivals screen can fall back to them when real-time
+ * arrivals can't be retrieved.
+ *
+ * A schedule is only downloaded again when the stored one covers less than a day ahead, so each
+ * stop costs about one download per day.  Schedules of stops that are no longer starred or
+ * recent, or that the server doesn't know anymore, are removed.  The work is only retried for
+ * network or server errors.
+ */
+public class ScheduleWorker extends Worker {
+
+    private static final String TAG = "ScheduleWorker";
+
+    private static final String PERIODIC_WORK = "schedulePeriodic";
+
+    private static final long REFRESH_HOURS = 12;
+
+    // Number of days downloaded for each stop, starting today
+    private static final int DAYS = 2;
+
+    // Schedules are downloaded again when they cover less than this ahead
+    private static final long MIN_COVERAGE = TimeUnit.DAYS.toMillis(1);
+
+    // Stops are recent if they were viewed this long ago, like in the recent stops list
+    private static final long RECENT = 7 * DateUtils.DAY_IN_MILLIS;
+
+    private static final int MAX_STOPS = 25;
+
+    public ScheduleWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the periodic download of the schedules, if it isn't scheduled already
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest periodic = new PeriodicWorkRequest.Builder(ScheduleWorker.class,
+                REFRESH_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(PERIODIC_WORK,
+                ExistingPeriodicWorkPolicy.KEEP, periodic);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        ObaRegion region = Application.get().getCurrentRegion();
+        if (region == null && Application.get().getCustomApiUrl() == null) {
+            return Result.success();
+        }
+        ScheduleStore store = ScheduleStore.getInstance(context);
+        long now = ServerClock.getInstance().currentTimeMillis();
+        Set<String> stopIds = queryStopIds(context.getContentResolver(), region, now);
+
+        int downloaded = 0;
+        boolean retry = false;
+        Set<String> retained = new HashSet<>(stopIds);
+        for (String stopId : stopIds) {
+            if (isStopped()) {
+                return Result.retry();
+            }
+            if (store.getCoveredUntil(stopId) - now >= MIN_COVERAGE) {
+                continue;
+            }
+            ObaScheduleForStopResponse[] days = new ObaScheduleForStopResponse[DAYS];
+            long[] serviceDates = new long[DAYS];
+            // Without a date, the server returns the current day in the time zone of the agency,
+            // which the following days are counted in
+            days[0] = new ObaScheduleForStopRequest.Builder(context, stopId)
+                    .build()
+                    .call();
+            int code = days[0].getCode();
+            TimeZone timeZone = ScheduleStore.getTimeZone(days[0]);
+            serviceDates[0] = ScheduleStore.getMidnight(now, 0, timeZone);
+            for (int i = 1; i < DAYS && code == ObaApi.OBA_OK; i++) {
+                serviceDates[i] = ScheduleStore.getMidnight(now, i, timeZone);
+                Time date = new Time(timeZone.getID());
+                date.set(serviceDates[i]);
+                days[i] = new ObaScheduleForStopRequest.Builder(context, stopId)
+                        .setDate(date)
+                        .build()
+                        .call();
+                code = days[i].getCode();
+            }
+            if (code == ObaApi.OBA_OK) {
+                if (store.save(stopId, serviceDates, days, now)) {
+                    downloaded++;
+                }
+                continue;
+            }
+            Log.d(TAG, "Couldn't get schedule of " + stopId + " - " + code);
+            if (isPermanentError(code)) {
+                // e.g., a starred stop that was removed from the feed, which retrying won't fix
+                retained.remove(stopId);
+                continue;
+            }
+            // A network or server error, which the following stops would most likely get too
+            retry = true;
+            break;
+        }
+        store.retain(retained);
+        Log.d(TAG, "Downloaded " + downloaded + " of " + stopIds.size() + " schedules");
+        return retry ? Result.retry() : Result.success();
+    }
+
+    /**
+     * @return true if the request for a schedule failed in a way that retrying can't fix
+     */
+    private static boolean isPermanentError(int code) {
+        return code == ObaApi.OBA_NOT_FOUND || code == ObaApi.OBA_BAD_REQUEST;
+    }
+
+    /**
+     * @return the IDs of the starred stops and the recently viewed stops of the region, starred
+     * stops first
+     */
+    private static Set<String> queryStopIds(ContentResolver cr, ObaRegion region, long now) {
+        Set<String> ids = new LinkedHashSet<>();
+        Uri uri = ObaContract.Stops.CONTENT_URI.buildUpon()
+                .appendQueryParameter("limit", String.valueOf(MAX_STOPS))
+                .build();
+        String where = "(" + ObaContract.Stops.FAVORITE + "=1 OR "
+                + ObaContract.Stops.ACCESS_TIME + ">" + (now - RECENT) + ")";
+        if (region != null) {
+            where += " AND " + QueryUtils.getRegionWhere(ObaContract.Stops.REGION_ID,
+                    region.getId());
+        }
+        Cursor c = cr.query(uri, new String[]{ObaContract.Stops._ID}, where, null,
+                ObaContract.Stops.FAVORITE + " DESC, " + ObaContract.Stops.ACCESS_TIME
+                        + " DESC");
+        if (c != null) {
+            try {
+                while (c.moveToNext()) {
+                    ids.add(c.getString(0));
+                }
+            } finally {
+                c.close();
+            }
+        }
+        return ids;
+    }
+}
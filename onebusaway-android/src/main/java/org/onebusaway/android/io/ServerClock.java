@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import org.onebusaway.android.io.request.ObaCurrentTimeRequest;
+import org.onebusaway.android.util.BackgroundExecutor;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Estimates the time on the OBA server, so arrival countdowns are computed against the clock the
+ * predictions were made with rather than the clock of the device, which may be wrong.
+ *
+ * Each OBA response carries the current time of the server.  The time of the server when a
+ * response was received is estimated from that time and the round trip of the request, and
+ * anchored to the monotonic clock of the device, so changes to the clock of the device don't
+ * affect the estimate.  Successive samples are smoothed, and if no response was received for a
+ * while, syncIfNeeded() asks the server for its time with ObaCurrentTimeRequest.
+ */
+public class ServerClock {
+
+    private static final String TAG = "ServerClock";
+
+    /**
+     * The clocks of the device, which tests can replace
+     */
+    public interface Clock {
+
+        /**
+         * @return the time of the device, in milliseconds since epoch
+         */
+        long currentTimeMillis();
+
+        /**
+         * @return a monotonic time in milliseconds, e.g., since boot
+         */
+        long elapsedRealtime();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    // Weight of a new sample in the estimate, which smooths the jitter of the network
+    private static final double SMOOTHING = 0.5;
+
+    // An estimate older than this is replaced by the next sample, since the monotonic clock of
+    // the device may have drifted from the clock of the server
+    private static final long MAX_ESTIMATE_AGE = TimeUnit.MINUTES.toMillis(30);
+
+    // Samples from requests with a longer round trip are too imprecise to be used
+    private static final long MAX_ROUND_TRIP = TimeUnit.SECONDS.toMillis(10);
+
+    // The server is asked for its time if no sample was received for this long
+    public static final long SYNC_INTERVAL = TimeUnit.MINUTES.toMillis(15);
+
+    private static ServerClock mInstance;
+
+    private final Clock mClock;
+
+    private final AtomicBoolean mSyncing = new AtomicBoolean(false);
+
+    // Estimated time of the server when the monotonic clock was 0
+    private long mServerBase;
+
+    private boolean mSynchronized = false;
+
+    // Monotonic time of the last sample
+    private long mLastSampleTime;
+
+    public ServerClock(Clock clock) {
+        mClock = clock;
+    }
+
+    public static synchronized ServerClock getInstance() {
+        if (mInstance == null) {
+            mInstance = new ServerClock(SYSTEM_CLOCK);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Replaces the clock returned by getInstance(), or restores the clock of the device if null
+     */
+    public static synchronized void setInstanceForTesting(ServerClock clock) {
+        mInstance = clock;
+    }
+
+    /**
+     * @return the monotonic time of the clock, to measure the round trip of requests
+     */
+    public long elapsedRealtime() {
+        return mClock.elapsedRealtime();
+    }
+
+    /**
+     * Adds a sample of the time of the server
+     *
+     * @param serverTime   the current time of the server in a response, in milliseconds since
+     *                     epoch
+     * @param requestTime  the monotonic time the request was sent at (see elapsedRealtime())
+     * @param responseTime the monotonic time the response was received at
+     */
+    public synchronized void onServerTime(long serverTime, long requestTime, long responseTime) {
+        long roundTrip = responseTime - requestTime;
+        if (serverTime <= 0 || roundTrip < 0 || roundTrip > MAX_ROUND_TRIP) {
+            return;
+        }
+        // The server most likely read its clock half way through the round trip
+        long base = serverTime - (requestTime + roundTrip / 2);
+        if (!mSynchronized || responseTime - mLastSampleTime > MAX_ESTIMATE_AGE) {
+            mServerBase = base;
+            mSynchronized = true;
+        } else {
+            mServerBase += Math.round((base - mServerBase) * SMOOTHING);
+        }
+        mLastSampleTime = responseTime;
+    }
+
+    /**
+     * @return the estimated time of the server, in milliseconds since epoch, or the time of the
+     * device if no response was received from the server yet
+     */
+    public synchronized long currentTimeMillis() {
+        if (!mSynchronized) {
+            return mClock.currentTimeMillis();
+        }
+        return mServerBase + mClock.elapsedRealtime();
+    }
+
+    /**
+     * @return the difference between the time of the server and the time of the device, in
+     * milliseconds, or 0 if no response was received from the server yet
+     */
+    public synchronized long getOffset() {
+        return mSynchronized ? currentTimeMillis() - mClock.currentTimeMillis() : 0;
+    }
+
+    /**
+     * @return true if the time of the server has been estimated
+     */
+    public synchronized boolean isSynchronized() {
+        return mSynchronized;
+    }
+
+    /**
+     * @return true if no sample was received for SYNC_INTERVAL
+     */
+    public synchronized boolean needsSync() {
+        return !mSynchronized || mClock.elapsedRealtime() - mLastSampleTime > SYNC_INTERVAL;
+    }
+
+    /**
+     * Asks the server for its time in the background, if no sample was received for
+     * SYNC_INTERVAL.  The response is sampled by the request itself.
+     */
+    public void syncIfNeeded(final Context context) {
+        if (!needsSync() || !mSyncing.compareAndSet(false, true)) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        BackgroundExecutor.getInstance().execute(BackgroundExecutor.Pool.NETWORK, () -> {
+            try {
+                ObaCurrentTimeRequest.newRequest(appContext).call();
+                Log.d(TAG, "Offset from the server: " + getOffset() + "ms");
+            } finally {
+                mSyncing.set(false);
+            }
+        });
+    }
+}
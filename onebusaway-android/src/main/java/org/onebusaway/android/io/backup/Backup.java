@@ -27,6 +27,7 @@ import org.apache.commons.io.FileUtils;
 import org.onebusaway.android.R;
 import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.provider.ObaProvider;
+import org.onebusaway.android.util.RegionUtils;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -57,6 +58,16 @@ public final class Backup {
      * (such as the Documents directory) to save the backup file.
      */
     public static void backup(Context context,Uri uri) throws IOException{
+        // Recent changes may still be in the write-ahead log rather than in the database file
+        ContentProviderClient client = context.getContentResolver()
+                .acquireContentProviderClient(ObaContract.AUTHORITY);
+        if (client != null) {
+            try {
+                ((ObaProvider) client.getLocalContentProvider()).checkpoint();
+            } finally {
+                client.release();
+            }
+        }
         try (InputStream inputStream = new FileInputStream(getDB(context));
              OutputStream outputStream = context.getContentResolver().openOutputStream(uri)) {
             byte[] buffer = new byte[1024];
@@ -98,9 +109,14 @@ public final class Backup {
             ObaProvider provider = (ObaProvider) client.getLocalContentProvider();
             provider.closeDB();
 
+            // The write-ahead log of the old database must not be applied to the restored one
+            new File(dbPath.getPath() + "-wal").delete();
+            new File(dbPath.getPath() + "-shm").delete();
             FileUtils.copyFile(backupPath, dbPath);
 
         } finally {
+            // The regions in memory may not be the ones in the restored database
+            RegionUtils.invalidateRegionIndex();
             if (client != null) {
                 client.release();
             }
@@ -145,6 +145,39 @@ public final class ObaArrivalInfo implements Serializable{
         scheduledTrack = "";
     }
 
+    private ObaArrivalInfo(ObaArrivalInfo a, long predictedArrivalTime,
+            long predictedDepartureTime, long lastUpdateTime) {
+        routeId = a.routeId;
+        routeShortName = a.routeShortName;
+        routeLongName = a.routeLongName;
+        tripId = a.tripId;
+        tripHeadsign = a.tripHeadsign;
+        stopId = a.stopId;
+        this.predictedArrivalTime = predictedArrivalTime;
+        scheduledArrivalTime = a.scheduledArrivalTime;
+        this.predictedDepartureTime = predictedDepartureTime;
+        scheduledDepartureTime = a.scheduledDepartureTime;
+        status = a.status;
+        frequency = a.frequency;
+        vehicleId = a.vehicleId;
+        distanceFromStop = a.distanceFromStop;
+        numberOfStopsAway = a.numberOfStopsAway;
+        serviceDate = a.serviceDate;
+        this.lastUpdateTime = lastUpdateTime;
+        predicted = true;
+        tripStatus = a.tripStatus;
+        situationIds = a.situationIds;
+        arrivalEnabled = a.arrivalEnabled;
+        departureEnabled = a.departureEnabled;
+        stopSequence = a.stopSequence;
+        totalStopsInTrip = a.totalStopsInTrip;
+        blockTripSequence = a.blockTripSequence;
+        historicalOccupancy = a.historicalOccupancy;
+        occupancyStatus = a.occupancyStatus;
+        actualTrack = a.actualTrack;
+        scheduledTrack = a.scheduledTrack;
+    }
+
     /**
      * @return The ID of the route.
      */
@@ -288,6 +321,16 @@ public final class ObaArrivalInfo implements Serializable{
         return predictedArrivalTime > 0 || predictedDepartureTime > 0;
     }
 
+    /**
+     * @return a copy of this arrival with other predicted times, e.g. the ones of a
+     * GTFS-realtime feed
+     */
+    public ObaArrivalInfo withPrediction(long predictedArrivalTime, long predictedDepartureTime,
+            long lastUpdateTime) {
+        return new ObaArrivalInfo(this, predictedArrivalTime, predictedDepartureTime,
+                lastUpdateTime);
+    }
+
     /**
      * @return The trip status, if it exists.
      */
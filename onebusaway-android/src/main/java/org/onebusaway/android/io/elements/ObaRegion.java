@@ -46,6 +46,27 @@ public interface ObaRegion {
         public String getBaseUrl();
     }
 
+    /**
+     * Specifies the GTFS-realtime feeds of an agency within this region.
+     */
+    public interface GtfsRealtimeFeed {
+
+        /**
+         * @return The OBA ID of the agency, which prefixes the GTFS IDs in the feeds.
+         */
+        public String getAgencyId();
+
+        /**
+         * @return The URL of the VehiclePositions feed, or null if the agency doesn't have one.
+         */
+        public String getVehiclePositionsUrl();
+
+        /**
+         * @return The URL of the TripUpdates feed, or null if the agency doesn't have one.
+         */
+        public String getTripUpdatesUrl();
+    }
+
     /**
      * @return The ID of this region.
      */
@@ -90,6 +111,12 @@ public interface ObaRegion {
 
     public Open311Server[] getOpen311Servers();
 
+    /**
+     * @return The GTFS-realtime feeds of the agencies in the region, or null if it doesn't have
+     * any.
+     */
+    public GtfsRealtimeFeed[] getGtfsRealtimeFeeds();
+
     /**
      * @return The primary language for this region.
      */
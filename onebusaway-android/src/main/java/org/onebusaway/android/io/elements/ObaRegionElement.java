@@ -135,6 +135,56 @@ public class ObaRegionElement implements ObaRegion {
         }
     }
 
+    public static class GtfsRealtimeFeed implements ObaRegion.GtfsRealtimeFeed {
+
+        public static final GtfsRealtimeFeed[] EMPTY_ARRAY = new GtfsRealtimeFeed[]{};
+
+        private final String agencyId;
+
+        private final String vehiclePositionsUrl;
+
+        private final String tripUpdatesUrl;
+
+        public GtfsRealtimeFeed() {
+            agencyId = "";
+            vehiclePositionsUrl = null;
+            tripUpdatesUrl = null;
+        }
+
+        public GtfsRealtimeFeed(String agencyId, String vehiclePositionsUrl,
+                String tripUpdatesUrl) {
+            this.agencyId = agencyId;
+            this.vehiclePositionsUrl = vehiclePositionsUrl;
+            this.tripUpdatesUrl = tripUpdatesUrl;
+        }
+
+        @Override
+        public String getAgencyId() {
+            return agencyId;
+        }
+
+        @Override
+        public String getVehiclePositionsUrl() {
+            return vehiclePositionsUrl;
+        }
+
+        @Override
+        public String getTripUpdatesUrl() {
+            return tripUpdatesUrl;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[");
+            sb.append("agencyId=").append(agencyId).append(",");
+            sb.append("vehiclePositionsUrl=").append(vehiclePositionsUrl).append(",");
+            sb.append("tripUpdatesUrl=").append(tripUpdatesUrl);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+
     private final long id;
 
     private final String regionName;
@@ -147,6 +197,8 @@ public class ObaRegionElement implements ObaRegion {
 
     private final String plausibleAnalyticsServerUrl;
 
+    private final GtfsRealtimeFeed[] gtfsRealtimeFeeds;
+
     private final String siriBaseUrl;
 
     private final Bounds[] bounds;
@@ -216,6 +268,7 @@ public class ObaRegionElement implements ObaRegion {
         enrollParticipantsInStudy = false;
         sidecarBaseUrl = "";
         plausibleAnalyticsServerUrl = "";
+        gtfsRealtimeFeeds = GtfsRealtimeFeed.EMPTY_ARRAY;
     }
 
     public ObaRegionElement(long id,
@@ -243,7 +296,8 @@ public class ObaRegionElement implements ObaRegion {
                             boolean travelBehaviorDataCollectionEnabled,
                             boolean enrollParticipantsInStudy,
                             String sidecarBaseUrl,
-                            String plausibleAnalyticsServerUrl) {
+                            String plausibleAnalyticsServerUrl,
+                            GtfsRealtimeFeed[] gtfsRealtimeFeeds) {
         this.id = id;
         this.regionName = name;
         this.active = active;
@@ -270,6 +324,7 @@ public class ObaRegionElement implements ObaRegion {
         this.enrollParticipantsInStudy = enrollParticipantsInStudy;
         this.sidecarBaseUrl = sidecarBaseUrl;
         this.plausibleAnalyticsServerUrl = plausibleAnalyticsServerUrl;
+        this.gtfsRealtimeFeeds = gtfsRealtimeFeeds;
     }
 
     @Override
@@ -317,6 +372,11 @@ public class ObaRegionElement implements ObaRegion {
         return open311Servers;
     }
 
+    @Override
+    public GtfsRealtimeFeed[] getGtfsRealtimeFeeds() {
+        return gtfsRealtimeFeeds;
+    }
+
     @Override
     public String getLanguage() {
         return language;
@@ -459,6 +519,7 @@ public class ObaRegionElement implements ObaRegion {
                 ", paymentWarningBody=" + paymentWarningBody + '\'' +
                 ", sidecarBaseUrl=" + sidecarBaseUrl + '\'' +
                 ", plausibleAnalyticsServerUrl=" + plausibleAnalyticsServerUrl + '\'' +
+                ", gtfsRealtimeFeeds=" + Arrays.toString(gtfsRealtimeFeeds) +
                 '}';
     }
 }
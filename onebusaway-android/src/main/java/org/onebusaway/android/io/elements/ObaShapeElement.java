@@ -20,6 +20,7 @@ import org.onebusaway.android.util.LocationUtils;
 import android.location.Location;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class ObaShapeElement implements ObaShape {
@@ -34,6 +35,9 @@ public final class ObaShapeElement implements ObaShape {
 
     private final String levels;
 
+    // Decoded points, kept so shapes held in memory (see RouteRepository) are only decoded once
+    private transient List<Location> decodedPoints;
+
     private ObaShapeElement() {
         points = "";
         length = 0;
@@ -56,8 +60,11 @@ public final class ObaShapeElement implements ObaShape {
     }
 
     @Override
-    public List<Location> getPoints() {
-        return decodeLine(points, length);
+    public synchronized List<Location> getPoints() {
+        if (decodedPoints == null) {
+            decodedPoints = Collections.unmodifiableList(decodeLine(points, length));
+        }
+        return decodedPoints;
     }
 
     @Override
@@ -83,4 +83,10 @@ public interface ObaStop extends ObaElement {
      * @return The list of route IDs serving this stop.
      */
     public String[] getRouteIds();
+
+    /**
+     * @return A bitmask of the types of the routes serving this stop, with the bit
+     * (1 << ObaRoute.TYPE_*) set for each type, or 0 if the types aren't known.
+     */
+    public int getRouteTypes();
 }
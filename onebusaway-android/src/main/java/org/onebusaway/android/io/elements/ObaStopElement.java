@@ -20,6 +20,9 @@ import org.onebusaway.android.util.LocationUtils;
 import android.location.Location;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Object defining a Stop element.
@@ -55,6 +58,9 @@ public final class ObaStopElement implements ObaStop {
 
     private String[] routeIds;
 
+    // Not part of the response, set by setRouteTypes()
+    private transient int routeTypes;
+
     public ObaStopElement() {
         id = "";
         lat = 0;
@@ -126,6 +132,50 @@ public final class ObaStopElement implements ObaStop {
         return routeIds;
     }
 
+    @Override
+    public int getRouteTypes() {
+        return routeTypes;
+    }
+
+    /**
+     * @return the bit of the given route type in the bitmask returned by getRouteTypes(), or 0
+     * for route types other than the ObaRoute.TYPE_* types
+     */
+    public static int getRouteTypeBit(int routeType) {
+        if (routeType < 0 || routeType >= ObaRoute.NUM_TYPES) {
+            return 0;
+        }
+        return 1 << routeType;
+    }
+
+    /**
+     * Sets the types of the routes serving each of the stops, so they don't have to be looked up
+     * each time the stops are drawn.  Should be called off the main thread when a response is
+     * loaded.
+     *
+     * @param stops  the stops of the response
+     * @param routes the routes in the references of the response
+     */
+    public static void setRouteTypes(Iterable<? extends ObaStop> stops, List<ObaRoute> routes) {
+        Map<String, Integer> bits = new HashMap<>(routes.size());
+        for (ObaRoute route : routes) {
+            bits.put(route.getId(), getRouteTypeBit(route.getType()));
+        }
+        for (ObaStop stop : stops) {
+            if (!(stop instanceof ObaStopElement)) {
+                continue;
+            }
+            int routeTypes = 0;
+            for (String routeId : stop.getRouteIds()) {
+                Integer bit = bits.get(routeId);
+                if (bit != null) {
+                    routeTypes |= bit;
+                }
+            }
+            ((ObaStopElement) stop).routeTypes = routeTypes;
+        }
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -28,7 +28,7 @@ import java.util.List;
  *
  * @author Paul Watts (paulcwatts@gmail.com)
  */
-public final class ObaArrivalInfoResponse extends ObaResponseWithRefs {
+public final class ObaArrivalInfoResponse extends ObaResponseWithRefs implements Cloneable {
 
     private static final class Entry {
 
@@ -63,6 +63,11 @@ public final class ObaArrivalInfoResponse extends ObaResponseWithRefs {
 
     private String mUrl;
 
+    private boolean mScheduleOnly;
+
+    // Arrivals updated from a GTFS-realtime feed, used instead of the ones in data
+    private transient ObaArrivalInfo[] mArrivalInfo;
+
     ObaArrivalInfoResponse() {
         data = Data.EMPTY_OBJECT;
     }
@@ -87,7 +92,29 @@ public final class ObaArrivalInfoResponse extends ObaResponseWithRefs {
     }
 
     public ObaArrivalInfo[] getArrivalInfo() {
-        return data.entry.arrivalsAndDepartures;
+        return mArrivalInfo != null ? mArrivalInfo : data.entry.arrivalsAndDepartures;
+    }
+
+    /**
+     * @return a copy of this response with other arrivals, e.g. arrivals whose predictions were
+     * updated from a GTFS-realtime feed
+     */
+    public ObaArrivalInfoResponse withArrivalInfo(ObaArrivalInfo[] arrivalInfo) {
+        ObaArrivalInfoResponse copy;
+        try {
+            copy = (ObaArrivalInfoResponse) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        copy.mArrivalInfo = arrivalInfo;
+        return copy;
+    }
+
+    /**
+     * @return true if the arrivals were updated from a GTFS-realtime feed (see withArrivalInfo())
+     */
+    public boolean isFromRealtimeFeed() {
+        return mArrivalInfo != null;
     }
 
     public List<ObaSituation> getSituations() {
@@ -106,4 +133,16 @@ public final class ObaArrivalInfoResponse extends ObaResponseWithRefs {
     public String getUrl() {
         return mUrl;
     }
+
+    public void setScheduleOnly(boolean scheduleOnly) {
+        mScheduleOnly = scheduleOnly;
+    }
+
+    /**
+     * @return true if the arrivals were built from the stored schedule of the stop (see
+     * ScheduleStore) because real-time arrivals couldn't be retrieved
+     */
+    public boolean isScheduleOnly() {
+        return mScheduleOnly;
+    }
 }
@@ -97,6 +97,11 @@ public final class ObaStopResponse extends ObaResponseWithRefs implements ObaSto
         return data.entry.getRouteIds();
     }
 
+    @Override
+    public int getRouteTypes() {
+        return data.entry.getRouteTypes();
+    }
+
     /**
      * Returns the list of dereferenced routes.
      */
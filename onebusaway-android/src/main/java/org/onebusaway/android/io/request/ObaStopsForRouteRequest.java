@@ -18,6 +18,7 @@ package org.onebusaway.android.io.request;
 import android.content.Context;
 import android.net.Uri;
 
+import java.io.Writer;
 import java.util.concurrent.Callable;
 
 /**
@@ -55,6 +56,14 @@ public final class ObaStopsForRouteRequest extends RequestBase
         return call(ObaStopsForRouteResponse.class);
     }
 
+    /**
+     * Calls the request, and also writes the JSON of the response to json, so it can be stored
+     * (see RouteRepository)
+     */
+    public ObaStopsForRouteResponse call(Writer json) {
+        return call(ObaStopsForRouteResponse.class, json);
+    }
+
     @Override
     public String toString() {
         return "ObaStopsForRouteRequest [mUri=" + mUri + "]";
@@ -25,7 +25,7 @@ import org.onebusaway.android.io.elements.ObaTripDetailsElement;
  *
  * @author Sean Barbeau (sjbarbeau@gmail.com)
  */
-public final class ObaTripsForRouteResponse extends ObaResponseWithRefs {
+public final class ObaTripsForRouteResponse extends ObaResponseWithRefs implements Cloneable {
 
     private static final class Data {
 
@@ -49,6 +49,9 @@ public final class ObaTripsForRouteResponse extends ObaResponseWithRefs {
 
     private final Data data;
 
+    // Trips whose status was updated from a GTFS-realtime feed, instead of the ones in data
+    private transient ObaTripDetails[] mTrips;
+
     private ObaTripsForRouteResponse() {
         data = Data.EMPTY_OBJECT;
     }
@@ -57,7 +60,22 @@ public final class ObaTripsForRouteResponse extends ObaResponseWithRefs {
      * @return The list of trips.
      */
     public ObaTripDetails[] getTrips() {
-        return data.list;
+        return mTrips != null ? mTrips : data.list;
+    }
+
+    /**
+     * @return a copy of this response with other trips, e.g. trips whose status was updated
+     * from a GTFS-realtime feed
+     */
+    public ObaTripsForRouteResponse withTrips(ObaTripDetails[] trips) {
+        ObaTripsForRouteResponse copy;
+        try {
+            copy = (ObaTripsForRouteResponse) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        copy.mTrips = trips;
+        return copy;
     }
 
     /**
@@ -16,9 +16,11 @@
  */
 package org.onebusaway.android.io.request;
 
+import org.apache.commons.io.IOUtils;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.ObaConnection;
 import org.onebusaway.android.io.ObaContext;
+import org.onebusaway.android.io.ServerClock;
 
 import android.content.Context;
 import android.net.Uri;
@@ -28,6 +30,8 @@ import android.util.Log;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 
 /**
@@ -133,8 +137,17 @@ public class RequestBase {
     }
 
     protected <T> T call(Class<T> cls) {
+        return call(cls, null);
+    }
+
+    /**
+     * Calls the request, and if json isn't null, also writes the body of the response to it
+     */
+    protected <T> T call(Class<T> cls, Writer json) {
         ObaApi.SerializationHandler handler = ObaApi.getSerializer(cls);
         ObaConnection conn = null;
+        ServerClock clock = ServerClock.getInstance();
+        long requestTime = clock.elapsedRealtime();
         try {
             conn = ObaApi.getDefaultContext().getConnectionFactory().newConnection(mUri);
             Reader reader;
@@ -153,9 +166,20 @@ public class RequestBase {
 
                 reader = conn.get();
             }
+            if (json != null) {
+                String body = IOUtils.toString(reader);
+                json.write(body);
+                reader = new StringReader(body);
+            }
             T t = handler.deserialize(reader, cls);
             if (t == null) {
                 t = handler.createFromError(cls, ObaApi.OBA_INTERNAL_ERROR, "Json error");
+            } else if (t instanceof ObaResponse && isFromServer()) {
+                ObaResponse response = (ObaResponse) t;
+                if (response.getCode() == ObaApi.OBA_OK) {
+                    clock.onServerTime(response.getCurrentTime(), requestTime,
+                            clock.elapsedRealtime());
+                }
             }
             return t;
         } catch (FileNotFoundException e) {
@@ -171,4 +195,12 @@ public class RequestBase {
         }
     }
 
+    /**
+     * @return true if the request goes to a server, and not e.g. to a file bundled with the app
+     */
+    private boolean isFromServer() {
+        String scheme = mUri.getScheme();
+        return "http".equals(scheme) || "https".equals(scheme);
+    }
+
 }
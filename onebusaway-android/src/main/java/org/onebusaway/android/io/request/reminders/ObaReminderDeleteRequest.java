@@ -1,5 +1,7 @@
 package org.onebusaway.android.io.request.reminders;
 
+import org.onebusaway.android.util.BackgroundExecutor;
+
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -18,7 +20,8 @@ public class ObaReminderDeleteRequest {
 
     @SuppressLint("LongLogTag")
     public void sendDeleteRequest(String alarmDeletePath, DeleteRequestListener listener) {
-        new Thread(() -> {
+        // Not tied to the screen, so the reminder is deleted even if the user leaves it
+        BackgroundExecutor.getInstance().execute(BackgroundExecutor.Pool.NETWORK, () -> {
             HttpURLConnection connection = null;
             try {
                 URL deleteUrl = new URL(alarmDeletePath);
@@ -42,7 +45,7 @@ public class ObaReminderDeleteRequest {
                     connection.disconnect();
                 }
             }
-        }).start();
+        });
     }
 
 
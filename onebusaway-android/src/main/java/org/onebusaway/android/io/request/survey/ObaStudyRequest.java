@@ -12,6 +12,7 @@ import org.onebusaway.android.io.request.RequestBase;
 import org.onebusaway.android.io.request.survey.model.StudyResponse;
 import org.onebusaway.android.ui.survey.SurveyPreferences;
 
+import java.io.Writer;
 import java.util.concurrent.Callable;
 
 /**
@@ -20,26 +21,32 @@ import java.util.concurrent.Callable;
 
 public final class ObaStudyRequest extends RequestBase implements Callable<StudyResponse> {
 
-    private ObaStudyRequest(Uri uri) {
+    private final long mRegionId;
+
+    private ObaStudyRequest(Uri uri, long regionId) {
         super(uri);
+        mRegionId = regionId;
     }
 
     public static class Builder {
 
-        private static Uri URI = null;
+        private Uri mUri = null;
+
+        private long mRegionId = -1;
 
         public Builder(Context context) {
             ObaRegion region = Application.get().getCurrentRegion();
             if (region == null) return;
+            mRegionId = region.getId();
             String baseUrl = region.getSidecarBaseUrl();
             if(baseUrl == null) return;
             String studyAPIURL = baseUrl + Application.get().getResources().getString(R.string.studies_api_endpoint);
             studyAPIURL = studyAPIURL.replace("regionID", String.valueOf(Application.get().getCurrentRegion().getId()));
-            URI = Uri.parse(studyAPIURL).buildUpon().appendQueryParameter("user_id", SurveyPreferences.getUserUUID(context)).build();
+            mUri = Uri.parse(studyAPIURL).buildUpon().appendQueryParameter("user_id", SurveyPreferences.getUserUUID(context)).build();
         }
 
         public ObaStudyRequest build() {
-            return new ObaStudyRequest(URI);
+            return new ObaStudyRequest(mUri, mRegionId);
         }
     }
 
@@ -52,6 +59,20 @@ public final class ObaStudyRequest extends RequestBase implements Callable<Study
         return call(StudyResponse.class);
     }
 
+    /**
+     * Calls the request, and also writes the body of the response to json
+     */
+    public StudyResponse call(Writer json) {
+        return call(StudyResponse.class, json);
+    }
+
+    /**
+     * @return the ID of the region of the studies, or -1 if there isn't a region
+     */
+    public long getRegionId() {
+        return mRegionId;
+    }
+
     @NonNull
     @Override
     public String toString() {
@@ -1,37 +1,54 @@
 package org.onebusaway.android.io.request.survey;
 
-import android.os.AsyncTask;
 import android.util.Log;
 
+import androidx.lifecycle.LifecycleOwner;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.FeedCache;
 import org.onebusaway.android.io.request.survey.model.StudyResponse;
+import org.onebusaway.android.util.BackgroundExecutor;
 
 /**
- * AsyncTask for performing background operations related to study requests.
+ * Performs study requests in the background, on the network pool of BackgroundExecutor.
  */
-public class StudyRequestTask extends AsyncTask<ObaStudyRequest, Void, StudyResponse> {
+public class StudyRequestTask {
     private static final String TAG = "Survey Request";
+    private LifecycleOwner mOwner;
     private StudyRequestListener mListener;
 
-    public StudyRequestTask(StudyRequestListener listener) {
+    /**
+     * @param owner    the screen showing the survey, which cancels the request when destroyed, or
+     *                 null if the request isn't tied to a screen
+     * @param listener receives the response on the main thread
+     */
+    public StudyRequestTask(LifecycleOwner owner, StudyRequestListener listener) {
+        mOwner = owner;
         mListener = listener;
     }
 
-    @Override
-    protected StudyResponse doInBackground(ObaStudyRequest... requests) {
-        try {
-            return requests[0].call();
-        } catch (Exception e) {
-            Log.e(TAG, "Error executing survey request", e);
-            return null;
-        }
+    public BackgroundExecutor.Task execute(ObaStudyRequest request) {
+        return BackgroundExecutor.getInstance().submit(mOwner, BackgroundExecutor.Pool.NETWORK,
+                () -> {
+                    try {
+                        if (request.getRegionId() == -1) {
+                            return request.call();
+                        }
+                        // Shared by the stops and the map showing the studies of the region
+                        return FeedCache.getInstance(Application.get()).get(FeedCache.STUDIES,
+                                String.valueOf(request.getRegionId()), request::call);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error executing survey request", e);
+                        return null;
+                    }
+                }, this::onPostExecute);
     }
 
-    @Override
-    protected void onPostExecute(StudyResponse response) {
+    private void onPostExecute(StudyResponse response) {
         if (response != null) {
             mListener.onSurveyResponseReceived(response);
         } else {
             mListener.onSurveyResponseFail();
         }
     }
-}
\ No newline at end of file
+}
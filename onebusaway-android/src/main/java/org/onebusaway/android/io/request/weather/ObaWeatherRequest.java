@@ -10,31 +10,38 @@ import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.request.RequestBase;
 import org.onebusaway.android.io.request.weather.models.ObaWeatherResponse;
 
+import java.io.Writer;
 import java.util.concurrent.Callable;
 
 
 public final class ObaWeatherRequest extends RequestBase implements Callable<ObaWeatherResponse> {
 
-    private ObaWeatherRequest(Uri uri) {
+    private final long mRegionId;
+
+    private ObaWeatherRequest(Uri uri, long regionId) {
         super(uri);
+        mRegionId = regionId;
     }
 
     public static class Builder {
 
-        private static Uri URI = null;
+        private Uri mUri = null;
+
+        private final long mRegionId;
 
         public Builder(long regionId) {
+            mRegionId = regionId;
             String baseUrl = Application.get().getCurrentRegion().getSidecarBaseUrl();
             if(baseUrl == null) return;
             String weatherAPIURL = baseUrl + Application.get().getResources().getString(R.string.weather_api_endpoint);
             // Replacing param regionID with our current region id.
             weatherAPIURL = weatherAPIURL.replace("regionID",String.valueOf(regionId));
             Log.e("WeatherAPIURL", weatherAPIURL);
-            URI = Uri.parse(weatherAPIURL);
+            mUri = Uri.parse(weatherAPIURL);
         }
 
         public ObaWeatherRequest build() {
-            return new ObaWeatherRequest(URI);
+            return new ObaWeatherRequest(mUri, mRegionId);
         }
     }
 
@@ -47,6 +54,20 @@ public final class ObaWeatherRequest extends RequestBase implements Callable<Oba
         return call(ObaWeatherResponse.class);
     }
 
+    /**
+     * Calls the request, and also writes the body of the response to json
+     */
+    public ObaWeatherResponse call(Writer json) {
+        return call(ObaWeatherResponse.class, json);
+    }
+
+    /**
+     * @return the ID of the region of the weather
+     */
+    public long getRegionId() {
+        return mRegionId;
+    }
+
     @NonNull
     @Override
     public String toString() {
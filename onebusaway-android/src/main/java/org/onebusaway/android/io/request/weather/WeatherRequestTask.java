@@ -1,34 +1,47 @@
 package org.onebusaway.android.io.request.weather;
 
-import android.os.AsyncTask;
 import android.util.Log;
 
+import androidx.lifecycle.LifecycleOwner;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.FeedCache;
 import org.onebusaway.android.io.request.weather.models.ObaWeatherResponse;
+import org.onebusaway.android.util.BackgroundExecutor;
 
-public class WeatherRequestTask extends AsyncTask<ObaWeatherRequest, Void, ObaWeatherResponse> {
+public class WeatherRequestTask {
     private static final String TAG = "Weather Request";
+    private LifecycleOwner mOwner;
     private WeatherRequestListener mListener;
 
-    public WeatherRequestTask(WeatherRequestListener listener) {
+    /**
+     * @param owner    the screen showing the weather, which cancels the request when destroyed
+     * @param listener receives the response on the main thread
+     */
+    public WeatherRequestTask(LifecycleOwner owner, WeatherRequestListener listener) {
+        mOwner = owner;
         mListener = listener;
     }
 
-    @Override
-    protected ObaWeatherResponse doInBackground(ObaWeatherRequest... requests) {
-        try {
-            return requests[0].call();
-        } catch (Exception e) {
-            Log.e(TAG, "Error executing weather request", e);
-            return null;
-        }
+    public BackgroundExecutor.Task execute(ObaWeatherRequest request) {
+        return BackgroundExecutor.getInstance().submit(mOwner, BackgroundExecutor.Pool.NETWORK,
+                () -> {
+                    try {
+                        // Shared by the screens showing the weather of the region
+                        return FeedCache.getInstance(Application.get()).get(FeedCache.WEATHER,
+                                String.valueOf(request.getRegionId()), request::call);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error executing weather request", e);
+                        return null;
+                    }
+                }, this::onPostExecute);
     }
 
-    @Override
-    protected void onPostExecute(ObaWeatherResponse response) {
+    private void onPostExecute(ObaWeatherResponse response) {
         if (response != null) {
             mListener.onWeatherResponseReceived(response);
         } else {
             mListener.onWeatherRequestFailed();
         }
     }
-}
\ No newline at end of file
+}
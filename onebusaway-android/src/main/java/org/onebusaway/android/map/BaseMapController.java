@@ -27,12 +27,14 @@ import android.app.Activity;
 import android.content.Context;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.loader.content.Loader;
 
 public abstract class BaseMapController implements MapModeController,
-        MapWatcher.Listener {
+        MapWatcher.Listener, MapWatcher.PanListener {
 
     private static final String TAG = "BaseMapController";
 
@@ -40,6 +42,8 @@ public abstract class BaseMapController implements MapModeController,
 
     private MapWatcher mMapWatcher;
 
+    private MapDataScheduler mScheduler;
+
     /**
      * GoogleApiClient being used for Location Services
      */
@@ -121,6 +125,7 @@ public abstract class BaseMapController implements MapModeController,
 
     @Override
     public void destroy() {
+        getScheduler().cancel();
         if (getLoader() != null) {
             getLoader().reset();
         }
@@ -130,6 +135,8 @@ public abstract class BaseMapController implements MapModeController,
     @Override
     public void onPause() {
         watchMap(false);
+        // The map is refreshed when it's resumed
+        getScheduler().cancel();
 
         // Tear down GoogleApiClient
         if (mGoogleApiClient != null && mGoogleApiClient.isConnected()) {
@@ -168,16 +175,43 @@ public abstract class BaseMapController implements MapModeController,
 
     protected abstract Loader getLoader();
 
+    /**
+     * @return the minimum time (in milliseconds) between two reloads of the data of this
+     * controller as the map moves
+     */
+    protected long getMinUpdateInterval() {
+        return MapDataScheduler.DEFAULT_MIN_INTERVAL;
+    }
+
+    /**
+     * @return the scheduler used to reload the data of this controller when the map viewport
+     * changes
+     */
+    protected MapDataScheduler getScheduler() {
+        if (mScheduler == null) {
+            mScheduler = new MapDataScheduler(new Handler(Looper.getMainLooper()),
+                    MapDataScheduler.DEFAULT_DEBOUNCE_TIME, getMinUpdateInterval(),
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            updateData();
+                        }
+                    });
+        }
+        return mScheduler;
+    }
+
     private void refresh() {
-        // First we need to check to see if the current request we have can handle this.
-        // Otherwise, we need to restart the loader with the new request.
+        // Coalesce map changes into a single update once the map has stopped moving.  The
+        // loaders then check to see if the current request we have can handle this.
+        // Otherwise, they restart with the new request.
         if (mCallback != null) {
             Activity a = mCallback.getActivity();
             if (a != null) {
                 a.runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
-                        updateData();
+                        getScheduler().requestUpdate();
                     }
                 });
             }
@@ -194,6 +228,7 @@ public abstract class BaseMapController implements MapModeController,
         if (watch && !mCallback.getMapView().canWatchMapChanges()) {
             if (mMapWatcher == null) {
                 mMapWatcher = new MapWatcher(mCallback.getMapView(), this);
+                mMapWatcher.setPanListener(this);
             }
             mMapWatcher.start();
         } else {
@@ -220,6 +255,7 @@ public abstract class BaseMapController implements MapModeController,
     @Override
     public void onMapCenterChanging() {
         //Log.d(TAG, "Map center changing");
+        getScheduler().onViewportChanging();
     }
 
     @Override
@@ -228,9 +264,25 @@ public abstract class BaseMapController implements MapModeController,
         refresh();
     }
 
+    @Override
+    public void onMapCenterPredicted(double lat, double lon) {
+        // Controllers that can load data ahead of time override this
+    }
+
+    @Override
+    public void notifyMapChanging() {
+        if (mMapWatcher != null) {
+            mMapWatcher.onCameraMove();
+        }
+        getScheduler().onViewportChanging();
+    }
+
     @Override
     public void notifyMapChanged() {
         Log.d(TAG, "Map changed (called by MapView)");
+        if (mMapWatcher != null) {
+            mMapWatcher.onCameraIdle();
+        }
         refresh();
     }
 }
@@ -169,6 +169,11 @@ public class DirectionsMapController implements MapModeController {
         // Don't care
     }
 
+    @Override
+    public void notifyMapChanging() {
+        // Don't care
+    }
+
     @Override
     public void notifyMapChanged() {
         // Don't care
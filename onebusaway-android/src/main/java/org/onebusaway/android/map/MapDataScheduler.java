@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import org.onebusaway.android.util.SchedulerClock;
+
+import android.os.Handler;
+
+/**
+ * Schedules reloads of a single source of map data (e.g., stops or bike stations) as the map
+ * viewport changes.
+ *
+ * Viewport changes are debounced - an update requested when the camera stops moving is only
+ * dispatched after the viewport has been stable for the debounce time, and any number of
+ * requests in the meantime are coalesced into a single update.  Updates are also rate limited,
+ * so that a data source is never reloaded more often than its minimum interval.
+ *
+ * All methods must be called on the thread of the provided Handler (or SchedulerClock), which is
+ * also the thread the update is run on.
+ */
+public class MapDataScheduler {
+
+    public static final long DEFAULT_DEBOUNCE_TIME = 300;  // ms
+
+    public static final long DEFAULT_MIN_INTERVAL = 1000;  // ms
+
+    private final SchedulerClock mClock;
+
+    private final Runnable mUpdate;
+
+    private final long mDebounceTime;
+
+    private final long mMinInterval;
+
+    private boolean mPending = false;
+
+    // Uptime of the last dispatched update, in milliseconds
+    private long mLastUpdateTime = 0;
+
+    private int mUpdateCount = 0;
+
+    private final Runnable mDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            mPending = false;
+            mLastUpdateTime = mClock.uptimeMillis();
+            mUpdateCount++;
+            mUpdate.run();
+        }
+    };
+
+    /**
+     * @param handler      handler used to schedule and run the updates
+     * @param debounceTime time (in milliseconds) the viewport must be stable before an update is
+     *                     dispatched
+     * @param minInterval  minimum time (in milliseconds) between two updates
+     * @param update       reloads the data for the current viewport
+     */
+    public MapDataScheduler(Handler handler, long debounceTime, long minInterval,
+            Runnable update) {
+        this(new SchedulerClock(handler), debounceTime, minInterval, update);
+    }
+
+    /**
+     * @param clock        clock used to schedule and run the updates
+     * @param debounceTime time (in milliseconds) the viewport must be stable before an update is
+     *                     dispatched
+     * @param minInterval  minimum time (in milliseconds) between two updates
+     * @param update       reloads the data for the current viewport
+     */
+    public MapDataScheduler(SchedulerClock clock, long debounceTime, long minInterval,
+            Runnable update) {
+        mClock = clock;
+        mDebounceTime = debounceTime;
+        mMinInterval = minInterval;
+        mUpdate = update;
+    }
+
+    /**
+     * Called while the viewport is changing (e.g., each frame of a pan or fling).  Postpones a
+     * pending update until the viewport is stable again, but never requests a new one.
+     */
+    public void onViewportChanging() {
+        if (mPending) {
+            schedule(mDebounceTime);
+        }
+    }
+
+    /**
+     * Requests an update of the data once the viewport has been stable for the debounce time
+     */
+    public void requestUpdate() {
+        mPending = true;
+        schedule(mDebounceTime);
+    }
+
+    /**
+     * Requests an update of the data as soon as the rate limit allows it
+     */
+    public void requestUpdateNow() {
+        mPending = true;
+        schedule(0);
+    }
+
+    /**
+     * Drops any pending update
+     */
+    public void cancel() {
+        mClock.removeCallbacks(mDispatcher);
+        mPending = false;
+    }
+
+    /**
+     * @return true if an update has been requested and hasn't been dispatched yet
+     */
+    public boolean isPending() {
+        return mPending;
+    }
+
+    /**
+     * @return the number of updates dispatched by this scheduler
+     */
+    public int getUpdateCount() {
+        return mUpdateCount;
+    }
+
+    private void schedule(long delay) {
+        mClock.removeCallbacks(mDispatcher);
+        long now = mClock.uptimeMillis();
+        if (mLastUpdateTime != 0) {
+            delay = Math.max(delay, mMinInterval - (now - mLastUpdateTime));
+        }
+        mClock.postAtTime(mDispatcher, now + delay);
+    }
+}
@@ -101,6 +101,10 @@ public interface MapModeController {
         // Returns the current center-point position of the map
         Location getMapCenterAsLocation();
 
+        // Copies the current center-point position of the map into center without allocating,
+        // for callers that read it for each frame.  Returns false if the map has no center yet.
+        boolean getMapCenter(Location center);
+
         // Sets the map center, taking into account whether the overlay is expanded
         void setMapCenter(Location location, boolean animateToLocation, boolean overlayExpanded);
 
@@ -236,6 +240,12 @@ public interface MapModeController {
      */
     void onNoLocation();
 
+    /**
+     * For maps that can watch themselves for changes in zoom/center, this is during a change
+     * (e.g., for each frame while the camera is moving)
+     */
+    void notifyMapChanging();
+
     /**
      * For maps that can watch themselves for changes in zoom/center, this is after a change
      */
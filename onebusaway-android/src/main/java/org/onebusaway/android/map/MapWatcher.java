@@ -19,12 +19,17 @@ package org.onebusaway.android.map;
 import org.onebusaway.android.util.LocationUtils;
 
 import android.location.Location;
-import android.os.Handler;
+import android.os.SystemClock;
 
 /**
  * Because the map object doesn't seem to have callbacks when the map
  * center or zoom is changed, we have our own watcher for it.
  *
+ * The watcher is driven by the camera events of the map view (see onCameraMove() and
+ * onCameraIdle()) instead of polling the map, so an idle map doesn't wake up the main thread.
+ * While the map is panned steadily, the watcher also predicts where the map center is headed
+ * from the pan velocity, so that data for that area can be loaded before the pan ends.
+ *
  * @author paulw
  */
 public class MapWatcher {
@@ -40,74 +45,160 @@ public class MapWatcher {
         public void onMapZoomChanged();
     }
 
-    private static final int WAIT_TIME = 1000;
+    public interface PanListener {
 
-    private static final int POLL_TIME = 250;
+        /**
+         * Called while the map is panned steadily, with the center the map is predicted to have
+         * PREDICTION_TIME from now
+         */
+        public void onMapCenterPredicted(double lat, double lon);
+    }
 
-    private final MapModeController.ObaMapView mObaMapView;
+    // Minimum time between two "changing" events for the same change
+    private static final int CHANGING_INTERVAL = 250;
+
+    // How far ahead (in ms) the map center is predicted
+    public static final long PREDICTION_TIME = 1000;
+
+    // Minimum time between two predictions
+    private static final long PREDICTION_INTERVAL = 500;
 
-    private final Handler mHandler;
+    // Number of consecutive camera moves in the same direction for a pan to be steady
+    private static final int STEADY_SAMPLES = 5;
+
+    // Minimum pan speed for a prediction, in viewports per second
+    private static final double MIN_PAN_SPEED = 0.25;
+
+    // Weight of the latest camera move in the smoothed pan velocity
+    private static final double VELOCITY_SMOOTHING = 0.3;
+
+    // Cosine of the largest change in direction (30 degrees) allowed during a steady pan
+    private static final double MIN_DIRECTION_COSINE = 0.866;
+
+    private final MapModeController.ObaMapView mObaMapView;
 
     private final Listener mListener;
 
-    private Location mCurrentCenter;
+    private PanListener mPanListener;
 
-    private long mCurrentCenterMillis;
+    private boolean mStarted;
+
+    // The map centers are copied into these, so camera moves don't allocate for each frame
+    private final Location mCurrentCenter = new Location("");
+
+    private final Location mNewCenter = new Location("");
+
+    // True if mCurrentCenter holds a center
+    private boolean mHasCenter;
 
     private float mCurrentZoom;
 
-    private long mCurrentZoomMillis;
+    private boolean mCenterChanging;
 
-    private final Runnable mChecker = new Runnable() {
-        @Override
-        public void run() {
-            Location newCenter = mObaMapView.getMapCenterAsLocation();
-            float newZoom = mObaMapView.getZoomLevelAsFloat();
+    private boolean mZoomChanging;
 
-            final boolean centerChanged = !LocationUtils.fuzzyEquals(newCenter, mCurrentCenter);
-            final boolean zoomChanged = newZoom != mCurrentZoom;
+    private long mLastCenterChangingMillis;
 
-            final long now = System.currentTimeMillis();
-            if (centerChanged) {
-                mCurrentCenterMillis = now;
-                mListener.onMapCenterChanging();
-                mCurrentCenter = newCenter;
-            } else if (mCurrentCenterMillis != 0 && (now - mCurrentCenterMillis) > WAIT_TIME) {
-                mListener.onMapCenterChanged();
-                mCurrentCenterMillis = 0;
-            }
-            if (zoomChanged) {
-                mCurrentZoomMillis = now;
-                mListener.onMapZoomChanging();
-                mCurrentZoom = newZoom;
-            } else if (mCurrentZoomMillis != 0 && (now - mCurrentZoomMillis) > WAIT_TIME) {
-                mListener.onMapZoomChanged();
-                mCurrentZoomMillis = 0;
-            }
-            mHandler.postDelayed(mChecker, POLL_TIME);
-        }
-    };
+    private long mLastZoomChangingMillis;
+
+    // Smoothed pan velocity, in degrees per millisecond
+    private double mVelocityLat;
+
+    private double mVelocityLon;
+
+    private long mLastSampleMillis;
+
+    private int mSteadySamples;
+
+    private long mLastPredictionMillis;
 
     public MapWatcher(MapModeController.ObaMapView view, Listener listener) {
         mObaMapView = view;
-        mHandler = new Handler();
         mListener = listener;
     }
 
+    /**
+     * Sets the listener to notify of the predicted map center during steady pans, or null
+     */
+    public void setPanListener(PanListener listener) {
+        mPanListener = listener;
+    }
+
     /**
      * Start watching.
      */
     public void start() {
-        mCurrentCenter = mObaMapView.getMapCenterAsLocation();
+        mHasCenter = mObaMapView.getMapCenter(mCurrentCenter);
         mCurrentZoom = mObaMapView.getZoomLevelAsFloat();
-        mHandler.postDelayed(mChecker, POLL_TIME);
+        mCenterChanging = false;
+        mZoomChanging = false;
+        resetVelocity();
+        mStarted = true;
     }
 
     /**
      * Stop watching.
      */
     public void stop() {
-        mHandler.removeCallbacks(mChecker);
+        mStarted = false;
+    }
+
+    /**
+     * Called by the map view for each frame while the camera is moving
+     */
+    public void onCameraMove() {
+        if (!mStarted) {
+            return;
+        }
+        boolean hasCenter = mObaMapView.getMapCenter(mNewCenter);
+        float newZoom = mObaMapView.getZoomLevelAsFloat();
+
+        final boolean centerChanged = centerChanged(hasCenter);
+        final boolean zoomChanged = newZoom != mCurrentZoom;
+
+        final long now = SystemClock.uptimeMillis();
+        if (centerChanged) {
+            updateVelocity(hasCenter, zoomChanged || mZoomChanging, now);
+            setCurrentCenter(hasCenter);
+            mCenterChanging = true;
+            if (now - mLastCenterChangingMillis >= CHANGING_INTERVAL) {
+                mLastCenterChangingMillis = now;
+                mListener.onMapCenterChanging();
+            }
+        }
+        if (zoomChanged) {
+            mCurrentZoom = newZoom;
+            mZoomChanging = true;
+            if (now - mLastZoomChangingMillis >= CHANGING_INTERVAL) {
+                mLastZoomChangingMillis = now;
+                mListener.onMapZoomChanging();
+            }
+        }
+    }
+
+    /**
+     * Called by the map view when the camera has stopped moving
+     */
+    public void onCameraIdle() {
+        if (!mStarted) {
+            return;
+        }
+        boolean hasCenter = mObaMapView.getMapCenter(mNewCenter);
+        float newZoom = mObaMapView.getZoomLevelAsFloat();
+
+        if (mCenterChanging || centerChanged(hasCenter)) {
+            setCurrentCenter(hasCenter);
+            mCenterChanging = false;
+            mLastCenterChangingMillis = 0;
+            mListener.onMapCenterChanged();
+        }
+        if (mZoomChanging || newZoom != mCurrentZoom) {
+            mCurrentZoom = newZoom;
+            mZoomChanging = false;
+            mLastZoomChangingMillis = 0;
+            mListener.onMapZoomChanged();
+        }
+        resetVelocity();
     }
 
     /**
@@ -115,7 +206,99 @@ public class MapWatcher {
      * Fires the listener events if so.
      */
     public void checkNow() {
-        mHandler.removeCallbacks(mChecker);
-        mChecker.run();
+        onCameraIdle();
+    }
+
+    /**
+     * Updates the pan velocity with the move from mCurrentCenter to mNewCenter
+     */
+    private void updateVelocity(boolean hasCenter, boolean zooming, long now) {
+        long elapsed = now - mLastSampleMillis;
+        if (zooming || !mHasCenter || !hasCenter || mLastSampleMillis == 0) {
+            // Predictions are only made for pans
+            resetVelocity();
+            mLastSampleMillis = now;
+            return;
+        }
+        mLastSampleMillis = now;
+        if (elapsed <= 0) {
+            return;
+        }
+
+        Location newCenter = mNewCenter;
+        double dLon = newCenter.getLongitude() - mCurrentCenter.getLongitude();
+        if (dLon > 180) {
+            dLon -= 360;
+        } else if (dLon < -180) {
+            dLon += 360;
+        }
+        double vLat = (newCenter.getLatitude() - mCurrentCenter.getLatitude()) / elapsed;
+        double vLon = dLon / elapsed;
+
+        double speed = Math.hypot(vLat, vLon);
+        double smoothedSpeed = Math.hypot(mVelocityLat, mVelocityLon);
+        if (mSteadySamples == 0 || speed == 0 || smoothedSpeed == 0
+                || (vLat * mVelocityLat + vLon * mVelocityLon) / (speed * smoothedSpeed)
+                < MIN_DIRECTION_COSINE) {
+            // Start of a pan, or the pan changed direction
+            mVelocityLat = vLat;
+            mVelocityLon = vLon;
+            mSteadySamples = 1;
+            return;
+        }
+        mVelocityLat = VELOCITY_SMOOTHING * vLat + (1 - VELOCITY_SMOOTHING) * mVelocityLat;
+        mVelocityLon = VELOCITY_SMOOTHING * vLon + (1 - VELOCITY_SMOOTHING) * mVelocityLon;
+        mSteadySamples++;
+
+        if (mPanListener == null || mSteadySamples < STEADY_SAMPLES
+                || now - mLastPredictionMillis < PREDICTION_INTERVAL) {
+            return;
+        }
+        double latSpan = mObaMapView.getLatitudeSpanInDecDegrees();
+        double lonSpan = mObaMapView.getLongitudeSpanInDecDegrees();
+        if (latSpan <= 0 || lonSpan <= 0) {
+            return;
+        }
+        double viewportsPerSecond = Math.hypot(mVelocityLat / latSpan, mVelocityLon / lonSpan)
+                * 1000;
+        if (viewportsPerSecond < MIN_PAN_SPEED) {
+            return;
+        }
+        mLastPredictionMillis = now;
+
+        double lat = newCenter.getLatitude() + mVelocityLat * PREDICTION_TIME;
+        double lon = newCenter.getLongitude() + mVelocityLon * PREDICTION_TIME;
+        lat = Math.max(-90, Math.min(90, lat));
+        if (lon > 180) {
+            lon -= 360;
+        } else if (lon < -180) {
+            lon += 360;
+        }
+        mPanListener.onMapCenterPredicted(lat, lon);
+    }
+
+    private void resetVelocity() {
+        mVelocityLat = 0;
+        mVelocityLon = 0;
+        mSteadySamples = 0;
+        mLastSampleMillis = 0;
+        mLastPredictionMillis = 0;
+    }
+
+    /**
+     * @return true if mNewCenter isn't approximately mCurrentCenter
+     */
+    private boolean centerChanged(boolean hasCenter) {
+        if (!hasCenter || !mHasCenter) {
+            return hasCenter != mHasCenter;
+        }
+        return !LocationUtils.fuzzyEquals(mNewCenter, mCurrentCenter);
+    }
+
+    private void setCurrentCenter(boolean hasCenter) {
+        mHasCenter = hasCenter;
+        if (hasCenter) {
+            mCurrentCenter.set(mNewCenter);
+        }
     }
 }
@@ -19,21 +19,26 @@ package org.onebusaway.android.map;
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.RouteRepository;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
-import org.onebusaway.android.io.request.ObaStopsForRouteRequest;
+import org.onebusaway.android.io.elements.ObaStopElement;
 import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
 import org.onebusaway.android.io.request.ObaTripsForRouteRequest;
 import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
+import org.onebusaway.android.realtime.RealtimeFeeds;
+import org.onebusaway.android.realtime.RealtimeIndex;
+import org.onebusaway.android.realtime.RealtimeUpdates;
 import org.onebusaway.android.util.LocationUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.UIUtils;
 
 import android.app.Activity;
 import android.content.Context;
 import android.location.Location;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
@@ -142,7 +147,7 @@ public class RouteMapController implements MapModeController {
         mRouteLoader.reset();
         mVehiclesLoader.stopLoading();
         mVehiclesLoader.reset();
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefresh.cancel();
 
         // Clear the existing route and vehicle overlays
         mFragment.getMapView().removeRouteOverlay();
@@ -161,13 +166,13 @@ public class RouteMapController implements MapModeController {
     public void destroy() {
         mRoutePopup.hide();
         mFragment.getMapView().removeRouteOverlay();
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefresh.cancel();
         mFragment.getMapView().removeVehicleOverlay();
     }
 
     @Override
     public void onPause() {
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefresh.cancel();
     }
 
     /**
@@ -180,20 +185,27 @@ public class RouteMapController implements MapModeController {
         // If the fragment is no longer visible, hide the route header - otherwise, show it
         if (hidden) {
             mRoutePopup.hide();
+            // Don't poll for vehicles that can't be seen
+            mVehicleRefresh.cancel();
         } else {
             mRoutePopup.show();
+            scheduleVehicleRefresh();
         }
     }
 
     @Override
     public void onResume() {
+        scheduleVehicleRefresh();
+    }
+
+    private void scheduleVehicleRefresh() {
         // Make sure we schedule a future update for vehicles
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefresh.cancel();
 
         if (mLastUpdatedTimeVehicles == 0) {
             // We haven't loaded any vehicles yet - schedule the refresh for the full period and defer
             // to the loader to reschedule when load is complete
-            mVehicleRefreshHandler.postDelayed(mVehicleRefresh, VEHICLE_REFRESH_PERIOD);
+            mVehicleRefresh.schedule(VEHICLE_REFRESH_PERIOD);
             return;
         }
 
@@ -207,7 +219,7 @@ public class RouteMapController implements MapModeController {
             // Schedule an update so a total of VEHICLE_REFRESH_PERIOD has elapsed since the last update
             refreshPeriod = VEHICLE_REFRESH_PERIOD - elapsedTimeMillis;
         }
-        mVehicleRefreshHandler.postDelayed(mVehicleRefresh, refreshPeriod);
+        mVehicleRefresh.schedule(refreshPeriod);
     }
 
     @Override
@@ -257,6 +269,11 @@ public class RouteMapController implements MapModeController {
         // Don't care
     }
 
+    @Override
+    public void notifyMapChanging() {
+        // Don't care
+    }
+
     @Override
     public void notifyMapChanged() {
         // Don't care
@@ -356,13 +373,13 @@ public class RouteMapController implements MapModeController {
 
     private static final long VEHICLE_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(10);
 
-    private final Handler mVehicleRefreshHandler = new Handler();
-
-    private final Runnable mVehicleRefresh = new Runnable() {
-        public void run() {
-            refresh();
-        }
-    };
+    // Vehicles are refreshed on the same clock as the other screens, so polls are aligned
+    private final RefreshScheduler.Subscription mVehicleRefresh =
+            RefreshScheduler.getInstance().subscribe(new Runnable() {
+                public void run() {
+                    refresh();
+                }
+            });
 
     /**
      * Refresh vehicle data from the OBA server
@@ -381,6 +398,8 @@ public class RouteMapController implements MapModeController {
 
         private final String mRouteId;
 
+        private ObaStopsForRouteResponse mResponse;
+
         public RoutesLoader(Context context, String routeId) {
             super(context);
             mRouteId = routeId;
@@ -396,21 +415,29 @@ public class RouteMapController implements MapModeController {
                 return null;
             }
             //Make OBA REST API call to the server and return result
-            return new ObaStopsForRouteRequest.Builder(getContext(), mRouteId)
-                    .setIncludeShapes(true)
-                    .build()
-                    .call();
+            ObaStopsForRouteResponse response = RouteRepository.getInstance(getContext())
+                    .getStopsForRoute(getContext(), mRouteId, true);
+            if (response != null && response.getCode() == ObaApi.OBA_OK) {
+                ObaStopElement.setRouteTypes(response.getStops(), response.getRoutes());
+            }
+            return response;
         }
 
         @Override
         public void deliverResult(ObaStopsForRouteResponse data) {
-            //mResponse = data;
+            mResponse = data;
             super.deliverResult(data);
         }
 
         @Override
         public void onStartLoading() {
-            forceLoad();
+            // The route and its shapes rarely change, so they aren't downloaded again when the
+            // loader is restarted (see RouteRepository)
+            if (mResponse != null && mResponse.getCode() == ObaApi.OBA_OK) {
+                deliverResult(mResponse);
+            } else {
+                forceLoad();
+            }
         }
     }
 
@@ -473,8 +500,16 @@ public class RouteMapController implements MapModeController {
 
     private static class VehiclesLoader extends AsyncTaskLoader<ObaTripsForRouteResponse> {
 
+        // While the GTFS-realtime feeds are used, the trips of the route are requested from the
+        // OBA server this often, and their vehicles are refreshed from the feeds in between
+        private static final long TRIPS_REFRESH_PERIOD = TimeUnit.MINUTES.toMillis(2);
+
         private final String mRouteId;
 
+        private volatile ObaTripsForRouteResponse mTripsResponse;
+
+        private volatile long mTripsResponseTime;
+
         public VehiclesLoader(Context context, String routeId) {
             super(context);
             mRouteId = routeId;
@@ -489,11 +524,45 @@ public class RouteMapController implements MapModeController {
                         "without OBA REST API endpoint, aborting...");
                 return null;
             }
+            boolean realtime = RealtimeFeeds.isEnabled();
+            ObaTripsForRouteResponse trips = mTripsResponse;
+            if (realtime && trips != null
+                    && SystemClock.elapsedRealtime() - mTripsResponseTime < TRIPS_REFRESH_PERIOD) {
+                ObaTripsForRouteResponse updated = updateVehicles(trips);
+                if (updated != null) {
+                    return updated;
+                }
+            }
             //Make OBA REST API call to the server and return result
-            return new ObaTripsForRouteRequest.Builder(getContext(), mRouteId)
+            ObaTripsForRouteResponse response = new ObaTripsForRouteRequest.Builder(getContext(),
+                    mRouteId)
                     .setIncludeStatus(true)
                     .build()
                     .call();
+            if (response.getCode() == ObaApi.OBA_OK) {
+                mTripsResponse = response;
+                mTripsResponseTime = SystemClock.elapsedRealtime();
+                if (realtime) {
+                    // The feed may have newer positions than the OBA server
+                    ObaTripsForRouteResponse updated = updateVehicles(response);
+                    if (updated != null) {
+                        return updated;
+                    }
+                }
+            }
+            return response;
+        }
+
+        /**
+         * @return the trips with the positions of their vehicles in the GTFS-realtime feed, or
+         * null if the feed couldn't be downloaded
+         */
+        private static ObaTripsForRouteResponse updateVehicles(ObaTripsForRouteResponse trips) {
+            RealtimeFeeds feeds = RealtimeFeeds.getInstance();
+            if (!feeds.refresh(RealtimeIndex.Feed.VEHICLE_POSITIONS)) {
+                return null;
+            }
+            return RealtimeUpdates.updateVehicles(trips, feeds.getIndex());
         }
 
         @Override
@@ -542,10 +611,10 @@ public class RouteMapController implements MapModeController {
             mLastUpdatedTimeVehicles = UIUtils.getCurrentTimeForComparison();
 
             // Clear any pending refreshes
-            mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+            mVehicleRefresh.cancel();
 
             // Post an update
-            mVehicleRefreshHandler.postDelayed(mVehicleRefresh, VEHICLE_REFRESH_PERIOD);
+            mVehicleRefresh.schedule(VEHICLE_REFRESH_PERIOD);
         }
 
         @Override
@@ -23,6 +23,7 @@ import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaStopElement;
 import org.onebusaway.android.io.elements.ObaStopsForLocationCacheResponse;
 import org.onebusaway.android.io.request.ObaStopsForLocationInterface;
 import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
@@ -30,10 +31,13 @@ import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
 import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.util.DBUtil;
+import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.RegionUtils;
 
+import android.content.Context;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
@@ -43,103 +47,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.app.LoaderManager;
 import androidx.loader.content.AsyncTaskLoader;
 import androidx.loader.content.Loader;
 
-final class StopsRequest {
-
-    private final Location mCenter;
-
-    private final double mLatSpan;
-
-    private final double mLonSpan;
-
-    private final double mZoomLevel;
-
-    StopsRequest(MapModeController.ObaMapView view) {
-        mCenter = view.getMapCenterAsLocation();
-        mLatSpan = view.getLatitudeSpanInDecDegrees();
-        mLonSpan = view.getLongitudeSpanInDecDegrees();
-        mZoomLevel = view.getZoomLevelAsFloat();
-    }
-
-    Location getCenter() {
-        return mCenter;
-    }
-
-    double getLatSpan() {
-        return mLatSpan;
-    }
-
-    double getLonSpan() {
-        return mLonSpan;
-    }
-
-    double getZoomLevel() {
-        return mZoomLevel;
-    }
-}
-
-final class StopsResponse {
-
-    private final StopsRequest mRequest;
-
-    private final ObaStopsForLocationInterface mResponse;
-
-    StopsResponse(StopsRequest req, ObaStopsForLocationInterface response) {
-        mRequest = req;
-        mResponse = response;
-    }
-
-    StopsRequest getRequest() {
-        return mRequest;
-    }
-
-    ObaStopsForLocationInterface getResponse() {
-        return mResponse;
-    }
-
-    /**
-     * Returns true if newReq also fulfills response.
-     */
-    boolean fulfills(StopsRequest newReq) {
-        if (mRequest.getCenter() == null) {
-            //Log.d(TAG, "No center");
-            return false;
-        }
-        if (!mRequest.getCenter().equals(newReq.getCenter())) {
-            //Log.d(TAG, "Center not the same");
-            return false;
-        }
-        if (mResponse != null) {
-            if ((newReq.getZoomLevel() > mRequest.getZoomLevel()) &&
-                    mResponse.getLimitExceeded()) {
-                //Log.d(TAG, "Zooming in -- limit exceeded");
-                return false;
-            } else if (newReq.getZoomLevel() < mRequest.getZoomLevel()) {
-                //Log.d(TAG, "Zooming out");
-                return false;
-            }
-        }
-        return true;
-
-        // Otherwise:
-
-        // If the new request's is zoomed in and the current
-        // response has limitExceeded, then no.
-
-        // If the new request's lat/lon span is contained
-        // entirely within the old one:
-        //  Then the new request is fulfilled IFF the old request's
-        //  limitExceeded == false.
-
-        // If the new request's lat/lon span is not contained
-        // entirely within the old one (fuzzy match)
-        //  FALSE
-    }
-}
-
 public class StopMapController extends BaseMapController implements
         LoaderManager.LoaderCallbacks<StopsResponse>,
         Loader.OnLoadCompleteListener<StopsResponse> {
@@ -148,6 +61,15 @@ public class StopMapController extends BaseMapController implements
 
     private static final int STOPS_LOADER = 5678;
     private static final int STOPS_CACHE_LOADER = 5679;
+    private static final int STOPS_PREFETCH_LOADER = 5680;
+
+    // Size of the area prefetched during a pan, relative to the size of the map viewport, so
+    // the stops for the viewport are still available if the prediction is a bit off
+    private static final double PREFETCH_SPAN_FACTOR = 2.0;
+
+    // Minimum time (in ms) between two prefetches, so a long pan doesn't send a request for
+    // each prediction
+    private static final long PREFETCH_INTERVAL = 2000;
 
     // In lieu of using an actual LoaderManager, which isn't
     // available in SherlockMapActivity
@@ -156,6 +78,14 @@ public class StopMapController extends BaseMapController implements
     // In lieu of using an actual LoaderManager
     private Loader<StopsResponse> mCacheLoader;
 
+    // Loads stops for the predicted viewport while the map is panned
+    private StopsLoader mPrefetchLoader;
+
+    // Area of the last prefetch, or null if the stops of the next prediction must be prefetched
+    private StopsRequest mPrefetchArea;
+
+    private long mLastPrefetchMillis;
+
     private MapWatcher mMapWatcher;
 
     /**
@@ -179,6 +109,67 @@ public class StopMapController extends BaseMapController implements
         mCacheLoader = onCreateCacheLoader(STOPS_CACHE_LOADER, null);
         mCacheLoader.registerListener(0, this);
         mCacheLoader.startLoading();
+        mPrefetchLoader = new StopsLoader(mCallback.getActivity(), mCallback, true);
+        mPrefetchLoader.registerListener(STOPS_PREFETCH_LOADER,
+                new Loader.OnLoadCompleteListener<StopsResponse>() {
+                    @Override
+                    public void onLoadComplete(Loader<StopsResponse> loader,
+                            StopsResponse response) {
+                        // Hand the stops over to the main loader, to be shown if the map stops
+                        // within the prefetched area
+                        StopsLoader stopsLoader = getLoader();
+                        if (stopsLoader != null) {
+                            stopsLoader.setPrefetchedResponse(response);
+                        }
+                        if (response.getRequest() == mPrefetchArea
+                                && (response.getResponse() == null
+                                || response.getResponse().getCode() != ObaApi.OBA_OK)) {
+                            // Try this area again on the next prediction
+                            mPrefetchArea = null;
+                        }
+                    }
+                });
+        mPrefetchLoader.startLoading();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (mPrefetchLoader != null) {
+            mPrefetchLoader.reset();
+        }
+        mPrefetchArea = null;
+    }
+
+    @Override
+    public void onMapCenterPredicted(double lat, double lon) {
+        if (mPrefetchLoader == null) {
+            return;
+        }
+        MapModeController.ObaMapView view = mCallback.getMapView();
+        Location center = LocationUtils.makeLocation(lat, lon);
+        double latSpan = view.getLatitudeSpanInDecDegrees();
+        double lonSpan = view.getLongitudeSpanInDecDegrees();
+        float zoom = view.getZoomLevelAsFloat();
+        // The viewport the map is predicted to show, which only needs a request if neither the
+        // shown stops nor the last prefetch cover it
+        StopsRequest viewport = new StopsRequest(center, latSpan, lonSpan, zoom);
+        StopsLoader stopsLoader = getLoader();
+        if (stopsLoader != null && stopsLoader.fulfills(viewport)) {
+            return;
+        }
+        if (mPrefetchArea != null && mPrefetchArea.getZoomLevel() == zoom
+                && mPrefetchArea.contains(viewport)) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (now - mLastPrefetchMillis < PREFETCH_INTERVAL) {
+            return;
+        }
+        mLastPrefetchMillis = now;
+        mPrefetchArea = new StopsRequest(center, latSpan * PREFETCH_SPAN_FACTOR,
+                lonSpan * PREFETCH_SPAN_FACTOR, zoom);
+        mPrefetchLoader.update(mPrefetchArea);
     }
 
     @Override
@@ -198,14 +189,14 @@ public class StopMapController extends BaseMapController implements
 
     @Override
     public Loader<StopsResponse> onCreateLoader(int id, Bundle args) {
-        StopsLoader loader = new StopsLoader(mCallback);
+        StopsLoader loader = new StopsLoader(mCallback.getActivity(), mCallback, false);
         StopsRequest req = new StopsRequest(mCallback.getMapView());
         loader.update(req);
         return loader;
     }
 
     public Loader<StopsResponse> onCreateCacheLoader(int id, Bundle args) {
-        StopsCacheLoader loader = new StopsCacheLoader(mCallback);
+        StopsCacheLoader loader = new StopsCacheLoader(mCallback.getActivity(), mCallback);
         StopsRequest req = new StopsRequest(mCallback.getMapView());
         loader.update(req);
         return loader;
@@ -227,17 +218,15 @@ public class StopMapController extends BaseMapController implements
 
     @Override
     protected void updateData() {
+        StopsRequest req = new StopsRequest(mCallback.getMapView());
         StopsCacheLoader cacheLoader = getCacheLoader();
         if (cacheLoader != null) {
-            StopsRequest req = new StopsRequest(mCallback.getMapView());
             cacheLoader.update(req);
         }
         StopsLoader loader = getLoader();
         if (loader != null) {
-            StopsRequest req = new StopsRequest(mCallback.getMapView());
             loader.update(req);
         }
-
     }
     @Override
     public void onLoadFinished(Loader<StopsResponse> loader,
@@ -337,7 +326,7 @@ public class StopMapController extends BaseMapController implements
     //
     // Loader
     //
-    private static class StopsLoader extends AsyncTaskLoader<StopsResponse> {
+    public static class StopsLoader extends AsyncTaskLoader<StopsResponse> {
 
         private final Callback mFragment;
 
@@ -345,9 +334,18 @@ public class StopMapController extends BaseMapController implements
 
         private StopsResponse mResponse;
 
-        public StopsLoader(Callback fragment) {
-            super(fragment.getActivity());
+        private final boolean mPrefetch;
+
+        private StopsResponse mPrefetched;
+
+        /**
+         * @param prefetch true if this loader prefetches stops in the background while the map
+         *                 moves, false if it loads the stops shown on the map
+         */
+        public StopsLoader(Context context, Callback fragment, boolean prefetch) {
+            super(context);
             mFragment = fragment;
+            mPrefetch = prefetch;
         }
 
         @Override
@@ -360,6 +358,10 @@ public class StopMapController extends BaseMapController implements
                             "OBA REST API endpoint, aborting...");
                 return new StopsResponse(req, null);
             }
+            if (isLoadInBackgroundCanceled()) {
+                // Superseded by a newer request before we got to contact the server
+                throw new OperationCanceledException();
+            }
 
             //Make OBA REST API call to the server and return result
             ObaStopsForLocationResponse response =
@@ -369,11 +371,14 @@ public class StopMapController extends BaseMapController implements
                             .build()
                             .call();
 
+            List<ObaStop> stops = Arrays.asList(response.getStops());
+            List<ObaRoute> routes = response.getRoutes();
             DBUtil.addStopsAndRoutesToDB(
                 Application.get().getApplicationContext(),
-                Arrays.asList(response.getStops()),
-                response.getRoutes()
+                stops,
+                routes
             );
+            ObaStopElement.setRouteTypes(stops, routes);
 
             return new StopsResponse(req, response);
         }
@@ -393,11 +398,47 @@ public class StopMapController extends BaseMapController implements
 
         @Override
         public void onForceLoad() {
-            mFragment.showProgress(true);
+            if (!mPrefetch) {
+                mFragment.showProgress(true);
+            }
             super.onForceLoad();
         }
 
+        /**
+         * @return true if the stops this loader delivered last also fulfill req
+         */
+        public boolean fulfills(StopsRequest req) {
+            return mResponse != null && mResponse.fulfills(req);
+        }
+
+        /**
+         * Sets stops loaded ahead of time for a viewport the map is expected to move to
+         */
+        public void setPrefetchedResponse(StopsResponse response) {
+            if (response.getResponse() != null
+                    && response.getResponse().getCode() == ObaApi.OBA_OK) {
+                mPrefetched = response;
+            }
+        }
+
         public void update(StopsRequest req) {
+            if (mPrefetched != null && isStarted() && mPrefetched.fulfills(req)
+                    && (mResponse == null || !mResponse.fulfills(req))) {
+                // The stops for this viewport were prefetched while the map was moving
+                Log.d(TAG, "Using prefetched stops");
+                StopsResponse prefetched = mPrefetched;
+                mPrefetched = null;
+                cancelLoad();
+                mRequest = prefetched.getRequest();
+                deliverResult(prefetched);
+                return;
+            }
+            boolean loading = mRequest != null
+                    && (mResponse == null || mResponse.getRequest() != mRequest);
+            if (loading && mRequest.isSameViewport(req)) {
+                // Already loading this viewport
+                return;
+            }
             if (mResponse == null || !mResponse.fulfills(req)) {
                 mRequest = req;
                 onContentChanged();
@@ -408,14 +449,16 @@ public class StopMapController extends BaseMapController implements
     //
     // Loader
     //
-    private static class StopsCacheLoader extends AsyncTaskLoader<StopsResponse> {
+    public static class StopsCacheLoader extends AsyncTaskLoader<StopsResponse> {
 
         private final Callback mFragment;
 
         private StopsRequest mRequest;
 
-        public StopsCacheLoader(Callback fragment) {
-            super(fragment.getActivity());
+        private CancellationSignal mCancellationSignal;
+
+        public StopsCacheLoader(Context context, Callback fragment) {
+            super(context);
             mFragment = fragment;
         }
 
@@ -430,10 +473,27 @@ public class StopMapController extends BaseMapController implements
                 return new StopsResponse(req, null);
             }
 
-            List<ObaStop> stops = DBUtil.queryStopsFromDB(getContext(), req.getCenter(), req.getLatSpan(), req.getLonSpan());
-            List<ObaRoute> routes = DBUtil.queryRoutesFromDB(getContext(), stops);
+            synchronized (this) {
+                if (isLoadInBackgroundCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                mCancellationSignal = new CancellationSignal();
+            }
+            List<ObaStop> stops;
+            List<ObaRoute> routes;
+            try {
+                stops = DBUtil.queryStopsFromDB(getContext(), req.getCenter(),
+                        req.getLatSpan(), req.getLonSpan(), mCancellationSignal);
+                mCancellationSignal.throwIfCanceled();
+                routes = DBUtil.queryRoutesFromDB(getContext(), stops);
+            } finally {
+                synchronized (this) {
+                    mCancellationSignal = null;
+                }
+            }
             Log.i(TAG, "Cached stop data: " + stops.toString());
             Log.i(TAG, "Cached route data: " + routes.toString());
+            ObaStopElement.setRouteTypes(stops, routes);
 
             ObaStopsForLocationCacheResponse response = new ObaStopsForLocationCacheResponse(
                 stops.toArray(new ObaStop[]{}),  routes.toArray(new ObaRoute[]{})
@@ -442,6 +502,16 @@ public class StopMapController extends BaseMapController implements
             return new StopsResponse(req, response);
         }
 
+        @Override
+        public void cancelLoadInBackground() {
+            super.cancelLoadInBackground();
+            synchronized (this) {
+                if (mCancellationSignal != null) {
+                    mCancellationSignal.cancel();
+                }
+            }
+        }
+
         @Override
         public void deliverResult(StopsResponse data) {
             super.deliverResult(data);
@@ -461,6 +531,10 @@ public class StopMapController extends BaseMapController implements
         }
 
         public void update(StopsRequest req) {
+            if (mRequest != null && mRequest.isSameViewport(req)) {
+                // The cached stops for this viewport are already loading (or loaded)
+                return;
+            }
             mRequest = req;
             onContentChanged();
         }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011-2014 Paul Watts (paulcwatts@gmail.com),
+ * University of South Florida (sjbarbeau@gmail.com), and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import android.location.Location;
+
+/**
+ * Viewport of the stops loaded by StopMapController
+ */
+public final class StopsRequest {
+
+    private final Location mCenter;
+
+    private final double mLatSpan;
+
+    private final double mLonSpan;
+
+    private final double mZoomLevel;
+
+    public StopsRequest(MapModeController.ObaMapView view) {
+        mCenter = view.getMapCenterAsLocation();
+        mLatSpan = view.getLatitudeSpanInDecDegrees();
+        mLonSpan = view.getLongitudeSpanInDecDegrees();
+        mZoomLevel = view.getZoomLevelAsFloat();
+    }
+
+    public StopsRequest(Location center, double latSpan, double lonSpan, double zoomLevel) {
+        mCenter = center;
+        mLatSpan = latSpan;
+        mLonSpan = lonSpan;
+        mZoomLevel = zoomLevel;
+    }
+
+    public Location getCenter() {
+        return mCenter;
+    }
+
+    public double getLatSpan() {
+        return mLatSpan;
+    }
+
+    public double getLonSpan() {
+        return mLonSpan;
+    }
+
+    public double getZoomLevel() {
+        return mZoomLevel;
+    }
+
+    /**
+     * Returns true if the viewport of newReq is the same as the viewport of this request
+     */
+    public boolean isSameViewport(StopsRequest newReq) {
+        return mCenter != null && newReq.getCenter() != null
+                && mCenter.getLatitude() == newReq.getCenter().getLatitude()
+                && mCenter.getLongitude() == newReq.getCenter().getLongitude()
+                && mLatSpan == newReq.getLatSpan() && mLonSpan == newReq.getLonSpan();
+    }
+
+    /**
+     * Returns true if the viewport of newReq is entirely within the viewport of this request
+     */
+    public boolean contains(StopsRequest newReq) {
+        if (mCenter == null || newReq.getCenter() == null) {
+            return false;
+        }
+        Location c = newReq.getCenter();
+        return mCenter.getLatitude() - mLatSpan / 2 <= c.getLatitude() - newReq.getLatSpan() / 2
+                && c.getLatitude() + newReq.getLatSpan() / 2 <= mCenter.getLatitude() + mLatSpan / 2
+                && mCenter.getLongitude() - mLonSpan / 2
+                <= c.getLongitude() - newReq.getLonSpan() / 2
+                && c.getLongitude() + newReq.getLonSpan() / 2
+                <= mCenter.getLongitude() + mLonSpan / 2;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2011-2014 Paul Watts (paulcwatts@gmail.com),
+ * University of South Florida (sjbarbeau@gmail.com), and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.request.ObaStopsForLocationInterface;
+
+/**
+ * Stops loaded by StopMapController for a viewport
+ */
+public final class StopsResponse {
+
+    private final StopsRequest mRequest;
+
+    private final ObaStopsForLocationInterface mResponse;
+
+    public StopsResponse(StopsRequest req, ObaStopsForLocationInterface response) {
+        mRequest = req;
+        mResponse = response;
+    }
+
+    public StopsRequest getRequest() {
+        return mRequest;
+    }
+
+    public ObaStopsForLocationInterface getResponse() {
+        return mResponse;
+    }
+
+    /**
+     * Returns true if newReq also fulfills response.
+     */
+    public boolean fulfills(StopsRequest newReq) {
+        if (mRequest.getCenter() == null) {
+            //Log.d(TAG, "No center");
+            return false;
+        }
+        if (mResponse != null) {
+            if ((newReq.getZoomLevel() > mRequest.getZoomLevel()) &&
+                    mResponse.getLimitExceeded()) {
+                //Log.d(TAG, "Zooming in -- limit exceeded");
+                return false;
+            } else if (newReq.getZoomLevel() < mRequest.getZoomLevel()) {
+                //Log.d(TAG, "Zooming out");
+                return false;
+            }
+        }
+        if (mResponse == null || mResponse.getCode() != ObaApi.OBA_OK) {
+            // Try again
+            return false;
+        }
+        if (mRequest.isSameViewport(newReq)) {
+            return true;
+        }
+
+        // If the new request's lat/lon span is contained entirely within the old one, then the
+        // new request is fulfilled IFF the old response has all the stops in that span
+        return !mResponse.getLimitExceeded() && mRequest.contains(newReq);
+    }
+}
@@ -36,6 +36,9 @@ public class BikeshareMapController extends BaseMapController {
 
     private static final String TAG = "BikeshareMapController";
 
+    // Minimum time between two reloads of bike stations as the map moves
+    private static final long MIN_UPDATE_INTERVAL = 3000;  // ms
+
     private List<String> selectedBikeStationIds;
     private String mapMode;
 
@@ -59,6 +62,13 @@ public class BikeshareMapController extends BaseMapController {
     public void showBikes(boolean showBikes) {
 
         if (showBikes) {
+            if (bikeLoader != null) {
+                // Already showing bike stations, so just reload them for the current map view,
+                // with the stations selected by the last setState()
+                bikeLoaderCallbacks.setBikeStationFilter(selectedBikeStationIds);
+                bikeLoader.update(mCallback.getSouthWest(), mCallback.getNorthEast());
+                return;
+            }
             // Bike stations should be loaded if map mode is not DIRECTIONS OR if map mode is
             // DIRECTIONS and there are bike stations to display
             if (mapMode != null) {
@@ -102,6 +112,11 @@ public class BikeshareMapController extends BaseMapController {
         return bikeLoader;
     }
 
+    @Override
+    protected long getMinUpdateInterval() {
+        return MIN_UPDATE_INTERVAL;
+    }
+
     @Override
     protected void updateData() {
         boolean isBikeActivated = Application.isBikeshareEnabled();
@@ -102,23 +102,43 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
 
     private FirebaseAnalytics mFirebaseAnalytics;
 
-    public NavigationServiceProvider(String tripId, String stopId) {
-        Log.d(TAG, "Creating NavigationServiceProvider...");
-        mFirebaseAnalytics = FirebaseAnalytics.getInstance(Application.get().getApplicationContext());
-        if (mTTS == null) {
-            mTTS = new TextToSpeech(Application.get().getApplicationContext(), this);
-        }
-        mTripId = tripId;
-        mStopId = stopId;
+    // If true, alerts only update state - no speech, notifications or analytics (used for replaying recorded trips)
+    private boolean mHeadless = false;
 
+    // Distance (in meters) from the second to last stop at which the "Get Ready" alert is triggered
+    private float mGetReadyDistance = DISTANCE_THRESHOLD;
+
+    public NavigationServiceProvider(String tripId, String stopId) {
+        this(tripId, stopId, false, false);
     }
 
     public NavigationServiceProvider(String tripId, String stopId, int flag) {
+        this(tripId, stopId, flag == 1, false);
+    }
+
+    /**
+     * Creates a provider that can run without speech, notifications or analytics, so that recorded
+     * trips can be replayed through the proximity and alert logic faster than real time
+     *
+     * @param tripId   trip ID
+     * @param stopId   destination stop ID
+     * @param headless true if alerts should only update the state of this provider, false to
+     *                 also speak and show notifications to the rider
+     */
+    public NavigationServiceProvider(String tripId, String stopId, boolean headless) {
+        this(tripId, stopId, false, headless);
+    }
+
+    private NavigationServiceProvider(String tripId, String stopId, boolean resuming,
+            boolean headless) {
         Log.d(TAG, "Creating NavigationServiceProvider...");
-        mFirebaseAnalytics = FirebaseAnalytics.getInstance(Application.get().getApplicationContext());
-        mResuming = flag == 1;
-        if (mTTS == null) {
-            mTTS = new TextToSpeech(Application.get().getApplicationContext(), this);
+        mResuming = resuming;
+        mHeadless = headless;
+        if (!mHeadless) {
+            mFirebaseAnalytics = FirebaseAnalytics.getInstance(Application.get().getApplicationContext());
+            if (mTTS == null) {
+                mTTS = new TextToSpeech(Application.get().getApplicationContext(), this);
+            }
         }
         mTripId = tripId;
         mStopId = stopId;
@@ -131,7 +151,7 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
     private void lazyProxInitialization() {
         Log.d(TAG, "ProximityCalculator initializing...");
         mProxCalculator = null;
-        mProxCalculator = new ProximityCalculator(this);
+        mProxCalculator = new ProximityCalculator(this, mGetReadyDistance);
     }
 
     /**
@@ -196,6 +216,21 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         return mTimeout;
     }
 
+    /**
+     * Sets the distance (in meters) from the second to last stop at which the "Get Ready" alert
+     * is triggered (default = DISTANCE_THRESHOLD)
+     */
+    public void setGetReadyDistance(float distance) {
+        mGetReadyDistance = distance;
+        if (mProxCalculator != null) {
+            mProxCalculator.setReadyRadius(distance);
+        }
+    }
+
+    public float getGetReadyDistance() {
+        return mGetReadyDistance;
+    }
+
     /**
      * Sets the radius of detection for the ProximityListener
      */
@@ -277,7 +312,7 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         private float mRadius = 100;
         //Defines radius (in meters) for which the Proximity listener should be triggered (Default = 50)
 
-        private float readyRadius = 300;
+        private float mReadyRadius;
         //Defines radius(in meters) for which the Proximity listener should trigger "Get Ready Alert"
 
         private boolean mTrigger = false;
@@ -303,8 +338,13 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         private boolean m100_a, m50_a, m20_a, m20_d, m50_d, m100_d = false;
         // Variables for handling arrival/departure from 2nd to last stop
 
-        ProximityCalculator(NavigationServiceProvider navProvider) {
+        /**
+         * @param readyRadius distance (in meters) from the second to last stop at which the
+         *                    "Get Ready" alert is triggered
+         */
+        ProximityCalculator(NavigationServiceProvider navProvider, float readyRadius) {
             mNavProvider = navProvider;
+            mReadyRadius = readyRadius;
             Log.d(TAG, "Initializing ProximityCalculator");
         }
 
@@ -322,6 +362,20 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
             mRadius = radius;
         }
 
+        /**
+         * Getter method for the radius of the "Get Ready" alert
+         **/
+        public float getReadyRadius() {
+            return mReadyRadius;
+        }
+
+        /**
+         * Setter method for the radius of the "Get Ready" alert
+         **/
+        public void setReadyRadius(float readyRadius) {
+            mReadyRadius = readyRadius;
+        }
+
         /**
          * ProximityListener Functions
          **/
@@ -501,11 +555,13 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
                 mNavProvider.updateUi(EVENT_TYPE_UPDATE_DISTANCE);                 // Update distance notification
 
                 // Check if distance from 2nd-to-last stop is less than threshold.
-                if (directDistance < DISTANCE_THRESHOLD) {
+                if (directDistance < mReadyRadius) {
                     if (proximityEvent(EVENT_TYPE_GET_READY, ALERT_STATE_NONE)) {
                         mNavProvider.updateUi(EVENT_TYPE_GET_READY);
                         Log.d(TAG, "-----Get ready!");
-                        ObaAnalytics.reportUiEvent(mFirebaseAnalytics, Application.get().getPlausibleInstance(), PlausibleAnalytics.REPORT_DESTINATION_REMINDER_EVENT_URL, Application.get().getString(R.string.analytics_label_destination_reminder), Application.get().getString(R.string.analytics_label_destination_reminder_variant_get_ready));
+                        if (!mHeadless) {
+                            ObaAnalytics.reportUiEvent(mFirebaseAnalytics, Application.get().getPlausibleInstance(), PlausibleAnalytics.REPORT_DESTINATION_REMINDER_EVENT_URL, Application.get().getString(R.string.analytics_label_destination_reminder), Application.get().getString(R.string.analytics_label_destination_reminder_variant_get_ready));
+                        }
                         return EVENT_TYPE_GET_READY; //Get ready alert played
                     }
                 }
@@ -515,7 +571,9 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
                     if (proximityEvent(EVENT_TYPE_PULL_CORD, ALERT_STATE_SHOWN_TO_RIDER)) {
                         mNavProvider.updateUi(EVENT_TYPE_PULL_CORD);
                         Log.d(TAG, "-----Get off the bus!");
-                        ObaAnalytics.reportUiEvent(mFirebaseAnalytics, Application.get().getPlausibleInstance(), PlausibleAnalytics.REPORT_DESTINATION_REMINDER_EVENT_URL, Application.get().getString(R.string.analytics_label_destination_reminder), Application.get().getString(R.string.analytics_label_destination_reminder_variant_exit_at_next_stop));
+                        if (!mHeadless) {
+                            ObaAnalytics.reportUiEvent(mFirebaseAnalytics, Application.get().getPlausibleInstance(), PlausibleAnalytics.REPORT_DESTINATION_REMINDER_EVENT_URL, Application.get().getString(R.string.analytics_label_destination_reminder), Application.get().getString(R.string.analytics_label_destination_reminder_variant_exit_at_next_stop));
+                        }
                         return EVENT_TYPE_PULL_CORD; // Get off bus alert played
                     }
                 }
@@ -572,6 +630,14 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
      * @return the notification to use for the foreground service if eventType == EVENT_TYPE_INITIAL_STARTUP, otherwise returns null
      */
     private Notification updateUi(int eventType) {
+        if (mHeadless) {
+            if (eventType == EVENT_TYPE_GET_READY) {
+                mGetReady = true;
+            } else if (eventType == EVENT_TYPE_PULL_CORD) {
+                mFinished = true;
+            }
+            return null;
+        }
         Application app = Application.get();
         TripDetailsActivity.Builder bldr = new TripDetailsActivity.Builder(
                 app.getApplicationContext(), mTripId);
@@ -24,24 +24,32 @@ import org.onebusaway.android.BuildConfig;
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
+import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.PlausibleAnalytics;
 import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRegionElement;
 import org.onebusaway.android.nav.model.PathLink;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.location.Location;
 import android.location.LocationManager;
 import android.net.Uri;
+import android.os.RemoteException;
 import android.provider.BaseColumns;
 import android.text.format.Time;
+import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The contract between clients and the ObaProvider.
@@ -401,6 +409,15 @@ public final class ObaContract {
          */
         public static final String PLAUSIBLE_ANALYTICS_SERVER_URL = "plausible_analytics_server_url";
 
+        /**
+         * The GTFS-realtime feeds of the agencies in the region, as a JSON array
+         * (see Regions.toGtfsRealtimeFeedsJson()).
+         * <P>
+         * Type: TEXT
+         * </P>
+         */
+        public static final String GTFS_REALTIME_FEEDS = "gtfs_realtime_feeds";
+
         /**
          * The base SIRI URL.
          * <P>
@@ -714,6 +731,14 @@ public final class ObaContract {
         public static final String CONTENT_DIR_TYPE
                 = "vnd.android.dir/" + BuildConfig.DATABASE_AUTHORITY + ".stop";
 
+        /**
+         * Observers of this URI are notified only when the user name or favorite status of stops
+         * change, and not when stops are cached from the server.  The URI of a single stop is of
+         * the form content://<authority>/stop_user_info/<id>.  This URI can't be queried.
+         */
+        public static final Uri USER_INFO_URI = Uri.withAppendedPath(
+                AUTHORITY_URI, "stop_user_info");
+
         public static Uri insertOrUpdate(String id,
                 ContentValues values,
                 boolean markAsUsed) {
@@ -1349,6 +1374,80 @@ public final class ObaContract {
             return hidden;
         }
 
+        /**
+         * Adds the service alerts (situations) that aren't in the database yet, like
+         * insertOrUpdate(id, null, false, null) does for a single alert, using one query for all
+         * alerts and one batch of inserts.  Should not be called on the main thread.
+         *
+         * @param situationIds The IDs of the situations (service alerts)
+         */
+        public static void insertIfMissing(ContentResolver cr, Collection<String> situationIds) {
+            if (situationIds.isEmpty()) {
+                return;
+            }
+            Set<String> missing = new HashSet<>(situationIds);
+            StringBuilder where = new StringBuilder(_ID + " IN (");
+            for (int i = 0; i < missing.size(); i++) {
+                where.append(i == 0 ? "?" : ",?");
+            }
+            where.append(")");
+            Cursor c = cr.query(CONTENT_URI, new String[]{_ID}, where.toString(),
+                    missing.toArray(new String[0]), null);
+            if (c != null) {
+                try {
+                    while (c.moveToNext()) {
+                        missing.remove(c.getString(0));
+                    }
+                } finally {
+                    c.close();
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+
+            // If the user has selected to hide all alerts by default, mark new ones as hidden
+            boolean hideAllAlerts = Application.getPrefs()
+                    .getBoolean(Application.get().getResources()
+                            .getString(R.string.preference_key_hide_alerts), false);
+            ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+            for (String id : missing) {
+                ContentProviderOperation.Builder builder = ContentProviderOperation
+                        .newInsert(CONTENT_URI)
+                        .withValue(_ID, id);
+                if (hideAllAlerts) {
+                    builder.withValue(HIDDEN, 1);
+                }
+                ops.add(builder.build());
+            }
+            try {
+                cr.applyBatch(AUTHORITY, ops);
+            } catch (RemoteException | OperationApplicationException e) {
+                Log.e(TAG, "Couldn't add service alerts: " + e);
+            }
+        }
+
+        /**
+         * Returns the IDs of all service alerts (situations) that have been hidden by the user,
+         * using a single query
+         *
+         * @return the IDs of the hidden service alerts
+         */
+        public static Set<String> getHiddenIds(ContentResolver cr) {
+            Set<String> hidden = new HashSet<>();
+            Cursor c = cr.query(CONTENT_URI, new String[]{_ID}, HIDDEN + "=1", null, null);
+            if (c != null) {
+                try {
+                    while (c.moveToNext()) {
+                        hidden.add(c.getString(0));
+                    }
+                } finally {
+                    c.close();
+                }
+            }
+            return hidden;
+        }
+
         /**
          * Marks all alerts as not hidden, and therefore visible
          *
@@ -1453,7 +1552,8 @@ public final class ObaContract {
                     TRAVEL_BEHAVIOR_DATA_COLLECTION,
                     ENROLL_PARTICIPANTS_IN_STUDY,
                     SIDECAR_BASE_URL,
-                    PLAUSIBLE_ANALYTICS_SERVER_URL
+                    PLAUSIBLE_ANALYTICS_SERVER_URL,
+                    GTFS_REALTIME_FEEDS
             };
 
             Cursor c = cr.query(buildUri((int) id), PROJECTION, null, null, null);
@@ -1488,7 +1588,8 @@ public final class ObaContract {
                             c.getInt(19) > 0, // Travel behavior data collection
                             c.getInt(20) > 0, // Enroll participants in travel behavior study
                             c.getString(21), // Sidecar Base URL
-                            c.getString(22) // Plausible analytics server url
+                            c.getString(22), // Plausible analytics server url
+                            fromGtfsRealtimeFeedsJson(c.getString(23)) // GTFS-realtime feeds
                     );
                 } finally {
                     c.close();
@@ -1496,6 +1597,35 @@ public final class ObaContract {
             }
             return null;
         }
+
+        /**
+         * @return the GTFS_REALTIME_FEEDS value of the feeds, or null if there aren't any
+         */
+        public static String toGtfsRealtimeFeedsJson(ObaRegion.GtfsRealtimeFeed[] feeds) {
+            if (feeds == null || feeds.length == 0) {
+                return null;
+            }
+            ObaRegionElement.GtfsRealtimeFeed[] elements =
+                    new ObaRegionElement.GtfsRealtimeFeed[feeds.length];
+            for (int i = 0; i < feeds.length; i++) {
+                elements[i] = new ObaRegionElement.GtfsRealtimeFeed(feeds[i].getAgencyId(),
+                        feeds[i].getVehiclePositionsUrl(), feeds[i].getTripUpdatesUrl());
+            }
+            return ObaApi.getSerializer(ObaRegionElement.GtfsRealtimeFeed[].class)
+                    .serialize(elements);
+        }
+
+        /**
+         * @return the feeds of a GTFS_REALTIME_FEEDS value, or null if there aren't any
+         */
+        public static ObaRegionElement.GtfsRealtimeFeed[] fromGtfsRealtimeFeedsJson(
+                String json) {
+            if (json == null || json.isEmpty()) {
+                return null;
+            }
+            return ObaApi.getSerializer(ObaRegionElement.GtfsRealtimeFeed[].class)
+                    .deserializeFromResponse(json, ObaRegionElement.GtfsRealtimeFeed[].class);
+        }
     }
 
     public static class RegionBounds implements BaseColumns, RegionBoundsColumns {
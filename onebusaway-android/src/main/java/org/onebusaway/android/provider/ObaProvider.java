@@ -20,9 +20,12 @@ package org.onebusaway.android.provider;
 import org.onebusaway.android.BuildConfig;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
@@ -31,11 +34,16 @@ import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.text.TextUtils;
 import android.util.Log;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ObaProvider extends ContentProvider {
 
@@ -47,12 +55,17 @@ public class ObaProvider extends ContentProvider {
      */
     private static final String DATABASE_NAME = BuildConfig.APPLICATION_ID + ".db";
 
+    // Compiled statements kept by the connection, up from the default of 25
+    private static final int SQL_CACHE_SIZE = SQLiteDatabase.MAX_SQL_CACHE_SIZE;
+
     private class OpenHelper extends SQLiteOpenHelper {
 
-        private static final int DATABASE_VERSION = 35;
+        private static final int DATABASE_VERSION = 37;
 
         public OpenHelper(Context context) {
             super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            // Lets the loaders read while the refreshes and the region updates write
+            setWriteAheadLoggingEnabled(true);
         }
 
         @Override
@@ -337,6 +350,49 @@ public class ObaProvider extends ContentProvider {
                         " ADD COLUMN " + ObaContract.Stops.PLATFORM_CODE + " VARCHAR DEFAULT NULL");
                 ++oldVersion;
             }
+            if (oldVersion == 35) {
+                // Indexes for the queries run each time the arrivals and the stop and route lists
+                // are shown.  Most of them cover the columns that are read, so the tables
+                // aren't read at all.
+                createIndex(db, ObaContract.RouteHeadsignFavorites.PATH,
+                        ObaContract.RouteHeadsignFavorites.ROUTE_ID,
+                        ObaContract.RouteHeadsignFavorites.HEADSIGN,
+                        ObaContract.RouteHeadsignFavorites.STOP_ID,
+                        ObaContract.RouteHeadsignFavorites.EXCLUDE);
+                createIndex(db, ObaContract.StopRouteFilters.PATH,
+                        ObaContract.StopRouteFilters.STOP_ID,
+                        ObaContract.StopRouteFilters.ROUTE_ID);
+                createIndex(db, ObaContract.Stops.PATH,
+                        ObaContract.Stops.ACCESS_TIME, ObaContract.Stops.USE_COUNT);
+                createIndex(db, ObaContract.Stops.PATH, ObaContract.Stops.FAVORITE);
+                createIndex(db, ObaContract.Routes.PATH,
+                        ObaContract.Routes.ACCESS_TIME, ObaContract.Routes.USE_COUNT);
+                createIndex(db, ObaContract.Routes.PATH, ObaContract.Routes.FAVORITE);
+                createIndex(db, ObaContract.Trips.PATH,
+                        ObaContract.Trips.STOP_ID, ObaContract.Trips._ID);
+                createIndex(db, ObaContract.TripAlerts.PATH,
+                        ObaContract.TripAlerts.TRIP_ID, ObaContract.TripAlerts.STOP_ID);
+                createIndex(db, ObaContract.ServiceAlerts.PATH, ObaContract.ServiceAlerts.HIDDEN);
+                createIndex(db, ObaContract.RegionBounds.PATH,
+                        ObaContract.RegionBounds.REGION_ID);
+                createIndex(db, ObaContract.RegionOpen311Servers.PATH,
+                        ObaContract.RegionOpen311Servers.REGION_ID);
+                createIndex(db, ObaContract.NavStops.PATH,
+                        ObaContract.NavStops.NAV_ID, ObaContract.NavStops.SEQUENCE);
+                ++oldVersion;
+            }
+            if (oldVersion == 36) {
+                db.execSQL("ALTER TABLE " + ObaContract.Regions.PATH +
+                        " ADD COLUMN " + ObaContract.Regions.GTFS_REALTIME_FEEDS
+                        + " VARCHAR DEFAULT NULL");
+                ++oldVersion;
+            }
+        }
+
+        private void createIndex(SQLiteDatabase db, String table, String... columns) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_" + table + "_"
+                    + TextUtils.join("_", columns)
+                    + " ON " + table + " (" + TextUtils.join(",", columns) + ")");
         }
 
         @Override
@@ -489,6 +545,10 @@ public class ObaProvider extends ContentProvider {
 
     private DatabaseUtils.InsertHelper mNavStopsInserter;
 
+    // Tables changed by the batch being applied on the current thread, which are notified once
+    // the batch is committed instead of after each operation
+    private final ThreadLocal<Set<Uri>> mBatchChanges = new ThreadLocal<>();
+
     static {
         sUriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
         sUriMatcher.addURI(ObaContract.AUTHORITY, ObaContract.Stops.PATH, STOPS);
@@ -651,6 +711,9 @@ public class ObaProvider extends ContentProvider {
                 .put(ObaContract.Regions.SIDECAR_BASE_URL, ObaContract.Regions.SIDECAR_BASE_URL);
         sRegionsProjectionMap
                 .put(ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL, ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL);
+        sRegionsProjectionMap
+                .put(ObaContract.Regions.GTFS_REALTIME_FEEDS,
+                        ObaContract.Regions.GTFS_REALTIME_FEEDS);
     }
 
     private SQLiteDatabase mDb;
@@ -720,7 +783,8 @@ public class ObaProvider extends ContentProvider {
         db.beginTransaction();
         try {
             Uri result = insertInternal(db, uri, values);
-            getContext().getContentResolver().notifyChange(uri, null);
+            notifyChange(uri);
+            notifyStopUserInfoChange(uri, values.getAsString(ObaContract.Stops._ID), values);
             db.setTransactionSuccessful();
             return result;
         } finally {
@@ -731,8 +795,18 @@ public class ObaProvider extends ContentProvider {
     @Override
     public Cursor query(Uri uri, String[] projection, String selection,
                         String[] selectionArgs, String sortOrder) {
+        return query(uri, projection, selection, selectionArgs, sortOrder, null);
+    }
+
+    /**
+     * Runs the query with the signal, so SQLite aborts it when the signal is cancelled (e.g., by
+     * ContentResolverCompat.query() when the loader of the caller is cancelled)
+     */
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, CancellationSignal signal) {
         final SQLiteDatabase db = getDatabase();
-        return queryInternal(db, uri, projection, selection, selectionArgs, sortOrder);
+        return queryInternal(db, uri, projection, selection, selectionArgs, sortOrder, signal);
     }
 
     @Override
@@ -743,7 +817,8 @@ public class ObaProvider extends ContentProvider {
         try {
             int result = updateInternal(db, uri, values, selection, selectionArgs);
             if (result > 0) {
-                getContext().getContentResolver().notifyChange(uri, null);
+                notifyChange(uri);
+                notifyStopUserInfoChange(uri, null, values);
             }
             db.setTransactionSuccessful();
             return result;
@@ -759,7 +834,8 @@ public class ObaProvider extends ContentProvider {
         try {
             int result = deleteInternal(db, uri, selection, selectionArgs);
             if (result > 0) {
-                getContext().getContentResolver().notifyChange(uri, null);
+                notifyChange(uri);
+                notifyStopUserInfoChange(uri, null, null);
             }
             db.setTransactionSuccessful();
             return result;
@@ -768,6 +844,71 @@ public class ObaProvider extends ContentProvider {
         }
     }
 
+    /**
+     * Applies all operations in a single transaction, so large batches (e.g., the stops and
+     * routes of a whole region) are written without a commit for each row
+     */
+    @Override
+    public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        final SQLiteDatabase db = getDatabase();
+        Set<Uri> changes = new HashSet<>();
+        mBatchChanges.set(changes);
+        boolean successful = false;
+        db.beginTransaction();
+        try {
+            ContentProviderResult[] results = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+            successful = true;
+            return results;
+        } finally {
+            db.endTransaction();
+            mBatchChanges.remove();
+            if (successful) {
+                for (Uri uri : changes) {
+                    getContext().getContentResolver().notifyChange(uri, null);
+                }
+            }
+        }
+    }
+
+    private void notifyChange(Uri uri) {
+        Set<Uri> changes = mBatchChanges.get();
+        if (changes == null) {
+            getContext().getContentResolver().notifyChange(uri, null);
+            return;
+        }
+        // Observers of a table are notified of changes to its rows, so only notify the table
+        List<String> segments = uri.getPathSegments();
+        changes.add(segments.isEmpty() ? uri
+                : Uri.withAppendedPath(ObaContract.AUTHORITY_URI, segments.get(0)));
+    }
+
+    /**
+     * Notifies observers of Stops.USER_INFO_URI when a write to the stops table may have changed
+     * the user name or favorite status of stops.  Writes that only cache stop data from the
+     * server (e.g., DBUtil.addStopToDB()) don't notify these observers.
+     *
+     * @param stopId ID of the inserted stop, or null to use the ID in the URI
+     * @param values values written, or null for a delete
+     */
+    private void notifyStopUserInfoChange(Uri uri, String stopId, ContentValues values) {
+        final int match = sUriMatcher.match(uri);
+        if (match != STOPS && match != STOPS_ID) {
+            return;
+        }
+        if (values != null && !values.containsKey(ObaContract.Stops.USER_NAME)
+                && !values.containsKey(ObaContract.Stops.FAVORITE)) {
+            return;
+        }
+        if (match == STOPS_ID) {
+            stopId = uri.getLastPathSegment();
+        }
+        notifyChange(stopId != null ?
+                Uri.withAppendedPath(ObaContract.Stops.USER_INFO_URI, stopId)
+                : ObaContract.Stops.USER_INFO_URI);
+    }
+
     private Uri insertInternal(SQLiteDatabase db, Uri uri, ContentValues values) {
         final int match = sUriMatcher.match(uri);
         String id;
@@ -882,7 +1023,8 @@ public class ObaProvider extends ContentProvider {
 
     private Cursor queryInternal(SQLiteDatabase db,
                                  Uri uri, String[] projection, String selection,
-                                 String[] selectionArgs, String sortOrder) {
+                                 String[] selectionArgs, String sortOrder,
+                                 CancellationSignal signal) {
         final int match = sUriMatcher.match(uri);
         final String limit = uri.getQueryParameter("limit");
 
@@ -893,133 +1035,126 @@ public class ObaProvider extends ContentProvider {
                 qb.setTables(ObaContract.Stops.PATH);
                 qb.setProjectionMap(sStopsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case STOPS_ID:
                 qb.setTables(ObaContract.Stops.PATH);
                 qb.setProjectionMap(sStopsProjectionMap);
-                qb.appendWhere(ObaContract.Stops._ID);
-                qb.appendWhere("=");
-                qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.Stops._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, uri.getLastPathSegment()),
+                        null, null, sortOrder, limit, signal);
 
             case ROUTES:
                 qb.setTables(ObaContract.Routes.PATH);
                 qb.setProjectionMap(sRoutesProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case ROUTES_ID:
                 qb.setTables(ObaContract.Routes.PATH);
                 qb.setProjectionMap(sRoutesProjectionMap);
-                qb.appendWhere(ObaContract.Routes._ID);
-                qb.appendWhere("=");
-                qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.Routes._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, uri.getLastPathSegment()),
+                        null, null, sortOrder, limit, signal);
 
             case TRIPS:
                 qb.setTables(ObaContract.Trips.PATH);
                 qb.setProjectionMap(sTripsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case TRIPS_ID:
                 qb.setTables(ObaContract.Trips.PATH);
                 qb.setProjectionMap(sTripsProjectionMap);
-                qb.appendWhere(tripWhere(uri));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(tripWhere());
+                return qb.query(mDb, projection, selection, tripArgs(uri, selectionArgs),
+                        null, null, sortOrder, limit, signal);
 
             case TRIP_ALERTS:
                 qb.setTables(ObaContract.TripAlerts.PATH);
                 qb.setProjectionMap(sTripAlertsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case TRIP_ALERTS_ID:
                 qb.setTables(ObaContract.TripAlerts.PATH);
                 qb.setProjectionMap(sTripAlertsProjectionMap);
-                qb.appendWhere(ObaContract.TripAlerts._ID);
-                qb.appendWhere("=");
-                qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.TripAlerts._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))),
+                        null, null, sortOrder, limit, signal);
 
             case STOP_ROUTE_FILTERS:
                 qb.setTables(ObaContract.StopRouteFilters.PATH);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case SERVICE_ALERTS:
                 qb.setTables(ObaContract.ServiceAlerts.PATH);
                 qb.setProjectionMap(sServiceAlertsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case SERVICE_ALERTS_ID:
                 qb.setTables(ObaContract.ServiceAlerts.PATH);
                 qb.setProjectionMap(sServiceAlertsProjectionMap);
-                qb.appendWhere(ObaContract.ServiceAlerts._ID);
-                qb.appendWhere("=");
-                qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.ServiceAlerts._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, uri.getLastPathSegment()),
+                        null, null, sortOrder, limit, signal);
 
             case REGIONS:
                 qb.setTables(ObaContract.Regions.PATH);
                 qb.setProjectionMap(sRegionsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case REGIONS_ID:
                 qb.setTables(ObaContract.Regions.PATH);
                 qb.setProjectionMap(sRegionsProjectionMap);
-                qb.appendWhere(ObaContract.Regions._ID);
-                qb.appendWhere("=");
-                qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.Regions._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))),
+                        null, null, sortOrder, limit, signal);
 
             case REGION_BOUNDS:
                 qb.setTables(ObaContract.RegionBounds.PATH);
                 qb.setProjectionMap(sRegionBoundsProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case REGION_BOUNDS_ID:
                 qb.setTables(ObaContract.RegionBounds.PATH);
                 qb.setProjectionMap(sRegionBoundsProjectionMap);
-                qb.appendWhere(ObaContract.RegionBounds._ID);
-                qb.appendWhere("=");
-                qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.RegionBounds._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))),
+                        null, null, sortOrder, limit, signal);
 
             case REGION_OPEN311_SERVERS:
                 qb.setTables(ObaContract.RegionOpen311Servers.PATH);
                 qb.setProjectionMap(sRegionOpen311ProjectionMap);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
 
             case REGION_OPEN311_SERVERS_ID:
                 qb.setTables(ObaContract.RegionOpen311Servers.PATH);
                 qb.setProjectionMap(sRegionOpen311ProjectionMap);
-                qb.appendWhere(ObaContract.RegionOpen311Servers._ID);
-                qb.appendWhere("=");
-                qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                qb.appendWhere(ObaContract.RegionOpen311Servers._ID + "=?");
+                return qb.query(mDb, projection, selection,
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))),
+                        null, null, sortOrder, limit, signal);
 
             case ROUTE_HEADSIGN_FAVORITES:
                 qb.setTables(ObaContract.RouteHeadsignFavorites.PATH);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
             case NAV_STOPS:
                 qb.setTables(ObaContract.NavStops.PATH);
                 return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                        null, null, sortOrder, limit, signal);
             default:
                 throw new IllegalArgumentException("Unknown URI: " + uri);
         }
@@ -1035,27 +1170,31 @@ public class ObaProvider extends ContentProvider {
 
             case STOPS_ID:
                 return db.update(ObaContract.Stops.PATH, values,
-                        where(ObaContract.Stops._ID, uri), selectionArgs);
+                        where(ObaContract.Stops._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case ROUTES:
                 return db.update(ObaContract.Routes.PATH, values, selection, selectionArgs);
 
             case ROUTES_ID:
                 return db.update(ObaContract.Routes.PATH, values,
-                        where(ObaContract.Routes._ID, uri), selectionArgs);
+                        where(ObaContract.Routes._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case TRIPS:
                 return db.update(ObaContract.Trips.PATH, values, selection, selectionArgs);
 
             case TRIPS_ID:
-                return db.update(ObaContract.Trips.PATH, values, tripWhere(uri), selectionArgs);
+                return db.update(ObaContract.Trips.PATH, values, tripWhere(),
+                        tripArgs(uri, selectionArgs));
 
             case TRIP_ALERTS:
                 return db.update(ObaContract.TripAlerts.PATH, values, selection, selectionArgs);
 
             case TRIP_ALERTS_ID:
                 return db.update(ObaContract.TripAlerts.PATH, values,
-                        whereLong(ObaContract.TripAlerts._ID, uri), selectionArgs);
+                        where(ObaContract.TripAlerts._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             // Can we do anything here??
             case STOP_ROUTE_FILTERS:
@@ -1066,35 +1205,40 @@ public class ObaProvider extends ContentProvider {
 
             case SERVICE_ALERTS_ID:
                 return db.update(ObaContract.ServiceAlerts.PATH, values,
-                        where(ObaContract.ServiceAlerts._ID, uri), selectionArgs);
+                        where(ObaContract.ServiceAlerts._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case REGIONS:
                 return db.update(ObaContract.Regions.PATH, values, selection, selectionArgs);
 
             case REGIONS_ID:
                 return db.update(ObaContract.Regions.PATH, values,
-                        whereLong(ObaContract.Regions._ID, uri), selectionArgs);
+                        where(ObaContract.Regions._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case REGION_BOUNDS:
                 return db.update(ObaContract.RegionBounds.PATH, values, selection, selectionArgs);
 
             case REGION_BOUNDS_ID:
                 return db.update(ObaContract.RegionBounds.PATH, values,
-                        whereLong(ObaContract.RegionBounds._ID, uri), selectionArgs);
+                        where(ObaContract.RegionBounds._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case REGION_OPEN311_SERVERS:
                 return db.update(ObaContract.RegionOpen311Servers.PATH, values, selection, selectionArgs);
 
             case REGION_OPEN311_SERVERS_ID:
                 return db.update(ObaContract.RegionOpen311Servers.PATH, values,
-                        whereLong(ObaContract.RegionOpen311Servers._ID, uri), selectionArgs);
+                        where(ObaContract.RegionOpen311Servers._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case ROUTE_HEADSIGN_FAVORITES:
                 return 0;
 
             case NAV_STOPS:
                 return db.update(ObaContract.NavStops.PATH, values,
-                        where(ObaContract.NavStops._ID, uri), selectionArgs);
+                        where(ObaContract.NavStops._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             default:
                 throw new IllegalArgumentException("Unknown URI: " + uri);
@@ -1110,27 +1254,31 @@ public class ObaProvider extends ContentProvider {
 
             case STOPS_ID:
                 return db.delete(ObaContract.Stops.PATH,
-                        where(ObaContract.Stops._ID, uri), selectionArgs);
+                        where(ObaContract.Stops._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case ROUTES:
                 return db.delete(ObaContract.Routes.PATH, selection, selectionArgs);
 
             case ROUTES_ID:
                 return db.delete(ObaContract.Routes.PATH,
-                        where(ObaContract.Routes._ID, uri), selectionArgs);
+                        where(ObaContract.Routes._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case TRIPS:
                 return db.delete(ObaContract.Trips.PATH, selection, selectionArgs);
 
             case TRIPS_ID:
-                return db.delete(ObaContract.Trips.PATH, tripWhere(uri), selectionArgs);
+                return db.delete(ObaContract.Trips.PATH, tripWhere(),
+                        tripArgs(uri, selectionArgs));
 
             case TRIP_ALERTS:
                 return db.delete(ObaContract.TripAlerts.PATH, selection, selectionArgs);
 
             case TRIP_ALERTS_ID:
                 return db.delete(ObaContract.TripAlerts.PATH,
-                        whereLong(ObaContract.TripAlerts._ID, uri), selectionArgs);
+                        where(ObaContract.TripAlerts._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case STOP_ROUTE_FILTERS:
                 return db.delete(ObaContract.StopRouteFilters.PATH, selection, selectionArgs);
@@ -1140,28 +1288,32 @@ public class ObaProvider extends ContentProvider {
 
             case SERVICE_ALERTS_ID:
                 return db.delete(ObaContract.ServiceAlerts.PATH,
-                        where(ObaContract.ServiceAlerts._ID, uri), selectionArgs);
+                        where(ObaContract.ServiceAlerts._ID),
+                        prependArgs(selectionArgs, uri.getLastPathSegment()));
 
             case REGIONS:
                 return db.delete(ObaContract.Regions.PATH, selection, selectionArgs);
 
             case REGIONS_ID:
                 return db.delete(ObaContract.Regions.PATH,
-                        whereLong(ObaContract.Regions._ID, uri), selectionArgs);
+                        where(ObaContract.Regions._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case REGION_BOUNDS:
                 return db.delete(ObaContract.RegionBounds.PATH, selection, selectionArgs);
 
             case REGION_BOUNDS_ID:
                 return db.delete(ObaContract.RegionBounds.PATH,
-                        whereLong(ObaContract.RegionBounds._ID, uri), selectionArgs);
+                        where(ObaContract.RegionBounds._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case REGION_OPEN311_SERVERS:
                 return db.delete(ObaContract.RegionOpen311Servers.PATH, selection, selectionArgs);
 
             case REGION_OPEN311_SERVERS_ID:
                 return db.delete(ObaContract.RegionOpen311Servers.PATH,
-                        whereLong(ObaContract.RegionOpen311Servers._ID, uri), selectionArgs);
+                        where(ObaContract.RegionOpen311Servers._ID),
+                        prependArgs(selectionArgs, String.valueOf(ContentUris.parseId(uri))));
 
             case ROUTE_HEADSIGN_FAVORITES:
                 return db.delete(ObaContract.RouteHeadsignFavorites.PATH, selection, selectionArgs);
@@ -1174,40 +1326,37 @@ public class ObaProvider extends ContentProvider {
         }
     }
 
-    private String where(String column, Uri uri) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(column);
-        sb.append('=');
-        DatabaseUtils.appendValueToSql(sb, uri.getLastPathSegment());
-        return sb.toString();
+    //
+    // The IDs in the URIs are bound as arguments rather than appended to the SQL, so the
+    // statements are compiled once and then reused from the statement cache of the connection.
+    //
+    private String where(String column) {
+        return column + "=?";
     }
 
-    private String whereLong(String column, Uri uri) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(column);
-        sb.append('=');
-        sb.append(String.valueOf(ContentUris.parseId(uri)));
-        return sb.toString();
+    private String tripWhere() {
+        return "(" + ObaContract.Trips._ID + "=? AND " + ObaContract.Trips.STOP_ID + "=?)";
     }
 
-    private String tripWhere(Uri uri) {
+    private String[] tripArgs(Uri uri, String[] selectionArgs) {
         List<String> segments = uri.getPathSegments();
-        StringBuilder sb = new StringBuilder();
-        sb.append("(");
-        sb.append(ObaContract.Trips._ID);
-        sb.append("=");
-        DatabaseUtils.appendValueToSql(sb, segments.get(1));
-        sb.append(" AND ");
-        sb.append(ObaContract.Trips.STOP_ID);
-        sb.append("=");
-        DatabaseUtils.appendValueToSql(sb, segments.get(2));
-        sb.append(")");
-        return sb.toString();
+        return prependArgs(selectionArgs, segments.get(1), segments.get(2));
+    }
+
+    private static String[] prependArgs(String[] selectionArgs, String... args) {
+        if (selectionArgs == null || selectionArgs.length == 0) {
+            return args;
+        }
+        String[] result = new String[args.length + selectionArgs.length];
+        System.arraycopy(args, 0, result, 0, args.length);
+        System.arraycopy(selectionArgs, 0, result, args.length, selectionArgs.length);
+        return result;
     }
 
     private SQLiteDatabase getDatabase() {
         if (mDb == null) {
             mDb = mOpenHelper.getWritableDatabase();
+            mDb.setMaxSqlCacheSize(SQL_CACHE_SIZE);
             // Initialize the insert helpers
             mStopsInserter = new DatabaseUtils.InsertHelper(mDb, ObaContract.Stops.PATH);
             mRoutesInserter = new DatabaseUtils.InsertHelper(mDb, ObaContract.Routes.PATH);
@@ -1236,4 +1385,16 @@ public class ObaProvider extends ContentProvider {
         mOpenHelper.close();
         mDb = null;
     }
+
+    //
+    // Copies the changes in the write-ahead log to the database file, so the file can be copied
+    //
+    public void checkpoint() {
+        Cursor c = getDatabase().rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+        try {
+            c.moveToFirst();
+        } finally {
+            c.close();
+        }
+    }
 }
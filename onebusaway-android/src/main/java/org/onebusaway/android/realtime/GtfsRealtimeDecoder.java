@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.realtime;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import com.google.transit.realtime.GtfsRealtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Decodes GTFS-realtime VehiclePositions and TripUpdates feeds into a RealtimeIndex.
+ *
+ * Feeds are decoded one entity at a time from the stream, instead of parsing the whole
+ * FeedMessage first, so only one entity is held in memory at a time.  A feed that isn't newer
+ * than the last one decoded is skipped after its header, and entities whose timestamp didn't
+ * change since the last feed are skipped without building new vehicles or trip updates.
+ *
+ * The IDs in the feed are prefixed with the ID of the agency the feed belongs to, so they match
+ * the OBA IDs of the REST API and don't collide with the IDs of other agencies of the region.
+ */
+public final class GtfsRealtimeDecoder {
+
+    /**
+     * Counts of what a feed changed in the index
+     */
+    public static final class Result {
+
+        private boolean mNotModified;
+
+        private int mEntities;
+
+        private int mUpdated;
+
+        private int mRemoved;
+
+        /**
+         * @return true if the feed wasn't newer than the last one decoded, and was skipped
+         */
+        public boolean isNotModified() {
+            return mNotModified;
+        }
+
+        public int getEntityCount() {
+            return mEntities;
+        }
+
+        /**
+         * @return the number of vehicles and trip updates that were added or changed
+         */
+        public int getUpdatedCount() {
+            return mUpdated;
+        }
+
+        /**
+         * @return the number of vehicles and trip updates that were removed
+         */
+        public int getRemovedCount() {
+            return mRemoved;
+        }
+
+        @Override
+        public String toString() {
+            return mNotModified ? "not modified" : mEntities + " entities, " + mUpdated
+                    + " updated, " + mRemoved + " removed";
+        }
+    }
+
+    private GtfsRealtimeDecoder() {
+    }
+
+    /**
+     * Decodes a feed into the index
+     *
+     * @param in       the feed, which isn't closed
+     * @param feed     the type of the feed, which decides what a full dataset replaces
+     * @param agencyId the OBA ID of the agency the feed belongs to
+     * @param index    the index to update
+     */
+    public static Result decode(InputStream in, RealtimeIndex.Feed feed, String agencyId,
+            RealtimeIndex index) throws IOException {
+        Result result = new Result();
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        ExtensionRegistryLite registry = ExtensionRegistryLite.getEmptyRegistry();
+        int generation = RealtimeIndex.NOT_MODIFIED;
+        long timestamp = 0;
+        boolean fullDataset = true;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case GtfsRealtime.FeedMessage.HEADER_FIELD_NUMBER:
+                    GtfsRealtime.FeedHeader header = input.readMessage(
+                            GtfsRealtime.FeedHeader.parser(), registry);
+                    fullDataset = header.getIncrementality()
+                            != GtfsRealtime.FeedHeader.Incrementality.DIFFERENTIAL;
+                    timestamp = header.getTimestamp() * 1000;
+                    generation = index.beginFeed(feed, agencyId, timestamp);
+                    if (generation == RealtimeIndex.NOT_MODIFIED) {
+                        result.mNotModified = true;
+                        return result;
+                    }
+                    break;
+                case GtfsRealtime.FeedMessage.ENTITY_FIELD_NUMBER:
+                    if (generation == RealtimeIndex.NOT_MODIFIED) {
+                        // The header is written before the entities
+                        throw new IOException("Entity before the feed header");
+                    }
+                    GtfsRealtime.FeedEntity entity = input.readMessage(
+                            GtfsRealtime.FeedEntity.parser(), registry);
+                    result.mEntities++;
+                    if (apply(entity, agencyId, index, generation)) {
+                        result.mUpdated++;
+                    }
+                    break;
+                default:
+                    input.skipField(tag);
+                    break;
+            }
+        }
+        if (generation == RealtimeIndex.NOT_MODIFIED) {
+            throw new IOException("Missing feed header");
+        }
+        result.mRemoved = index.endFeed(feed, agencyId, generation, timestamp, fullDataset);
+        return result;
+    }
+
+    /**
+     * @return true if the entity added, changed or removed a vehicle or trip update
+     */
+    private static boolean apply(GtfsRealtime.FeedEntity entity, String agencyId,
+            RealtimeIndex index, int generation) {
+        boolean updated = false;
+        if (entity.hasVehicle()) {
+            updated = applyVehicle(entity, agencyId, index, generation);
+        }
+        if (entity.hasTripUpdate()) {
+            updated |= applyTripUpdate(entity, agencyId, index, generation);
+        }
+        return updated;
+    }
+
+    private static boolean applyVehicle(GtfsRealtime.FeedEntity entity, String agencyId,
+            RealtimeIndex index, int generation) {
+        GtfsRealtime.VehiclePosition vp = entity.getVehicle();
+        String id = RealtimeIndex.toObaId(agencyId, vp.hasVehicle() && vp.getVehicle().hasId()
+                ? vp.getVehicle().getId() : entity.getId());
+        if (entity.getIsDeleted()) {
+            index.removeVehicle(id);
+            return true;
+        }
+        long timestamp = vp.getTimestamp() * 1000;
+        if (!vp.hasPosition() || index.touchVehicle(id, timestamp, generation)) {
+            return false;
+        }
+        GtfsRealtime.Position position = vp.getPosition();
+        GtfsRealtime.TripDescriptor trip = vp.hasTrip() ? vp.getTrip() : null;
+        index.putVehicle(new RealtimeIndex.Vehicle(agencyId, id,
+                trip != null && trip.hasTripId()
+                        ? RealtimeIndex.toObaId(agencyId, trip.getTripId()) : null,
+                trip != null && trip.hasRouteId()
+                        ? RealtimeIndex.toObaId(agencyId, trip.getRouteId()) : null,
+                position.getLatitude(), position.getLongitude(),
+                position.hasBearing() ? position.getBearing() : Float.NaN, timestamp),
+                generation);
+        return true;
+    }
+
+    private static boolean applyTripUpdate(GtfsRealtime.FeedEntity entity, String agencyId,
+            RealtimeIndex index, int generation) {
+        GtfsRealtime.TripUpdate tu = entity.getTripUpdate();
+        if (!tu.getTrip().hasTripId()) {
+            // Frequency-based trips without IDs can't be matched to OBA trips
+            return false;
+        }
+        String tripId = RealtimeIndex.toObaId(agencyId, tu.getTrip().getTripId());
+        if (entity.getIsDeleted()) {
+            index.removeTripUpdate(tripId);
+            return true;
+        }
+        long timestamp = tu.getTimestamp() * 1000;
+        if (index.touchTripUpdate(tripId, timestamp, generation)) {
+            return false;
+        }
+        List<GtfsRealtime.TripUpdate.StopTimeUpdate> updates = tu.getStopTimeUpdateList();
+        int count = updates.size();
+        String[] stopIds = new String[count];
+        long[] arrivalTimes = new long[count];
+        int[] arrivalDelays = new int[count];
+        long[] departureTimes = new long[count];
+        int[] departureDelays = new int[count];
+        for (int i = 0; i < count; i++) {
+            GtfsRealtime.TripUpdate.StopTimeUpdate update = updates.get(i);
+            stopIds[i] = RealtimeIndex.toObaId(agencyId, update.getStopId());
+            arrivalDelays[i] = RealtimeIndex.NO_DELAY;
+            departureDelays[i] = RealtimeIndex.NO_DELAY;
+            if (update.getScheduleRelationship() != GtfsRealtime.TripUpdate.StopTimeUpdate
+                    .ScheduleRelationship.SCHEDULED) {
+                // Skipped stops and stops without data don't predict anything
+                continue;
+            }
+            if (update.hasArrival()) {
+                GtfsRealtime.TripUpdate.StopTimeEvent arrival = update.getArrival();
+                arrivalTimes[i] = arrival.hasTime() ? arrival.getTime() * 1000 : 0;
+                arrivalDelays[i] = arrival.hasDelay() ? arrival.getDelay()
+                        : RealtimeIndex.NO_DELAY;
+            }
+            if (update.hasDeparture()) {
+                GtfsRealtime.TripUpdate.StopTimeEvent departure = update.getDeparture();
+                departureTimes[i] = departure.hasTime() ? departure.getTime() * 1000 : 0;
+                departureDelays[i] = departure.hasDelay() ? departure.getDelay()
+                        : RealtimeIndex.NO_DELAY;
+            }
+        }
+        index.putTripUpdate(new RealtimeIndex.TripUpdate(agencyId, tripId,
+                tu.hasVehicle() && tu.getVehicle().hasId()
+                        ? RealtimeIndex.toObaId(agencyId, tu.getVehicle().getId()) : null,
+                timestamp, tu.hasDelay() ? tu.getDelay() : RealtimeIndex.NO_DELAY, stopIds,
+                arrivalTimes, arrivalDelays, departureTimes, departureDelays), generation);
+        return true;
+    }
+}
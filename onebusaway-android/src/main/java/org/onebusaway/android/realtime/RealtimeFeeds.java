@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.realtime;
+
+import org.onebusaway.android.R;
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ServerClock;
+import org.onebusaway.android.io.elements.ObaRegion;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the GTFS-realtime VehiclePositions and TripUpdates feeds of the agencies of the
+ * current region into a RealtimeIndex, which the vehicle map and the arrivals list refresh from
+ * between their OBA REST API requests.
+ *
+ * The feeds are optional: they're only used if enabled in the advanced preferences and the region
+ * lists feeds for its agencies (see ObaRegion.getGtfsRealtimeFeeds()).  Each feed is downloaded
+ * at most once per MIN_INTERVAL however many screens ask for it, and is only decoded if it
+ * changed since the last download.
+ */
+public class RealtimeFeeds {
+
+    private static final String TAG = "RealtimeFeeds";
+
+    // Feeds aren't downloaded again before this, as producers rarely update them more often
+    private static final long MIN_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    // After this, the data of a feed is too old to be shown
+    private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(2);
+
+    private static RealtimeFeeds mInstance;
+
+    private static final class FeedState {
+
+        // Elapsed realtime of the last download attempt and the last successful one
+        long lastAttempt;
+
+        long lastSuccess;
+    }
+
+    private final RealtimeIndex mIndex = new RealtimeIndex();
+
+    // Keyed by the type of the feed and the agency
+    private final Map<String, FeedState> mStates = new HashMap<>();
+
+    private long mRegionId = -1;
+
+    RealtimeFeeds() {
+    }
+
+    public static synchronized RealtimeFeeds getInstance() {
+        if (mInstance == null) {
+            mInstance = new RealtimeFeeds();
+        }
+        return mInstance;
+    }
+
+    /**
+     * @return true if the feeds are enabled in the preferences and the current region has
+     * GTFS-realtime feeds
+     */
+    public static boolean isEnabled() {
+        Application app = Application.get();
+        ObaRegion region = app.getCurrentRegion();
+        return region != null && region.getGtfsRealtimeFeeds() != null
+                && region.getGtfsRealtimeFeeds().length > 0
+                && Application.getPrefs().getBoolean(
+                app.getString(R.string.preference_key_gtfs_realtime), false);
+    }
+
+    public RealtimeIndex getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Downloads the feeds of a type of the agencies of the region into the index, if they weren't
+     * downloaded in the last MIN_INTERVAL.  Performs network I/O, so it shouldn't be called on
+     * the main thread.
+     *
+     * @return true if the index holds recent data of the feed of at least one agency, which can be
+     * shown instead of the data of the last OBA REST API request.  The data of the agencies whose
+     * feeds aren't recent is removed from the index.
+     */
+    public boolean refresh(RealtimeIndex.Feed feed) {
+        if (!isEnabled()) {
+            return false;
+        }
+        ObaRegion region = Application.get().getCurrentRegion();
+        synchronized (this) {
+            if (region.getId() != mRegionId) {
+                mIndex.clear();
+                mStates.clear();
+                mRegionId = region.getId();
+            }
+        }
+        boolean recent = false;
+        for (ObaRegion.GtfsRealtimeFeed f : region.getGtfsRealtimeFeeds()) {
+            String url = feed == RealtimeIndex.Feed.VEHICLE_POSITIONS
+                    ? f.getVehiclePositionsUrl() : f.getTripUpdatesUrl();
+            if (!TextUtils.isEmpty(url) && !TextUtils.isEmpty(f.getAgencyId())) {
+                recent |= refresh(feed, f.getAgencyId(), url);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * @return true if the index holds recent data of the feed of the agency
+     */
+    private boolean refresh(RealtimeIndex.Feed feed, String agencyId, String url) {
+        FeedState state;
+        synchronized (this) {
+            String key = feed + "/" + agencyId;
+            state = mStates.get(key);
+            if (state == null) {
+                state = new FeedState();
+                mStates.put(key, state);
+            }
+        }
+        synchronized (state) {
+            long now = SystemClock.elapsedRealtime();
+            if (state.lastAttempt == 0 || now - state.lastAttempt >= MIN_INTERVAL) {
+                state.lastAttempt = now;
+                if (download(url, feed, agencyId)) {
+                    state.lastSuccess = SystemClock.elapsedRealtime();
+                }
+            }
+            boolean recent = state.lastSuccess != 0 && now - state.lastSuccess <= MAX_AGE;
+            if (recent) {
+                // A producer that stopped updating its feed still serves the old one
+                long timestamp = mIndex.getFeedTimestamp(feed, agencyId);
+                recent = timestamp == 0
+                        || ServerClock.getInstance().currentTimeMillis() - timestamp <= MAX_AGE;
+            }
+            if (!recent) {
+                mIndex.clear(feed, agencyId);
+            }
+            return recent;
+        }
+    }
+
+    /**
+     * @return true if the feed was decoded into the index, or didn't change
+     */
+    private boolean download(String url, RealtimeIndex.Feed feed, String agencyId) {
+        ObaConnection conn = null;
+        try {
+            long start = SystemClock.elapsedRealtime();
+            conn = ObaApi.getDefaultContext().getConnectionFactory()
+                    .newConnection(Uri.parse(url));
+            GtfsRealtimeDecoder.Result result;
+            try (InputStream in = conn.getInputStream()) {
+                result = GtfsRealtimeDecoder.decode(in, feed, agencyId, mIndex);
+            }
+            Log.d(TAG, feed + " of " + agencyId + ": " + result + " in "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Couldn't download " + feed + " of " + agencyId + " - " + e);
+            return false;
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.realtime;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Holds the vehicle positions and trip updates decoded from the GTFS-realtime feeds of a region
+ * (see GtfsRealtimeDecoder), keyed by vehicle ID and trip ID.
+ *
+ * IDs are OBA IDs, i.e. the GTFS IDs of the feeds prefixed with the ID of the agency whose feed
+ * they came from, so the feeds of several agencies can share the index.  Vehicles and trip
+ * updates are immutable, and are only replaced when a feed contains a newer version of them, so
+ * they can be used on any thread.
+ */
+public class RealtimeIndex {
+
+    /**
+     * The feeds decoded into the index
+     */
+    public enum Feed {
+        VEHICLE_POSITIONS,
+        TRIP_UPDATES
+    }
+
+    /**
+     * Returned by beginFeed() when the feed isn't newer than the last one decoded
+     */
+    public static final int NOT_MODIFIED = -1;
+
+    /**
+     * Returned by TripUpdate.getPredictedTime() when the trip update doesn't predict the time
+     */
+    public static final long NO_PREDICTION = -1;
+
+    static final int NO_DELAY = Integer.MIN_VALUE;
+
+    /**
+     * The last known position of a vehicle
+     */
+    public static final class Vehicle {
+
+        private final String mAgencyId;
+
+        private final String mId;
+
+        private final String mTripId;
+
+        private final String mRouteId;
+
+        private final double mLatitude;
+
+        private final double mLongitude;
+
+        private final float mBearing;
+
+        private final long mTimestamp;
+
+        // Generation of the last feed that contained the vehicle
+        int mGeneration;
+
+        Vehicle(String agencyId, String id, String tripId, String routeId, double latitude,
+                double longitude, float bearing, long timestamp) {
+            mAgencyId = agencyId;
+            mId = id;
+            mTripId = tripId;
+            mRouteId = routeId;
+            mLatitude = latitude;
+            mLongitude = longitude;
+            mBearing = bearing;
+            mTimestamp = timestamp;
+        }
+
+        public String getId() {
+            return mId;
+        }
+
+        /**
+         * @return the ID of the trip the vehicle is serving, or null if it isn't known
+         */
+        public String getTripId() {
+            return mTripId;
+        }
+
+        public String getRouteId() {
+            return mRouteId;
+        }
+
+        public double getLatitude() {
+            return mLatitude;
+        }
+
+        public double getLongitude() {
+            return mLongitude;
+        }
+
+        /**
+         * @return the bearing of the vehicle in degrees clockwise from north, or NaN if it
+         * isn't known
+         */
+        public float getBearing() {
+            return mBearing;
+        }
+
+        /**
+         * @return the time the position was measured, in milliseconds, or 0 if it isn't known
+         */
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+    }
+
+    /**
+     * The predicted arrival and departure times of a trip at some of its stops
+     */
+    public static final class TripUpdate {
+
+        private final String mAgencyId;
+
+        private final String mTripId;
+
+        private final String mVehicleId;
+
+        private final long mTimestamp;
+
+        private final int mDelay;
+
+        // One element per stop time update, in the order of the stops of the trip
+        private final String[] mStopIds;
+
+        private final long[] mArrivalTimes;
+
+        private final int[] mArrivalDelays;
+
+        private final long[] mDepartureTimes;
+
+        private final int[] mDepartureDelays;
+
+        // Generation of the last feed that contained the trip
+        int mGeneration;
+
+        TripUpdate(String agencyId, String tripId, String vehicleId, long timestamp, int delay,
+                String[] stopIds, long[] arrivalTimes, int[] arrivalDelays, long[] departureTimes,
+                int[] departureDelays) {
+            mAgencyId = agencyId;
+            mTripId = tripId;
+            mVehicleId = vehicleId;
+            mTimestamp = timestamp;
+            mDelay = delay;
+            mStopIds = stopIds;
+            mArrivalTimes = arrivalTimes;
+            mArrivalDelays = arrivalDelays;
+            mDepartureTimes = departureTimes;
+            mDepartureDelays = departureDelays;
+        }
+
+        public String getTripId() {
+            return mTripId;
+        }
+
+        /**
+         * @return the ID of the vehicle serving the trip, or null if it isn't known
+         */
+        public String getVehicleId() {
+            return mVehicleId;
+        }
+
+        /**
+         * @return the time the predictions were made, in milliseconds, or 0 if it isn't known
+         */
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        public int getStopTimeUpdateCount() {
+            return mStopIds.length;
+        }
+
+        /**
+         * Returns the predicted arrival or departure time of the trip at a stop.  If the trip
+         * update doesn't contain the stop, the delay of the closest earlier stop is applied to the
+         * scheduled time, like GTFS-realtime consumers are expected to do, and then the delay of
+         * the whole trip.
+         *
+         * @param stopId    the OBA ID of the stop
+         * @param scheduled the scheduled time at the stop, in milliseconds
+         * @param arrival   true for the arrival time, false for the departure time
+         * @return the predicted time in milliseconds, or NO_PREDICTION
+         */
+        public long getPredictedTime(String stopId, long scheduled, boolean arrival) {
+            long[] times = arrival ? mArrivalTimes : mDepartureTimes;
+            int[] delays = arrival ? mArrivalDelays : mDepartureDelays;
+            long[] otherTimes = arrival ? mDepartureTimes : mArrivalTimes;
+            int[] otherDelays = arrival ? mDepartureDelays : mArrivalDelays;
+
+            int previous = -1;
+            long previousScheduled = Long.MIN_VALUE;
+            for (int i = 0; i < mStopIds.length; i++) {
+                if (mStopIds[i].equals(stopId)) {
+                    // The departure is used when the arrival isn't predicted, and vice versa
+                    if (times[i] != 0) {
+                        return times[i];
+                    } else if (delays[i] != NO_DELAY) {
+                        return scheduled + delays[i] * 1000L;
+                    } else if (otherTimes[i] != 0) {
+                        return otherTimes[i];
+                    } else if (otherDelays[i] != NO_DELAY) {
+                        return scheduled + otherDelays[i] * 1000L;
+                    }
+                    return NO_PREDICTION;
+                }
+                // The scheduled time of other stops is only known if both the time and the
+                // delay are given, which orders them relative to the stop
+                int delay = mDepartureDelays[i] != NO_DELAY ? mDepartureDelays[i]
+                        : mArrivalDelays[i];
+                long time = mDepartureDelays[i] != NO_DELAY ? mDepartureTimes[i]
+                        : mArrivalTimes[i];
+                if (delay != NO_DELAY && time != 0) {
+                    long s = time - delay * 1000L;
+                    if (s <= scheduled && s >= previousScheduled) {
+                        previous = i;
+                        previousScheduled = s;
+                    }
+                }
+            }
+            if (previous != -1) {
+                return scheduled + (mDepartureDelays[previous] != NO_DELAY
+                        ? mDepartureDelays[previous] : mArrivalDelays[previous]) * 1000L;
+            }
+            if (mDelay != NO_DELAY) {
+                return scheduled + mDelay * 1000L;
+            }
+            return NO_PREDICTION;
+        }
+    }
+
+    private final Map<String, Vehicle> mVehicles = new HashMap<>();
+
+    private final Map<String, Vehicle> mVehiclesByTrip = new HashMap<>();
+
+    private final Map<String, TripUpdate> mTrips = new HashMap<>();
+
+    // Keyed by key(feed, agencyId)
+    private final Map<String, Long> mFeedTimestamps = new HashMap<>();
+
+    private int mGeneration = 0;
+
+    /**
+     * @return the OBA ID of a GTFS ID in the feed of an agency
+     */
+    static String toObaId(String agencyId, String gtfsId) {
+        return agencyId + "_" + gtfsId;
+    }
+
+    private static String key(Feed feed, String agencyId) {
+        return feed.name() + "/" + agencyId;
+    }
+
+    /**
+     * @param id the OBA ID of the vehicle
+     */
+    public synchronized Vehicle getVehicle(String id) {
+        return mVehicles.get(id);
+    }
+
+    /**
+     * @param tripId the OBA ID of the trip
+     * @return the vehicle serving the trip, or null if there isn't one
+     */
+    public synchronized Vehicle getVehicleForTrip(String tripId) {
+        return mVehiclesByTrip.get(tripId);
+    }
+
+    /**
+     * @param tripId the OBA ID of the trip
+     */
+    public synchronized TripUpdate getTripUpdate(String tripId) {
+        return mTrips.get(tripId);
+    }
+
+    public synchronized int getVehicleCount() {
+        return mVehicles.size();
+    }
+
+    public synchronized int getTripUpdateCount() {
+        return mTrips.size();
+    }
+
+    /**
+     * @return the time of the last feed of the agency fully decoded, in milliseconds, or 0 if
+     * none was
+     */
+    public synchronized long getFeedTimestamp(Feed feed, String agencyId) {
+        Long timestamp = mFeedTimestamps.get(key(feed, agencyId));
+        return timestamp != null ? timestamp : 0;
+    }
+
+    public synchronized void clear() {
+        mVehicles.clear();
+        mVehiclesByTrip.clear();
+        mTrips.clear();
+        mFeedTimestamps.clear();
+    }
+
+    /**
+     * Removes the vehicles or trip updates of an agency, e.g. when its feed is too old to be
+     * shown.  The time of its last feed is kept, so the same feed isn't decoded again.
+     */
+    public synchronized void clear(Feed feed, String agencyId) {
+        prune(feed, agencyId, NOT_MODIFIED);
+    }
+
+    /**
+     * Starts decoding a feed
+     *
+     * @param timestamp the time of the feed in milliseconds, or 0 if it isn't known
+     * @return the generation of the feed, or NOT_MODIFIED if it isn't newer than the last one
+     * of the agency
+     */
+    synchronized int beginFeed(Feed feed, String agencyId, long timestamp) {
+        if (timestamp != 0 && timestamp <= getFeedTimestamp(feed, agencyId)) {
+            return NOT_MODIFIED;
+        }
+        return ++mGeneration;
+    }
+
+    /**
+     * Finishes decoding a feed, and records its time, so the same feed is skipped from now on.
+     * A feed that couldn't be decoded to the end isn't finished, so it's decoded again the next
+     * time it's downloaded.  If the feed contains the whole dataset, the vehicles or trip updates
+     * of the agency it didn't contain are removed.
+     *
+     * @param timestamp the time of the feed that was passed to beginFeed()
+     * @return the number of vehicles or trip updates removed
+     */
+    synchronized int endFeed(Feed feed, String agencyId, int generation, long timestamp,
+            boolean fullDataset) {
+        if (timestamp > getFeedTimestamp(feed, agencyId)) {
+            mFeedTimestamps.put(key(feed, agencyId), timestamp);
+        }
+        return fullDataset ? prune(feed, agencyId, generation) : 0;
+    }
+
+    /**
+     * Removes the vehicles or trip updates of the agency that weren't in the feed of a generation
+     *
+     * @return the number of vehicles or trip updates removed
+     */
+    private int prune(Feed feed, String agencyId, int generation) {
+        int removed = 0;
+        if (feed == Feed.VEHICLE_POSITIONS) {
+            Iterator<Vehicle> i = mVehicles.values().iterator();
+            while (i.hasNext()) {
+                Vehicle v = i.next();
+                if (v.mGeneration != generation && v.mAgencyId.equals(agencyId)) {
+                    i.remove();
+                    removeFromTrip(v);
+                    removed++;
+                }
+            }
+        } else {
+            Iterator<TripUpdate> i = mTrips.values().iterator();
+            while (i.hasNext()) {
+                TripUpdate t = i.next();
+                if (t.mGeneration != generation && t.mAgencyId.equals(agencyId)) {
+                    i.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Marks the vehicle as contained in the feed if the index already has the position measured
+     * at timestamp, so it doesn't have to be decoded again
+     *
+     * @return true if the vehicle is unchanged
+     */
+    synchronized boolean touchVehicle(String id, long timestamp, int generation) {
+        Vehicle v = mVehicles.get(id);
+        if (v == null || timestamp == 0 || v.mTimestamp != timestamp) {
+            return false;
+        }
+        v.mGeneration = generation;
+        return true;
+    }
+
+    synchronized void putVehicle(Vehicle vehicle, int generation) {
+        vehicle.mGeneration = generation;
+        Vehicle old = mVehicles.put(vehicle.mId, vehicle);
+        if (old != null) {
+            removeFromTrip(old);
+        }
+        if (vehicle.mTripId != null) {
+            mVehiclesByTrip.put(vehicle.mTripId, vehicle);
+        }
+    }
+
+    synchronized void removeVehicle(String id) {
+        Vehicle old = mVehicles.remove(id);
+        if (old != null) {
+            removeFromTrip(old);
+        }
+    }
+
+    /**
+     * Marks the trip update as contained in the feed if the index already has the predictions
+     * made at timestamp, so they don't have to be decoded again
+     *
+     * @return true if the trip update is unchanged
+     */
+    synchronized boolean touchTripUpdate(String tripId, long timestamp, int generation) {
+        TripUpdate t = mTrips.get(tripId);
+        if (t == null || timestamp == 0 || t.mTimestamp != timestamp) {
+            return false;
+        }
+        t.mGeneration = generation;
+        return true;
+    }
+
+    synchronized void putTripUpdate(TripUpdate tripUpdate, int generation) {
+        tripUpdate.mGeneration = generation;
+        mTrips.put(tripUpdate.mTripId, tripUpdate);
+    }
+
+    synchronized void removeTripUpdate(String tripId) {
+        mTrips.remove(tripId);
+    }
+
+    private void removeFromTrip(Vehicle v) {
+        if (v.mTripId != null && mVehiclesByTrip.get(v.mTripId) == v) {
+            mVehiclesByTrip.remove(v.mTripId);
+        }
+    }
+}
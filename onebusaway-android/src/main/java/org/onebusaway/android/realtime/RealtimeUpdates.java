@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.realtime;
+
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.elements.ObaTripDetails;
+import org.onebusaway.android.io.elements.ObaTripSchedule;
+import org.onebusaway.android.io.elements.ObaTripStatus;
+import org.onebusaway.android.io.elements.Occupancy;
+import org.onebusaway.android.io.elements.Status;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+/**
+ * Updates the responses of the OBA REST API with the vehicle positions and trip updates of a
+ * RealtimeIndex, so the vehicle map and the arrivals list can be refreshed from the GTFS-realtime
+ * feeds without requesting the whole response again
+ */
+public final class RealtimeUpdates {
+
+    private RealtimeUpdates() {
+    }
+
+    /**
+     * @return a copy of the response in which the status of each trip whose vehicle has a newer
+     * position in the index is updated with that position
+     */
+    public static ObaTripsForRouteResponse updateVehicles(ObaTripsForRouteResponse response,
+            RealtimeIndex index) {
+        ObaTripDetails[] trips = response.getTrips().clone();
+        for (int i = 0; i < trips.length; i++) {
+            ObaTripStatus status = trips[i].getStatus();
+            if (status == null) {
+                continue;
+            }
+            if (status instanceof VehicleStatus) {
+                // Updated by an earlier refresh
+                status = ((VehicleStatus) status).mStatus;
+            }
+            String tripId = status.getActiveTripId() != null ? status.getActiveTripId()
+                    : trips[i].getId();
+            RealtimeIndex.Vehicle vehicle = index.getVehicleForTrip(tripId);
+            if (vehicle == null && status.getVehicleId() != null) {
+                vehicle = index.getVehicle(status.getVehicleId());
+            }
+            if (vehicle != null && vehicle.getTimestamp() > status.getLastLocationUpdateTime()) {
+                trips[i] = new TripDetails(trips[i], new VehicleStatus(status, vehicle));
+            }
+        }
+        return response.withTrips(trips);
+    }
+
+    /**
+     * @return a copy of the response in which the predicted times of each arrival whose trip has
+     * a newer trip update in the index are updated with that trip update
+     */
+    public static ObaArrivalInfoResponse updateArrivals(ObaArrivalInfoResponse response,
+            RealtimeIndex index) {
+        ObaArrivalInfo[] arrivals = response.getArrivalInfo().clone();
+        for (int i = 0; i < arrivals.length; i++) {
+            ObaArrivalInfo arrival = arrivals[i];
+            RealtimeIndex.TripUpdate update = index.getTripUpdate(arrival.getTripId());
+            if (update == null || (update.getTimestamp() != 0
+                    && update.getTimestamp() <= arrival.getLastUpdateTime())) {
+                continue;
+            }
+            String stopId = arrival.getStopId();
+            long predictedArrival = update.getPredictedTime(stopId,
+                    arrival.getScheduledArrivalTime(), true);
+            long predictedDeparture = update.getPredictedTime(stopId,
+                    arrival.getScheduledDepartureTime(), false);
+            if (predictedArrival == RealtimeIndex.NO_PREDICTION
+                    && predictedDeparture == RealtimeIndex.NO_PREDICTION) {
+                continue;
+            }
+            arrivals[i] = arrival.withPrediction(
+                    predictedArrival != RealtimeIndex.NO_PREDICTION ? predictedArrival
+                            : predictedDeparture,
+                    predictedDeparture != RealtimeIndex.NO_PREDICTION ? predictedDeparture
+                            : predictedArrival,
+                    Math.max(update.getTimestamp(), arrival.getLastUpdateTime()));
+        }
+        return response.withArrivalInfo(arrivals);
+    }
+
+    /**
+     * Converts a GTFS-realtime bearing, clockwise from north, to an OBA orientation,
+     * counterclockwise from east
+     */
+    static double toOrientation(float bearing) {
+        return ((450 - bearing) % 360 + 360) % 360;
+    }
+
+    private static final class TripDetails implements ObaTripDetails {
+
+        private final ObaTripDetails mTrip;
+
+        private final ObaTripStatus mStatus;
+
+        TripDetails(ObaTripDetails trip, ObaTripStatus status) {
+            mTrip = trip instanceof TripDetails ? ((TripDetails) trip).mTrip : trip;
+            mStatus = status;
+        }
+
+        @Override
+        public String getId() {
+            return mTrip.getId();
+        }
+
+        @Override
+        public ObaTripSchedule getSchedule() {
+            return mTrip.getSchedule();
+        }
+
+        @Override
+        public ObaTripStatus getStatus() {
+            return mStatus;
+        }
+    }
+
+    /**
+     * The status of a trip with the position of its vehicle in a GTFS-realtime feed
+     */
+    private static final class VehicleStatus implements ObaTripStatus {
+
+        private final ObaTripStatus mStatus;
+
+        private final RealtimeIndex.Vehicle mVehicle;
+
+        VehicleStatus(ObaTripStatus status, RealtimeIndex.Vehicle vehicle) {
+            mStatus = status;
+            mVehicle = vehicle;
+        }
+
+        @Override
+        public long getServiceDate() {
+            return mStatus.getServiceDate();
+        }
+
+        @Override
+        public boolean isPredicted() {
+            return true;
+        }
+
+        @Override
+        public long getScheduleDeviation() {
+            return mStatus.getScheduleDeviation();
+        }
+
+        @Override
+        public String getVehicleId() {
+            return mStatus.getVehicleId();
+        }
+
+        @Override
+        public String getClosestStop() {
+            return mStatus.getClosestStop();
+        }
+
+        @Override
+        public long getClosestStopTimeOffset() {
+            return mStatus.getClosestStopTimeOffset();
+        }
+
+        @Override
+        public Location getPosition() {
+            return LocationUtils.makeLocation(mVehicle.getLatitude(), mVehicle.getLongitude());
+        }
+
+        @Override
+        public String getActiveTripId() {
+            return mStatus.getActiveTripId();
+        }
+
+        @Override
+        public Double getDistanceAlongTrip() {
+            return mStatus.getDistanceAlongTrip();
+        }
+
+        @Override
+        public Double getScheduledDistanceAlongTrip() {
+            return mStatus.getScheduledDistanceAlongTrip();
+        }
+
+        @Override
+        public Double getTotalDistanceAlongTrip() {
+            return mStatus.getTotalDistanceAlongTrip();
+        }
+
+        @Override
+        public Double getOrientation() {
+            return Float.isNaN(mVehicle.getBearing()) ? mStatus.getOrientation()
+                    : toOrientation(mVehicle.getBearing());
+        }
+
+        @Override
+        public String getNextStop() {
+            return mStatus.getNextStop();
+        }
+
+        @Override
+        public Long getNextStopTimeOffset() {
+            return mStatus.getNextStopTimeOffset();
+        }
+
+        @Override
+        public String getPhase() {
+            return mStatus.getPhase();
+        }
+
+        @Override
+        public Status getStatus() {
+            return mStatus.getStatus();
+        }
+
+        @Override
+        public long getLastUpdateTime() {
+            return Math.max(mStatus.getLastUpdateTime(), mVehicle.getTimestamp());
+        }
+
+        @Override
+        public Location getLastKnownLocation() {
+            return getPosition();
+        }
+
+        @Override
+        public long getLastLocationUpdateTime() {
+            return mVehicle.getTimestamp();
+        }
+
+        @Override
+        public Double getLastKnownOrientation() {
+            return Float.isNaN(mVehicle.getBearing()) ? mStatus.getLastKnownOrientation()
+                    : toOrientation(mVehicle.getBearing());
+        }
+
+        @Override
+        public int getBlockTripSequence() {
+            return mStatus.getBlockTripSequence();
+        }
+
+        @Override
+        public Occupancy getOccupancyStatus() {
+            return mStatus.getOccupancyStatus();
+        }
+    }
+}
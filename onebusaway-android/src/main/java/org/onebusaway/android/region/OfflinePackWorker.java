@@ -0,0 +1,535 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaAgencyWithCoverage;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageRequest;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageResponse;
+import org.onebusaway.android.io.request.ObaRouteIdsForAgencyRequest;
+import org.onebusaway.android.io.request.ObaRouteIdsForAgencyResponse;
+import org.onebusaway.android.io.request.ObaStopIdsForAgencyRequest;
+import org.onebusaway.android.io.request.ObaStopIdsForAgencyResponse;
+import org.onebusaway.android.io.request.ObaStopsForRouteRequest;
+import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.BackgroundExecutor;
+import org.onebusaway.android.util.DBUtil;
+import org.onebusaway.android.util.PreferenceUtils;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.provider.BaseColumns;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Downloads the stops and routes of all agencies in the current region into the local provider
+ * (an "offline pack"), so the map, the stop cache and search work for the whole region without
+ * a network connection, instead of only for the places the user has already browsed.
+ *
+ * The stop and route IDs of each agency are compared to the ones already stored for the region,
+ * and only the routes that are new (or that serve new stops) are downloaded with
+ * stops-for-route requests.  Stops and routes that no longer exist are removed, unless the user
+ * saved them as a favorite or renamed them, or the server returned an incomplete list of the IDs
+ * of their agency.  The whole catalogue is downloaded again every FULL_REFRESH_DAYS, so changes
+ * to existing stops (e.g., names) are picked up.
+ *
+ * The pack is refreshed periodically, only on unmetered networks.
+ */
+public class OfflinePackWorker extends Worker {
+
+    private static final String TAG = "OfflinePackWorker";
+
+    private static final String PERIODIC_WORK = "offlinePackPeriodic";
+
+    private static final String REGION_CHANGED_WORK = "offlinePackRegionChanged";
+
+    private static final String PREFERENCE_FULL_REFRESH = "offlinePackFullRefresh-";
+
+    private static final long REFRESH_DAYS = 7;
+
+    private static final long FULL_REFRESH_DAYS = 30;
+
+    // Maximum number of stops-for-route requests in flight at the same time, less than the
+    // threads of the NETWORK pool so the requests of the screens aren't queued behind them
+    private static final int MAX_CONCURRENT_REQUESTS = 2;
+
+    // Number of operations written to the provider in a single transaction.  Batches are bounded
+    // so the map can still read from the provider while a pack is written.
+    private static final int OPERATIONS_PER_TRANSACTION = 1000;
+
+    public OfflinePackWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the periodic refresh of the offline pack, and if the region changed, a download
+     * of the pack for the new region
+     */
+    public static void schedule(Context context, boolean regionChanged) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .setRequiresStorageNotLow(true)
+                .build();
+        WorkManager workManager = WorkManager.getInstance(context);
+
+        PeriodicWorkRequest periodic = new PeriodicWorkRequest.Builder(OfflinePackWorker.class,
+                REFRESH_DAYS, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        workManager.enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP,
+                periodic);
+
+        if (regionChanged) {
+            OneTimeWorkRequest now = new OneTimeWorkRequest.Builder(OfflinePackWorker.class)
+                    .setConstraints(constraints)
+                    .build();
+            workManager.enqueueUniqueWork(REGION_CHANGED_WORK, ExistingWorkPolicy.REPLACE, now);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ObaRegion region = Application.get().getCurrentRegion();
+        if (region == null || !region.getSupportsObaDiscoveryApis()) {
+            // Custom API URL, or a region without the APIs we need
+            return Result.success();
+        }
+        try {
+            return update(region) ? Result.success() : Result.retry();
+        } catch (InterruptedException e) {
+            // Work was stopped - e.g., the device is no longer on an unmetered network
+            return Result.retry();
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Couldn't save offline pack - " + e);
+            return Result.failure();
+        }
+    }
+
+    /**
+     * Downloads the changes to the stops and routes of the region, and writes them to the
+     * provider
+     *
+     * @return true if the pack was updated, false if a request failed and it should be retried
+     */
+    private boolean update(ObaRegion region) throws InterruptedException, RemoteException,
+            OperationApplicationException {
+        Context context = getApplicationContext();
+        long start = System.currentTimeMillis();
+
+        ObaAgenciesWithCoverageResponse agencies =
+                ObaAgenciesWithCoverageRequest.newRequest(context).call();
+        if (agencies.getCode() != ObaApi.OBA_OK) {
+            Log.d(TAG, "Couldn't get agencies - " + agencies.getCode());
+            return false;
+        }
+        Set<String> serverStopIds = new HashSet<>();
+        Set<String> serverRouteIds = new HashSet<>();
+        Set<String> incompleteAgencyIds = new HashSet<>();
+        for (ObaAgencyWithCoverage agency : agencies.getAgencies()) {
+            if (isStopped()) {
+                throw new InterruptedException();
+            }
+            ObaStopIdsForAgencyResponse stops =
+                    ObaStopIdsForAgencyRequest.newRequest(context, agency.getId()).call();
+            ObaRouteIdsForAgencyResponse routes =
+                    ObaRouteIdsForAgencyRequest.newRequest(context, agency.getId()).call();
+            if (stops.getCode() != ObaApi.OBA_OK || routes.getCode() != ObaApi.OBA_OK) {
+                Log.d(TAG, "Couldn't get IDs for agency " + agency.getId());
+                return false;
+            }
+            if (stops.getLimitExceeded() || routes.getLimitExceeded()) {
+                // The ID lists are incomplete, so we can't tell which stops were removed
+                Log.w(TAG, "Too many stops or routes for agency " + agency.getId()
+                        + ", its stops and routes won't be removed");
+                incompleteAgencyIds.add(agency.getId());
+            }
+            serverStopIds.addAll(Arrays.asList(stops.getStopIds()));
+            serverRouteIds.addAll(Arrays.asList(routes.getRouteIds()));
+        }
+
+        ContentResolver cr = context.getContentResolver();
+        // Stops and routes stored by older versions may not have a region
+        Set<String> localStopIds = queryIds(cr, ObaContract.Stops.CONTENT_URI,
+                ObaContract.Stops._ID, null, 0);
+        Set<String> localRouteIds = queryIds(cr, ObaContract.Routes.CONTENT_URI,
+                ObaContract.Routes._ID, null, 0);
+        Set<String> regionStopIds = queryIds(cr, ObaContract.Stops.CONTENT_URI,
+                ObaContract.Stops._ID, ObaContract.Stops.REGION_ID, region.getId());
+        Set<String> regionRouteIds = queryIds(cr, ObaContract.Routes.CONTENT_URI,
+                ObaContract.Routes._ID, ObaContract.Routes.REGION_ID, region.getId());
+
+        String fullRefreshKey = PREFERENCE_FULL_REFRESH + region.getId();
+        long lastFullRefresh = PreferenceUtils.getLong(fullRefreshKey, 0);
+        boolean fullRefresh = start - lastFullRefresh > TimeUnit.DAYS.toMillis(FULL_REFRESH_DAYS);
+
+        Set<String> newStopIds = difference(serverStopIds, localStopIds);
+        Set<String> routeIds = fullRefresh ? serverRouteIds
+                : difference(serverRouteIds, localRouteIds);
+
+        Map<String, ObaStop> stops = new HashMap<>();
+        Map<String, ObaRoute> routes = new HashMap<>();
+        if (!fetchStopsForRoutes(context, routeIds, stops, routes)) {
+            return false;
+        }
+        if (!fullRefresh && !stops.keySet().containsAll(newStopIds)) {
+            // New stops were added to existing routes - we don't know which ones, so get them all
+            Set<String> remaining = difference(serverRouteIds, routeIds);
+            if (!fetchStopsForRoutes(context, remaining, stops, routes)) {
+                return false;
+            }
+            fullRefresh = true;
+        }
+
+        Set<String> filteredStopIds = queryIds(cr, ObaContract.StopRouteFilters.CONTENT_URI,
+                ObaContract.StopRouteFilters.STOP_ID, null, 0);
+
+        Diff diff = new Diff(stops.keySet(), routes.keySet(), serverStopIds, serverRouteIds,
+                localStopIds, localRouteIds, regionStopIds, regionRouteIds, incompleteAgencyIds);
+
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        for (ObaRoute route : routes.values()) {
+            ContentValues values = DBUtil.getRouteValues(route, region.getId());
+            addUpsert(ops, ObaContract.Routes.CONTENT_URI, ObaContract.Routes._ID, route.getId(),
+                    values, diff.getChangedRouteIds().contains(route.getId()),
+                    ObaContract.Routes.USE_COUNT);
+        }
+        for (ObaStop stop : stops.values()) {
+            ContentValues values = DBUtil.getStopValues(stop, region.getId());
+            addUpsert(ops, ObaContract.Stops.CONTENT_URI, ObaContract.Stops._ID, stop.getId(),
+                    values, diff.getChangedStopIds().contains(stop.getId()),
+                    ObaContract.Stops.USE_COUNT);
+            // Don't replace the route filter of a stop, which may have been set by the user
+            if (!filteredStopIds.contains(stop.getId())) {
+                for (String routeId : stop.getRouteIds()) {
+                    ops.add(ContentProviderOperation
+                            .newInsert(ObaContract.StopRouteFilters.CONTENT_URI)
+                            .withValue(ObaContract.StopRouteFilters.STOP_ID, stop.getId())
+                            .withValue(ObaContract.StopRouteFilters.ROUTE_ID, routeId)
+                            .build());
+                }
+            }
+        }
+        for (String stopId : diff.getRemovedStopIds()) {
+            addDelete(ops, ObaContract.Stops.CONTENT_URI, stopId, ObaContract.Stops.FAVORITE,
+                    ObaContract.Stops.USER_NAME);
+            ops.add(ContentProviderOperation.newDelete(ObaContract.StopRouteFilters.CONTENT_URI)
+                    .withSelection(ObaContract.StopRouteFilters.STOP_ID + "=?",
+                            new String[]{stopId})
+                    .build());
+        }
+        for (String routeId : diff.getRemovedRouteIds()) {
+            addDelete(ops, ObaContract.Routes.CONTENT_URI, routeId, ObaContract.Routes.FAVORITE,
+                    ObaContract.Routes.USER_NAME);
+        }
+
+        for (int i = 0; i < ops.size(); i += OPERATIONS_PER_TRANSACTION) {
+            if (isStopped()) {
+                throw new InterruptedException();
+            }
+            List<ContentProviderOperation> batch =
+                    ops.subList(i, Math.min(ops.size(), i + OPERATIONS_PER_TRANSACTION));
+            cr.applyBatch(ObaContract.AUTHORITY, new ArrayList<>(batch));
+        }
+
+        if (fullRefresh) {
+            PreferenceUtils.saveLong(fullRefreshKey, start);
+        }
+        Log.d(TAG, "Offline pack for region " + region.getId() + " updated in "
+                + (System.currentTimeMillis() - start) + "ms - " + stops.size() + " stops and "
+                + routes.size() + " routes downloaded, " + ops.size() + " operations");
+        return true;
+    }
+
+    /**
+     * The changes to the stops and routes stored for a region: the downloaded rows that are
+     * added or changed, and the rows of the region that no longer exist on the server.  Rows of
+     * agencies whose ID lists are incomplete are never removed.
+     */
+    public static class Diff {
+
+        private final Set<String> mAddedStopIds;
+
+        private final Set<String> mChangedStopIds;
+
+        private final Set<String> mRemovedStopIds;
+
+        private final Set<String> mAddedRouteIds;
+
+        private final Set<String> mChangedRouteIds;
+
+        private final Set<String> mRemovedRouteIds;
+
+        /**
+         * @param fetchedStopIds      IDs of the downloaded stops
+         * @param fetchedRouteIds     IDs of the downloaded routes
+         * @param serverStopIds       IDs of the stops of all agencies on the server
+         * @param serverRouteIds      IDs of the routes of all agencies on the server
+         * @param localStopIds        IDs of all stops in the provider
+         * @param localRouteIds       IDs of all routes in the provider
+         * @param regionStopIds       IDs of the stops of the region in the provider
+         * @param regionRouteIds      IDs of the routes of the region in the provider
+         * @param incompleteAgencyIds IDs of the agencies with more stops or routes than the
+         *                            server returned
+         */
+        public Diff(Set<String> fetchedStopIds, Set<String> fetchedRouteIds,
+                Set<String> serverStopIds, Set<String> serverRouteIds, Set<String> localStopIds,
+                Set<String> localRouteIds, Set<String> regionStopIds, Set<String> regionRouteIds,
+                Set<String> incompleteAgencyIds) {
+            mAddedStopIds = difference(fetchedStopIds, localStopIds);
+            mChangedStopIds = difference(fetchedStopIds, mAddedStopIds);
+            mRemovedStopIds = removed(regionStopIds, serverStopIds, incompleteAgencyIds);
+            mAddedRouteIds = difference(fetchedRouteIds, localRouteIds);
+            mChangedRouteIds = difference(fetchedRouteIds, mAddedRouteIds);
+            mRemovedRouteIds = removed(regionRouteIds, serverRouteIds, incompleteAgencyIds);
+        }
+
+        public Set<String> getAddedStopIds() {
+            return mAddedStopIds;
+        }
+
+        public Set<String> getChangedStopIds() {
+            return mChangedStopIds;
+        }
+
+        public Set<String> getRemovedStopIds() {
+            return mRemovedStopIds;
+        }
+
+        public Set<String> getAddedRouteIds() {
+            return mAddedRouteIds;
+        }
+
+        public Set<String> getChangedRouteIds() {
+            return mChangedRouteIds;
+        }
+
+        public Set<String> getRemovedRouteIds() {
+            return mRemovedRouteIds;
+        }
+
+        /**
+         * @return the stored IDs that aren't on the server, except the ones of incomplete
+         * agencies, which may just be missing from the lists
+         */
+        private static Set<String> removed(Set<String> regionIds, Set<String> serverIds,
+                Set<String> incompleteAgencyIds) {
+            Set<String> removed = difference(regionIds, serverIds);
+            if (removed.isEmpty() || incompleteAgencyIds.isEmpty()) {
+                return removed;
+            }
+            Set<String> result = new HashSet<>();
+            for (String id : removed) {
+                if (!isFromAgency(id, incompleteAgencyIds)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return true if the ID (e.g., "1_75403") belongs to one of the agencies
+         */
+        private static boolean isFromAgency(String id, Set<String> agencyIds) {
+            for (String agencyId : agencyIds) {
+                if (id.startsWith(agencyId + "_")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Downloads the stops of the provided routes on the NETWORK pool of the BackgroundExecutor,
+     * with at most MAX_CONCURRENT_REQUESTS requests in flight, and adds them (and the routes) to
+     * the provided maps
+     *
+     * @return true if all requests succeeded, false if any failed
+     */
+    private boolean fetchStopsForRoutes(final Context context, Set<String> routeIds,
+            Map<String, ObaStop> stops, Map<String, ObaRoute> routes)
+            throws InterruptedException {
+        if (routeIds.isEmpty()) {
+            return true;
+        }
+        Executor executor = BackgroundExecutor.getInstance()
+                .getExecutor(BackgroundExecutor.Pool.NETWORK);
+        Iterator<String> pending = routeIds.iterator();
+        ArrayDeque<FutureTask<ObaStopsForRouteResponse>> futures = new ArrayDeque<>();
+        try {
+            while (futures.size() < MAX_CONCURRENT_REQUESTS && pending.hasNext()) {
+                futures.add(submitStopsForRoute(executor, context, pending.next()));
+            }
+            while (!futures.isEmpty()) {
+                // Stays in the queue until it's done, to be cancelled if the worker is stopped
+                FutureTask<ObaStopsForRouteResponse> future = futures.peek();
+                ObaStopsForRouteResponse response;
+                try {
+                    response = future.get();
+                    futures.poll();
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Couldn't get stops for route - " + e.getCause());
+                    return false;
+                }
+                if (response == null) {
+                    throw new InterruptedException();
+                }
+                if (response.getCode() != ObaApi.OBA_OK) {
+                    Log.d(TAG, "Couldn't get stops for route - " + response.getCode());
+                    return false;
+                }
+                for (ObaStop stop : response.getStops()) {
+                    stops.put(stop.getId(), stop);
+                }
+                ObaRoute route = response.getRoute(response.getRouteId());
+                if (route != null) {
+                    routes.put(route.getId(), route);
+                }
+                if (pending.hasNext()) {
+                    futures.add(submitStopsForRoute(executor, context, pending.next()));
+                }
+            }
+            return true;
+        } finally {
+            for (FutureTask<ObaStopsForRouteResponse> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private FutureTask<ObaStopsForRouteResponse> submitStopsForRoute(Executor executor,
+            final Context context, final String routeId) {
+        FutureTask<ObaStopsForRouteResponse> future = new FutureTask<>(() -> {
+            if (isStopped()) {
+                return null;
+            }
+            return new ObaStopsForRouteRequest.Builder(context, routeId)
+                    .setIncludeShapes(false)
+                    .build()
+                    .call();
+        });
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Adds an insert of a new row, or an update of an existing row that keeps the user data
+     * (e.g., use count and favorite) of the row
+     */
+    private static void addUpsert(List<ContentProviderOperation> ops, Uri contentUri,
+            String idColumn, String id, ContentValues values, boolean exists,
+            String useCountColumn) {
+        if (exists) {
+            ops.add(ContentProviderOperation.newUpdate(Uri.withAppendedPath(contentUri, id))
+                    .withValues(values)
+                    .build());
+        } else {
+            values.put(idColumn, id);
+            // Downloaded rows haven't been used, so they don't show up as recent stops or routes
+            values.put(useCountColumn, 0);
+            ops.add(ContentProviderOperation.newInsert(contentUri)
+                    .withValues(values)
+                    .build());
+        }
+    }
+
+    /**
+     * Adds a delete of a row that no longer exists on the server, unless the user saved it as a
+     * favorite or renamed it
+     */
+    private static void addDelete(List<ContentProviderOperation> ops, Uri contentUri, String id,
+            String favoriteColumn, String userNameColumn) {
+        ops.add(ContentProviderOperation.newDelete(contentUri)
+                .withSelection(BaseColumns._ID + "=? AND (" + favoriteColumn + " IS NULL OR "
+                        + favoriteColumn + "=0) AND " + userNameColumn + " IS NULL",
+                        new String[]{id})
+                .build());
+    }
+
+    /**
+     * @return the values of idColumn in the table, for the rows in the region if regionColumn
+     * isn't null
+     */
+    private static Set<String> queryIds(ContentResolver cr, Uri uri, String idColumn,
+            String regionColumn, long regionId) {
+        Set<String> ids = new HashSet<>();
+        String selection = regionColumn != null ? regionColumn + "=?" : null;
+        String[] selectionArgs = regionColumn != null ? new String[]{String.valueOf(regionId)}
+                : null;
+        Cursor c = cr.query(uri, new String[]{idColumn}, selection, selectionArgs, null);
+        if (c != null) {
+            try {
+                while (c.moveToNext()) {
+                    ids.add(c.getString(0));
+                }
+            } finally {
+                c.close();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return the elements of a that aren't in b
+     */
+    static Set<String> difference(Set<String> a, Set<String> b) {
+        if (a.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<>(a);
+        result.removeAll(b);
+        return result;
+    }
+}
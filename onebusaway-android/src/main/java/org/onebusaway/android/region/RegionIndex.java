@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region;
+
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable in-memory index of a set of regions, used to answer "which region is closest to
+ * this location?" and "is this location within this region?" without touching the database or
+ * walking every region.
+ *
+ * The centers of all region bounds are stored as points on the unit sphere in a k-d tree, so the
+ * closest bound (and therefore the closest region, as defined by RegionUtils.getDistanceAway())
+ * is found in O(log n).  The lat/lon span of each region is computed once when the index is
+ * built.  Lookups don't allocate.
+ */
+public final class RegionIndex {
+
+    // Mean radius of the Earth, in meters
+    private static final double EARTH_RADIUS = 6371009;
+
+    private final List<ObaRegion> mRegions;
+
+    // Region ID -> span of the region, see RegionUtils.getRegionSpan()
+    private final LongSparseArray<double[]> mSpans;
+
+    // Bound centers in k-d tree order, as unit vectors
+    private final double[][] mPoints;
+
+    private final ObaRegion[] mPointRegions;
+
+    // True if the region of the point is usable, not considering if it's experimental
+    private final boolean[] mPointUsable;
+
+    private final boolean[] mPointExperimental;
+
+    /**
+     * Builds an index of the provided regions.  Regions are kept in order of their ID, which is
+     * the same order they are returned from the local provider.
+     *
+     * @param regions regions to index
+     */
+    public RegionIndex(List<ObaRegion> regions) {
+        List<ObaRegion> sorted = new ArrayList<>(regions);
+        Collections.sort(sorted, new Comparator<ObaRegion>() {
+            @Override
+            public int compare(ObaRegion r1, ObaRegion r2) {
+                return Long.compare(r1.getId(), r2.getId());
+            }
+        });
+        mRegions = Collections.unmodifiableList(sorted);
+
+        mSpans = new LongSparseArray<>(sorted.size());
+        List<Point> points = new ArrayList<>();
+        for (ObaRegion region : sorted) {
+            ObaRegion.Bounds[] bounds = region.getBounds();
+            if (bounds == null || bounds.length == 0) {
+                continue;
+            }
+            double[] span = new double[4];
+            RegionUtils.getRegionSpan(region, span);
+            mSpans.put(region.getId(), span);
+
+            boolean usable = region.getActive() && region.getSupportsObaDiscoveryApis()
+                    && region.getSupportsObaRealtimeApis();
+            for (ObaRegion.Bounds bound : bounds) {
+                points.add(new Point(toUnitVector(bound.getLat(), bound.getLon()), region,
+                        usable));
+            }
+        }
+
+        build(points, 0, points.size(), 0);
+
+        int size = points.size();
+        mPoints = new double[size][];
+        mPointRegions = new ObaRegion[size];
+        mPointUsable = new boolean[size];
+        mPointExperimental = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Point p = points.get(i);
+            mPoints[i] = p.xyz;
+            mPointRegions[i] = p.region;
+            mPointUsable[i] = p.usable;
+            mPointExperimental[i] = p.region.getExperimental();
+        }
+    }
+
+    /**
+     * @return the indexed regions, in order of their ID
+     */
+    public List<ObaRegion> getRegions() {
+        return mRegions;
+    }
+
+    /**
+     * Returns the precomputed span of the region with the same ID as the provided region, in the
+     * format of RegionUtils.getRegionSpan().  The returned array must not be modified.
+     *
+     * @return the span of the region, or null if the region isn't in this index or has no bounds
+     */
+    public double[] getRegionSpan(ObaRegion region) {
+        return mSpans.get(region.getId());
+    }
+
+    /**
+     * Returns the usable region with a bound center closest to the given location
+     *
+     * @param lat               latitude of the location
+     * @param lon               longitude of the location
+     * @param allowExperimental true if experimental regions can be returned, false if they can't
+     * @param maxDistance       maximum distance (in meters) to the closest bound center, or
+     *                          Double.MAX_VALUE if the distance shouldn't be limited
+     * @return the closest usable region, or null if there isn't one within maxDistance
+     */
+    public ObaRegion getClosestRegion(double lat, double lon, boolean allowExperimental,
+            double maxDistance) {
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        double x = Math.cos(latRad) * Math.cos(lonRad);
+        double y = Math.cos(latRad) * Math.sin(lonRad);
+        double z = Math.sin(latRad);
+
+        int best = nearest(0, mPoints.length, 0, x, y, z, allowExperimental, -1);
+        if (best < 0) {
+            return null;
+        }
+        // Convert the chord length between the unit vectors to a great circle distance
+        double chord = Math.sqrt(distanceSquared(mPoints[best], x, y, z));
+        double distance = 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, chord / 2));
+        return distance < maxDistance ? mPointRegions[best] : null;
+    }
+
+    private int nearest(int lo, int hi, int depth, double x, double y, double z,
+            boolean allowExperimental, int best) {
+        if (lo >= hi) {
+            return best;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (mPointUsable[mid] && (allowExperimental || !mPointExperimental[mid])) {
+            if (best < 0 || distanceSquared(mPoints[mid], x, y, z)
+                    < distanceSquared(mPoints[best], x, y, z)) {
+                best = mid;
+            }
+        }
+
+        int axis = depth % 3;
+        double diff = mPoints[mid][axis] - (axis == 0 ? x : axis == 1 ? y : z);
+        if (diff > 0) {
+            best = nearest(lo, mid, depth + 1, x, y, z, allowExperimental, best);
+            if (best < 0 || diff * diff < distanceSquared(mPoints[best], x, y, z)) {
+                best = nearest(mid + 1, hi, depth + 1, x, y, z, allowExperimental, best);
+            }
+        } else {
+            best = nearest(mid + 1, hi, depth + 1, x, y, z, allowExperimental, best);
+            if (best < 0 || diff * diff < distanceSquared(mPoints[best], x, y, z)) {
+                best = nearest(lo, mid, depth + 1, x, y, z, allowExperimental, best);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sorts the points in the range so the median on the axis for this depth is in the middle of
+     * the range, with smaller points before it and larger points after it, and recurses
+     */
+    private static void build(List<Point> points, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        final int axis = depth % 3;
+        Collections.sort(points.subList(lo, hi), new Comparator<Point>() {
+            @Override
+            public int compare(Point p1, Point p2) {
+                return Double.compare(p1.xyz[axis], p2.xyz[axis]);
+            }
+        });
+        int mid = (lo + hi) >>> 1;
+        build(points, lo, mid, depth + 1);
+        build(points, mid + 1, hi, depth + 1);
+    }
+
+    private static double distanceSquared(double[] p, double x, double y, double z) {
+        double dx = p[0] - x;
+        double dy = p[1] - y;
+        double dz = p[2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double[] toUnitVector(double lat, double lon) {
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        return new double[]{
+                Math.cos(latRad) * Math.cos(lonRad),
+                Math.cos(latRad) * Math.sin(lonRad),
+                Math.sin(latRad)
+        };
+    }
+
+    private static class Point {
+
+        final double[] xyz;
+
+        final ObaRegion region;
+
+        final boolean usable;
+
+        Point(double[] xyz, ObaRegion region, boolean usable) {
+            this.xyz = xyz;
+            this.region = region;
+            this.usable = usable;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.os.RemoteException;
+import android.util.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes a list of regions (e.g., from the Regions REST API) to the local provider, changing only
+ * the regions that were added, changed or removed since the last sync, in a single transaction.
+ *
+ * A hash of the whole catalog is kept in the preferences, and if the list hasn't changed since
+ * the last sync the provider isn't written at all, so observers of the regions aren't notified.
+ */
+public class RegionSync {
+
+    private static final String TAG = "RegionSync";
+
+    private static final String PREFERENCE_CATALOG_HASH = "regionCatalogHash";
+
+    /**
+     * What a sync changed in the provider
+     */
+    public static class Result {
+
+        private final boolean mSkipped;
+
+        private final int mInserted;
+
+        private final int mUpdated;
+
+        private final int mDeleted;
+
+        Result(boolean skipped, int inserted, int updated, int deleted) {
+            mSkipped = skipped;
+            mInserted = inserted;
+            mUpdated = updated;
+            mDeleted = deleted;
+        }
+
+        /**
+         * @return true if the catalog hadn't changed and the provider wasn't written
+         */
+        public boolean isSkipped() {
+            return mSkipped;
+        }
+
+        public int getInserted() {
+            return mInserted;
+        }
+
+        public int getUpdated() {
+            return mUpdated;
+        }
+
+        public int getDeleted() {
+            return mDeleted;
+        }
+
+        /**
+         * @return true if the sync changed the provider
+         */
+        public boolean hasChanges() {
+            return mInserted + mUpdated + mDeleted > 0;
+        }
+
+        @Override
+        public String toString() {
+            return mSkipped ? "unchanged" : String.format(Locale.US,
+                    "%d inserted, %d updated, %d deleted", mInserted, mUpdated, mDeleted);
+        }
+    }
+
+    /**
+     * Writes the usable regions of the list to the provider, and removes the regions of the
+     * provider that aren't in the list
+     *
+     * @param regions the whole catalog of regions
+     * @return what the sync changed
+     */
+    public static synchronized Result sync(Context context, List<ObaRegion> regions)
+            throws RemoteException, OperationApplicationException {
+        // Regions of the catalog, and their contents, by ID
+        Map<Long, ObaRegion> fetched = new TreeMap<>();
+        Map<Long, String> fetchedContents = new TreeMap<>();
+        for (ObaRegion region : regions) {
+            if (!RegionUtils.isRegionUsable(region)) {
+                Log.d(TAG, "Skipping insert of '" + region.getName() + "' to provider...");
+                continue;
+            }
+            fetched.put(region.getId(), region);
+            fetchedContents.put(region.getId(), toContents(region));
+        }
+        String hash = hash(fetchedContents);
+
+        ContentResolver cr = context.getContentResolver();
+        if (hash.equals(Application.getPrefs().getString(PREFERENCE_CATALOG_HASH, null))
+                && countRegions(cr) == fetched.size()) {
+            Log.d(TAG, "Region catalog is unchanged");
+            return new Result(true, 0, 0, 0);
+        }
+
+        Map<Long, String> storedContents = new HashMap<>();
+        List<ObaRegion> stored = RegionUtils.readRegionsFromProvider(context);
+        if (stored != null) {
+            for (ObaRegion region : stored) {
+                storedContents.put(region.getId(), toContents(region));
+            }
+        }
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        int deleted = 0;
+        for (Long id : new TreeSet<>(storedContents.keySet())) {
+            if (!fetched.containsKey(id)) {
+                // The bounds are deleted with the region by a trigger
+                operations.add(ContentProviderOperation
+                        .newDelete(ObaContract.Regions.buildUri(id.intValue())).build());
+                addDeleteOpen311Servers(operations, id);
+                deleted++;
+            }
+        }
+        for (Map.Entry<Long, ObaRegion> entry : fetched.entrySet()) {
+            long id = entry.getKey();
+            ObaRegion region = entry.getValue();
+            String contents = storedContents.get(id);
+            if (contents == null) {
+                operations.add(ContentProviderOperation
+                        .newInsert(ObaContract.Regions.CONTENT_URI)
+                        .withValues(toContentValues(region))
+                        .build());
+                addInsertChildren(operations, region);
+                inserted++;
+            } else if (!contents.equals(fetchedContents.get(id))) {
+                operations.add(ContentProviderOperation
+                        .newUpdate(ObaContract.Regions.buildUri((int) id))
+                        .withValues(toContentValues(region))
+                        .build());
+                operations.add(ContentProviderOperation
+                        .newDelete(ObaContract.RegionBounds.CONTENT_URI)
+                        .withSelection(ObaContract.RegionBounds.REGION_ID + "=?",
+                                new String[]{String.valueOf(id)})
+                        .build());
+                addDeleteOpen311Servers(operations, id);
+                addInsertChildren(operations, region);
+                updated++;
+            }
+        }
+
+        if (!operations.isEmpty()) {
+            cr.applyBatch(ObaContract.AUTHORITY, operations);
+        }
+        PreferenceUtils.saveString(PREFERENCE_CATALOG_HASH, hash);
+        Result result = new Result(false, inserted, updated, deleted);
+        Log.d(TAG, "Synced region catalog: " + result);
+        return result;
+    }
+
+    /**
+     * Forgets the hash of the last sync, so the next sync compares the catalog with the provider
+     */
+    public static void resetForTesting() {
+        PreferenceUtils.saveString(PREFERENCE_CATALOG_HASH, null);
+    }
+
+    private static int countRegions(ContentResolver cr) {
+        Cursor c = cr.query(ObaContract.Regions.CONTENT_URI,
+                new String[]{ObaContract.Regions._ID}, null, null, null);
+        if (c == null) {
+            return 0;
+        }
+        try {
+            return c.getCount();
+        } finally {
+            c.close();
+        }
+    }
+
+    private static void addDeleteOpen311Servers(List<ContentProviderOperation> operations,
+            long id) {
+        operations.add(ContentProviderOperation
+                .newDelete(ObaContract.RegionOpen311Servers.CONTENT_URI)
+                .withSelection(ObaContract.RegionOpen311Servers.REGION_ID + "=?",
+                        new String[]{String.valueOf(id)})
+                .build());
+    }
+
+    private static void addInsertChildren(List<ContentProviderOperation> operations,
+            ObaRegion region) {
+        ObaRegion.Bounds[] bounds = region.getBounds();
+        if (bounds != null) {
+            for (ObaRegion.Bounds b : bounds) {
+                operations.add(ContentProviderOperation
+                        .newInsert(ObaContract.RegionBounds.CONTENT_URI)
+                        .withValues(toContentValues(region.getId(), b))
+                        .build());
+            }
+        }
+        ObaRegion.Open311Server[] open311Servers = region.getOpen311Servers();
+        if (open311Servers != null) {
+            for (ObaRegion.Open311Server server : open311Servers) {
+                operations.add(ContentProviderOperation
+                        .newInsert(ObaContract.RegionOpen311Servers.CONTENT_URI)
+                        .withValues(toContentValues(region.getId(), server))
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * @return everything the provider stores for the region, in a stable order, so a region read
+     * from the provider has the same contents as the region it was written from
+     */
+    private static String toContents(ObaRegion region) {
+        StringBuilder contents = new StringBuilder();
+        append(contents, toContentValues(region));
+        ObaRegion.Bounds[] bounds = region.getBounds();
+        if (bounds != null) {
+            for (ObaRegion.Bounds b : bounds) {
+                contents.append("\nbounds:");
+                append(contents, toContentValues(region.getId(), b));
+            }
+        }
+        ObaRegion.Open311Server[] open311Servers = region.getOpen311Servers();
+        if (open311Servers != null) {
+            for (ObaRegion.Open311Server server : open311Servers) {
+                contents.append("\nopen311:");
+                append(contents, toContentValues(region.getId(), server));
+            }
+        }
+        return contents.toString();
+    }
+
+    private static void append(StringBuilder contents, ContentValues values) {
+        for (String key : new TreeSet<>(values.keySet())) {
+            contents.append(key).append('=').append(values.get(key)).append(';');
+        }
+    }
+
+    private static String hash(Map<Long, String> contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<Long, String> entry : contents.entrySet()) {
+                digest.update((entry.getKey() + "\n" + entry.getValue() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format(Locale.US, "%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android device has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ContentValues toContentValues(ObaRegion region) {
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.Regions._ID, region.getId());
+        values.put(ObaContract.Regions.NAME, region.getName());
+        String obaUrl = region.getObaBaseUrl();
+        values.put(ObaContract.Regions.OBA_BASE_URL, obaUrl != null ? obaUrl : "");
+        String siriUrl = region.getSiriBaseUrl();
+        values.put(ObaContract.Regions.SIRI_BASE_URL, siriUrl != null ? siriUrl : "");
+        values.put(ObaContract.Regions.LANGUAGE, region.getLanguage());
+        values.put(ObaContract.Regions.CONTACT_EMAIL, region.getContactEmail());
+        values.put(ObaContract.Regions.SUPPORTS_OBA_DISCOVERY,
+                region.getSupportsObaDiscoveryApis() ? 1 : 0);
+        values.put(ObaContract.Regions.SUPPORTS_OBA_REALTIME,
+                region.getSupportsObaRealtimeApis() ? 1 : 0);
+        values.put(ObaContract.Regions.SUPPORTS_SIRI_REALTIME,
+                region.getSupportsSiriRealtimeApis() ? 1 : 0);
+        values.put(ObaContract.Regions.TWITTER_URL, region.getTwitterUrl());
+        values.put(ObaContract.Regions.EXPERIMENTAL, region.getExperimental());
+        values.put(ObaContract.Regions.STOP_INFO_URL, region.getStopInfoUrl());
+        values.put(ObaContract.Regions.OTP_BASE_URL, region.getOtpBaseUrl());
+        values.put(ObaContract.Regions.OTP_CONTACT_EMAIL, region.getOtpContactEmail());
+        values.put(ObaContract.Regions.SUPPORTS_OTP_BIKESHARE,
+                region.getSupportsOtpBikeshare() ? 1 : 0);
+        values.put(ObaContract.Regions.SUPPORTS_EMBEDDED_SOCIAL,
+                region.getSupportsEmbeddedSocial() ? 1 : 0);
+        values.put(ObaContract.Regions.PAYMENT_ANDROID_APP_ID, region.getPaymentAndroidAppId());
+        values.put(ObaContract.Regions.PAYMENT_WARNING_TITLE, region.getPaymentWarningTitle());
+        values.put(ObaContract.Regions.PAYMENT_WARNING_BODY, region.getPaymentWarningBody());
+        values.put(ObaContract.Regions.TRAVEL_BEHAVIOR_DATA_COLLECTION,
+                region.isTravelBehaviorDataCollectionEnabled() ? 1 : 0);
+        values.put(ObaContract.Regions.ENROLL_PARTICIPANTS_IN_STUDY,
+                region.isEnrollParticipantsInStudy() ? 1 : 0);
+        values.put(ObaContract.Regions.SIDECAR_BASE_URL, region.getSidecarBaseUrl());
+        values.put(ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL,
+                region.getPlausibleAnalyticsServerUrl());
+        values.put(ObaContract.Regions.GTFS_REALTIME_FEEDS,
+                ObaContract.Regions.toGtfsRealtimeFeedsJson(region.getGtfsRealtimeFeeds()));
+        return values;
+    }
+
+    private static ContentValues toContentValues(long region, ObaRegion.Bounds bounds) {
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.RegionBounds.REGION_ID, region);
+        values.put(ObaContract.RegionBounds.LATITUDE, bounds.getLat());
+        values.put(ObaContract.RegionBounds.LONGITUDE, bounds.getLon());
+        values.put(ObaContract.RegionBounds.LAT_SPAN, bounds.getLatSpan());
+        values.put(ObaContract.RegionBounds.LON_SPAN, bounds.getLonSpan());
+        return values;
+    }
+
+    private static ContentValues toContentValues(long region,
+            ObaRegion.Open311Server open311Server) {
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.RegionOpen311Servers.REGION_ID, region);
+        values.put(ObaContract.RegionOpen311Servers.BASE_URL, open311Server.getBaseUrl());
+        values.put(ObaContract.RegionOpen311Servers.JURISDICTION,
+                open311Server.getJuridisctionId());
+        values.put(ObaContract.RegionOpen311Servers.API_KEY, open311Server.getApiKey());
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region;
+
+import org.onebusaway.android.BuildConfig;
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.request.ObaRegionsRequest;
+import org.onebusaway.android.io.request.ObaRegionsResponse;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Periodically downloads the regions from the Regions REST API and syncs them to the local
+ * provider (see RegionSync), so the region catalog is refreshed in the background instead of
+ * when the app starts.
+ */
+public class RegionSyncWorker extends Worker {
+
+    private static final String TAG = "RegionSyncWorker";
+
+    private static final String PERIODIC_WORK = "regionSyncPeriodic";
+
+    private static final long REFRESH_DAYS = 7;
+
+    public RegionSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the periodic sync of the regions, if it isn't scheduled already
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest periodic = new PeriodicWorkRequest.Builder(RegionSyncWorker.class,
+                REFRESH_DAYS, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(PERIODIC_WORK,
+                ExistingPeriodicWorkPolicy.KEEP, periodic);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Application app = Application.get();
+        if (app.getCustomApiUrl() != null || BuildConfig.USE_FIXED_REGION) {
+            // The regions of the server aren't used
+            return Result.success();
+        }
+        ObaRegionsResponse response = ObaRegionsRequest.newRequest(getApplicationContext()).call();
+        if (response.getCode() != ObaApi.OBA_OK || response.getRegions() == null
+                || response.getRegions().length == 0) {
+            Log.d(TAG, "Couldn't get regions - " + response.getCode());
+            return Result.retry();
+        }
+        List<ObaRegion> regions = Arrays.asList(response.getRegions());
+        RegionSync.Result result = RegionUtils.saveToProvider(getApplicationContext(), regions);
+        if (result == null) {
+            return Result.failure();
+        }
+        app.setLastRegionUpdateDate(new Date().getTime());
+
+        ObaRegion current = app.getCurrentRegion();
+        if (result.hasChanges() && current != null) {
+            for (ObaRegion region : regions) {
+                if (region.getId() == current.getId() && RegionUtils.isRegionUsable(region)) {
+                    // Refresh the current region with the latest Regions API contents.  This
+                    // schedules work and notifies the screens, so do it on the main thread.
+                    new Handler(Looper.getMainLooper()).post(() -> {
+                        ObaRegion selected = app.getCurrentRegion();
+                        if (selected != null && selected.getId() == region.getId()) {
+                            app.setCurrentRegion(region, false);
+                        }
+                    });
+                    break;
+                }
+            }
+        }
+        return Result.success();
+    }
+}
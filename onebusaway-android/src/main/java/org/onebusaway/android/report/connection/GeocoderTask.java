@@ -19,12 +19,18 @@ import android.content.Context;
 import android.location.Address;
 import android.location.Geocoder;
 import android.location.Location;
-import android.os.AsyncTask;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import java.util.List;
 import java.util.Locale;
 
-public class GeocoderTask extends AsyncTask<Void, Integer, String> {
+/**
+ * Finds the address of a location in the background, on the network pool of BackgroundExecutor
+ */
+public class GeocoderTask {
 
     private Callback mCallback;
 
@@ -48,8 +54,18 @@ public class GeocoderTask extends AsyncTask<Void, Integer, String> {
         this.mContext = context;
     }
 
-    @Override
-    protected String doInBackground(Void... voids) {
+    /**
+     * Starts finding the address
+     *
+     * @param owner the screen showing the address, which cancels the task when destroyed
+     * @return the task, which can be used to cancel it
+     */
+    public BackgroundExecutor.Task execute(LifecycleOwner owner) {
+        return BackgroundExecutor.getInstance().submit(owner, BackgroundExecutor.Pool.NETWORK,
+                this::findAddress, mCallback::onGeocoderTaskCompleted);
+    }
+
+    private String findAddress() {
         String address = "";
         try {
             Geocoder geo = new Geocoder(mContext, Locale.getDefault());
@@ -69,9 +85,4 @@ public class GeocoderTask extends AsyncTask<Void, Integer, String> {
         }
         return address;
     }
-
-    @Override
-    protected void onPostExecute(String s) {
-        mCallback.onGeocoderTaskCompleted(s);
-    }
 }
\ No newline at end of file
@@ -16,18 +16,21 @@
 
 package org.onebusaway.android.report.connection;
 
-import android.os.AsyncTask;
+import androidx.lifecycle.LifecycleOwner;
+
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import edu.usf.cutr.open311client.Open311;
 import edu.usf.cutr.open311client.models.ServiceDescription;
 import edu.usf.cutr.open311client.models.ServiceDescriptionRequest;
 
 /**
- * Async task for getting service description of the given Open311 service
+ * Task for getting service description of the given Open311 service, run on the network pool of
+ * BackgroundExecutor
  *
  * @author Cagri Cetin
  */
-public class ServiceDescriptionTask extends AsyncTask<Void, Integer, ServiceDescription> {
+public class ServiceDescriptionTask {
 
     private ServiceDescriptionRequest mServiceDescriptionRequest;
 
@@ -51,13 +54,15 @@ public class ServiceDescriptionTask extends AsyncTask<Void, Integer, ServiceDesc
         this.mOpen311 = open311;
     }
 
-    @Override
-    protected ServiceDescription doInBackground(Void... params) {
-        return mOpen311.getServiceDescription(mServiceDescriptionRequest);
-    }
-
-    @Override
-    protected void onPostExecute(ServiceDescription serviceDescription) {
-        callback.onServiceDescriptionTaskCompleted(serviceDescription);
+    /**
+     * Starts the request
+     *
+     * @param owner the screen showing the service, which cancels the request when destroyed
+     * @return the task, which can be used to cancel the request
+     */
+    public BackgroundExecutor.Task execute(LifecycleOwner owner) {
+        return BackgroundExecutor.getInstance().submit(owner, BackgroundExecutor.Pool.NETWORK,
+                () -> mOpen311.getServiceDescription(mServiceDescriptionRequest),
+                callback::onServiceDescriptionTaskCompleted);
     }
 }
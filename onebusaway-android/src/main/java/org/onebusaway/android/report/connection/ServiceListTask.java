@@ -16,7 +16,9 @@
 
 package org.onebusaway.android.report.connection;
 
-import android.os.AsyncTask;
+import androidx.lifecycle.LifecycleOwner;
+
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import java.util.List;
 
@@ -26,11 +28,11 @@ import edu.usf.cutr.open311client.models.ServiceListRequest;
 import edu.usf.cutr.open311client.models.ServiceListResponse;
 
 /**
- * Async task for getting Open311 services
+ * Task for getting Open311 services, run on the network pool of BackgroundExecutor
  *
  * @author Cagri Cetin
  */
-public class ServiceListTask extends AsyncTask<Void, Integer, ServiceListResponse> {
+public class ServiceListTask {
 
     private ServiceListRequest mServiceListRequest;
 
@@ -57,8 +59,20 @@ public class ServiceListTask extends AsyncTask<Void, Integer, ServiceListRespons
         this.callback = callback;
     }
 
-    @Override
-    protected ServiceListResponse doInBackground(Void... params) {
+    /**
+     * Starts the request
+     *
+     * @param owner the screen showing the services, which cancels the request when destroyed
+     * @return the task, which can be used to cancel the request
+     */
+    public BackgroundExecutor.Task execute(LifecycleOwner owner) {
+        // mOpen311 is set in the background, and read on the main thread once the result is posted
+        return BackgroundExecutor.getInstance().submit(owner, BackgroundExecutor.Pool.NETWORK,
+                this::findServices,
+                services -> callback.onServicesTaskCompleted(services, mOpen311));
+    }
+
+    private ServiceListResponse findServices() {
         for (int i = 0; i < open311List.size(); i++) {
             this.mOpen311 = open311List.get(i);
             mServiceListRequest.setJurisdictionId(mOpen311.getJurisdiction());
@@ -74,9 +88,4 @@ public class ServiceListTask extends AsyncTask<Void, Integer, ServiceListRespons
         }
         return null;
     }
-
-    @Override
-    protected void onPostExecute(ServiceListResponse services) {
-        callback.onServicesTaskCompleted(services, mOpen311);
-    }
 }
@@ -16,18 +16,18 @@
 package org.onebusaway.android.report.connection;
 
 
-import android.os.AsyncTask;
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import edu.usf.cutr.open311client.Open311;
 import edu.usf.cutr.open311client.models.ServiceRequest;
 import edu.usf.cutr.open311client.models.ServiceRequestResponse;
 
 /**
- * Async task used to submit Open311 issue requests
+ * Task used to submit Open311 issue requests, run on the network pool of BackgroundExecutor
  *
  * @author Cagri Cetin
  */
-public class ServiceRequestTask extends AsyncTask<Void, Integer, ServiceRequestResponse> {
+public class ServiceRequestTask {
 
     private Open311 open311;
 
@@ -49,13 +49,15 @@ public class ServiceRequestTask extends AsyncTask<Void, Integer, ServiceRequestR
         this.open311 = open311;
     }
 
-    @Override
-    protected ServiceRequestResponse doInBackground(Void... params) {
-        return open311.postServiceRequest(serviceRequest);
-    }
-
-    @Override
-    protected void onPostExecute(ServiceRequestResponse response) {
-        callback.onServiceRequestTaskCompleted(response);
+    /**
+     * Starts submitting the issue.  The submission isn't tied to the screen, so it's only
+     * cancelled if the user cancels it.
+     *
+     * @return the task, which can be used to cancel the submission
+     */
+    public BackgroundExecutor.Task execute() {
+        return BackgroundExecutor.getInstance().submit(null, BackgroundExecutor.Pool.NETWORK,
+                () -> open311.postServiceRequest(serviceRequest),
+                callback::onServiceRequestTaskCompleted);
     }
 }
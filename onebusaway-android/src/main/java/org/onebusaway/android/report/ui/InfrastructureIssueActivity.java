@@ -591,7 +591,7 @@ public class InfrastructureIssueActivity extends BaseReportActivity implements
 
         List<Open311> open311List = Open311Manager.getAllOpen311();
         ServiceListTask serviceListTask = new ServiceListTask(slr, open311List, this);
-        serviceListTask.execute();
+        serviceListTask.execute(this);
     }
 
     /**
@@ -618,7 +618,7 @@ public class InfrastructureIssueActivity extends BaseReportActivity implements
      */
     private void syncAddressString(Location location) {
         GeocoderTask gct = new GeocoderTask(this, location, this);
-        gct.execute();
+        gct.execute(this);
     }
 
     /**
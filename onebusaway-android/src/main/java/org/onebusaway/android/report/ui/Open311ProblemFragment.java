@@ -28,6 +28,7 @@ import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
 import android.location.Location;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Parcelable;
 import android.provider.MediaStore;
@@ -68,13 +69,14 @@ import org.onebusaway.android.report.connection.ServiceRequestTask;
 import org.onebusaway.android.report.constants.ReportConstants;
 import org.onebusaway.android.report.ui.model.AttributeValue;
 import org.onebusaway.android.report.ui.util.IssueLocationHelper;
+import org.onebusaway.android.report.ui.util.ReportImageTask;
 import org.onebusaway.android.report.ui.util.ServiceUtils;
+import org.onebusaway.android.util.BackgroundExecutor;
 import org.onebusaway.android.util.MyTextUtils;
 import org.onebusaway.android.util.PreferenceUtils;
 import org.onebusaway.android.util.UIUtils;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
@@ -105,12 +107,21 @@ import edu.usf.cutr.open311client.models.ServiceRequestResponse;
 import edu.usf.cutr.open311client.utils.Open311Validator;
 
 public class Open311ProblemFragment extends BaseReportFragment implements
-        ServiceDescriptionTask.Callback, ServiceRequestTask.Callback {
+        ServiceDescriptionTask.Callback, ServiceRequestTask.Callback, ReportImageTask.Callback {
 
     private ImageView mIssueImageView;
 
     private String mImagePath;
 
+    // Downscaled copy of the image at mImagePath that is uploaded with the issue
+    private String mUploadImagePath;
+
+    // Task preparing the thumbnail and upload file for the image at mImagePath
+    private ReportImageTask mImageTask;
+
+    // True if the report should be submitted as soon as mImageTask completes
+    private boolean mSubmitPending = false;
+
     private Open311 mOpen311;
 
     private Service mService;
@@ -156,7 +167,7 @@ public class Open311ProblemFragment extends BaseReportFragment implements
     // Maps attribute name + id with its key
     private Map<String, String> mOpen311AttributeKeyNameMap = new HashMap<>();
 
-    private ServiceRequestTask mRequestTask;
+    private BackgroundExecutor.Task mRequestTask;
 
     private ReportProblemFragmentCallback mCallback;
 
@@ -168,7 +179,10 @@ public class Open311ProblemFragment extends BaseReportFragment implements
 
     private static final String IMAGE_URI = ".imageUri";
 
-    private static final String IMAGE_THUMBNAIL = ".imageThumbnail";
+    private static final String UPLOAD_IMAGE_PATH = ".uploadImage";
+
+    // Thumbnail size used if the image view hasn't been laid out yet
+    private static final int DEFAULT_THUMBNAIL_SIZE = 400;
 
     private static final String TRIP_INFO = ".tripInfo";
 
@@ -246,8 +260,7 @@ public class Open311ProblemFragment extends BaseReportFragment implements
         if (mImagePath != null) {
             outState.putParcelable(IMAGE_URI, mCapturedImageURI);
             outState.putString(IMAGE_PATH, mImagePath);
-            Bitmap bitmap = ((BitmapDrawable) mIssueImageView.getDrawable()).getBitmap();
-            outState.putParcelable(IMAGE_THUMBNAIL, bitmap);
+            outState.putString(UPLOAD_IMAGE_PATH, mUploadImagePath);
         }
 
         if (mArrivalInfo != null) {
@@ -268,6 +281,7 @@ public class Open311ProblemFragment extends BaseReportFragment implements
         if (savedInstanceState != null) {
             mCapturedImageURI = savedInstanceState.getParcelable(IMAGE_URI);
             mImagePath = savedInstanceState.getString(IMAGE_PATH);
+            mUploadImagePath = savedInstanceState.getString(UPLOAD_IMAGE_PATH);
 
             mArrivalInfo = (ObaArrivalInfo) savedInstanceState.getSerializable(TRIP_INFO);
             mAgencyName = savedInstanceState.getString(AGENCY_NAME);
@@ -286,6 +300,24 @@ public class Open311ProblemFragment extends BaseReportFragment implements
                 showProgressDialog(true);
             }
         }
+
+        // The thumbnail isn't saved in the instance state, so decode it again for the new view
+        if (mImagePath != null) {
+            if (mImageTask != null && mImageTask.getStatus() != AsyncTask.Status.FINISHED) {
+                mImageTask.setCallback(this);
+            } else {
+                loadImage(mUploadImagePath == null);
+            }
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (mImageTask != null) {
+            mImageTask.setCallback(null);
+            mImageTask.cancel(false);
+        }
     }
 
     @Override
@@ -310,9 +342,6 @@ public class Open311ProblemFragment extends BaseReportFragment implements
      */
     private void setupViews(Bundle bundle) {
         mIssueImageView = (ImageView) findViewById(R.id.ri_imageView);
-        if (bundle != null && bundle.getParcelable(IMAGE_THUMBNAIL) != null) {
-            mIssueImageView.setImageBitmap((Bitmap) bundle.getParcelable(IMAGE_THUMBNAIL));
-        }
 
         mInfoLayout = (LinearLayout) findViewById(R.id.ri_info_layout);
 
@@ -387,7 +416,7 @@ public class Open311ProblemFragment extends BaseReportFragment implements
 
         ServiceDescriptionTask sdt = new ServiceDescriptionTask(sdr, mOpen311,
                 Open311ProblemFragment.this);
-        sdt.execute();
+        sdt.execute(this);
     }
 
     /**
@@ -464,21 +493,74 @@ public class Open311ProblemFragment extends BaseReportFragment implements
                 || requestCode == ReportConstants.CAPTURE_PICTURE_INTENT)
                 && resultCode == Activity.RESULT_OK) {
             // Load thumbnail to avoid OutOfMemory issue on Galaxy S5 - see #730
-            Bitmap thumbnail = null;
-            try {
-                thumbnail = UIUtils.decodeSampledBitmapFromFile(mImagePath,
-                        mIssueImageView.getWidth(), mIssueImageView.getHeight());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            deleteUploadImage();
+            loadImage(true);
+        }
+    }
+
+    /**
+     * Decodes the thumbnail for the image at mImagePath in the background and, if requested,
+     * creates the downscaled copy of the image to upload
+     *
+     * @param createUploadFile true if the downscaled copy of the image should be created
+     */
+    private void loadImage(boolean createUploadFile) {
+        if (mImageTask != null) {
+            mImageTask.setCallback(null);
+            mImageTask.cancel(false);
+        }
+
+        // The previous thumbnail is no longer needed, so its memory can be reused
+        Bitmap reusable = null;
+        if (mIssueImageView.getDrawable() instanceof BitmapDrawable) {
+            reusable = ((BitmapDrawable) mIssueImageView.getDrawable()).getBitmap();
+            mIssueImageView.setImageDrawable(null);
+        }
+
+        int width = mIssueImageView.getWidth() > 0 ? mIssueImageView.getWidth()
+                : DEFAULT_THUMBNAIL_SIZE;
+        int height = mIssueImageView.getHeight() > 0 ? mIssueImageView.getHeight()
+                : DEFAULT_THUMBNAIL_SIZE;
+        mImageTask = new ReportImageTask(getActivity(), mImagePath, width, height, reusable,
+                createUploadFile, this);
+        mImageTask.executeOnExecutor(
+                BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.CPU));
+    }
+
+    @Override
+    public void onReportImageTaskCompleted(Bitmap thumbnail, File uploadFile) {
+        if (uploadFile != null) {
+            mUploadImagePath = uploadFile.getAbsolutePath();
+        }
+        if (mIssueImageView != null) {
             mIssueImageView.setImageBitmap(thumbnail);
         }
+        if (mSubmitPending) {
+            mSubmitPending = false;
+            showProgressDialog(false);
+            submitReport();
+        }
+    }
+
+    private void deleteUploadImage() {
+        if (mUploadImagePath != null) {
+            new File(mUploadImagePath).delete();
+            mUploadImagePath = null;
+        }
     }
 
     /**
      * Prepare submit forms and submit report
      */
     private void submitReport() {
+        if (mImagePath != null && mImageTask != null
+                && mImageTask.getStatus() != AsyncTask.Status.FINISHED) {
+            // The image is still being prepared - submit the report when it's ready
+            mSubmitPending = true;
+            showProgressDialog(true);
+            return;
+        }
+
         // Save the open311 user
         saveOpen311User();
 
@@ -529,8 +611,7 @@ public class Open311ProblemFragment extends BaseReportFragment implements
             // Start progress
             showProgressDialog(true);
 
-            mRequestTask = new ServiceRequestTask(mOpen311, serviceRequest, this);
-            mRequestTask.execute();
+            mRequestTask = new ServiceRequestTask(mOpen311, serviceRequest, this).execute();
 
             ObaAnalytics.reportUiEvent(mFirebaseAnalytics,Application.get().getPlausibleInstance(), PlausibleAnalytics.REPORT_OPEN311_SERVER_EVENT_URL,getString(R.string.analytics_problem), mService.getService_name());
         } else {
@@ -544,46 +625,14 @@ public class Open311ProblemFragment extends BaseReportFragment implements
      * @param builder the builder to attach the image to
      */
     private void attachImage(ServiceRequest.Builder builder) {
-        // Downsample the image file to avoid uploading huge images
-        File smallImageFile = null;
-        try {
-            smallImageFile = UIUtils.createImageFile(getContext(), "-small");
-        } catch (IOException ex) {
-            // Error occurred while creating the File
+        // Upload the downscaled image prepared by ReportImageTask to avoid uploading huge images
+        File imageFile = mUploadImagePath != null ? new File(mUploadImagePath) : null;
+        if (imageFile == null || !imageFile.exists()) {
             createToastMessage(getString(R.string.ri_resize_image_problem));
-            Log.e(TAG, "Couldn't resize image - " + ex);
-        }
-
-        // Continue only if the File was successfully created
-        if (smallImageFile != null) {
-            // Max SeeClickFix resolution image is "800x600 image center cropped"
-            final int WIDTH = 800, HEIGHT = 800;
-            Bitmap smallImage;
-            FileOutputStream out = null;
-            try {
-                smallImage = UIUtils.decodeSampledBitmapFromFile(mImagePath, WIDTH, HEIGHT);
-                out = new FileOutputStream(smallImageFile);
-                smallImage.compress(Bitmap.CompressFormat.JPEG, 100, out);
-                out.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-                // Just use the full size image
-                smallImageFile = new File(mImagePath);
-            } finally {
-                if (out != null) {
-                    try {
-                        out.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-        } else {
             // Just use the full size image
-            smallImageFile = new File(mImagePath);
+            imageFile = new File(mImagePath);
         }
-
-        builder.setMedia(smallImageFile);
+        builder.setMedia(imageFile);
     }
 
     /**
@@ -1188,8 +1237,9 @@ public class Open311ProblemFragment extends BaseReportFragment implements
                         @Override
                         public void onClick(DialogInterface dialogInterface, int i) {
                             if (mRequestTask != null) {
-                                mRequestTask.cancel(true);
+                                mRequestTask.cancel();
                             }
+                            mSubmitPending = false;
                             mIsProgressDialogShowing = false;
                             mProgressDialog.dismiss();
                         }
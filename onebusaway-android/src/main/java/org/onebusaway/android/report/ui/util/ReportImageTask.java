@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.report.ui.util;
+
+import org.onebusaway.android.util.UIUtils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Async task used to prepare an image attached to an Open311 issue off the main thread.  It
+ * decodes a thumbnail of the image for display and, if requested, encodes a downscaled copy of the
+ * image into a JPEG file that fits within UPLOAD_MAX_BYTES, which is then uploaded from disk when
+ * the issue is submitted.
+ */
+public class ReportImageTask extends AsyncTask<Void, Void, Void> {
+
+    private static final String TAG = "ReportImageTask";
+
+    // Max SeeClickFix resolution image is "800x600 image center cropped"
+    public static final int UPLOAD_WIDTH = 800;
+
+    public static final int UPLOAD_HEIGHT = 800;
+
+    // Byte budget for uploaded images, to keep uploads reasonable over cellular connections
+    public static final int UPLOAD_MAX_BYTES = 250 * 1024;
+
+    private static final int UPLOAD_MIN_QUALITY = 40;
+
+    private static final int UPLOAD_MAX_QUALITY = 90;
+
+    public interface Callback {
+
+        /**
+         * Called when the ReportImageTask is complete
+         *
+         * @param thumbnail  the thumbnail of the image, or null if it couldn't be decoded
+         * @param uploadFile the downscaled image to upload, or null if it wasn't requested or
+         *                   couldn't be created
+         */
+        void onReportImageTaskCompleted(Bitmap thumbnail, File uploadFile);
+    }
+
+    private final Context mContext;
+
+    private final String mImagePath;
+
+    private final int mThumbnailWidth;
+
+    private final int mThumbnailHeight;
+
+    private final Bitmap mReusableBitmap;
+
+    private final boolean mCreateUploadFile;
+
+    private Callback mCallback;
+
+    private Bitmap mThumbnail;
+
+    private File mUploadFile;
+
+    /**
+     * @param context          context used to create the upload file
+     * @param imagePath        path to the full size image
+     * @param thumbnailWidth   desired width of the thumbnail
+     * @param thumbnailHeight  desired height of the thumbnail
+     * @param reusableBitmap   a previous thumbnail that is no longer displayed and can be reused,
+     *                         or null
+     * @param createUploadFile true if the downscaled image to upload should be created
+     * @param callback         callback to notify on the main thread when complete
+     */
+    public ReportImageTask(Context context, String imagePath, int thumbnailWidth,
+            int thumbnailHeight, Bitmap reusableBitmap, boolean createUploadFile,
+            Callback callback) {
+        mContext = context.getApplicationContext();
+        mImagePath = imagePath;
+        mThumbnailWidth = thumbnailWidth;
+        mThumbnailHeight = thumbnailHeight;
+        mReusableBitmap = reusableBitmap;
+        mCreateUploadFile = createUploadFile;
+        mCallback = callback;
+    }
+
+    /**
+     * Sets the callback to notify when complete (e.g., after the fragment view is recreated)
+     */
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    protected Void doInBackground(Void... params) {
+        try {
+            mThumbnail = UIUtils.decodeSampledBitmapFromFile(mImagePath,
+                    mThumbnailWidth, mThumbnailHeight, mReusableBitmap);
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't decode thumbnail - " + e);
+        }
+
+        if (mCreateUploadFile && !isCancelled()) {
+            mUploadFile = createUploadFile();
+        }
+        return null;
+    }
+
+    private File createUploadFile() {
+        Bitmap image = null;
+        File file = null;
+        try {
+            file = UIUtils.createImageFile(mContext, "-small");
+            image = UIUtils.decodeSampledBitmapFromFile(mImagePath, UPLOAD_WIDTH, UPLOAD_HEIGHT,
+                    null);
+            int quality = UIUtils.compressToTargetSize(image, file, UPLOAD_MAX_BYTES,
+                    UPLOAD_MIN_QUALITY, UPLOAD_MAX_QUALITY);
+            Log.d(TAG, "Encoded upload image at quality " + quality + ", " + file.length()
+                    + " bytes");
+            return file;
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't resize image - " + e);
+            if (file != null) {
+                file.delete();
+            }
+            return null;
+        } finally {
+            if (image != null) {
+                image.recycle();
+            }
+        }
+    }
+
+    @Override
+    protected void onPostExecute(Void result) {
+        if (mCallback != null) {
+            mCallback.onReportImageTaskCompleted(mThumbnail, mUploadFile);
+        }
+    }
+}
@@ -57,6 +57,10 @@ public class TravelBehaviorConstants {
 
     public static final String LOCAL_DESTINATION_REMINDER_FOLDER = "destination-reminders";
 
+    public static final String LOCAL_LOCATION_FOLDER = "locations";
+
+    public static final String LOCATION_UPLOAD_WORK = "tbLocationUpload";
+
     private static final long MOST_RECENT_DATA_THRESHOLD_MINUTES = 30;
 
     public static final long MOST_RECENT_DATA_THRESHOLD_MILLIS = TimeUnit.MINUTES.toMillis(MOST_RECENT_DATA_THRESHOLD_MINUTES);
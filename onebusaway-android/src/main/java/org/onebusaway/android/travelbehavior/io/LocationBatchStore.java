@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import org.apache.commons.io.FileUtils;
+import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the locations captured during activity transitions in compact local batches, one file
+ * per record with a JSON location on each line, so they can be uploaded together instead of
+ * writing each fix to Firebase as it arrives.
+ *
+ * Fixes are throttled before they are stored - inaccurate fixes are dropped, and a fix is only
+ * kept if enough time has passed since the last kept fix for the same record and the device has
+ * moved, or if the device has been stationary for a while.
+ */
+public class LocationBatchStore {
+
+    private static final String TAG = "LocationBatchStore";
+
+    // Fixes less accurate than this are dropped, in meters
+    public static final float MAX_ACCURACY = 100;
+
+    // Minimum time between two kept fixes of a record
+    public static final long MIN_TIME = TimeUnit.SECONDS.toMillis(30);
+
+    // Minimum distance between two kept fixes of a record, in meters
+    public static final float MIN_DISTANCE = 25;
+
+    // A fix is kept after this time even if the device didn't move, so stationary periods are
+    // still recorded
+    public static final long STATIONARY_TIME = TimeUnit.MINUTES.toMillis(5);
+
+    // Number of records the last kept fix is remembered for
+    private static final int MAX_RECENT_RECORDS = 8;
+
+    private static final String BATCH_EXTENSION = ".json";
+
+    // Batches that are being (or failed to be) uploaded
+    private static final String PENDING_EXTENSION = ".pending";
+
+    private static LocationBatchStore mInstance;
+
+    private final File mDirectory;
+
+    private final Gson mGson = new Gson();
+
+    // Record ID -> last kept fix
+    private final Map<String, Location> mLastLocations =
+            new LinkedHashMap<String, Location>(MAX_RECENT_RECORDS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Location> eldest) {
+                    return size() > MAX_RECENT_RECORDS;
+                }
+            };
+
+    /**
+     * @param directory directory the batches are stored in
+     */
+    public LocationBatchStore(File directory) {
+        mDirectory = directory;
+    }
+
+    public static synchronized LocationBatchStore getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new LocationBatchStore(new File(context.getApplicationContext()
+                    .getFilesDir(), TravelBehaviorConstants.LOCAL_LOCATION_FOLDER));
+        }
+        return mInstance;
+    }
+
+    /**
+     * Adds a fix to the batch of a record, if it passes the throttle.  Performs file I/O, so it
+     * shouldn't be called on the main thread.
+     *
+     * @return true if the fix was stored, false if it was dropped
+     */
+    public synchronized boolean add(String recordId, Location location) {
+        if (recordId == null || location == null) {
+            return false;
+        }
+        if (!shouldKeep(mLastLocations.get(recordId), location)) {
+            return false;
+        }
+        String line = mGson.toJson(new TravelBehaviorInfo.LocationInfo(location)) + "\n";
+        try {
+            if (!mDirectory.exists()) {
+                mDirectory.mkdirs();
+            }
+            FileUtils.writeStringToFile(new File(mDirectory, recordId + BATCH_EXTENSION), line,
+                    "UTF-8", true);
+        } catch (IOException e) {
+            Log.e(TAG, "Couldn't store location - " + e);
+            return false;
+        }
+        mLastLocations.put(recordId, location);
+        return true;
+    }
+
+    /**
+     * Returns true if a fix should be kept, given the last fix kept for the same record
+     *
+     * @param last the last fix kept for the record, or null if there isn't one
+     * @param fix  the new fix
+     */
+    public static boolean shouldKeep(Location last, Location fix) {
+        if (fix.hasAccuracy() && fix.getAccuracy() > MAX_ACCURACY) {
+            return false;
+        }
+        if (last == null) {
+            return true;
+        }
+        long elapsed = fix.getTime() - last.getTime();
+        if (elapsed < MIN_TIME) {
+            // Also drops stale fixes (e.g., a cached last known location) older than the last one
+            return false;
+        }
+        return elapsed >= STATIONARY_TIME || last.distanceTo(fix) >= MIN_DISTANCE;
+    }
+
+    /**
+     * @return true if there are stored locations that haven't been uploaded
+     */
+    public synchronized boolean hasBatches() {
+        File[] files = mDirectory.listFiles();
+        return files != null && files.length > 0;
+    }
+
+    /**
+     * Uploads all stored batches with a single call to the uploader, and removes them once the
+     * upload succeeded.  Locations added during the upload are kept for the next flush, and
+     * batches that failed to upload are retried on the next flush.
+     *
+     * @return true if the batches were uploaded or there wasn't anything to upload, false if the
+     * upload failed
+     */
+    public boolean flush(String userId, LocationUploader uploader) {
+        Map<String, List<TravelBehaviorInfo.LocationInfo>> batches = takeBatches();
+        if (batches.isEmpty()) {
+            return true;
+        }
+        try {
+            uploader.upload(userId, batches);
+        } catch (Exception e) {
+            Log.e(TAG, "Couldn't upload " + batches.size() + " location batches - " + e);
+            return false;
+        }
+        removePending(batches.keySet());
+        Log.d(TAG, "Uploaded " + batches.size() + " location batches");
+        return true;
+    }
+
+    /**
+     * Moves the current batches to pending files, and returns the contents of all pending files
+     */
+    private synchronized Map<String, List<TravelBehaviorInfo.LocationInfo>> takeBatches() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return Collections.emptyMap();
+        }
+        for (File f : files) {
+            String name = f.getName();
+            if (!name.endsWith(BATCH_EXTENSION)) {
+                continue;
+            }
+            File pending = new File(mDirectory,
+                    recordId(name, BATCH_EXTENSION) + PENDING_EXTENSION);
+            try {
+                if (pending.exists()) {
+                    // Batch from a failed upload - add the new locations to it
+                    FileUtils.writeStringToFile(pending, FileUtils.readFileToString(f, "UTF-8"),
+                            "UTF-8", true);
+                    f.delete();
+                } else if (!f.renameTo(pending)) {
+                    Log.e(TAG, "Couldn't move batch " + name);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Couldn't move batch " + name + " - " + e);
+            }
+        }
+
+        Map<String, List<TravelBehaviorInfo.LocationInfo>> batches = new HashMap<>();
+        files = mDirectory.listFiles();
+        if (files == null) {
+            return batches;
+        }
+        for (File f : files) {
+            String name = f.getName();
+            if (!name.endsWith(PENDING_EXTENSION)) {
+                continue;
+            }
+            List<TravelBehaviorInfo.LocationInfo> locations = new ArrayList<>();
+            try {
+                for (String line : FileUtils.readLines(f, "UTF-8")) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        locations.add(mGson.fromJson(line, TravelBehaviorInfo.LocationInfo.class));
+                    } catch (JsonSyntaxException e) {
+                        // Partially written line, e.g. if the process was killed while writing
+                        Log.e(TAG, "Skipping invalid location in " + name);
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Couldn't read batch " + name + " - " + e);
+                continue;
+            }
+            String recordId = recordId(name, PENDING_EXTENSION);
+            if (locations.isEmpty()) {
+                f.delete();
+            } else {
+                batches.put(recordId, locations);
+            }
+        }
+        return batches;
+    }
+
+    private synchronized void removePending(Iterable<String> recordIds) {
+        for (String recordId : recordIds) {
+            new File(mDirectory, recordId + PENDING_EXTENSION).delete();
+        }
+    }
+
+    private static String recordId(String fileName, String extension) {
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io;
+
+import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uploads batches of locations captured during activity transitions to the server
+ */
+public interface LocationUploader {
+
+    /**
+     * Uploads the locations for all records in a single batched write.  Called on a background
+     * thread, and must block until the write completes.
+     *
+     * @param userId  ID of the study participant
+     * @param batches record ID -> locations to add to the activity transition of that record
+     * @throws Exception if the write failed, in which case the batches are retried later
+     */
+    void upload(String userId, Map<String, List<TravelBehaviorInfo.LocationInfo>> batches)
+            throws Exception;
+}
@@ -15,20 +15,17 @@
  */
 package org.onebusaway.android.travelbehavior.io;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import org.onebusaway.android.util.BackgroundExecutor;
 
-public class TravelBehaviorFileSaverExecutorManager {
-
-    private final ThreadPoolExecutor mThreadPoolExecutor;
+import java.util.concurrent.Executor;
 
-    private final BlockingQueue<Runnable> mBlockingQueue;
+/**
+ * Runs the tasks that save travel behavior data on the disk pool of BackgroundExecutor, instead of
+ * a thread pool of its own
+ */
+public class TravelBehaviorFileSaverExecutorManager {
 
-    private static final int CORE_POOL_SIZE = 5;
-    private static final int MAX_POOL_SIZE = 5;
-    private static final int KEEP_ALIVE_TIME = 50;
+    private final Executor mExecutor;
 
     private static TravelBehaviorFileSaverExecutorManager mManager = null;
 
@@ -37,9 +34,7 @@ public class TravelBehaviorFileSaverExecutorManager {
     }
 
     private TravelBehaviorFileSaverExecutorManager(){
-        mBlockingQueue = new LinkedBlockingQueue<Runnable>();
-        mThreadPoolExecutor = new ThreadPoolExecutor(CORE_POOL_SIZE, MAX_POOL_SIZE,
-                KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS, mBlockingQueue);
+        mExecutor = BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.DISK);
     }
 
     public static TravelBehaviorFileSaverExecutorManager getInstance(){
@@ -47,10 +42,10 @@ public class TravelBehaviorFileSaverExecutorManager {
     }
 
     public void runTask(Runnable task){
-        mThreadPoolExecutor.execute(task);
+        mExecutor.execute(task);
     }
 
-    public ThreadPoolExecutor getThreadPoolExecutor() {
-        return mThreadPoolExecutor;
+    public Executor getThreadPoolExecutor() {
+        return mExecutor;
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io.task;
+
+import org.onebusaway.android.travelbehavior.io.LocationBatchStore;
+import org.onebusaway.android.travelbehavior.io.worker.LocationBatchUploadWorker;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+/**
+ * Stores a location captured during an activity transition in the local batch of its record, and
+ * schedules an upload of the batches if the location was kept
+ */
+public class LocationDataSaverTask implements Runnable {
+
+    private static final String TAG = "TravelBehaviorLocation";
+
+    private Location mLocation;
+
+    private String mRecordId;
+
+    private Context mApplicationContext;
+
+    public LocationDataSaverTask(Location location, String recordId, Context applicationContext) {
+        mLocation = location;
+        mRecordId = recordId;
+        mApplicationContext = applicationContext;
+    }
+
+    @Override
+    public void run() {
+        if (LocationBatchStore.getInstance(mApplicationContext).add(mRecordId, mLocation)) {
+            Log.d(TAG, "Location stored with provider: " + mLocation.getProvider());
+            LocationBatchUploadWorker.schedule(mApplicationContext);
+        } else {
+            Log.d(TAG, "Location dropped with provider: " + mLocation.getProvider());
+        }
+    }
+}
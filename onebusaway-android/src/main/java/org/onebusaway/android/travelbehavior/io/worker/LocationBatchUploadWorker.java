@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io.worker;
+
+import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.LocationBatchStore;
+import org.onebusaway.android.travelbehavior.io.LocationUploader;
+import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
+import org.onebusaway.android.util.PreferenceUtils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Uploads the location batches collected by LocationBatchStore in a single batched write.  The
+ * upload is scheduled as unique work when a location is stored, so locations captured in the
+ * meantime are added to the same upload, and only runs when the device is connected and the
+ * battery isn't low.
+ */
+public class LocationBatchUploadWorker extends Worker {
+
+    private static final String TAG = "LocationUploadWorker";
+
+    // Delay before uploading, so locations from several transitions are uploaded together
+    private static final long UPLOAD_DELAY_MINUTES = 15;
+
+    private static final LocationUploader FIREBASE_UPLOADER =
+            TravelBehaviorFirebaseIOUtils::saveLocationBatches;
+
+    public LocationBatchUploadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String uid = PreferenceUtils.getString(TravelBehaviorConstants.USER_ID);
+        if (uid == null) {
+            Log.d(TAG, "No user ID, skipping location upload");
+            return Result.success();
+        }
+        LocationBatchStore store = LocationBatchStore.getInstance(getApplicationContext());
+        return store.flush(uid, FIREBASE_UPLOADER) ? Result.success() : Result.retry();
+    }
+
+    /**
+     * Schedules an upload of the stored location batches, if one isn't scheduled already
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(LocationBatchUploadWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(UPLOAD_DELAY_MINUTES, TimeUnit.MINUTES)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, UPLOAD_DELAY_MINUTES,
+                        TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                TravelBehaviorConstants.LOCATION_UPLOAD_WORK, ExistingWorkPolicy.KEEP,
+                workRequest);
+    }
+}
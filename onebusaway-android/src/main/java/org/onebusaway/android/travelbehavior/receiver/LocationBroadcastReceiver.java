@@ -16,8 +16,8 @@
 package org.onebusaway.android.travelbehavior.receiver;
 
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
-import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
-import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorFileSaverExecutorManager;
+import org.onebusaway.android.travelbehavior.io.task.LocationDataSaverTask;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -37,8 +37,9 @@ public class LocationBroadcastReceiver extends BroadcastReceiver {
             Location location = (Location) intent.getExtras().get(LocationManager.KEY_LOCATION_CHANGED);
             if (location != null) {
                 String recordId = intent.getStringExtra(TravelBehaviorConstants.RECORD_ID);
-                String uid = PreferenceUtils.getString(TravelBehaviorConstants.USER_ID);
-                TravelBehaviorFirebaseIOUtils.saveLocation(location, uid, recordId);
+                TravelBehaviorFileSaverExecutorManager.getInstance().runTask(
+                        new LocationDataSaverTask(location, recordId,
+                                context.getApplicationContext()));
                 Log.d(TAG, "Location provider: " + location.getProvider());
             } else {
                 Log.d(TAG, "Location provider is null");
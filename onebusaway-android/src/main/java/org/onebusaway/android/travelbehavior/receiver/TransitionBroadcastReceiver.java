@@ -25,6 +25,9 @@ import com.google.firebase.firestore.DocumentReference;
 
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.LocationBatchStore;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorFileSaverExecutorManager;
+import org.onebusaway.android.travelbehavior.io.task.LocationDataSaverTask;
 import org.onebusaway.android.travelbehavior.io.worker.ArrivalsAndDeparturesDataReaderWorker;
 import org.onebusaway.android.travelbehavior.io.worker.DestinationReminderReaderWorker;
 import org.onebusaway.android.travelbehavior.io.worker.TripPlanDataReaderWorker;
@@ -200,7 +203,9 @@ public class TransitionBroadcastReceiver extends BroadcastReceiver {
         FusedLocationProviderClient client = LocationServices.getFusedLocationProviderClient(mContext);
         client.getLastLocation().addOnSuccessListener(location -> {
             if (location != null) {
-                TravelBehaviorFirebaseIOUtils.saveLocation(location, mUid, mRecordId);
+                TravelBehaviorFileSaverExecutorManager.getInstance().runTask(
+                        new LocationDataSaverTask(location, mRecordId,
+                                mContext.getApplicationContext()));
             }
         });
     }
@@ -226,7 +231,8 @@ public class TransitionBroadcastReceiver extends BroadcastReceiver {
                 flags = PendingIntent.FLAG_ONE_SHOT;
             }
             PendingIntent pi = PendingIntent.getBroadcast(mContext, reqCode++, intent, flags);
-            lm.requestLocationUpdates(provider, 0, 0, pi);
+            lm.requestLocationUpdates(provider, LocationBatchStore.MIN_TIME,
+                    LocationBatchStore.MIN_DISTANCE, pi);
             PreferenceUtils.saveInt(TravelBehaviorConstants.LOCATION_REQUEST_CODE, reqCode);
         }
     }
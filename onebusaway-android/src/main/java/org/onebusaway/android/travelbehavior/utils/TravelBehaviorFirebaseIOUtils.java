@@ -15,9 +15,12 @@
  */
 package org.onebusaway.android.travelbehavior.utils;
 
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
 import org.onebusaway.android.travelbehavior.model.ArrivalAndDepartureData;
@@ -30,17 +33,26 @@ import org.onebusaway.android.travelbehavior.model.TripPlanData;
 import org.onebusaway.android.travelbehavior.model.TripPlanInfo;
 import org.onebusaway.android.util.PreferenceUtils;
 
-import android.location.Location;
 import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class TravelBehaviorFirebaseIOUtils {
 
     private static final String TAG = "TravelBehaviorFirebase";
 
+    // Maximum number of writes in a Firestore batch
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private static final long BATCH_TIMEOUT_SECONDS = 60;
+
     private static String buildDocumentPathByUid(String uid, String folder) {
         StringBuilder pathBuilder = new StringBuilder();
         pathBuilder.append("users/").append(uid).append("/").
@@ -56,22 +68,39 @@ public class TravelBehaviorFirebaseIOUtils {
         return db.collection(path).document(recordId);
     }
 
-    public static void saveLocation(Location location, String userId, String recordId) {
-        TravelBehaviorInfo.LocationInfo locationInfo = new TravelBehaviorInfo.LocationInfo(location);
-        Map locationMap = TravelBehaviorUtils.getLocationMapByLocationInfo(locationInfo);
-
-        DocumentReference document = TravelBehaviorFirebaseIOUtils.
-                getFirebaseDocReferenceByUserIdAndRecordId(userId, recordId,
-                        TravelBehaviorConstants.FIREBASE_ACTIVITY_TRANSITION_FOLDER);
-        document.update("locationInfoList", FieldValue.arrayUnion(locationMap)).
-                addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        Log.d(TAG, "Location update saved with provider: " +
-                                location.getProvider());
-                    } else {
-                        logErrorMessage(task.getException(), "Location update failed: ");
-                    }
-                });
+    /**
+     * Adds batches of locations to the activity transitions of their records with a single
+     * batched write, blocking until the write completes.  Must not be called on the main thread.
+     *
+     * @param batches record ID -> locations to add to the activity transition of that record
+     */
+    public static void saveLocationBatches(String userId,
+                                           Map<String, List<TravelBehaviorInfo.LocationInfo>> batches)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (Map.Entry<String, List<TravelBehaviorInfo.LocationInfo>> entry : batches.entrySet()) {
+            List<Object> locationMaps = new ArrayList<>();
+            for (TravelBehaviorInfo.LocationInfo locationInfo : entry.getValue()) {
+                locationMaps.add(TravelBehaviorUtils.getLocationMapByLocationInfo(locationInfo));
+            }
+            DocumentReference document = getFirebaseDocReferenceByUserIdAndRecordId(userId,
+                    entry.getKey(), TravelBehaviorConstants.FIREBASE_ACTIVITY_TRANSITION_FOLDER);
+            // Merge instead of update, so a missing transition document can't fail the whole batch
+            batch.set(document, Collections.singletonMap("locationInfoList",
+                    FieldValue.arrayUnion(locationMaps.toArray())), SetOptions.merge());
+
+            if (++writes == MAX_BATCH_WRITES) {
+                Tasks.await(batch.commit(), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+        if (writes > 0) {
+            Tasks.await(batch.commit(), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        Log.d(TAG, "Locations saved for " + batches.size() + " records");
     }
 
     public static void saveArrivalsAndDepartures(List<ArrivalAndDepartureData> arrivalAndDepartureList,
@@ -17,11 +17,18 @@ package org.onebusaway.android.ui;
 
 import org.onebusaway.android.io.elements.ObaArrivalInfo;
 import org.onebusaway.android.util.ArrayAdapter;
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import android.content.ContentQueryMap;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Base adapter class for the various styles of arrivals lists
@@ -30,6 +37,15 @@ import java.util.ArrayList;
  */
 public abstract class ArrivalsListAdapterBase<T> extends ArrayAdapter<T> {
 
+    // Converts and groups arrivals off the main thread.  Results of older responses are dropped.
+    private static final Executor mExecutor =
+            BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.CPU);
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Incremented each time new data is set, so results of older background work are dropped
+    private int mDataVersion = 0;
+
     protected ContentQueryMap mTripsForStop;
 
     public ArrivalsListAdapterBase(Context context, int layout) {
@@ -41,5 +57,65 @@ public abstract class ArrivalsListAdapterBase<T> extends ArrayAdapter<T> {
         notifyDataSetChanged();
     }
 
-    abstract public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter, long currentTime);
+    /**
+     * Sets the data to be used with the adapter, converting and grouping the arrivals on the
+     * calling thread
+     *
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     */
+    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
+            long currentTime) {
+        mDataVersion++;
+        setData(arrivals != null ? buildItems(arrivals, routesFilter, currentTime) : null);
+    }
+
+    /**
+     * Sets the data to be used with the adapter, converting and grouping the arrivals on a
+     * background thread.  The list keeps showing the current data until the new data is ready.
+     * Must be called on the main thread.
+     *
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     */
+    public void setDataAsync(final ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
+            final long currentTime) {
+        final int version = ++mDataVersion;
+        if (arrivals == null) {
+            setData((List<T>) null);
+            return;
+        }
+        // The fragment may change the filter while we're working on it
+        final ArrayList<String> filter = routesFilter != null ?
+                new ArrayList<>(routesFilter) : null;
+        mExecutor.execute(() -> {
+            final List<T> items = buildItems(arrivals, filter, currentTime);
+            mMainHandler.post(() -> {
+                if (version == mDataVersion) {
+                    setData(items);
+                }
+            });
+        });
+    }
+
+    /**
+     * Converts the arrivals into the items shown by the adapter.  Called on a background thread
+     * by setDataAsync(), so it must not touch views.
+     *
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     * @return the items shown by the adapter, or null if there aren't any
+     */
+    abstract protected List<T> buildItems(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime);
+
+    /**
+     * Sets the text of the view only if it changed, so refreshing a recycled row with the same
+     * arrival doesn't request a new layout
+     */
+    protected static void setTextIfChanged(TextView view, CharSequence text) {
+        if (!TextUtils.equals(view.getText(), text)) {
+            view.setText(text);
+        }
+    }
 }
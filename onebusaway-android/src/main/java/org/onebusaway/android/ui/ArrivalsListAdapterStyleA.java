@@ -20,6 +20,7 @@ import android.content.Context;
 import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
+import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -36,6 +37,7 @@ import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.UIUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Original style of arrivals for OBA Android
@@ -46,21 +48,74 @@ public class ArrivalsListAdapterStyleA extends ArrivalsListAdapterBase<ArrivalIn
         super(context, R.layout.arrivals_list_item);
     }
 
+    @Override
+    protected List<ArrivalInfo> buildItems(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime) {
+        return ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
+                arrivals, routesFilter, currentTime, false);
+    }
+
     /**
-     * Sets the data to be used with the adapter
-     *
-     * @param routesFilter routeIds to filter for
-     * @param currentTime  current time in milliseconds
+     * Views of an arrival row, looked up once when the row is inflated
      */
-    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
-            long currentTime) {
-        if (arrivals != null) {
-            ArrayList<ArrivalInfo> list =
-                    ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
-                            arrivals, routesFilter, currentTime, false);
-            setData(list);
-        } else {
-            setData(null);
+    private static class ViewHolder {
+
+        TextView route;
+
+        TextView destination;
+
+        TextView time;
+
+        TextView status;
+
+        TextView carCount;
+
+        TextView etaView;
+
+        TextView minView;
+
+        TextView platformInfo;
+
+        ViewGroup realtimeView;
+
+        ViewGroup occupancyView;
+
+        TextView reminder;
+
+        ImageView starView;
+
+        // Last color bound to this row, or 0 if none
+        int color;
+
+        ViewHolder(Context context, View view) {
+            route = view.findViewById(R.id.route);
+            destination = view.findViewById(R.id.destination);
+            time = view.findViewById(R.id.time);
+            status = view.findViewById(R.id.status);
+            carCount = view.findViewById(R.id.car_count);
+            etaView = view.findViewById(R.id.eta);
+            minView = view.findViewById(R.id.eta_min);
+            platformInfo = view.findViewById(R.id.platform_info);
+            realtimeView = view.findViewById(R.id.eta_realtime_indicator);
+            occupancyView = view.findViewById(R.id.occupancy);
+            reminder = view.findViewById(R.id.reminder);
+
+            ImageView moreView = view.findViewById(R.id.more_horizontal);
+            moreView.setColorFilter(
+                    context.getResources().getColor(R.color.switch_thumb_normal_material_dark));
+            starView = view.findViewById(R.id.route_favorite);
+            starView.setColorFilter(context.getResources().getColor(R.color.navdrawer_icon_tint));
+
+            // Mutate the backgrounds so each row can have its own color
+            status.setBackgroundResource(R.drawable.round_corners_style_b_status);
+            status.setBackground(status.getBackground().mutate());
+            carCount.setBackgroundResource(R.drawable.round_corners_style_b_status);
+            carCount.setBackground(carCount.getBackground().mutate());
+
+            // Set padding on status view
+            int pSides = UIUtils.dpToPixels(context, 5);
+            int pTopBottom = UIUtils.dpToPixels(context, 2);
+            status.setPadding(pSides, pTopBottom, pSides, pTopBottom);
         }
     }
 
@@ -69,101 +124,88 @@ public class ArrivalsListAdapterStyleA extends ArrivalsListAdapterBase<ArrivalIn
         final Context context = getContext();
         final ObaArrivalInfo arrivalInfo = stopInfo.getInfo();
 
-        TextView route = (TextView) view.findViewById(R.id.route);
-        TextView destination = (TextView) view.findViewById(R.id.destination);
-        TextView time = (TextView) view.findViewById(R.id.time);
-        TextView status = (TextView) view.findViewById(R.id.status);
-        TextView carCount = (TextView) view.findViewById(R.id.car_count);
-        TextView etaView = (TextView) view.findViewById(R.id.eta);
-        TextView minView = (TextView) view.findViewById(R.id.eta_min);
-        TextView platformInfo = (TextView) view.findViewById(R.id.platform_info);
-        ViewGroup realtimeView = (ViewGroup) view.findViewById(R.id.eta_realtime_indicator);
-        ViewGroup occupancyView = view.findViewById(R.id.occupancy);
-        ImageView moreView = (ImageView) view.findViewById(R.id.more_horizontal);
-        moreView.setColorFilter(
-                context.getResources().getColor(R.color.switch_thumb_normal_material_dark));
-        ImageView starView = (ImageView) view.findViewById(R.id.route_favorite);
-        starView.setColorFilter(context.getResources().getColor(R.color.navdrawer_icon_tint));
-        starView.setImageResource(stopInfo.isRouteAndHeadsignFavorite() ?
+        ViewHolder holder = (ViewHolder) view.getTag();
+        if (holder == null) {
+            holder = new ViewHolder(context, view);
+            view.setTag(holder);
+        }
+
+        holder.starView.setImageResource(stopInfo.isRouteAndHeadsignFavorite() ?
                 R.drawable.focus_star_on :
                 R.drawable.focus_star_off);
 
-        // CANCELED trips
-        if (Status.CANCELED.equals(stopInfo.getStatus())) {
-            // Strike through the text fields
-            route.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
-            destination.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
-            time.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
-            etaView.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
-            minView.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
+        // CANCELED trips - strike through the text fields, and clear it if this view is reused
+        boolean canceled = Status.CANCELED.equals(stopInfo.getStatus());
+        setStrikeThrough(holder.route, canceled);
+        setStrikeThrough(holder.destination, canceled);
+        setStrikeThrough(holder.time, canceled);
+        setStrikeThrough(holder.etaView, canceled);
+        setStrikeThrough(holder.minView, canceled);
+
+        String shortName = arrivalInfo.getShortName().trim();
+        if (!TextUtils.equals(holder.route.getText(), shortName)) {
+            holder.route.setText(shortName);
+            UIUtils.maybeShrinkRouteName(getContext(), holder.route, shortName);
         }
 
-        String shortName = arrivalInfo.getShortName();
-        route.setText(shortName.trim());
-        UIUtils.maybeShrinkRouteName(getContext(), route, shortName.trim());
-
-        destination.setText(UIUtils.formatDisplayText(arrivalInfo.getHeadsign()));
-        status.setText(stopInfo.getStatusText());
+        setTextIfChanged(holder.destination,
+                UIUtils.formatDisplayText(arrivalInfo.getHeadsign()));
+        setTextIfChanged(holder.status, stopInfo.getStatusText());
 
         String numCars = stopInfo.getInfo().getNumCars(getContext());
         if (numCars != null) {
-            carCount.setBackgroundResource(R.drawable.round_corners_style_b_status);
-            carCount.setText(stopInfo.getInfo().getNumCars(getContext()));
-            carCount.setVisibility(View.VISIBLE);
+            setTextIfChanged(holder.carCount, numCars);
+            holder.carCount.setVisibility(View.VISIBLE);
+        } else {
+            holder.carCount.setVisibility(View.GONE);
         }
 
         long eta = stopInfo.getEta();
         if (eta == 0) {
-            etaView.setText(R.string.stop_info_eta_now);
-            minView.setVisibility(View.GONE);
+            setTextIfChanged(holder.etaView, context.getString(R.string.stop_info_eta_now));
+            holder.minView.setVisibility(View.GONE);
         } else {
-            etaView.setText(String.valueOf(eta));
-            minView.setVisibility(View.VISIBLE);
+            setTextIfChanged(holder.etaView, String.valueOf(eta));
+            holder.minView.setVisibility(View.VISIBLE);
         }
 
-        status.setBackgroundResource(R.drawable.round_corners_style_b_status);
-        GradientDrawable d = (GradientDrawable) status.getBackground();
-
         Integer colorCode = stopInfo.getColor();
         int color = context.getResources().getColor(colorCode);
         if (stopInfo.getPredicted()) {
             // Show real-time indicator
-            UIUtils.setRealtimeIndicatorColorByResourceCode(realtimeView, colorCode,
+            UIUtils.setRealtimeIndicatorColorByResourceCode(holder.realtimeView, colorCode,
                     android.R.color.transparent);
-            realtimeView.setVisibility(View.VISIBLE);
+            holder.realtimeView.setVisibility(View.VISIBLE);
         } else {
-            realtimeView.setVisibility(View.INVISIBLE);
+            holder.realtimeView.setVisibility(View.INVISIBLE);
         }
 
-        etaView.setTextColor(color);
-        minView.setTextColor(color);
-        d.setColor(color);
+        if (holder.color != color) {
+            holder.etaView.setTextColor(color);
+            holder.minView.setTextColor(color);
+            ((GradientDrawable) holder.status.getBackground()).setColor(color);
+            ((GradientDrawable) holder.carCount.getBackground()).setColor(color);
+            holder.color = color;
+        }
 
         if (stopInfo.hasPlatformInfo()) {
-            platformInfo.setVisibility(View.VISIBLE);
-            platformInfo.setText(stopInfo.getPlatformInfo());
+            holder.platformInfo.setVisibility(View.VISIBLE);
+            setTextIfChanged(holder.platformInfo, stopInfo.getPlatformInfo());
         } else {
-            platformInfo.setVisibility(View.GONE);
+            holder.platformInfo.setVisibility(View.GONE);
         }
 
-        ((GradientDrawable) carCount.getBackground()).setColor(color);
-
-        // Set padding on status view
-        int pSides = UIUtils.dpToPixels(context, 5);
-        int pTopBottom = UIUtils.dpToPixels(context, 2);
-        status.setPadding(pSides, pTopBottom, pSides, pTopBottom);
-
-        time.setText(stopInfo.getTimeText());
+        setTextIfChanged(holder.time, stopInfo.getTimeText());
 
         // Occupancy
         if (stopInfo.getPredictedOccupancy() != null) {
             // Predicted occupancy data
-            UIUtils.setOccupancyVisibilityAndColor(occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
-            UIUtils.setOccupancyContentDescription(occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
+            UIUtils.setOccupancyVisibilityAndColor(holder.occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
+            UIUtils.setOccupancyContentDescription(holder.occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
         } else {
             // Historical occupancy data
-            UIUtils.setOccupancyVisibilityAndColor(occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
-            UIUtils.setOccupancyContentDescription(occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
+            UIUtils.setOccupancyVisibilityAndColor(holder.occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
+            UIUtils.setOccupancyContentDescription(holder.occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
         }
 
         ContentValues values = null;
@@ -173,7 +215,7 @@ public class ArrivalsListAdapterStyleA extends ArrivalsListAdapterBase<ArrivalIn
         if (values != null) {
             String reminderName = values.getAsString(ObaContract.Trips.NAME);
 
-            TextView reminder = (TextView) view.findViewById(R.id.reminder);
+            TextView reminder = holder.reminder;
             if (reminderName.length() == 0) {
                 reminderName = context.getString(R.string.trip_info_noname);
             }
@@ -187,8 +229,15 @@ public class ArrivalsListAdapterStyleA extends ArrivalsListAdapterBase<ArrivalIn
         } else {
             // Explicitly set this to invisible because we might be reusing
             // this view.
-            View reminder = view.findViewById(R.id.reminder);
-            reminder.setVisibility(View.GONE);
+            holder.reminder.setVisibility(View.GONE);
+        }
+    }
+
+    private static void setStrikeThrough(TextView view, boolean strikeThrough) {
+        int flags = strikeThrough ? view.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG
+                : view.getPaintFlags() & ~Paint.STRIKE_THRU_TEXT_FLAG;
+        if (flags != view.getPaintFlags()) {
+            view.setPaintFlags(flags);
         }
     }
 }
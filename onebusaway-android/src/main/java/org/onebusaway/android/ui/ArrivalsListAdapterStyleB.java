@@ -45,9 +45,11 @@ import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.UIUtils;
 import org.onebusaway.util.comparators.AlphanumComparator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Styles of arrival times used by York Region Transit
@@ -60,6 +62,11 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
 
     ArrivalsListFragment mFragment;
 
+    // Rows of arrival times that were removed from a card and can be reused by another card
+    private static final int MAX_POOLED_ROWS = 30;
+
+    private final ArrayDeque<ArrivalRow> mRowPool = new ArrayDeque<>();
+
     public ArrivalsListAdapterStyleB(Context context) {
         super(context, R.layout.arrivals_list_item_style_b);
     }
@@ -68,149 +75,139 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
         mFragment = fragment;
     }
 
-    /**
-     * Sets the data to be used with the adapter
-     *
-     * @param routesFilter routeIds to filter for
-     * @param currentTime  current time in milliseconds
-     */
-    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
-            long currentTime) {
-        if (arrivals != null) {
-            ArrayList<ArrivalInfo> list =
-                    ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
-                            arrivals, routesFilter, currentTime, true);
-
-            // Sort list by route and headsign, in that order
-            Collections.sort(list, new Comparator<ArrivalInfo>() {
-                @Override
-                public int compare(ArrivalInfo s1, ArrivalInfo s2) {
-                    int routeCompare = mAlphanumComparator
-                            .compare(s1.getInfo().getRouteId(), s2.getInfo().getRouteId());
-                    if (routeCompare != 0) {
-                        return routeCompare;
-                    } else {
-                        // Compare headsigns when the route is the same
-                        return mAlphanumComparator
-                                .compare(s1.getInfo().getHeadsign(), s2.getInfo().getHeadsign());
-                    }
+    @Override
+    protected List<CombinedArrivalInfoStyleB> buildItems(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime) {
+        ArrayList<ArrivalInfo> list =
+                ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
+                        arrivals, routesFilter, currentTime, true);
+
+        // Sort list by route and headsign, in that order
+        Collections.sort(list, new Comparator<ArrivalInfo>() {
+            @Override
+            public int compare(ArrivalInfo s1, ArrivalInfo s2) {
+                int routeCompare = mAlphanumComparator
+                        .compare(s1.getInfo().getRouteId(), s2.getInfo().getRouteId());
+                if (routeCompare != 0) {
+                    return routeCompare;
+                } else {
+                    // Compare headsigns when the route is the same
+                    return mAlphanumComparator
+                            .compare(s1.getInfo().getHeadsign(), s2.getInfo().getHeadsign());
                 }
-            });
+            }
+        });
 
-            if (list.size() > 0) {
-                ArrayList<CombinedArrivalInfoStyleB> newList
-                        = new ArrayList<CombinedArrivalInfoStyleB>();
-                String currentRouteName = null;
-                String currentHeadsign = null;
-                CombinedArrivalInfoStyleB cArrivalInfo = new CombinedArrivalInfoStyleB();
-                for (int i = 0; i < list.size(); i++) {
-                    if (currentRouteName == null) {
-                        // Initialize fields
+        if (list.size() > 0) {
+            ArrayList<CombinedArrivalInfoStyleB> newList
+                    = new ArrayList<CombinedArrivalInfoStyleB>();
+            String currentRouteName = null;
+            String currentHeadsign = null;
+            CombinedArrivalInfoStyleB cArrivalInfo = new CombinedArrivalInfoStyleB();
+            for (int i = 0; i < list.size(); i++) {
+                if (currentRouteName == null) {
+                    // Initialize fields
+                    currentRouteName = list.get(i).getInfo().getRouteId();
+                    currentHeadsign = list.get(i).getInfo().getHeadsign();
+                } else {
+                    if (!currentRouteName.equals(list.get(i).getInfo().getRouteId()) ||
+                            !currentHeadsign.equals(list.get(i).getInfo().getHeadsign())) {
+                        // Create a new card
+                        newList.add(cArrivalInfo);
+                        cArrivalInfo = new CombinedArrivalInfoStyleB();
                         currentRouteName = list.get(i).getInfo().getRouteId();
                         currentHeadsign = list.get(i).getInfo().getHeadsign();
-                    } else {
-                        if (!currentRouteName.equals(list.get(i).getInfo().getRouteId()) ||
-                                !currentHeadsign.equals(list.get(i).getInfo().getHeadsign())) {
-                            // Create a new card
-                            newList.add(cArrivalInfo);
-                            cArrivalInfo = new CombinedArrivalInfoStyleB();
-                            currentRouteName = list.get(i).getInfo().getRouteId();
-                            currentHeadsign = list.get(i).getInfo().getHeadsign();
-                        }
                     }
-                    cArrivalInfo.getArrivalInfoList().add(list.get(i));
-                }
-                if (!cArrivalInfo.getArrivalInfoList().isEmpty()) {
-                    newList.add(cArrivalInfo);
-                    setData(newList);
-                    return;
                 }
+                cArrivalInfo.getArrivalInfoList().add(list.get(i));
+            }
+            if (!cArrivalInfo.getArrivalInfoList().isEmpty()) {
+                newList.add(cArrivalInfo);
+                return newList;
             }
         }
         // If we get this far, we don't have any data to use
-        setData(null);
+        return null;
     }
 
-    @Override
-    protected void initView(final View view, CombinedArrivalInfoStyleB combinedArrivalInfoStyleB) {
-        final ArrivalInfo stopInfo = combinedArrivalInfoStyleB.getArrivalInfoList().get(0);
-        final ObaArrivalInfo arrivalInfo = stopInfo.getInfo();
-        final Context context = getContext();
+    /**
+     * Views of a card, looked up once when the card is inflated, and the arrival rows currently
+     * added to the card
+     */
+    private static class CardHolder {
 
-        LayoutInflater inflater = LayoutInflater.from(context);
+        TextView routeName;
 
-        TextView routeName = view.findViewById(R.id.routeName);
-        TextView destination = view.findViewById(R.id.routeDestination);
-        TextView platformInfo = view.findViewById(R.id.platform_info);
+        TextView destination;
 
-        // TableLayout that we will fill with TableRows of arrival times
-        TableLayout arrivalTimesLayout = view.findViewById(R.id.arrivalTimeLayout);
-        arrivalTimesLayout.removeAllViews();
+        TextView platformInfo;
 
-        Resources r = view.getResources();
+        TextView reminder;
 
-        ImageButton starBtn = view.findViewById(R.id.route_star);
-        starBtn.setColorFilter(r.getColor(R.color.theme_primary));
+        ImageButton starBtn;
 
-        ImageButton mapImageBtn = view.findViewById(R.id.mapImageBtn);
-        mapImageBtn.setColorFilter(r.getColor(R.color.theme_primary));
+        ImageButton mapImageBtn;
 
-        ImageButton routeMoreInfo = view.findViewById(R.id.route_more_info);
-        routeMoreInfo.setColorFilter(r.getColor(R.color.switch_thumb_normal_material_dark));
+        ImageButton routeMoreInfo;
 
-        starBtn.setImageResource(stopInfo.isRouteAndHeadsignFavorite() ?
-                R.drawable.focus_star_on :
-                R.drawable.focus_star_off);
+        // TableLayout that we fill with TableRows of arrival times
+        TableLayout arrivalTimesLayout;
 
-        starBtn.setOnClickListener(v -> {
-            // Show dialog for setting route favorite
-            RouteFavoriteDialogFragment dialog = new RouteFavoriteDialogFragment.Builder(
-                    stopInfo.getInfo().getRouteId(), stopInfo.getInfo().getHeadsign())
-                    .setRouteShortName(stopInfo.getInfo().getShortName())
-                    .setRouteLongName(stopInfo.getInfo().getRouteLongName())
-                    .setStopId(stopInfo.getInfo().getStopId())
-                    .setFavorite(!stopInfo.isRouteAndHeadsignFavorite())
-                    .build();
+        final ArrayList<ArrivalRow> rows = new ArrayList<>();
 
-            dialog.setCallback(savedFavorite -> {
-                if (savedFavorite) {
-                    mFragment.refreshLocal();
-                }
-            });
-            dialog.show(mFragment.getFragmentManager(), RouteFavoriteDialogFragment.TAG);
-        });
+        CardHolder(View view) {
+            Resources r = view.getResources();
+            routeName = view.findViewById(R.id.routeName);
+            destination = view.findViewById(R.id.routeDestination);
+            platformInfo = view.findViewById(R.id.platform_info);
+            reminder = view.findViewById(R.id.reminder);
+            arrivalTimesLayout = view.findViewById(R.id.arrivalTimeLayout);
+            arrivalTimesLayout.removeAllViews();
 
-        // Setup map
-        mapImageBtn.setOnClickListener(v -> mFragment.showRouteOnMap(stopInfo));
+            starBtn = view.findViewById(R.id.route_star);
+            starBtn.setColorFilter(r.getColor(R.color.theme_primary));
 
-        // Setup more
-        routeMoreInfo.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                mFragment.showListItemMenu(view, stopInfo);
-            }
-        });
+            mapImageBtn = view.findViewById(R.id.mapImageBtn);
+            mapImageBtn.setColorFilter(r.getColor(R.color.theme_primary));
+
+            routeMoreInfo = view.findViewById(R.id.route_more_info);
+            routeMoreInfo.setColorFilter(r.getColor(R.color.switch_thumb_normal_material_dark));
+        }
+    }
+
+    /**
+     * A row of arrival times within a card.  The first row of a card uses a larger style for the
+     * next arrival.  Smaller rows are returned to a pool when a card shrinks, and are reused by the
+     * next card that grows, so rows are only inflated when the list needs more of them than it
+     * had before.
+     */
+    private static class ArrivalRow {
+
+        // Divider added above the row, or null for the first row of a card
+        final View divider;
+
+        final TableRow row;
 
-        routeName.setText(arrivalInfo.getShortName());
-        destination.setText(UIUtils.formatDisplayText(arrivalInfo.getHeadsign()));
+        final TextView scheduleView;
 
-        // Loop through the arrival times and create the TableRows that contains the data
-        for (int i = 0; i < combinedArrivalInfoStyleB.getArrivalInfoList().size(); i++) {
-            final ArrivalInfo arrivalRow = combinedArrivalInfoStyleB.getArrivalInfoList().get(i);
-            final ObaArrivalInfo tempArrivalInfo = arrivalRow.getInfo();
-            long scheduledTime = tempArrivalInfo.getScheduledArrivalTime();
+        final TextView estimatedView;
 
+        final TextView statusView;
+
+        final ConstraintLayout occupancyView;
+
+        final int alpha;
+
+        // Color resource last bound to this row, or 0 if none
+        int colorCode;
+
+        ArrivalRow(Context context, LayoutInflater inflater, boolean large) {
             // Create a new row to be added
-            final TableRow tr = (TableRow) inflater
-                    .inflate(R.layout.arrivals_list_tr_template_style_b, null);
+            row = (TableRow) inflater.inflate(R.layout.arrivals_list_tr_template_style_b, null);
 
             // Layout and views to inflate from XML templates
             RelativeLayout layout;
-            ConstraintLayout occupancyView;
-            TextView scheduleView, estimatedView, statusView;
-            View divider;
-
-            if (i == 0) {
+            if (large) {
                 // Use larger styled layout/view for next arrival time
                 layout = (RelativeLayout) inflater
                         .inflate(R.layout.arrivals_list_rl_template_style_b_large, null);
@@ -220,6 +217,8 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
                         .inflate(R.layout.arrivals_list_tv_template_style_b_estimated_large, null);
                 statusView = (TextView) inflater
                         .inflate(R.layout.arrivals_list_tv_template_style_b_status_large, null);
+                alpha = (int) (1.0f * 255);  // X percent transparency
+                divider = null;
             } else {
                 // Use smaller styled layout/view for further out times
                 layout = (RelativeLayout) inflater
@@ -230,76 +229,27 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
                         .inflate(R.layout.arrivals_list_tv_template_style_b_estimated_small, null);
                 statusView = (TextView) inflater
                         .inflate(R.layout.arrivals_list_tv_template_style_b_status_small, null);
-            }
-
-            occupancyView = (ConstraintLayout) inflater.inflate(R.layout.occupancy, null);
-
-            // CANCELED trips
-            if (Status.CANCELED.equals(stopInfo.getStatus())) {
-                // Strike through the text fields
-                scheduleView.setPaintFlags(Paint.STRIKE_THRU_TEXT_FLAG);
-            }
+                alpha = (int) (.35f * 255);  // X percent transparency
 
-            // Occupancy
-            if (stopInfo.getPredictedOccupancy() != null) {
-                // Predicted occupancy data
-                UIUtils.setOccupancyVisibilityAndColor(occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
-                UIUtils.setOccupancyContentDescription(occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
-            } else {
-                // Historical occupancy data
-                UIUtils.setOccupancyVisibilityAndColor(occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
-                UIUtils.setOccupancyContentDescription(occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
+                int dividerHeight = UIUtils.dpToPixels(context, 1);
+                divider = inflater.inflate(R.layout.arrivals_list_divider_template_style_b, null);
+                divider.setLayoutParams(
+                        new TableRow.LayoutParams(TableRow.LayoutParams.MATCH_PARENT,
+                                dividerHeight));
             }
 
-            // Set platform info
-            if (stopInfo.hasPlatformInfo()) {
-                platformInfo.setVisibility(View.VISIBLE);
-                platformInfo.setText(stopInfo.getPlatformInfo());
-            } else {
-                platformInfo.setVisibility(View.GONE);
-            }
+            occupancyView = (ConstraintLayout) inflater.inflate(R.layout.occupancy, null);
 
-            // Set arrival times and status in views
-            scheduleView.setText(UIUtils.formatTime(context, scheduledTime));
-            if (arrivalRow.getPredicted()) {
-                long eta = arrivalRow.getEta();
-                if (eta == 0) {
-                    estimatedView.setText(R.string.stop_info_eta_now);
-                } else {
-                    estimatedView.setText(eta + " min");
-                }
-            } else {
-                estimatedView.setText(R.string.stop_info_eta_unknown);
-            }
-            statusView.setText(arrivalRow.getStatusText());
-            int colorCode = arrivalRow.getColor();
+            // Mutate the background so each row can have its own color
             statusView.setBackgroundResource(R.drawable.round_corners_style_b_status);
-            GradientDrawable d = (GradientDrawable) statusView.getBackground();
-            d.setColor(context.getResources().getColor(colorCode));
-
-            int alpha;
-            if (i == 0) {
-                // Set next arrival
-                alpha = (int) (1.0f * 255);  // X percent transparency
-            } else {
-                // Set smaller rows
-                alpha = (int) (.35f * 255);  // X percent transparency
-            }
-            d.setAlpha(alpha);
-            // Set text color w/ alpha, but increase it a bit to give text better contrast
-            estimatedView.setTextColor(UIUtils.getTransparentColor(
-                    context.getResources().getColor(colorCode), alpha * 2));
+            statusView.setBackground(statusView.getBackground().mutate());
+            statusView.getBackground().setAlpha(alpha);
 
             // Set padding on status view
             int pSides = UIUtils.dpToPixels(context, 5);
             int pTopBottom = UIUtils.dpToPixels(context, 2);
             statusView.setPadding(pSides, pTopBottom, pSides, pTopBottom);
 
-            // Set alpha for occupancy person icons
-            for (int index = 0; index < occupancyView.getChildCount(); ++index) {
-                ((ImageView) occupancyView.getChildAt(index)).setAlpha(alpha);
-            }
-
             // Add TextViews to layout
             layout.addView(scheduleView);
             layout.addView(statusView);
@@ -335,30 +285,72 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
             occupancyView.setLayoutParams(params4);
 
             // Add layout to TableRow
-            tr.addView(layout);
+            row.addView(layout);
+        }
+    }
 
-            // Add the divider, if its not the first row
-            if (i != 0) {
-                int dividerHeight = UIUtils.dpToPixels(context, 1);
-                divider = inflater.inflate(R.layout.arrivals_list_divider_template_style_b, null);
-                divider.setLayoutParams(
-                        new TableRow.LayoutParams(TableRow.LayoutParams.MATCH_PARENT,
-                                dividerHeight));
-                arrivalTimesLayout.addView(divider);
-            }
+    @Override
+    protected void initView(final View view, CombinedArrivalInfoStyleB combinedArrivalInfoStyleB) {
+        final ArrivalInfo stopInfo = combinedArrivalInfoStyleB.getArrivalInfoList().get(0);
+        final ObaArrivalInfo arrivalInfo = stopInfo.getInfo();
+        final Context context = getContext();
 
-            // Add click listener
-            tr.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    mFragment.showListItemMenu(tr, arrivalRow);
+        CardHolder holder = (CardHolder) view.getTag();
+        if (holder == null) {
+            holder = new CardHolder(view);
+            view.setTag(holder);
+        }
+
+        holder.starBtn.setImageResource(stopInfo.isRouteAndHeadsignFavorite() ?
+                R.drawable.focus_star_on :
+                R.drawable.focus_star_off);
+
+        holder.starBtn.setOnClickListener(v -> {
+            // Show dialog for setting route favorite
+            RouteFavoriteDialogFragment dialog = new RouteFavoriteDialogFragment.Builder(
+                    stopInfo.getInfo().getRouteId(), stopInfo.getInfo().getHeadsign())
+                    .setRouteShortName(stopInfo.getInfo().getShortName())
+                    .setRouteLongName(stopInfo.getInfo().getRouteLongName())
+                    .setStopId(stopInfo.getInfo().getStopId())
+                    .setFavorite(!stopInfo.isRouteAndHeadsignFavorite())
+                    .build();
+
+            dialog.setCallback(savedFavorite -> {
+                if (savedFavorite) {
+                    mFragment.refreshLocal();
                 }
             });
+            dialog.show(mFragment.getFragmentManager(), RouteFavoriteDialogFragment.TAG);
+        });
 
-            // Add TableRow to container layout
-            arrivalTimesLayout.addView(tr,
-                    new TableLayout.LayoutParams(TableLayout.LayoutParams.MATCH_PARENT,
-                            TableLayout.LayoutParams.MATCH_PARENT));
+        // Setup map
+        holder.mapImageBtn.setOnClickListener(v -> mFragment.showRouteOnMap(stopInfo));
+
+        // Setup more
+        holder.routeMoreInfo.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                mFragment.showListItemMenu(view, stopInfo);
+            }
+        });
+
+        setTextIfChanged(holder.routeName, arrivalInfo.getShortName());
+        setTextIfChanged(holder.destination,
+                UIUtils.formatDisplayText(arrivalInfo.getHeadsign()));
+
+        // Set platform info
+        if (stopInfo.hasPlatformInfo()) {
+            holder.platformInfo.setVisibility(View.VISIBLE);
+            setTextIfChanged(holder.platformInfo, stopInfo.getPlatformInfo());
+        } else {
+            holder.platformInfo.setVisibility(View.GONE);
+        }
+
+        // Add or remove rows so the card has one row per arrival time, then bind them
+        ArrayList<ArrivalInfo> arrivalRows = combinedArrivalInfoStyleB.getArrivalInfoList();
+        resizeRows(holder, arrivalRows.size());
+        for (int i = 0; i < arrivalRows.size(); i++) {
+            bindRow(holder.rows.get(i), stopInfo, arrivalRows.get(i));
         }
 
         // Show or hide reminder for this trip
@@ -369,7 +361,7 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
         if (values != null) {
             String reminderName = values.getAsString(ObaContract.Trips.NAME);
 
-            TextView reminder = (TextView) view.findViewById(R.id.reminder);
+            TextView reminder = holder.reminder;
             if (reminderName.length() == 0) {
                 reminderName = context.getString(R.string.trip_info_noname);
             }
@@ -382,8 +374,114 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
         } else {
             // Explicitly set reminder to invisible because we might be reusing
             // this view.
-            View reminder = view.findViewById(R.id.reminder);
-            reminder.setVisibility(View.GONE);
+            holder.reminder.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Adds rows to or removes rows from the card until it has the given number of rows.  Removed
+     * rows are returned to the pool, and added rows are taken from the pool when possible.
+     */
+    private void resizeRows(CardHolder holder, int count) {
+        while (holder.rows.size() > count) {
+            // The first row is never removed, since a card always has at least one arrival
+            ArrivalRow row = holder.rows.remove(holder.rows.size() - 1);
+            holder.arrivalTimesLayout.removeView(row.divider);
+            holder.arrivalTimesLayout.removeView(row.row);
+            if (mRowPool.size() < MAX_POOLED_ROWS) {
+                mRowPool.push(row);
+            }
         }
+        while (holder.rows.size() < count) {
+            ArrivalRow row;
+            if (holder.rows.isEmpty()) {
+                row = new ArrivalRow(getContext(), getLayoutInflater(), true);
+            } else {
+                row = mRowPool.poll();
+                if (row == null) {
+                    row = new ArrivalRow(getContext(), getLayoutInflater(), false);
+                }
+                // Add the divider, if its not the first row
+                holder.arrivalTimesLayout.addView(row.divider);
+            }
+            // Add TableRow to container layout
+            holder.arrivalTimesLayout.addView(row.row,
+                    new TableLayout.LayoutParams(TableLayout.LayoutParams.MATCH_PARENT,
+                            TableLayout.LayoutParams.MATCH_PARENT));
+            holder.rows.add(row);
+        }
+    }
+
+    /**
+     * Binds an arrival time to a row, only updating the views whose content changed since the
+     * row was last bound
+     *
+     * @param stopInfo   the first arrival of the card
+     * @param arrivalRow the arrival shown in this row
+     */
+    private void bindRow(final ArrivalRow row, ArrivalInfo stopInfo,
+            final ArrivalInfo arrivalRow) {
+        final Context context = getContext();
+        final ObaArrivalInfo tempArrivalInfo = arrivalRow.getInfo();
+        long scheduledTime = tempArrivalInfo.getScheduledArrivalTime();
+
+        // CANCELED trips - strike through the text fields, and clear it if this row is reused
+        int flags = row.scheduleView.getPaintFlags();
+        int newFlags = Status.CANCELED.equals(stopInfo.getStatus()) ?
+                flags | Paint.STRIKE_THRU_TEXT_FLAG : flags & ~Paint.STRIKE_THRU_TEXT_FLAG;
+        if (newFlags != flags) {
+            row.scheduleView.setPaintFlags(newFlags);
+        }
+
+        // Occupancy
+        if (stopInfo.getPredictedOccupancy() != null) {
+            // Predicted occupancy data
+            UIUtils.setOccupancyVisibilityAndColor(row.occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
+            UIUtils.setOccupancyContentDescription(row.occupancyView, stopInfo.getPredictedOccupancy(), OccupancyState.PREDICTED);
+        } else {
+            // Historical occupancy data
+            UIUtils.setOccupancyVisibilityAndColor(row.occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
+            UIUtils.setOccupancyContentDescription(row.occupancyView, stopInfo.getHistoricalOccupancy(), OccupancyState.HISTORICAL);
+        }
+
+        // Set alpha for occupancy person icons
+        for (int index = 0; index < row.occupancyView.getChildCount(); ++index) {
+            ((ImageView) row.occupancyView.getChildAt(index)).setAlpha(row.alpha);
+        }
+
+        // Set arrival times and status in views
+        setTextIfChanged(row.scheduleView, UIUtils.formatTime(context, scheduledTime));
+        if (arrivalRow.getPredicted()) {
+            long eta = arrivalRow.getEta();
+            if (eta == 0) {
+                setTextIfChanged(row.estimatedView,
+                        context.getString(R.string.stop_info_eta_now));
+            } else {
+                setTextIfChanged(row.estimatedView, eta + " min");
+            }
+        } else {
+            setTextIfChanged(row.estimatedView,
+                    context.getString(R.string.stop_info_eta_unknown));
+        }
+        setTextIfChanged(row.statusView, arrivalRow.getStatusText());
+
+        int colorCode = arrivalRow.getColor();
+        if (row.colorCode != colorCode) {
+            int color = context.getResources().getColor(colorCode);
+            GradientDrawable d = (GradientDrawable) row.statusView.getBackground();
+            d.setColor(color);
+            d.setAlpha(row.alpha);
+            // Set text color w/ alpha, but increase it a bit to give text better contrast
+            row.estimatedView.setTextColor(UIUtils.getTransparentColor(color, row.alpha * 2));
+            row.colorCode = colorCode;
+        }
+
+        // Add click listener
+        row.row.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                mFragment.showListItemMenu(row.row, arrivalRow);
+            }
+        });
     }
 }
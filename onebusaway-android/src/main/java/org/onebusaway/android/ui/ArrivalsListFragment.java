@@ -33,6 +33,7 @@ import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -63,6 +64,7 @@ import org.onebusaway.android.database.recentStops.RecentStopsManager;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.PlausibleAnalytics;
+import org.onebusaway.android.io.ServerClock;
 import org.onebusaway.android.io.elements.ObaArrivalInfo;
 import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaRoute;
@@ -83,12 +85,16 @@ import org.onebusaway.android.io.request.survey.model.StudyResponse;
 import org.onebusaway.android.util.ArrayAdapterWithIcon;
 import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.BuildFlavorUtils;
+import org.onebusaway.android.util.CountdownTicker;
 import org.onebusaway.android.util.DBUtil;
 import org.onebusaway.android.util.FragmentUtils;
+import org.onebusaway.android.util.HiddenAlertsCache;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.ReminderUtils;
 import org.onebusaway.android.util.ShowcaseViewUtils;
+import org.onebusaway.android.util.StopUserInfoCache;
 import org.onebusaway.android.util.UIUtils;
 
 import java.util.ArrayList;
@@ -128,7 +134,8 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
      */
     public static final String EXTERNAL_HEADER = ".ExternalHeader";
 
-    private static final long RefreshPeriod = 60 * 1000;
+    // Current refresh period, which adapts to how soon the next real-time arrival is
+    private long mRefreshPeriod = RefreshScheduler.DEFAULT_REFRESH_PERIOD;
 
     private static int TRIPS_FOR_STOP_LOADER = 1;
 
@@ -172,6 +179,9 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
     // The list of situation alerts
     private ArrayList<SituationAlert> mSituationAlerts;
 
+    // True if the arrivals shown come from the stored schedule of the stop
+    private boolean mScheduleOnly;
+
     // Set to true if we're using an external header not in this layout (e.g., if this fragment is in a sliding panel)
     private boolean mExternalHeader = false;
 
@@ -362,13 +372,27 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
 
     @Override
     public void onPause() {
-        mRefreshHandler.removeCallbacks(mRefresh);
+        mRefreshSubscription.cancel();
+        mCountdownTicker.stop();
         if (mHeader != null) {
             mHeader.onPause();
         }
         super.onPause();
     }
 
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        // Don't poll for arrivals that can't be seen
+        if (hidden) {
+            mRefreshSubscription.cancel();
+            mCountdownTicker.stop();
+        } else if (isResumed()) {
+            mRefreshSubscription.resume(getArrivalsLoader().getLastResponseTime(), mRefreshPeriod);
+            mCountdownTicker.start();
+        }
+    }
+
     @Override
     public void onResume() {
         // Make sure we're using the correct adapter based on user preferences, in case they changed
@@ -392,17 +416,11 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
 
         getLoaderManager().restartLoader(TRIPS_FOR_STOP_LOADER, null, mTripsForStopCallback);
 
-        // If our timer would have gone off, then refresh.
-        long lastResponseTime = getArrivalsLoader().getLastResponseTime();
-        long newPeriod = Math.min(RefreshPeriod, (lastResponseTime + RefreshPeriod)
-                - System.currentTimeMillis());
-        // Wait at least one second at least, and the full minute at most.
-        //Log.d(TAG, "Refresh period:" + newPeriod);
-        if (newPeriod <= 0) {
-            refresh();
-        } else {
-            mRefreshHandler.postDelayed(mRefresh, newPeriod);
+        if (!isHidden()) {
+            mRefreshSubscription.resume(getArrivalsLoader().getLastResponseTime(), mRefreshPeriod);
+            mCountdownTicker.start();
         }
+        ServerClock.getInstance().syncIfNeeded(getActivity());
 
         // Refresh the favorite status and stop name, in case we're returning from another view
         setUserInfo();
@@ -441,14 +459,21 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
             situations = UIUtils.getAllSituations(result, mRoutesFilter);
             refs = result.getRefs();
 
-            TravelBehaviorManager.saveArrivalInfo(info, result.getUrl(),
-                    result.getCurrentTime(), mStopId);
+            // If real-time arrivals couldn't be retrieved, these come from the stored schedule,
+            // which the header shows until real-time arrivals are back
+            mScheduleOnly = result.isScheduleOnly();
+            if (!mScheduleOnly && !result.isFromRealtimeFeed()) {
+                // Arrivals updated from the GTFS-realtime feeds aren't what the server returned
+                TravelBehaviorManager.saveArrivalInfo(info, result.getUrl(),
+                        result.getCurrentTime(), mStopId);
+            }
 
             // Report Stop distance metric
             Location stopLocation = mStop.getLocation();
             Location myLocation = Application.getLastKnownLocation(getActivity(), null);
             ObaAnalytics.reportViewStopEvent(Application.get().getPlausibleInstance(), mFirebaseAnalytics, mStop.getId(), mStop.getName(), myLocation, stopLocation);
         } else {
+            mScheduleOnly = false;
             // If there was a last good response, then this is a refresh
             // and we should use a toast. Otherwise, it's a initial
             // page load and we want to display the error in the empty text.
@@ -478,11 +503,13 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
             }
         }
 
-        // Clear any pending refreshes
-        mRefreshHandler.removeCallbacks(mRefresh);
-
-        // Post an update
-        mRefreshHandler.postDelayed(mRefresh, RefreshPeriod);
+        // Schedule the next update, replacing any pending one
+        mRefreshPeriod = RefreshScheduler.getRefreshPeriod(info,
+                result.getCode() == ObaApi.OBA_OK ? result.getCurrentTime()
+                        : ServerClock.getInstance().currentTimeMillis());
+        if (isResumed() && !isHidden()) {
+            mRefreshSubscription.schedule(mRefreshPeriod);
+        }
 
         // If the user just tried to load more arrivals, determine if we
         // should show a Toast in the case where no additional arrivals were loaded
@@ -563,7 +590,8 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
             // Reset the empty text just in case there is no data.
             setEmptyText(UIUtils.getNoArrivalsMessage(Application.get().getApplicationContext(),
                     minutesAfter, false, false));
-            mAdapter.setData(info, mRoutesFilter, System.currentTimeMillis());
+            mAdapter.setDataAsync(info, mRoutesFilter,
+                    ServerClock.getInstance().currentTimeMillis());
         }
 
         if (mHeader != null) {
@@ -574,7 +602,7 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
     @Override
     public void onLoaderReset(Loader<ObaArrivalInfoResponse> loader) {
         showProgress(false);
-        mAdapter.setData(null, mRoutesFilter, System.currentTimeMillis());
+        mAdapter.setData(null, mRoutesFilter, ServerClock.getInstance().currentTimeMillis());
 
         mArrivalInfo = null;
 
@@ -913,7 +941,7 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
 
         if (mArrivalInfo != null) {
             list = ArrivalInfoUtils.convertObaArrivalInfo(getActivity(), mArrivalInfo, mRoutesFilter,
-                    System.currentTimeMillis(), true);
+                    ServerClock.getInstance().currentTimeMillis(), true);
         }
         return list;
     }
@@ -951,7 +979,11 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
             values.put(ObaContract.Stops.USER_NAME, name);
             mStopUserName = name;
         }
-        cr.update(mStopUri, values, null, null);
+        if (cr.update(mStopUri, values, null, null) > 0) {
+            // The cache would otherwise be updated after the provider notifies it
+            StopUserInfoCache.getInstance(getActivity())
+                    .put(mStopId, mStopUserName, mFavorite);
+        }
     }
 
     @Override
@@ -974,6 +1006,11 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
         refreshLocal();
     }
 
+    @Override
+    public boolean isScheduleOnly() {
+        return mScheduleOnly;
+    }
+
     @Override
     public long getLastGoodResponseTime() {
         ArrivalsListLoader loader = getArrivalsLoader();
@@ -1025,6 +1062,8 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
     public boolean setFavoriteStop(boolean favorite) {
         if (ObaContract.Stops.markAsFavorite(getActivity(), mStopUri, favorite)) {
             mFavorite = favorite;
+            StopUserInfoCache.getInstance(getActivity())
+                    .put(mStopId, mStopUserName, mFavorite);
         }
         // Apparently we can't rely on onPrepareOptionsMenu to set the
         // menus like we did before...
@@ -1539,20 +1578,25 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
                 // Nothing to refresh yet
                 return;
             }
-            mAdapter.setData(response.getArrivalInfo(), mRoutesFilter, System.currentTimeMillis());
+            mAdapter.setDataAsync(response.getArrivalInfo(), mRoutesFilter,
+                    ServerClock.getInstance().currentTimeMillis());
         }
         if (mHeader != null) {
             mHeader.refresh();
         }
     }
 
-    private final Handler mRefreshHandler = new Handler();
+    private final RefreshScheduler.Subscription mRefreshSubscription =
+            RefreshScheduler.getInstance().subscribe(new Runnable() {
+                public void run() {
+                    refresh();
+                }
+            });
 
-    private final Runnable mRefresh = new Runnable() {
-        public void run() {
-            refresh();
-        }
-    };
+    // Updates the countdowns between two refreshes of the arrivals, which are only polled as
+    // often as the predictions change (see RefreshScheduler.getRefreshPeriod())
+    private final CountdownTicker mCountdownTicker = new CountdownTicker(
+            new Handler(Looper.getMainLooper()), ServerClock.getInstance(), this::refreshLocal);
 
     private void setStopId() {
         Uri uri = (Uri) getArguments().getParcelable(FragmentUtils.URI);
@@ -1564,24 +1608,11 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
         mStopUri = uri;
     }
 
-    private static final String[] USER_PROJECTION = {
-            ObaContract.Stops.FAVORITE,
-            ObaContract.Stops.USER_NAME
-    };
-
     private void setUserInfo() {
-        ContentResolver cr = getActivity().getContentResolver();
-        Cursor c = cr.query(mStopUri, USER_PROJECTION, null, null, null);
-        if (c != null) {
-            try {
-                if (c.moveToNext()) {
-                    mFavorite = (c.getInt(0) == 1);
-                    mStopUserName = c.getString(1);
-                }
-            } finally {
-                c.close();
-            }
-        }
+        StopUserInfoCache.UserInfo info = StopUserInfoCache.getInstance(getActivity())
+                .get(mStopId);
+        mFavorite = info != null && info.isFavorite();
+        mStopUserName = info != null ? info.getUserName() : null;
     }
 
     private static final String[] TRIPS_PROJECTION = {
@@ -1742,19 +1773,16 @@ public class ArrivalsListFragment extends ListFragment implements LoaderManager.
 
         mSituationAlerts = new ArrayList<>();
 
-        ContentValues values = new ContentValues();
+        // The loader already added these alerts to the database, and the cache is kept current
+        // when the user hides or shows alerts
+        HiddenAlertsCache hiddenAlerts = HiddenAlertsCache.getInstance(Application.get());
 
         int hiddenCount = 0;
 
         for (ObaSituation situation : situations) {
-            values.clear();
-
-            // Make sure this situation is added to the database
-            ObaContract.ServiceAlerts.insertOrUpdate(situation.getId(), values, false, null);
-
             boolean isActive = UIUtils
                     .isActiveWindowForSituation(situation, System.currentTimeMillis());
-            boolean isHidden = ObaContract.ServiceAlerts.isHidden(situation.getId());
+            boolean isHidden = hiddenAlerts.isHidden(situation.getId());
 
             if (isActive && !isHidden) {
                 SituationAlert alert = new SituationAlert(situation);
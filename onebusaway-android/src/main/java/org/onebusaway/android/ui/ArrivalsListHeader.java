@@ -64,6 +64,7 @@ import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.Status;
 import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.util.ArrivalInfoUtils;
+import org.onebusaway.android.util.HiddenAlertsCache;
 import org.onebusaway.android.util.ReminderUtils;
 import org.onebusaway.android.util.UIUtils;
 
@@ -91,6 +92,12 @@ class ArrivalsListHeader {
 
         long getLastGoodResponseTime();
 
+        /**
+         * @return true if the arrivals shown come from the stored schedule of the stop, because
+         * real-time arrivals couldn't be retrieved
+         */
+        boolean isScheduleOnly();
+
         // Returns a sorted list (by ETA) of arrival times for the current stop
         ArrayList<ArrivalInfo> getArrivalInfo();
 
@@ -1214,8 +1221,11 @@ class ArrivalsListHeader {
 
         private final CharSequence mString;
 
-        ResponseError(CharSequence seq) {
+        private final int mType;
+
+        ResponseError(CharSequence seq, int type) {
             mString = seq;
+            mType = type;
         }
 
         @Override
@@ -1225,7 +1235,7 @@ class ArrivalsListHeader {
 
         @Override
         public int getType() {
-            return TYPE_ERROR;
+            return mType;
         }
 
         @Override
@@ -1282,7 +1292,13 @@ class ArrivalsListHeader {
             alerts.remove(mResponseError);
         }
 
-        if ((responseTime) != 0 &&
+        if (mController.isScheduleOnly()) {
+            // Shown for as long as the arrivals come from the stored schedule
+            mResponseError = new ResponseError(
+                    mContext.getString(R.string.stop_info_schedule_only),
+                    AlertList.Alert.TYPE_WARNING);
+            alerts.insert(mResponseError, 0);
+        } else if ((responseTime) != 0 &&
                 ((now - responseTime) >= 2 * DateUtils.MINUTE_IN_MILLIS)) {
             CharSequence relativeTime =
                     DateUtils.getRelativeTimeSpanString(responseTime,
@@ -1291,7 +1307,7 @@ class ArrivalsListHeader {
                             0);
             CharSequence s = mContext.getString(R.string.stop_info_old_data,
                     relativeTime);
-            mResponseError = new ResponseError(s);
+            mResponseError = new ResponseError(s, AlertList.Alert.TYPE_ERROR);
             alerts.insert(mResponseError, 0);
         }
 
@@ -1362,7 +1378,7 @@ class ArrivalsListHeader {
 
         @Override
         public void onClick() {
-            ObaContract.ServiceAlerts.showAllAlerts();
+            HiddenAlertsCache.getInstance(Application.get()).setAllHidden(false);
             mController.refresh();
         }
 
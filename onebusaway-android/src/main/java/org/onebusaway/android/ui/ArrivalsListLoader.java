@@ -17,10 +17,20 @@
 package org.onebusaway.android.ui;
 
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ScheduleStore;
+import org.onebusaway.android.io.ServerClock;
 import org.onebusaway.android.io.request.ObaArrivalInfoRequest;
 import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.realtime.RealtimeFeeds;
+import org.onebusaway.android.realtime.RealtimeIndex;
+import org.onebusaway.android.realtime.RealtimeUpdates;
+import org.onebusaway.android.util.HiddenAlertsCache;
+import org.onebusaway.android.util.UIUtils;
 
 import android.content.Context;
+import android.os.SystemClock;
+
+import java.util.concurrent.TimeUnit;
 
 import androidx.loader.content.AsyncTaskLoader;
 
@@ -29,19 +39,35 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
 
     private final String mStopId;
 
-    private ObaArrivalInfoResponse mLastGoodResponse;
+    private volatile ObaArrivalInfoResponse mLastGoodResponse;
 
     private long mLastResponseTime = 0;
 
-    private long mLastGoodResponseTime = 0;
+    private volatile long mLastGoodResponseTime = 0;
 
-    // Shows vehicles arriving or departing in the next "mMinutesAfter" minutes
-    private int mMinutesAfter = DEFAULT_MINUTES_AFTER;
+    // Shows vehicles arriving or departing in the next "mMinutesAfter" minutes.  Read on the
+    // loader thread, and extended from the main thread when the user asks for more arrivals.
+    private volatile int mMinutesAfter = DEFAULT_MINUTES_AFTER;
 
     public static final int DEFAULT_MINUTES_AFTER = 65;
 
     private static final int MINUTES_INCREMENT = 60; // minutes
     private static final int MAX_MINUTES_AFTER = 1440;
+
+    // After this, the last good response is too old to be shown when a refresh fails, and
+    // scheduled arrivals are shown instead
+    private static final long MAX_LAST_GOOD_AGE = TimeUnit.MINUTES.toMillis(10);
+
+    // While the GTFS-realtime feeds are used, arrivals are requested from the OBA server this
+    // often, and their predictions are refreshed from the feeds in between
+    private static final long ARRIVALS_REFRESH_PERIOD = TimeUnit.MINUTES.toMillis(2);
+
+    // The last response of the OBA server, which the feeds update
+    private volatile ObaArrivalInfoResponse mArrivalsResponse;
+
+    private volatile long mArrivalsResponseTime;
+
+    private volatile int mArrivalsMinutesAfter;
     private String mUrl;
 
     public ArrivalsListLoader(Context context, String stopId) {
@@ -51,6 +77,17 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
 
     @Override
     public ObaArrivalInfoResponse loadInBackground() {
+        boolean realtime = RealtimeFeeds.isEnabled();
+        ObaArrivalInfoResponse arrivals = mArrivalsResponse;
+        if (realtime && arrivals != null && mArrivalsMinutesAfter == mMinutesAfter
+                && SystemClock.elapsedRealtime() - mArrivalsResponseTime
+                < ARRIVALS_REFRESH_PERIOD) {
+            ObaArrivalInfoResponse updated = updateArrivals(arrivals);
+            if (updated != null) {
+                return updated;
+            }
+        }
+
         ObaArrivalInfoResponse response;
 
         do {
@@ -60,23 +97,80 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
             mUrl = obaArrivalInfoRequest.getUri().toString();
             response = obaArrivalInfoRequest.call();
 
-            // Check if the arrival info is null or has no entries
-            if (response.getArrivalInfo() == null || response.getArrivalInfo().length == 0) {
+            // Check if the arrival info is null or has no entries.  A failed request has none
+            // either, but a wider window won't fix it.
+            if (response.getCode() == ObaApi.OBA_OK && (response.getArrivalInfo() == null
+                    || response.getArrivalInfo().length == 0)) {
                 incrementMinutesAfter(); // Extend the time window
             }
-        } while ((response.getArrivalInfo() == null || response.getArrivalInfo().length == 0)
+        } while (response.getCode() == ObaApi.OBA_OK
+                && (response.getArrivalInfo() == null || response.getArrivalInfo().length == 0)
                 && mMinutesAfter <= MAX_MINUTES_AFTER); // Continue until arrivals are found or limit reached
 
+        if (shouldUseSchedule(response)) {
+            ObaArrivalInfoResponse scheduled = ScheduleStore.getInstance(getContext())
+                    .getScheduledArrivals(mStopId, ServerClock.getInstance().currentTimeMillis(),
+                            mMinutesAfter);
+            if (scheduled != null) {
+                return scheduled;
+            }
+        }
+
+        if (response.getCode() == ObaApi.OBA_OK && response.getArrivalInfo() != null) {
+            // Make sure all alerts for this stop are in the database, and load which ones the user
+            // hid, so the fragment doesn't have to query the database for each alert
+            HiddenAlertsCache.getInstance(getContext())
+                    .sync(UIUtils.getAllSituations(response, null));
+
+            mArrivalsResponse = response;
+            mArrivalsResponseTime = SystemClock.elapsedRealtime();
+            mArrivalsMinutesAfter = mMinutesAfter;
+            if (realtime) {
+                // The feed may have newer predictions than the OBA server
+                ObaArrivalInfoResponse updated = updateArrivals(response);
+                if (updated != null) {
+                    return updated;
+                }
+            }
+        }
+
         return response;
     }
 
+    /**
+     * @return the arrivals with the predictions of the GTFS-realtime feed, or null if the feed
+     * couldn't be downloaded
+     */
+    private static ObaArrivalInfoResponse updateArrivals(ObaArrivalInfoResponse arrivals) {
+        RealtimeFeeds feeds = RealtimeFeeds.getInstance();
+        if (!feeds.refresh(RealtimeIndex.Feed.TRIP_UPDATES)) {
+            return null;
+        }
+        return RealtimeUpdates.updateArrivals(arrivals, feeds.getIndex());
+    }
+
+    /**
+     * @return true if real-time arrivals couldn't be retrieved because of the network or the
+     * server, and there isn't a recent good response to show instead, so the stored schedule of
+     * the stop should be shown
+     */
+    private boolean shouldUseSchedule(ObaArrivalInfoResponse response) {
+        int code = response.getCode();
+        if (code == ObaApi.OBA_OK || code == ObaApi.OBA_NOT_FOUND
+                || code == ObaApi.OBA_BAD_REQUEST || code == ObaApi.OBA_UNAUTHORIZED) {
+            return false;
+        }
+        return mLastGoodResponse == null
+                || System.currentTimeMillis() - mLastGoodResponseTime > MAX_LAST_GOOD_AGE;
+    }
+
     @Override
     public void deliverResult(ObaArrivalInfoResponse data) {
         mLastResponseTime = System.currentTimeMillis();
         if (data != null) {
             data.setUrl(mUrl);
         }
-        if (data.getCode() == ObaApi.OBA_OK) {
+        if (data.getCode() == ObaApi.OBA_OK && !data.isScheduleOnly()) {
             mLastGoodResponse = data;
             mLastGoodResponseTime = mLastResponseTime;
         }
@@ -120,6 +214,7 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
         super.onReset();
         mLastGoodResponse = null;
         mLastGoodResponseTime = 0;
+        mArrivalsResponse = null;
         // Ensure the loader is stopped
         onStopLoading();
     }
@@ -28,10 +28,11 @@ import com.sothree.slidinguppanel.SlidingUpPanelLayout;
 import org.onebusaway.android.BuildConfig;
 import org.onebusaway.android.R;
 import org.onebusaway.android.io.PlausibleAnalytics;
-import org.onebusaway.android.widealerts.GtfsAlertCallBack;
 import org.onebusaway.android.app.Application;
+import org.onebusaway.android.app.StartupOrchestrator;
 import org.onebusaway.android.donations.DonationsManager;
 import org.onebusaway.android.io.ObaAnalytics;
+import org.onebusaway.android.io.ScheduleWorker;
 import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
@@ -48,6 +49,7 @@ import org.onebusaway.android.map.MapParams;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
 import org.onebusaway.android.map.googlemapsv2.LayerInfo;
 import org.onebusaway.android.region.ObaRegionsTask;
+import org.onebusaway.android.region.RegionSyncWorker;
 import org.onebusaway.android.report.ui.ReportActivity;
 import org.onebusaway.android.travelbehavior.TravelBehaviorManager;
 import org.onebusaway.android.travelbehavior.utils.TravelBehaviorUtils;
@@ -55,6 +57,7 @@ import org.onebusaway.android.ui.survey.SurveyManager;
 import org.onebusaway.android.ui.survey.utils.SurveyViewUtils;
 import org.onebusaway.android.ui.weather.RegionCallback;
 import org.onebusaway.android.ui.weather.WeatherUtils;
+import org.onebusaway.android.util.BackgroundExecutor;
 import org.onebusaway.android.util.FragmentUtils;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PermissionUtils;
@@ -82,7 +85,6 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -432,11 +434,28 @@ public class HomeActivity extends AppCompatActivity
         new TravelBehaviorManager(this, getApplicationContext()).
                 registerTravelBehaviorParticipant();
 
-        if (!mInitialStartup || PermissionUtils.hasGrantedAtLeastOnePermission(this, LOCATION_PERMISSIONS)) {
-            // It's not the first startup or if the user has already granted location permissions (Android L and lower), then check the region status
-            // Otherwise, wait for a permission callback from the BaseMapFragment before checking the region status
-            checkRegionStatus();
-        }
+        // Keep the schedules of starred and recent stops for when real-time arrivals are unavailable
+        ScheduleWorker.schedule(this);
+
+        // The region and the donations are loaded in the background when the app starts, so
+        // wait for them before using them
+        Application.runWhenStartupReady(() -> {
+            if (isFinishing()) {
+                return;
+            }
+            updateDonationsUIVisibility();
+            if (!mInitialStartup || PermissionUtils.hasGrantedAtLeastOnePermission(this, LOCATION_PERMISSIONS)) {
+                // It's not the first startup or if the user has already granted location permissions (Android L and lower), then check the region status
+                // Otherwise, wait for a permission callback from the BaseMapFragment before checking the region status
+                checkRegionStatus();
+            }
+            // Studies are optional, so wait until the first frame is drawn and the app is idle
+            StartupOrchestrator.runWhenIdle(() -> {
+                if (!isFinishing()) {
+                    setupSurvey();
+                }
+            });
+        });
 
         // Check to see if we should show the welcome tutorial
         Bundle b = getIntent().getExtras();
@@ -447,7 +466,6 @@ public class HomeActivity extends AppCompatActivity
             }
         }
         initWeatherView();
-        setupSurvey();
     }
 
     @Override
@@ -671,7 +689,7 @@ public class HomeActivity extends AppCompatActivity
                                 // (they'll be asked to manually pick region if they denied)
                                 mInitialStartup = false;
                                 PreferenceUtils.saveBoolean(INITIAL_STARTUP, false);
-                                checkRegionStatus();
+                                Application.runWhenStartupReady(this::checkRegionStatus);
                             }
                         });
                 fm.beginTransaction()
@@ -1421,8 +1439,11 @@ public class HomeActivity extends AppCompatActivity
         boolean forceReload = false;
         boolean showProgressDialog = true;
 
-        //If we don't have region info selected, or if enough time has passed since last region info update,
-        //force contacting the server again
+        // The region info is refreshed from the server periodically in the background
+        RegionSyncWorker.schedule(this);
+
+        //If we don't have region info selected, or if the periodic refresh hasn't run for long
+        //enough (e.g., without a network when it was due), force contacting the server again
         if (Application.get().getCurrentRegion() == null ||
                 new Date().getTime() - Application.get().getLastRegionUpdateDate()
                         > REGION_UPDATE_THRESHOLD) {
@@ -1456,7 +1477,8 @@ public class HomeActivity extends AppCompatActivity
         callbacks.add(mMapFragment);
         callbacks.add(this);
         ObaRegionsTask task = new ObaRegionsTask(this, callbacks, forceReload, showProgressDialog);
-        task.execute();
+        task.executeOnExecutor(
+                BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.NETWORK));
     }
 
     //
@@ -2082,7 +2104,11 @@ public class HomeActivity extends AppCompatActivity
     public void onValidRegion(boolean isValid) {
         if(isValid){
             makeWeatherRequest();
-            getGtfsAlerts();
+            StartupOrchestrator.runWhenIdle(() -> {
+                if (!isFinishing()) {
+                    getGtfsAlerts();
+                }
+            });
         }else{
             WeatherUtils.toggleWeatherViewVisibility(false,weatherView);
             weatherResponse = null;
@@ -2122,7 +2148,7 @@ public class HomeActivity extends AppCompatActivity
         // Adding this will avoid doing multiple requests to the weather API when updating the map in real-time
         if(weatherResponse == null){
             ObaWeatherRequest weatherRequest = ObaWeatherRequest.newRequest(Application.get().getCurrentRegion().getId());
-            WeatherRequestTask task = new WeatherRequestTask(this);
+            WeatherRequestTask task = new WeatherRequestTask(this, this);
             task.execute(weatherRequest);
             Log.d(TAG,"Weather requested");
         }else{
@@ -2177,7 +2203,7 @@ public class HomeActivity extends AppCompatActivity
         if(mDonationView == null) return;
         DonationsManager donationsManager = Application.getDonationsManager();
 
-        if (donationsManager.shouldShowDonationUI() && mCurrentNavDrawerPosition == NAVDRAWER_ITEM_NEARBY) {
+        if (donationsManager != null && donationsManager.shouldShowDonationUI() && mCurrentNavDrawerPosition == NAVDRAWER_ITEM_NEARBY) {
             mDonationView.setVisibility(View.VISIBLE);
         }
         else {
@@ -2263,14 +2289,8 @@ public class HomeActivity extends AppCompatActivity
 
     private void getGtfsAlerts() {
         String regionId = String.valueOf(Application.get().getCurrentRegion().getId());
-        Application.getGtfsAlerts().fetchAlerts(regionId, new GtfsAlertCallBack() {
-            @Override
-            public void onAlert(String title, String message, String url) {
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    GtfsAlertsHelper.showWideAlertDialog(HomeActivity.this, title, message, url);
-                });
-            }
-        });
+        Application.getGtfsAlerts().fetchAlerts(this, regionId, (title, message, url) ->
+                GtfsAlertsHelper.showWideAlertDialog(HomeActivity.this, title, message, url));
     }
 
 }
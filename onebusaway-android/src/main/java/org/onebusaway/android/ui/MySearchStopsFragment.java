@@ -78,14 +78,6 @@ public class MySearchStopsFragment extends MySearchFragmentBase
         return inflater.inflate(R.layout.my_search_stop_list, null);
     }
 
-    @Override
-    public void onDestroy() {
-        if (mStopUserMap != null) {
-            mStopUserMap.close();
-        }
-        super.onDestroy();
-    }
-
     @Override
     public Loader<ObaStopsForLocationResponse> onCreateLoader(int id, Bundle args) {
         String query = args.getString(QUERY_TEXT);
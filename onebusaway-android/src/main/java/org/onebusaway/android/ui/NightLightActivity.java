@@ -22,6 +22,8 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
 import android.util.Log;
 import android.view.Menu;
@@ -56,7 +58,28 @@ public class NightLightActivity extends AppCompatActivity {
 
     private View screen;
 
-    boolean active = true;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Turns the light on for FLASH_TIME_ON, then off for the next waitTime, and so on
+    private final Runnable mFlash = new Runnable() {
+        private boolean mFlashing = false;
+
+        @Override
+        public void run() {
+            if (!mFlashing) {
+                turnLightOn();
+                mFlashing = true;
+                Log.d(TAG, "Flashing for " + FLASH_TIME_ON + "ms");
+                mHandler.postDelayed(this, FLASH_TIME_ON);
+            } else {
+                turnLightOff();
+                mFlashing = false;
+                Log.d(TAG, "Sleeping for " + waitTime[counter % 3] + "ms");
+                mHandler.postDelayed(this, waitTime[counter % 3]);
+                counter++;
+            }
+        }
+    };
 
     // Amount of time between flashes, in milliseconds
     private int[] waitTime = {100, 100, 400};
@@ -108,53 +131,15 @@ public class NightLightActivity extends AppCompatActivity {
         super.onResume();
         turnLightOn();
 
-        active = true;
-
-        // Flash the light via a Thread
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (active) {
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            turnLightOn();
-
-                        }
-                    });
-
-                    Log.d(TAG, "Flashing for " + FLASH_TIME_ON + "ms");
-
-                    try {
-                        Thread.sleep(FLASH_TIME_ON);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            turnLightOff();
-                        }
-                    });
-
-                    try {
-                        Log.d(TAG, "Sleeping for " + waitTime[counter % 3] + "ms");
-                        Thread.sleep(waitTime[counter % 3]);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    counter++;
-                }
-            }
-        }).start();
+        // Flash the light from the main thread, which only waits between the flashes
+        mHandler.post(mFlash);
     }
 
     @Override
     public void onPause() {
         super.onPause();
+        mHandler.removeCallbacks(mFlash);
         turnLightOff();
-        active = false;
 
         restoreScreenBrightness();
     }
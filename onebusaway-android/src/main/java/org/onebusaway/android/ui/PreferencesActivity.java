@@ -55,11 +55,12 @@ import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.PlausibleAnalytics;
 import org.onebusaway.android.io.elements.ObaRegion;
-import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.region.ObaRegionsTask;
 import org.onebusaway.android.travelbehavior.io.coroutines.FirebaseDataPusher;
+import org.onebusaway.android.util.BackgroundExecutor;
 import org.onebusaway.android.util.BackupUtils;
 import org.onebusaway.android.util.BuildFlavorUtils;
+import org.onebusaway.android.util.HiddenAlertsCache;
 import org.onebusaway.android.util.ShowcaseViewUtils;
 import org.onebusaway.android.util.UIUtils;
 
@@ -458,7 +459,7 @@ public class PreferencesActivity extends PreferenceActivity
         } else if (preference.equals(mHideAlertsPref) && newValue instanceof Boolean) {
             Boolean hideAlerts = (Boolean) newValue;
             if (hideAlerts) {
-                ObaContract.ServiceAlerts.hideAllAlerts();
+                HiddenAlertsCache.getInstance(this).setAllHidden(true);
             }
         } else if (preference.equals(mThemePref) && newValue instanceof String) {
             String theme = ((String) newValue);
@@ -536,7 +537,8 @@ public class PreferencesActivity extends PreferenceActivity
             List<ObaRegionsTask.Callback> callbacks = new ArrayList<>();
             callbacks.add(this);
             ObaRegionsTask task = new ObaRegionsTask(this, callbacks, true, false);
-            task.execute();
+            task.executeOnExecutor(
+                    BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.NETWORK));
 
             // Wait to change the region preference description until the task callback
             //Analytics
@@ -18,11 +18,11 @@ package org.onebusaway.android.ui;
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.RouteRepository;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.elements.ObaStopGroup;
 import org.onebusaway.android.io.elements.ObaStopGrouping;
 import org.onebusaway.android.io.request.ObaRouteResponse;
-import org.onebusaway.android.io.request.ObaStopsForRouteRequest;
 import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
 import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.util.FragmentUtils;
@@ -271,6 +271,8 @@ public class RouteInfoListFragment extends ListFragment {
 
         private final String mRouteId;
 
+        private StopsForRouteInfo mInfo;
+
         StopsForRouteLoader(Context context, String routeId) {
             super(context);
             mRouteId = routeId;
@@ -278,18 +280,28 @@ public class RouteInfoListFragment extends ListFragment {
 
         @Override
         public void onStartLoading() {
-            forceLoad();
+            // Keep the stops across configuration changes - the route rarely changes
+            if (mInfo != null) {
+                deliverResult(mInfo);
+            }
+            if (mInfo == null || mInfo.getResultCode() != ObaApi.OBA_OK
+                    || takeContentChanged()) {
+                forceLoad();
+            }
         }
 
         @Override
         public StopsForRouteInfo loadInBackground() {
-            final ObaStopsForRouteResponse response =
-                    new ObaStopsForRouteRequest.Builder(getContext(), mRouteId)
-                            .setIncludeShapes(false)
-                            .build()
-                            .call();
+            final ObaStopsForRouteResponse response = RouteRepository.getInstance(getContext())
+                    .getStopsForRoute(getContext(), mRouteId, false);
             return new StopsForRouteInfo(getContext(), response);
         }
+
+        @Override
+        public void deliverResult(StopsForRouteInfo data) {
+            mInfo = data;
+            super.deliverResult(data);
+        }
     }
 
     private final static class StopsForRouteInfo {
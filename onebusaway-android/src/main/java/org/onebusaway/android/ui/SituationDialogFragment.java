@@ -35,6 +35,7 @@ import com.google.android.material.snackbar.Snackbar;
 import org.onebusaway.android.R;
 import org.onebusaway.android.io.elements.ObaSituation;
 import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.HiddenAlertsCache;
 import org.onebusaway.android.util.PreferenceUtils;
 import org.onebusaway.android.util.UIUtils;
 
@@ -103,9 +104,8 @@ public class SituationDialogFragment extends DialogFragment {
                         Dialog dialog = (Dialog) dialogInterface;
 
                         // Update the database to indicate that this alert has been hidden
-                        ObaContract.ServiceAlerts
-                                .insertOrUpdate(situationId, new ContentValues(), false,
-                                        true);
+                        HiddenAlertsCache.getInstance(getActivity())
+                                .setHidden(situationId, true);
 
                         // Show the UNDO snackbar
                         Snackbar.make(getActivity().findViewById(R.id.fragment_arrivals_list),
@@ -114,10 +114,9 @@ public class SituationDialogFragment extends DialogFragment {
                                         new View.OnClickListener() {
                                             @Override
                                             public void onClick(View v) {
-                                                ObaContract.ServiceAlerts
-                                                        .insertOrUpdate(situationId,
-                                                                new ContentValues(), false,
-                                                                false);
+                                                HiddenAlertsCache
+                                                        .getInstance(v.getContext())
+                                                        .setHidden(situationId, false);
                                                 if (mListener != null) {
                                                     mListener.onUndo();
                                                 }
@@ -131,7 +130,7 @@ public class SituationDialogFragment extends DialogFragment {
                 })
                 .setNeutralButton(R.string.hide_all, (dialog, which) -> {
                     // Hide existing alerts in the database
-                    ObaContract.ServiceAlerts.hideAllAlerts();
+                    HiddenAlertsCache.getInstance(getActivity()).setAllHidden(true);
                     // Also set the user preference to hide new alerts
                     PreferenceUtils.saveBoolean(getString(R.string.preference_key_hide_alerts), true);
 
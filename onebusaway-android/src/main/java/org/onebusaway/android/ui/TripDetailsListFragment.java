@@ -35,7 +35,6 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
@@ -77,6 +76,7 @@ import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.PlausibleAnalytics;
+import org.onebusaway.android.io.ServerClock;
 import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
@@ -93,6 +93,7 @@ import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.DBUtil;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.UIUtils;
 
 import java.util.Calendar;
@@ -123,7 +124,8 @@ public class TripDetailsListFragment extends ListFragment {
 
     public static final String ACTION_SERVICE_DESTROYED = "NavigationServiceDestroyed";
 
-    private static final long REFRESH_PERIOD = 60 * 1000;
+    // Current refresh period - trips without real-time data are refreshed less often
+    private long mRefreshPeriod = RefreshScheduler.DEFAULT_REFRESH_PERIOD;
 
     private static final int TRIP_DETAILS_LOADER = 0;
 
@@ -237,7 +239,7 @@ public class TripDetailsListFragment extends ListFragment {
 
     @Override
     public void onPause() {
-        mRefreshHandler.removeCallbacks(mRefresh);
+        mRefreshSubscription.cancel();
         super.onPause();
     }
 
@@ -254,21 +256,27 @@ public class TripDetailsListFragment extends ListFragment {
 
         getLoaderManager().restartLoader(TRIP_DETAILS_LOADER, null, mTripDetailsCallback);
 
-        // If our timer would have gone off, then refresh.
-        long lastResponseTime = getTripDetailsLoader().getLastResponseTime();
-        long newPeriod = Math.min(REFRESH_PERIOD, (lastResponseTime + REFRESH_PERIOD)
-                - System.currentTimeMillis());
-        // Wait at least one second at least, and the full minute at most.
-        //Log.d(TAG, "Refresh period:" + newPeriod);
-        if (newPeriod <= 0) {
-            refresh();
-        } else {
-            mRefreshHandler.postDelayed(mRefresh, newPeriod);
+        if (!isHidden()) {
+            mRefreshSubscription.resume(getTripDetailsLoader().getLastResponseTime(),
+                    mRefreshPeriod);
         }
+        ServerClock.getInstance().syncIfNeeded(getActivity());
 
         super.onResume();
     }
 
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        // Don't poll for trip details that can't be seen
+        if (hidden) {
+            mRefreshSubscription.cancel();
+        } else if (isResumed()) {
+            mRefreshSubscription.resume(getTripDetailsLoader().getLastResponseTime(),
+                    mRefreshPeriod);
+        }
+    }
+
     //
     // Action Bar / Options Menu
     //
@@ -733,13 +741,12 @@ public class TripDetailsListFragment extends ListFragment {
         return builder.create();
     }
 
-    private final Handler mRefreshHandler = new Handler();
-
-    private final Runnable mRefresh = new Runnable() {
-        public void run() {
-            refresh();
-        }
-    };
+    private final RefreshScheduler.Subscription mRefreshSubscription =
+            RefreshScheduler.getInstance().subscribe(new Runnable() {
+                public void run() {
+                    refresh();
+                }
+            });
 
     private TripDetailsLoader getTripDetailsLoader() {
         // If the Fragment hasn't been attached to an Activity yet, return null
@@ -779,11 +786,16 @@ public class TripDetailsListFragment extends ListFragment {
                 setListShownNoAnimation(true);
             }
 
-            // Clear any pending refreshes
-            mRefreshHandler.removeCallbacks(mRefresh);
-
-            // Post an update
-            mRefreshHandler.postDelayed(mRefresh, REFRESH_PERIOD);
+            // Schedule the next update, replacing any pending one
+            ObaTripStatus status = data.getStatus();
+            if (data.getCode() == ObaApi.OBA_OK && (status == null || !status.isPredicted())) {
+                mRefreshPeriod = RefreshScheduler.RELAXED_REFRESH_PERIOD;
+            } else {
+                mRefreshPeriod = RefreshScheduler.DEFAULT_REFRESH_PERIOD;
+            }
+            if (isResumed() && !isHidden()) {
+                mRefreshSubscription.schedule(mRefreshPeriod);
+            }
         }
 
         @Override
@@ -939,6 +951,7 @@ public class TripDetailsListFragment extends ListFragment {
             } else {
                 // Use current date - its only to offset time correctly from midnight
                 Calendar cal = new GregorianCalendar();
+                cal.setTimeInMillis(ServerClock.getInstance().currentTimeMillis());
                 // Reset to midnight of today
                 cal.set(Calendar.HOUR_OF_DAY, 0);
                 cal.set(Calendar.MINUTE, 0);
@@ -48,6 +48,7 @@ import org.onebusaway.android.io.request.reminders.ObaReminderRequest;
 import org.onebusaway.android.io.request.reminders.ReminderRequestListener;
 import org.onebusaway.android.io.request.reminders.model.ReminderResponse;
 import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.BackgroundExecutor;
 import org.onebusaway.android.util.FragmentUtils;
 import org.onebusaway.android.util.PreferenceUtils;
 import org.onebusaway.android.util.ReminderUtils;
@@ -498,7 +499,8 @@ public class TripInfoActivity extends AppCompatActivity {
             ObaReminderRequest request = createObaReminderRequest(reminderTime, userPushID);
 
             if (request != null) {
-                new Thread(request::call).start();
+                BackgroundExecutor.getInstance().execute(BackgroundExecutor.Pool.NETWORK,
+                        request::call);
             } else {
                 Toast.makeText(getContext(), R.string.failed_to_set_reminder, Toast.LENGTH_SHORT).show();
             }
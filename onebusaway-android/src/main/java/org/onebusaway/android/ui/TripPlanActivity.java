@@ -279,6 +279,10 @@ public class TripPlanActivity extends AppCompatActivity implements TripRequest.C
             getSupportFragmentManager().beginTransaction().remove(fragment).commit();
         }
 
+        // Abort any request still in progress for the previous trip parameters
+        if (mTripRequest != null) {
+            mTripRequest.abort();
+        }
         mTripRequest = mBuilder.setListener(this).execute(this);
 
         // clear out selected itinerary from bundle
@@ -71,6 +71,7 @@ import org.onebusaway.android.directions.util.ConversionUtils;
 import org.onebusaway.android.directions.util.CustomAddress;
 import org.onebusaway.android.directions.util.OTPConstants;
 import org.onebusaway.android.directions.util.PlacesAutoCompleteAdapter;
+import org.onebusaway.android.directions.util.PlacesAutocomplete;
 import org.onebusaway.android.directions.util.TripRequestBuilder;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.PlausibleAnalytics;
@@ -750,6 +751,7 @@ public class TripPlanFragment extends Fragment {
         tv.setAdapter(new PlacesAutoCompleteAdapter(getContext(), R.layout.geocode_result, region));
         tv.setOnItemClickListener((parent, view, position, id) -> {
             CustomAddress addr = (CustomAddress) parent.getAdapter().getItem(position);
+            PlacesAutocomplete.addRecentPlace(addr);
 
             if (use == USE_FROM_ADDRESS) {
                 mFromAddress = addr;
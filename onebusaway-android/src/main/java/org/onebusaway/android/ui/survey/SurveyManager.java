@@ -9,6 +9,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -31,6 +32,7 @@ import org.onebusaway.android.ui.survey.utils.SurveyUtils;
 import org.onebusaway.android.ui.survey.utils.SurveyViewUtils;
 import org.onebusaway.android.ui.survey.activities.SurveyWebViewActivity;
 import org.onebusaway.android.ui.survey.adapter.SurveyAdapter;
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -85,7 +87,9 @@ public class SurveyManager extends SurveyViewUtils implements SurveyActionsListe
         if (!areStudiesEnabled || !shouldShowSurvey) return;
 
         ObaStudyRequest surveyRequest = ObaStudyRequest.newRequest(context);
-        StudyRequestTask task = new StudyRequestTask(studyRequestListener);
+        // Cancelled if the activity showing the survey is destroyed
+        LifecycleOwner owner = context instanceof LifecycleOwner ? (LifecycleOwner) context : null;
+        StudyRequestTask task = new StudyRequestTask(owner, studyRequestListener);
         task.execute(surveyRequest);
         Log.d("SurveyManager", "Survey requested");
     }
@@ -265,7 +269,8 @@ public class SurveyManager extends SurveyViewUtils implements SurveyActionsListe
                 .setStopLongitude(SurveyUtils.getCurrentStopLongitude(currentStop, isVisibleOnStops))
                 .setResponses(requestBody)
                 .setListener(submitSurveyRequestListener).build();
-        new Thread(request::call).start();
+        // Not tied to the screen, so the answers are sent even if the user leaves it
+        BackgroundExecutor.getInstance().execute(BackgroundExecutor.Pool.NETWORK, request::call);
     }
 
     /**
@@ -406,6 +411,12 @@ public class SurveyManager extends SurveyViewUtils implements SurveyActionsListe
     public void onSurveyResponseReceived(StudyResponse response) {
         if (response == null) return;
         mStudyResponse = response;
+        // The completed surveys are read from the database in the background
+        SurveyDbHelper.whenLoaded(context, () -> showSurvey(response));
+    }
+
+    private void showSurvey(StudyResponse response) {
+        if (response != mStudyResponse) return;
         curSurveyIndex = SurveyUtils.getCurrentSurveyIndex(response, context, isVisibleOnStops, currentStop);
 
         Log.d("CurSurveyIndex", curSurveyIndex + " ");
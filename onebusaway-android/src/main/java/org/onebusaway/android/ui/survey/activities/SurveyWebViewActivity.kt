@@ -55,10 +55,14 @@ class SurveyWebViewActivity : AppCompatActivity() {
         mStopID = intent.getStringExtra("stop_id")
         mRouteIDList  = intent.getStringArrayListExtra("route_ids") as? ArrayList<String> ?: arrayListOf()
         Log.d("Routes",mRouteIDList.toString())
-        val newURl = getEmbeddedLink(url, embeddedValuesList)
+        // The recent stops are read from the database in the background
+        RecentStopsManager.whenLoaded(this) {
+            if (isFinishing) return@whenLoaded
+            val newURl = getEmbeddedLink(url, embeddedValuesList)
 
-        Log.d("ExternalSurveyData", embeddedValuesList.toString())
-        Log.d("ExternalSurveyURL", newURl)
+            Log.d("ExternalSurveyData", embeddedValuesList.toString())
+            Log.d("ExternalSurveyURL", newURl)
+        }
 
         webView.webViewClient = WebViewClient()
         webView.settings.javaScriptEnabled = true
@@ -12,9 +12,20 @@ import org.onebusaway.android.ui.survey.entity.Survey
  */
 
 class SurveyRepository(context: Context) {
-    private val db: AppDatabase = Room.databaseBuilder(
-        context.applicationContext, AppDatabase::class.java, "study-survey-db"
-    ).build()
+
+    companion object {
+        private var INSTANCE: AppDatabase? = null
+
+        // Opening the database is expensive, so all repositories share one instance
+        @Synchronized
+        private fun getDatabase(context: Context): AppDatabase {
+            return INSTANCE ?: Room.databaseBuilder(
+                context.applicationContext, AppDatabase::class.java, "study-survey-db"
+            ).build().also { INSTANCE = it }
+        }
+    }
+
+    private val db: AppDatabase = getDatabase(context)
 
     private val studiesDao = db.studiesDao()
     private val surveysDao = db.surveysDao()
@@ -2,11 +2,8 @@ package org.onebusaway.android.ui.survey.utils
 
 import android.content.Context
 import android.util.Log
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.flow.StateFlow
+import org.onebusaway.android.database.RoomMirror
 import org.onebusaway.android.io.request.survey.model.StudyResponse
 import org.onebusaway.android.ui.survey.entity.Study
 import org.onebusaway.android.ui.survey.entity.Survey
@@ -14,17 +11,44 @@ import org.onebusaway.android.ui.survey.repository.SurveyRepository
 
 /**
  * Utility class for handling operations related to surveys in the database.
+ *
+ * The IDs of the completed or skipped surveys are kept in memory (see RoomMirror), so none of
+ * the methods block.
  */
 class SurveyDbHelper {
 
     companion object {
-        // Coroutine scope for performing background operations.
-        private val coroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
-
         // Constants representing survey states.
         const val SURVEY_COMPLETED = 1
         const val SURVEY_SKIPPED = 2
 
+        private var mirror: RoomMirror<Set<Int>>? = null
+
+        @Synchronized
+        private fun mirror(context: Context): RoomMirror<Set<Int>> {
+            return mirror ?: RoomMirror<Set<Int>>(emptySet()) {
+                SurveyRepository(context).getAllSurveys().mapTo(HashSet()) { it.survey_id }
+            }.also { mirror = it }
+        }
+
+        /**
+         * Starts loading the surveys from the database, if they aren't loaded yet.
+         */
+        @JvmStatic
+        fun load(context: Context) {
+            mirror(context).load()
+        }
+
+        /**
+         * Runs the callback once the surveys are loaded, so isSurveyCompleted() can be trusted.
+         *
+         * @param callback Runs right away if the surveys are loaded, or else on the main thread.
+         */
+        @JvmStatic
+        fun whenLoaded(context: Context, callback: Runnable) {
+            mirror(context).whenLoaded(callback)
+        }
+
         /**
          * Marks a survey as completed or skipped and updates the database.
          *
@@ -41,14 +65,10 @@ class SurveyDbHelper {
             )
             val newSurvey = Survey(curSurvey.id, curSurvey.study.id, curSurvey.name, state)
 
-            coroutineScope.launch {
-                try {
-                    surveyRepo.addOrUpdateStudy(newStudy)
-                    surveyRepo.addSurvey(newSurvey)
-                    Log.d("All Saved Surveys", surveyRepo.getAllSurveys().toString())
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                }
+            mirror(context).update({ it + newSurvey.survey_id }) {
+                surveyRepo.addOrUpdateStudy(newStudy)
+                surveyRepo.addSurvey(newSurvey)
+                Log.d("All Saved Surveys", surveyRepo.getAllSurveys().toString())
             }
         }
 
@@ -57,19 +77,27 @@ class SurveyDbHelper {
          *
          * @param context
          * @param surveyId The ID of the survey to check.
-         * @return True if the survey is completed, false otherwise.
+         * @return True if the survey is completed, false otherwise or if the surveys aren't
+         * loaded yet.
          */
         @JvmStatic
         fun isSurveyCompleted(context: Context, surveyId: Int): Boolean {
-            val surveyRepo = SurveyRepository(context)
-            return runBlocking {
-                try {
-                    surveyRepo.checkSurveyCompleted(surveyId)
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                    false
-                }
-            }
+            val surveys = mirror(context)
+            surveys.load()
+            return surveys.value?.contains(surveyId) ?: false
+        }
+
+        /**
+         * @return The IDs of the completed or skipped surveys, or null until they're loaded.
+         */
+        fun completedSurveyIds(context: Context): StateFlow<Set<Int>?> {
+            return mirror(context).data
+        }
+
+        @JvmStatic
+        @Synchronized
+        fun resetForTesting() {
+            mirror?.resetForTesting()
         }
     }
 }
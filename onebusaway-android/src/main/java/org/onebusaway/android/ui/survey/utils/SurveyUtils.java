@@ -394,7 +394,7 @@ public class SurveyUtils {
             DonationsManager donationsManager = Application.getDonationsManager();
             // If the donation UI is visible, do not show the survey on the map
             // Otherwise, show the survey on the map
-            return !donationsManager.shouldShowDonationUI();
+            return donationsManager == null || !donationsManager.shouldShowDonationUI();
         }
 
         return true;
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Runs the background work of the app on a few named pools with a fixed number of threads, so
+ * the number of threads stays bounded however many screens start work.
+ *
+ * Work submitted with an owner (an activity or a fragment) is cancelled when the owner is
+ * destroyed: the thread running it is interrupted, and its result isn't delivered.  Work that
+ * must finish even if the user leaves the screen (e.g., submitting a report) is submitted without
+ * an owner.
+ *
+ * Results are delivered on the main thread.  Tests can replace the threads and the main thread
+ * with a deterministic Scheduler using setSchedulerForTesting().
+ */
+public class BackgroundExecutor {
+
+    private static final String TAG = "BackgroundExecutor";
+
+    public enum Pool {
+        /**
+         * Requests to servers, which mostly wait on the network
+         */
+        NETWORK("network", 4),
+        /**
+         * Reading and writing files and databases
+         */
+        DISK("disk", 2),
+        /**
+         * Parsing, decoding images and other computations
+         */
+        CPU("cpu", Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+        private final String mName;
+
+        private final int mThreads;
+
+        Pool(String name, int threads) {
+            mName = name;
+            mThreads = threads;
+        }
+
+        public int getThreadCount() {
+            return mThreads;
+        }
+    }
+
+    /**
+     * Runs the work of the executor.  The default scheduler uses a thread pool for each Pool and
+     * the main thread.
+     */
+    public interface Scheduler {
+
+        /**
+         * Runs the work on a thread of the pool
+         *
+         * @return a future that interrupts the thread running the work when cancelled
+         */
+        Future<?> submit(Pool pool, Runnable work);
+
+        /**
+         * Runs the task on the main thread
+         */
+        void postToMain(Runnable task);
+    }
+
+    /**
+     * Receives the result of background work, on the main thread
+     */
+    public interface Callback<T> {
+
+        void onResult(T result);
+    }
+
+    /**
+     * Background work submitted to the executor
+     */
+    public static class Task {
+
+        private volatile boolean mCancelled = false;
+
+        private volatile Future<?> mFuture;
+
+        // Accessed on the main thread only
+        private Lifecycle mLifecycle;
+
+        private LifecycleEventObserver mObserver;
+
+        /**
+         * Cancels the work: the thread running it is interrupted, and its result won't be
+         * delivered.  Can be called from any thread.
+         */
+        public void cancel() {
+            mCancelled = true;
+            Future<?> future = mFuture;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        /**
+         * Called on the main thread when the task is done, to stop observing its owner
+         */
+        void unbind() {
+            if (mLifecycle != null) {
+                mLifecycle.removeObserver(mObserver);
+                mLifecycle = null;
+                mObserver = null;
+            }
+        }
+    }
+
+    private static BackgroundExecutor mInstance;
+
+    private final Scheduler mDefaultScheduler;
+
+    private volatile Scheduler mScheduler;
+
+    private final Map<Pool, Executor> mExecutors = new EnumMap<>(Pool.class);
+
+    private BackgroundExecutor() {
+        mDefaultScheduler = new DefaultScheduler();
+        mScheduler = mDefaultScheduler;
+        for (final Pool pool : Pool.values()) {
+            mExecutors.put(pool, work -> execute(pool, work));
+        }
+    }
+
+    public static synchronized BackgroundExecutor getInstance() {
+        if (mInstance == null) {
+            mInstance = new BackgroundExecutor();
+        }
+        return mInstance;
+    }
+
+    /**
+     * Replaces the threads and the main thread used by the executor, for testing
+     *
+     * @param scheduler the scheduler to use, or null to restore the default one
+     */
+    public void setSchedulerForTesting(Scheduler scheduler) {
+        mScheduler = scheduler != null ? scheduler : mDefaultScheduler;
+    }
+
+    /**
+     * @return an Executor that runs work on the pool, e.g. for AsyncTask.executeOnExecutor() or
+     * the listeners of Play Services tasks
+     */
+    public Executor getExecutor(Pool pool) {
+        return mExecutors.get(pool);
+    }
+
+    /**
+     * Runs the work on the pool, without an owner
+     *
+     * @return the task, which can be used to cancel the work
+     */
+    public Task execute(Pool pool, Runnable work) {
+        final Task task = new Task();
+        task.mFuture = mScheduler.submit(pool, () -> {
+            if (task.isCancelled()) {
+                return;
+            }
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Background work failed on the " + pool.mName + " pool", e);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Runs the work on the pool, and delivers its result to the callback on the main thread.  If
+     * the work throws an exception, the exception is logged and the callback isn't called.
+     *
+     * @param owner    the activity or fragment that owns the work, which cancels the work when
+     *                 it's destroyed, or null if the work should not be cancelled
+     *                 automatically.  Must be called on the main thread if not null.
+     * @param pool     the pool to run the work on
+     * @param work     the work, which should stop when its thread is interrupted
+     * @param callback receives the result of the work on the main thread, or null
+     * @return the task, which can be used to cancel the work
+     */
+    public <T> Task submit(LifecycleOwner owner, final Pool pool, final Callable<T> work,
+            final Callback<T> callback) {
+        final Task task = new Task();
+        if (owner != null) {
+            Lifecycle lifecycle = owner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                task.mCancelled = true;
+                return task;
+            }
+            task.mLifecycle = lifecycle;
+            task.mObserver = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    task.cancel();
+                    task.unbind();
+                }
+            };
+            lifecycle.addObserver(task.mObserver);
+        }
+        task.mFuture = mScheduler.submit(pool, () -> {
+            if (task.isCancelled()) {
+                return;
+            }
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                if (!task.isCancelled()) {
+                    Log.e(TAG, "Background work failed on the " + pool.mName + " pool", e);
+                }
+                mScheduler.postToMain(task::unbind);
+                return;
+            }
+            mScheduler.postToMain(() -> {
+                task.unbind();
+                if (!task.isCancelled() && callback != null) {
+                    callback.onResult(result);
+                }
+            });
+        });
+        return task;
+    }
+
+    /**
+     * Runs each pool on its own threads, with a background priority, and delivers results with a
+     * Handler of the main thread
+     */
+    private static class DefaultScheduler implements Scheduler {
+
+        private static final long KEEP_ALIVE_S = 30;
+
+        private final Map<Pool, ThreadPoolExecutor> mPools = new EnumMap<>(Pool.class);
+
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+        DefaultScheduler() {
+            for (final Pool pool : Pool.values()) {
+                final AtomicInteger count = new AtomicInteger();
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(pool.mThreads,
+                        pool.mThreads, KEEP_ALIVE_S, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), r -> new Thread(() -> {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }, "oba-" + pool.mName + "-" + count.incrementAndGet()));
+                // Idle pools don't keep their threads
+                executor.allowCoreThreadTimeOut(true);
+                mPools.put(pool, executor);
+            }
+        }
+
+        @Override
+        public Future<?> submit(Pool pool, Runnable work) {
+            return mPools.get(pool).submit(work);
+        }
+
+        @Override
+        public void postToMain(Runnable task) {
+            mMainHandler.post(task);
+        }
+    }
+}
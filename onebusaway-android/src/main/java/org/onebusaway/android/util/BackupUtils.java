@@ -90,7 +90,8 @@ public class BackupUtils {
                         Toast.LENGTH_LONG).show());
                 ObaRegionsTask task = new ObaRegionsTask(activityContext, callbacks, true, true);
                 task.setProgressDialogMessage(context.getString(R.string.preferences_restore_loading));
-                task.execute();
+                task.executeOnExecutor(
+                        BackgroundExecutor.getInstance().getExecutor(BackgroundExecutor.Pool.NETWORK));
             }
         } catch (IOException e) {
             Toast.makeText(context,
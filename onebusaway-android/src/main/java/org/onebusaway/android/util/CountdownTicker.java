@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.io.ServerClock;
+
+import android.os.Handler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks each time the minute of the server clock changes, which is when the arrival countdowns
+ * (see ArrivalInfo) change, so screens can update their countdowns locally between two refreshes
+ * of their data.
+ *
+ * Must be started and stopped on the thread of its Handler.
+ */
+public class CountdownTicker {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    // Ticks a little after the minute changes, so the countdowns have already changed
+    private static final long MARGIN = 50;
+
+    private final Handler mHandler;
+
+    private final ServerClock mClock;
+
+    private final Runnable mOnTick;
+
+    private boolean mStarted = false;
+
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            mOnTick.run();
+            scheduleNext();
+        }
+    };
+
+    /**
+     * @param handler handler the ticks are run on
+     * @param clock   the clock the countdowns are computed with
+     * @param onTick  updates the countdowns
+     */
+    public CountdownTicker(Handler handler, ServerClock clock, Runnable onTick) {
+        mHandler = handler;
+        mClock = clock;
+        mOnTick = onTick;
+    }
+
+    /**
+     * Starts ticking at the next change of minute.  Does nothing if already started.
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        scheduleNext();
+    }
+
+    public void stop() {
+        mStarted = false;
+        mHandler.removeCallbacks(mTick);
+    }
+
+    public boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * @param now the current time, in milliseconds since epoch
+     * @return the time until the next change of minute of the countdowns, in milliseconds
+     */
+    public static long getDelayToNextTick(long now) {
+        return MINUTE - (now % MINUTE) + MARGIN;
+    }
+
+    private void scheduleNext() {
+        mHandler.removeCallbacks(mTick);
+        if (mStarted) {
+            mHandler.postDelayed(mTick, getDelayToNextTick(mClock.currentTimeMillis()));
+        }
+    }
+}
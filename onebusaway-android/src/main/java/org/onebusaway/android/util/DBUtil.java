@@ -19,6 +19,9 @@ import android.text.TextUtils;
 
 import com.google.common.collect.Lists;
 
+import androidx.core.content.ContentResolverCompat;
+import androidx.core.os.CancellationSignal;
+
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -33,24 +36,43 @@ import java.util.Set;
  */
 public class DBUtil {
     public static void addStopToDB(ObaStop stop) {
-        String name = UIUtils.formatDisplayText(stop.getName());
+        ObaRegion region = Application.get().getCurrentRegion();
+        ContentValues values = getStopValues(stop, region != null ? region.getId() : null);
+        ObaContract.Stops.insertOrUpdate(stop.getId(), values, true);
+    }
 
-        // Update the database
+    /**
+     * Returns the values of the stops table for the provided stop, not including the ID or any
+     * user data (e.g., use count or favorite)
+     *
+     * @param regionId ID of the region of the stop, or null if it isn't known
+     */
+    public static ContentValues getStopValues(ObaStop stop, Long regionId) {
         ContentValues values = new ContentValues();
         values.put(ObaContract.Stops.CODE, stop.getStopCode());
-        values.put(ObaContract.Stops.NAME, name);
+        values.put(ObaContract.Stops.NAME, UIUtils.formatDisplayText(stop.getName()));
         values.put(ObaContract.Stops.DIRECTION, stop.getDirection());
         values.put(ObaContract.Stops.LATITUDE, stop.getLatitude());
         values.put(ObaContract.Stops.LONGITUDE, stop.getLongitude());
-        if (Application.get().getCurrentRegion() != null) {
-            values.put(ObaContract.Stops.REGION_ID, Application.get().getCurrentRegion().getId());
+        if (regionId != null) {
+            values.put(ObaContract.Stops.REGION_ID, regionId);
         }
         values.put(ObaContract.Stops.PARENT, stop.getParent());
         values.put(ObaContract.Stops.PLATFORM_CODE, stop.getPlatformCode());
-        ObaContract.Stops.insertOrUpdate(stop.getId(), values, true);
+        return values;
     }
 
     public static List<ObaStop> queryStopsFromDB(Context ctx, Location center, double latSpan, double lonSpan) {
+        return queryStopsFromDB(ctx, center, latSpan, lonSpan, null);
+    }
+
+    /**
+     * Queries the stops within the given span from the local provider
+     *
+     * @param signal signal used to abort the query (e.g., when the map has moved again), or null
+     */
+    public static List<ObaStop> queryStopsFromDB(Context ctx, Location center, double latSpan,
+            double lonSpan, CancellationSignal signal) {
         ContentResolver cr = ctx.getContentResolver();
         final String[] PROJECTION = {
             ObaContract.Stops._ID,
@@ -84,10 +106,14 @@ public class DBUtil {
 
         List<ObaStop> stops = new ArrayList<>();
 
-        Cursor c = cr.query(ObaContract.Stops.CONTENT_URI, PROJECTION, selection, selectionArgs, null);
+        Cursor c = ContentResolverCompat.query(cr, ObaContract.Stops.CONTENT_URI, PROJECTION,
+                selection, selectionArgs, null, signal);
         if (c != null) {
             try {
                 while(c.moveToNext()) {
+                    if (signal != null) {
+                        signal.throwIfCanceled();
+                    }
                     String stopId = c.getString(0);
                     ObaStopElement stop = new ObaStopElement(
                         stopId,
@@ -147,6 +173,17 @@ public class DBUtil {
             regionId = region.getId();
         }
 
+        ContentValues routeValues = getRouteValues(route, regionId);
+        ObaContract.Routes.insertOrUpdate(ctx, route.getId(), routeValues, true);
+    }
+
+    /**
+     * Returns the values of the routes table for the provided route, not including the ID or any
+     * user data (e.g., use count or favorite)
+     *
+     * @param regionId ID of the region of the route, or -1 if it isn't known
+     */
+    public static ContentValues getRouteValues(ObaRoute route, long regionId) {
         ContentValues routeValues = new ContentValues();
 
         String shortName = route.getShortName();
@@ -163,8 +200,7 @@ public class DBUtil {
         routeValues.put(ObaContract.Routes.LONGNAME, longName);
         routeValues.put(ObaContract.Routes.URL, route.getUrl());
         routeValues.put(ObaContract.Routes.REGION_ID, regionId);
-
-        ObaContract.Routes.insertOrUpdate(ctx, route.getId(), routeValues, true);
+        return routeValues;
     }
 
     public static List<ObaRoute> queryRoutesFromDB(Context ctx, Iterable<ObaStop> stops) {
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.io.elements.ObaSituation;
+import org.onebusaway.android.provider.ObaContract;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.ContentObserver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An in-memory copy of the IDs of the service alerts hidden by the user, so the arrivals list can
+ * decide which alerts to show without querying the database on the main thread.
+ *
+ * The copy is loaded when the cache is created, which the app does in the background at startup.
+ * It's reloaded with a single query each time the service alerts change in the provider, and when
+ * sync() is called from a loader.  The app hides and shows alerts through this class, so the copy
+ * is current as soon as the write returns, without waiting for the provider's notification.
+ */
+public class HiddenAlertsCache {
+
+    private static HiddenAlertsCache mInstance;
+
+    private final ContentResolver mResolver;
+
+    // Replaced, never modified, so it can be read from any thread.  Writers hold the lock of
+    // this cache, so a reload can't replace a newer copy with an older one.
+    private volatile Set<String> mHiddenIds;
+
+    private HiddenAlertsCache(Context context) {
+        mResolver = context.getApplicationContext().getContentResolver();
+        // Without a handler, changes are delivered on a binder thread
+        mResolver.registerContentObserver(ObaContract.ServiceAlerts.CONTENT_URI, true,
+                new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        reload();
+                    }
+                });
+        reload();
+    }
+
+    public static synchronized HiddenAlertsCache getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new HiddenAlertsCache(context);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Adds the given situations to the database if they aren't there yet, and reloads the hidden
+     * alerts.  Must not be called on the main thread.
+     */
+    public void sync(List<ObaSituation> situations) {
+        Collection<String> ids = new HashSet<>();
+        for (ObaSituation situation : situations) {
+            if (situation != null) {
+                ids.add(situation.getId());
+            }
+        }
+        ObaContract.ServiceAlerts.insertIfMissing(mResolver, ids);
+        reload();
+    }
+
+    /**
+     * @return true if the user hid the service alert with the given ID
+     */
+    public boolean isHidden(String situationId) {
+        return mHiddenIds.contains(situationId);
+    }
+
+    /**
+     * Marks the service alert with the given ID as hidden or shown by the user
+     */
+    public synchronized void setHidden(String situationId, boolean hidden) {
+        ObaContract.ServiceAlerts.insertOrUpdate(situationId, new ContentValues(), false, hidden);
+        Set<String> hiddenIds = new HashSet<>(mHiddenIds);
+        if (hidden) {
+            hiddenIds.add(situationId);
+        } else {
+            hiddenIds.remove(situationId);
+        }
+        mHiddenIds = hiddenIds;
+    }
+
+    /**
+     * Marks all the service alerts in the database as hidden or shown by the user
+     */
+    public synchronized void setAllHidden(boolean hidden) {
+        if (hidden) {
+            ObaContract.ServiceAlerts.hideAllAlerts();
+            // The IDs of the alerts that are now hidden are only known to the database
+            reload();
+        } else {
+            ObaContract.ServiceAlerts.showAllAlerts();
+            mHiddenIds = Collections.emptySet();
+        }
+    }
+
+    private synchronized void reload() {
+        mHiddenIds = ObaContract.ServiceAlerts.getHiddenIds(mResolver);
+    }
+}
@@ -292,6 +292,9 @@ public class LocationUtils {
         }
     }
 
+    /**
+     * @return the places found, or null if the geocoder couldn't be reached
+     */
     public static List<CustomAddress> processGooglePlacesGeocoding(Context context, ObaRegion region,
                                                                    String... reqs) {
         return processGeocoding(context, region, false, reqs);
@@ -343,8 +346,7 @@ public class LocationUtils {
             List<Address> androidTypeAddresses;
             if (region != null) {
 
-                double[] regionSpan = new double[4];
-                RegionUtils.getRegionSpan(region, regionSpan);
+                double[] regionSpan = RegionUtils.getRegionSpan(region);
                 double minLat = regionSpan[2] - (regionSpan[0] / 2);
                 double minLon = regionSpan[3] - (regionSpan[1] / 2);
                 double maxLat = regionSpan[2] + (regionSpan[0] / 2);
@@ -360,7 +362,9 @@ public class LocationUtils {
                 addresses.add(new CustomAddress(androidTypeAddress));
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            // Unlike an empty list, null tells the caller not to keep the result
+            Log.e(TAG, e.toString());
+            return null;
         }
 
 
@@ -412,6 +416,9 @@ public class LocationUtils {
         return addressesReturn;
     }
 
+    /**
+     * @return the places found, or null if the geocoder couldn't be reached
+     */
     public static List<CustomAddress> processPeliasGeocoding(Context context, ObaRegion region,
             String... reqs) {
         return processPeliasGeocoding(context, region, false, reqs);
@@ -461,8 +468,7 @@ public class LocationUtils {
                     .setApiEndpoint(Application.get().getString(R.string.pelias_api_url));
 
             if (region != null) {
-                double[] regionSpan = new double[4];
-                RegionUtils.getRegionSpan(region, regionSpan);
+                double[] regionSpan = RegionUtils.getRegionSpan(region);
                 double minLat = regionSpan[2] - (regionSpan[0] / 2);
                 double minLon = regionSpan[3] - (regionSpan[1] / 2);
                 double maxLat = regionSpan[2] + (regionSpan[0] / 2);
@@ -479,7 +485,9 @@ public class LocationUtils {
                 addresses.add(new CustomAddress(feature));
             }
         } catch (IOException e) {
+            // Unlike an empty list, null tells the caller not to keep the result
             Log.e(TAG, e.toString());
+            return null;
         }
 
         addresses = filterAddressesBBox(region, addresses);
@@ -539,14 +547,15 @@ public class LocationUtils {
      */
     private static List<CustomAddress> filterAddressesBBox(ObaRegion region, List<CustomAddress> addresses) {
         if ((!(addresses == null || addresses.isEmpty())) && region != null) {
+            double[] regionSpan = RegionUtils.getRegionSpan(region);
+            Location loc = new Location("");
             for (Iterator<CustomAddress> it = addresses.iterator(); it.hasNext(); ) {
                 CustomAddress address = it.next();
 
-                Location loc = new Location("");
                 loc.setLatitude(address.getLatitude());
                 loc.setLongitude(address.getLongitude());
 
-                if (!RegionUtils.isLocationWithinRegion(loc, region)) {
+                if (!RegionUtils.isLocationWithinRegion(loc, regionSpan)) {
                     it.remove();
                 }
             }
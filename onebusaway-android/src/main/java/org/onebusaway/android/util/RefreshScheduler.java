@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single clock for the periodic refreshes of the visible screens (e.g., arrivals, trip
+ * details and vehicles on the map).
+ *
+ * Instead of each screen posting its own delayed refresh, screens schedule their next refresh
+ * through a Subscription.  When the clock fires for one subscription, every other subscription
+ * that is due within its flex window is run at the same time, so refreshes that would have
+ * happened a few seconds apart are aligned on a single tick and the radio wakes up once.  Once
+ * aligned, subscriptions with the same period stay in phase.
+ *
+ * Subscriptions must be canceled when their screen is paused or hidden.  All methods must be
+ * called on the thread of the clock's Handler (the main thread for getInstance()).
+ */
+public class RefreshScheduler {
+
+    // Refresh periods for arrivals, depending on how soon the next bus arrives
+    public static final long IMMINENT_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(30);
+
+    public static final long DEFAULT_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(60);
+
+    public static final long RELAXED_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(120);
+
+    // A real-time arrival sooner than this is refreshed with IMMINENT_REFRESH_PERIOD
+    public static final long IMMINENT_ARRIVAL_TIME = TimeUnit.MINUTES.toMillis(5);
+
+    // Arrivals later than this are refreshed with RELAXED_REFRESH_PERIOD
+    public static final long DISTANT_ARRIVAL_TIME = TimeUnit.MINUTES.toMillis(30);
+
+    // Fraction of the delay a refresh can be run early to be aligned with another one
+    private static final float FLEX_FRACTION = 0.25f;
+
+    private static final long MAX_FLEX = TimeUnit.SECONDS.toMillis(15);
+
+    private static RefreshScheduler mInstance;
+
+    private final SchedulerClock mClock;
+
+    private final List<Subscription> mScheduled = new ArrayList<>();
+
+    private int mTickCount = 0;
+
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    /**
+     * A periodic refresh of a screen
+     */
+    public class Subscription {
+
+        private final Runnable mRefresh;
+
+        // Uptime the refresh is due at, and the earliest uptime it can be run at
+        private long mDueTime;
+
+        private long mEarliestTime;
+
+        private Subscription(Runnable refresh) {
+            mRefresh = refresh;
+        }
+
+        /**
+         * Schedules the next refresh after the given delay, replacing any scheduled refresh.  The
+         * refresh may be run up to a quarter of the delay early, to align it with the refresh of
+         * another screen.
+         *
+         * @param delay delay of the refresh, in milliseconds
+         */
+        public void schedule(long delay) {
+            delay = Math.max(0, delay);
+            long now = mClock.uptimeMillis();
+            mDueTime = now + delay;
+            mEarliestTime = mDueTime - Math.min(MAX_FLEX, (long) (delay * FLEX_FRACTION));
+            if (!mScheduled.contains(this)) {
+                mScheduled.add(this);
+            }
+            reschedule();
+        }
+
+        /**
+         * Resumes the refreshes of a screen that becomes visible again: refreshes now if the
+         * period elapsed since the last refresh, otherwise schedules the next refresh for the end
+         * of the period
+         *
+         * @param lastRefresh time of the last refresh, in milliseconds since epoch, or 0 if
+         *                    there wasn't one
+         * @param period      refresh period, in milliseconds
+         */
+        public void resume(long lastRefresh, long period) {
+            long delay = Math.min(period, (lastRefresh + period) - mClock.currentTimeMillis());
+            if (delay <= 0) {
+                cancel();
+                mRefresh.run();
+            } else {
+                schedule(delay);
+            }
+        }
+
+        /**
+         * Cancels the scheduled refresh, if any
+         */
+        public void cancel() {
+            if (mScheduled.remove(this)) {
+                reschedule();
+            }
+        }
+
+        /**
+         * @return true if a refresh is scheduled
+         */
+        public boolean isScheduled() {
+            return mScheduled.contains(this);
+        }
+    }
+
+    /**
+     * @param handler handler used to run the refreshes
+     */
+    public RefreshScheduler(Handler handler) {
+        this(new SchedulerClock(handler));
+    }
+
+    /**
+     * @param clock clock used to schedule and run the refreshes
+     */
+    public RefreshScheduler(SchedulerClock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * @return the clock shared by all screens, which runs refreshes on the main thread
+     */
+    public static RefreshScheduler getInstance() {
+        if (mInstance == null) {
+            mInstance = new RefreshScheduler(new Handler(Looper.getMainLooper()));
+        }
+        return mInstance;
+    }
+
+    /**
+     * Creates a subscription that runs the given refresh each time it's due.  Nothing is run
+     * until Subscription.schedule() is called.
+     */
+    public Subscription subscribe(Runnable refresh) {
+        return new Subscription(refresh);
+    }
+
+    /**
+     * @return the number of times the clock fired, each running one or more refreshes
+     */
+    public int getTickCount() {
+        return mTickCount;
+    }
+
+    private void tick() {
+        long now = mClock.uptimeMillis();
+        List<Subscription> due = new ArrayList<>();
+        for (Subscription s : mScheduled) {
+            if (s.mEarliestTime <= now) {
+                due.add(s);
+            }
+        }
+        mScheduled.removeAll(due);
+        if (!due.isEmpty()) {
+            mTickCount++;
+        }
+        // Refreshes may schedule their next refresh, which reschedules the clock
+        for (Subscription s : due) {
+            s.mRefresh.run();
+        }
+        reschedule();
+    }
+
+    /**
+     * Schedules the clock for the earliest due refresh.  Other refreshes that can be run early
+     * are run at the same time.
+     */
+    private void reschedule() {
+        mClock.removeCallbacks(mTick);
+        if (mScheduled.isEmpty()) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (Subscription s : mScheduled) {
+            next = Math.min(next, s.mDueTime);
+        }
+        mClock.postAtTime(mTick, next);
+    }
+
+    /**
+     * Returns how often arrivals should be refreshed.  Arrivals are refreshed more often when a
+     * real-time arrival is imminent, and less often when there's no real-time data or the next
+     * arrival is far away.
+     *
+     * @param timeToNextArrival time until the next arrival, in milliseconds, or Long.MAX_VALUE if
+     *                          there are no arrivals
+     * @param realtime          true if any of the arrivals has real-time data
+     * @param imminentRealtime  true if there is a real-time arrival within IMMINENT_ARRIVAL_TIME
+     */
+    public static long getRefreshPeriod(long timeToNextArrival, boolean realtime,
+            boolean imminentRealtime) {
+        if (imminentRealtime) {
+            return IMMINENT_REFRESH_PERIOD;
+        }
+        if (!realtime || timeToNextArrival > DISTANT_ARRIVAL_TIME) {
+            return RELAXED_REFRESH_PERIOD;
+        }
+        return DEFAULT_REFRESH_PERIOD;
+    }
+
+    /**
+     * Returns how often the provided arrivals should be refreshed
+     *
+     * @param info        arrivals for a stop, or null if they couldn't be loaded
+     * @param currentTime current time (e.g., of the server response), in milliseconds since epoch
+     */
+    public static long getRefreshPeriod(ObaArrivalInfo[] info, long currentTime) {
+        if (info == null) {
+            return DEFAULT_REFRESH_PERIOD;
+        }
+        long timeToNextArrival = Long.MAX_VALUE;
+        boolean realtime = false;
+        boolean imminentRealtime = false;
+        for (ObaArrivalInfo arrival : info) {
+            boolean predicted = arrival.getPredictedArrivalTime() != 0;
+            long arrivalTime = predicted ? arrival.getPredictedArrivalTime()
+                    : arrival.getScheduledArrivalTime();
+            long timeToArrival = arrivalTime - currentTime;
+            if (timeToArrival < 0) {
+                // Already departed
+                continue;
+            }
+            timeToNextArrival = Math.min(timeToNextArrival, timeToArrival);
+            if (predicted) {
+                realtime = true;
+                if (timeToArrival < IMMINENT_ARRIVAL_TIME) {
+                    imminentRealtime = true;
+                }
+            }
+        }
+        return getRefreshPeriod(timeToNextArrival, realtime, imminentRealtime);
+    }
+}
@@ -25,13 +25,16 @@ import org.onebusaway.android.io.elements.ObaRegionElement;
 import org.onebusaway.android.io.request.ObaRegionsRequest;
 import org.onebusaway.android.io.request.ObaRegionsResponse;
 import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.region.RegionIndex;
+import org.onebusaway.android.region.RegionSync;
 
 import android.content.ContentResolver;
-import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.location.Location;
 import android.net.Uri;
+import android.os.RemoteException;
 import android.util.Log;
 
 import java.security.MessageDigest;
@@ -62,6 +65,9 @@ public class RegionUtils {
 
     private static final int DISTANCE_LIMITER = 100;  // miles
 
+    // Index of the regions in the local provider, rebuilt whenever they are loaded or saved
+    private static volatile RegionIndex sRegionIndex;
+
     /**
      * Get the closest region from a list of regions and a given location
      *
@@ -81,6 +87,7 @@ public class RegionUtils {
         if (loc == null) {
             return null;
         }
+        // The list is only searched once, so building a RegionIndex for it isn't worth it
         float minDist = Float.MAX_VALUE;
         ObaRegion closestRegion = null;
         Float distToRegion;
@@ -123,6 +130,63 @@ public class RegionUtils {
         return closestRegion;
     }
 
+    /**
+     * Get the closest region to a given location from the regions in the local provider, using
+     * the in-memory region index instead of querying the provider when possible
+     *
+     * @param context          Context used to load the regions if they aren't in memory yet
+     * @param loc              location
+     * @param enforceThreshold true if the DISTANCE_LIMITER threshold should be enforced, false if
+     *                         it should not
+     * @return the closest region to the given location, or null if a enforceThreshold is true and
+     * the closest region exceeded DISTANCE_LIMITER threshold or a region couldn't be found
+     */
+    public static ObaRegion getClosestRegion(Context context, Location loc,
+            boolean enforceThreshold) {
+        if (loc == null) {
+            return null;
+        }
+        RegionIndex index = getRegionIndex(context);
+        if (index == null) {
+            return null;
+        }
+        return getClosestRegion(index, loc, enforceThreshold);
+    }
+
+    private static ObaRegion getClosestRegion(RegionIndex index, Location loc,
+            boolean enforceThreshold) {
+        Log.d(TAG, "Finding region closest to " + loc.getLatitude() + "," + loc.getLongitude());
+
+        boolean allowExperimental = Application.getPrefs().getBoolean(
+                Application.get().getString(R.string.preference_key_experimental_regions), false);
+        double maxDistance = enforceThreshold ? DISTANCE_LIMITER / METERS_TO_MILES
+                : Double.MAX_VALUE;
+        ObaRegion closestRegion = index.getClosestRegion(loc.getLatitude(), loc.getLongitude(),
+                allowExperimental, maxDistance);
+        if (closestRegion != null) {
+            Log.d(TAG, "Closest region is '" + closestRegion.getName() + "'");
+        }
+        return closestRegion;
+    }
+
+    /**
+     * Returns the index of the regions in the local provider, loading the regions from the
+     * provider if they haven't been loaded or saved since the app started
+     *
+     * @return the index of the regions in the local provider, or null if there are no regions
+     * in the provider
+     */
+    public static RegionIndex getRegionIndex(Context context) {
+        RegionIndex index = sRegionIndex;
+        if (index == null) {
+            if (getRegionsFromProvider(context) == null) {
+                return null;
+            }
+            index = sRegionIndex;
+        }
+        return index;
+    }
+
     /**
      * Get the region name if it is available. If there is a custom url instead of a region from
      * the region api, then hash the custom url and return it.
@@ -277,9 +341,25 @@ public class RegionUtils {
      * @return true if the location is within the region, false if it is not
      */
     public static boolean isLocationWithinRegion(Location location, ObaRegion region) {
-        double[] regionSpan = new double[4];
-        getRegionSpan(region, regionSpan);
-        return isLocationWithinRegion(location, regionSpan);
+        return isLocationWithinRegion(location, getRegionSpan(region));
+    }
+
+    /**
+     * Returns the center and lat/lon span for the entire region, in the format of
+     * getRegionSpan(ObaRegion, double[]).  The span precomputed by the region index is returned
+     * when there is one, so the returned array must not be modified.
+     *
+     * @param region region to get the span of
+     * @return the span of the region
+     */
+    public static double[] getRegionSpan(ObaRegion region) {
+        RegionIndex index = sRegionIndex;
+        double[] regionSpan = index != null ? index.getRegionSpan(region) : null;
+        if (regionSpan == null) {
+            regionSpan = new double[4];
+            getRegionSpan(region, regionSpan);
+        }
+        return regionSpan;
     }
 
     /**
@@ -389,6 +469,25 @@ public class RegionUtils {
     }
 
     public static ArrayList<ObaRegion> getRegionsFromProvider(Context context) {
+        RegionIndex index = sRegionIndex;
+        if (index != null) {
+            // The provider hasn't changed since the index was built
+            return index.getRegions().isEmpty() ? null
+                    : new ArrayList<ObaRegion>(index.getRegions());
+        }
+        ArrayList<ObaRegion> results = readRegionsFromProvider(context);
+        if (results != null) {
+            sRegionIndex = new RegionIndex(results);
+        }
+        return results;
+    }
+
+    /**
+     * Reads the regions from the local provider, without using the index of the regions
+     *
+     * @return the regions in the local provider, or null if there are no regions in the provider
+     */
+    public static ArrayList<ObaRegion> readRegionsFromProvider(Context context) {
         // Prefetch the bounds to limit the number of DB calls.
         HashMap<Long, ArrayList<ObaRegionElement.Bounds>> allBounds = getBoundsFromProvider(
                 context);
@@ -421,7 +520,8 @@ public class RegionUtils {
                     ObaContract.Regions.TRAVEL_BEHAVIOR_DATA_COLLECTION,
                     ObaContract.Regions.ENROLL_PARTICIPANTS_IN_STUDY,
                     ObaContract.Regions.SIDECAR_BASE_URL,
-                    ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL
+                    ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL,
+                    ObaContract.Regions.GTFS_REALTIME_FEEDS
             };
 
             ContentResolver cr = context.getContentResolver();
@@ -475,7 +575,9 @@ public class RegionUtils {
                         c.getInt(19) > 0, // travel behavior data collection enabled for region
                         c.getInt(20) > 0, // enrolling participants for travel behavior data collection
                         c.getString(21), //Sidecar base URL
-                        c.getString(22) // Plausible analytics server url
+                        c.getString(22), // Plausible analytics server url
+                        ObaContract.Regions.fromGtfsRealtimeFeedsJson(
+                                c.getString(23)) // GTFS-realtime feeds
                 ));
 
             } while (c.moveToNext());
@@ -666,106 +768,47 @@ public class RegionUtils {
                 BuildConfig.FIXED_REGION_TRAVEL_BEHAVIOR_DATA_COLLECTION,
                 BuildConfig.FIXED_REGION_ENROLL_PARTICIPANTS_IN_STUDY,
                 BuildConfig.FIXED_REGION_SIDECAR_BASE_URL,
-                BuildConfig.FIXED_REGION_PLAUSIBLE_ANALYTICS_SERVER_URL);
+                BuildConfig.FIXED_REGION_PLAUSIBLE_ANALYTICS_SERVER_URL,
+                null);
         return region;
     }
 
     //
     // Saving
     //
-    public synchronized static void saveToProvider(Context context, List<ObaRegion> regions) {
-        // Delete all the existing regions
-        ContentResolver cr = context.getContentResolver();
-        cr.delete(ObaContract.Regions.CONTENT_URI, null, null);
-        // Should be a no-op?
-        cr.delete(ObaContract.RegionBounds.CONTENT_URI, null, null);
-        // Delete all existing open311 endpoints
-        cr.delete(ObaContract.RegionOpen311Servers.CONTENT_URI, null, null);
-
-        for (ObaRegion region : regions) {
-            if (!isRegionUsable(region)) {
-                Log.d(TAG, "Skipping insert of '" + region.getName() + "' to provider...");
-                continue;
-            }
-
-            cr.insert(ObaContract.Regions.CONTENT_URI, toContentValues(region));
-            Log.d(TAG, "Saved region '" + region.getName() + "' to provider");
-            long regionId = region.getId();
-            // Bulk insert the bounds
-            ObaRegion.Bounds[] bounds = region.getBounds();
-            if (bounds != null) {
-                ContentValues[] values = new ContentValues[bounds.length];
-                for (int i = 0; i < bounds.length; ++i) {
-                    values[i] = toContentValues(regionId, bounds[i]);
-                }
-                cr.bulkInsert(ObaContract.RegionBounds.CONTENT_URI, values);
-            }
 
-            ObaRegion.Open311Server[] open311Servers = region.getOpen311Servers();
+    /**
+     * Drops the index of the regions, so they are read from the provider again the next time
+     * they are needed (e.g., after the database was replaced by a backup)
+     */
+    public static void invalidateRegionIndex() {
+        sRegionIndex = null;
+    }
 
-            if (open311Servers != null) {
-                ContentValues[] values = new ContentValues[open311Servers.length];
-                for (int i = 0; i < open311Servers.length; ++i) {
-                    values[i] = toContentValues(regionId, open311Servers[i]);
-                }
-                cr.bulkInsert(ObaContract.RegionOpen311Servers.CONTENT_URI, values);
+    /**
+     * Saves the regions to the local provider, writing only the regions that changed since they
+     * were last saved (see RegionSync)
+     *
+     * @return what was changed in the provider, or null if the regions couldn't be saved
+     */
+    public synchronized static RegionSync.Result saveToProvider(Context context,
+            List<ObaRegion> regions) {
+        RegionSync.Result result;
+        try {
+            result = RegionSync.sync(context, regions);
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Couldn't save regions to provider - " + e);
+            // Read the regions from the provider again the next time they are needed
+            sRegionIndex = null;
+            return null;
+        }
+        ArrayList<ObaRegion> saved = new ArrayList<ObaRegion>();
+        for (ObaRegion region : regions) {
+            if (isRegionUsable(region)) {
+                saved.add(region);
             }
         }
-    }
-
-    private static ContentValues toContentValues(ObaRegion region) {
-        ContentValues values = new ContentValues();
-        values.put(ObaContract.Regions._ID, region.getId());
-            values.put(ObaContract.Regions.NAME, region.getName());
-        String obaUrl = region.getObaBaseUrl();
-        values.put(ObaContract.Regions.OBA_BASE_URL, obaUrl != null ? obaUrl : "");
-        String siriUrl = region.getSiriBaseUrl();
-        values.put(ObaContract.Regions.SIRI_BASE_URL, siriUrl != null ? siriUrl : "");
-        values.put(ObaContract.Regions.LANGUAGE, region.getLanguage());
-        values.put(ObaContract.Regions.CONTACT_EMAIL, region.getContactEmail());
-        values.put(ObaContract.Regions.SUPPORTS_OBA_DISCOVERY,
-                region.getSupportsObaDiscoveryApis() ? 1 : 0);
-        values.put(ObaContract.Regions.SUPPORTS_OBA_REALTIME,
-                region.getSupportsObaRealtimeApis() ? 1 : 0);
-        values.put(ObaContract.Regions.SUPPORTS_SIRI_REALTIME,
-                region.getSupportsSiriRealtimeApis() ? 1 : 0);
-        values.put(ObaContract.Regions.TWITTER_URL, region.getTwitterUrl());
-        values.put(ObaContract.Regions.EXPERIMENTAL, region.getExperimental());
-        values.put(ObaContract.Regions.STOP_INFO_URL, region.getStopInfoUrl());
-        values.put(ObaContract.Regions.OTP_BASE_URL, region.getOtpBaseUrl());
-        values.put(ObaContract.Regions.OTP_CONTACT_EMAIL, region.getOtpContactEmail());
-        values.put(ObaContract.Regions.SUPPORTS_OTP_BIKESHARE,
-                region.getSupportsOtpBikeshare() ? 1 : 0);
-        values.put(ObaContract.Regions.SUPPORTS_EMBEDDED_SOCIAL,
-                region.getSupportsEmbeddedSocial() ? 1 : 0);
-        values.put(ObaContract.Regions.PAYMENT_ANDROID_APP_ID, region.getPaymentAndroidAppId());
-        values.put(ObaContract.Regions.PAYMENT_WARNING_TITLE, region.getPaymentWarningTitle());
-        values.put(ObaContract.Regions.PAYMENT_WARNING_BODY, region.getPaymentWarningBody());
-        values.put(ObaContract.Regions.TRAVEL_BEHAVIOR_DATA_COLLECTION,
-                region.isTravelBehaviorDataCollectionEnabled() ? 1 : 0);
-        values.put(ObaContract.Regions.ENROLL_PARTICIPANTS_IN_STUDY,
-                region.isEnrollParticipantsInStudy() ? 1 : 0);
-        values.put(ObaContract.Regions.SIDECAR_BASE_URL, region.getSidecarBaseUrl());
-        values.put(ObaContract.Regions.PLAUSIBLE_ANALYTICS_SERVER_URL, region.getPlausibleAnalyticsServerUrl());
-        return values;
-    }
-
-    private static ContentValues toContentValues(long region, ObaRegion.Bounds bounds) {
-        ContentValues values = new ContentValues();
-        values.put(ObaContract.RegionBounds.REGION_ID, region);
-        values.put(ObaContract.RegionBounds.LATITUDE, bounds.getLat());
-        values.put(ObaContract.RegionBounds.LONGITUDE, bounds.getLon());
-        values.put(ObaContract.RegionBounds.LAT_SPAN, bounds.getLatSpan());
-        values.put(ObaContract.RegionBounds.LON_SPAN, bounds.getLonSpan());
-        return values;
-    }
-
-    private static ContentValues toContentValues(long region, ObaRegion.Open311Server open311Server) {
-        ContentValues values = new ContentValues();
-        values.put(ObaContract.RegionOpen311Servers.REGION_ID, region);
-        values.put(ObaContract.RegionOpen311Servers.BASE_URL, open311Server.getBaseUrl());
-        values.put(ObaContract.RegionOpen311Servers.JURISDICTION, open311Server.getJuridisctionId());
-        values.put(ObaContract.RegionOpen311Servers.API_KEY, open311Server.getApiKey());
-        return values;
+        sRegionIndex = new RegionIndex(saved);
+        return result;
     }
 }
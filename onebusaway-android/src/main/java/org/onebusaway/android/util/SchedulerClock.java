@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * The clock and the message queue of the schedulers of debounced or periodic work (see
+ * MapDataScheduler and RefreshScheduler).  Runs work on the thread of a Handler at an uptime, and
+ * can be replaced by tests with a clock that is advanced manually.
+ */
+public class SchedulerClock {
+
+    private final Handler mHandler;
+
+    /**
+     * @param handler handler used to run the work
+     */
+    public SchedulerClock(Handler handler) {
+        mHandler = handler;
+    }
+
+    /**
+     * @return the current uptime, in milliseconds
+     */
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    /**
+     * @return the current time, in milliseconds since epoch
+     */
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Runs the work at the given uptime, in milliseconds
+     */
+    public void postAtTime(Runnable r, long uptimeMillis) {
+        mHandler.postAtTime(r, uptimeMillis);
+    }
+
+    /**
+     * Removes any pending post of the work
+     */
+    public void removeCallbacks(Runnable r) {
+        mHandler.removeCallbacks(r);
+    }
+}
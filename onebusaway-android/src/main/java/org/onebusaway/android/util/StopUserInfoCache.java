@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.provider.ObaContract;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory copy of the user data of stops (user name and favorite status), keyed by stop ID.
+ * Only stops with user data are kept.
+ *
+ * The provider notifies Stops.USER_INFO_URI when the user data of a stop changes, with the ID of
+ * the stop when it's known, so only that stop is read again.  Stops cached from the server (e.g.,
+ * when browsing the map) don't change user data, so they don't cause any query.  The notification
+ * is delivered asynchronously, so screens that write user data also call put(), which makes the
+ * new data visible as soon as the write returns.
+ */
+public class StopUserInfoCache {
+
+    private static final String[] PROJECTION = {
+            ObaContract.Stops._ID,
+            ObaContract.Stops.FAVORITE,
+            ObaContract.Stops.USER_NAME
+    };
+
+    private static final String WHERE = "(" + ObaContract.Stops.USER_NAME + " IS NOT NULL) OR ("
+            + ObaContract.Stops.FAVORITE + "=1)";
+
+    private static StopUserInfoCache mInstance;
+
+    /**
+     * The user data of a stop
+     */
+    public static class UserInfo {
+
+        private final String mUserName;
+
+        private final boolean mFavorite;
+
+        UserInfo(String userName, boolean favorite) {
+            mUserName = userName;
+            mFavorite = favorite;
+        }
+
+        /**
+         * @return the name given to the stop by the user, or null if there isn't one
+         */
+        public String getUserName() {
+            return mUserName;
+        }
+
+        public boolean isFavorite() {
+            return mFavorite;
+        }
+    }
+
+    private final ContentResolver mResolver;
+
+    // Replaced when all stops are reloaded, and updated in place when a single stop changes
+    private volatile Map<String, UserInfo> mInfo;
+
+    private int mQueryCount = 0;
+
+    /**
+     * @param resolver resolver used to read the stops and to observe changes to them
+     */
+    public StopUserInfoCache(ContentResolver resolver) {
+        mResolver = resolver;
+        // Without a handler, changes are delivered on a binder thread
+        mResolver.registerContentObserver(ObaContract.Stops.USER_INFO_URI, true,
+                new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        onChange(selfChange, null);
+                    }
+
+                    @Override
+                    public void onChange(boolean selfChange, Uri uri) {
+                        if (uri != null && uri.getPathSegments().size() > 1) {
+                            reloadStop(uri.getLastPathSegment());
+                        } else {
+                            reloadAll();
+                        }
+                    }
+                });
+        reloadAll();
+    }
+
+    public static synchronized StopUserInfoCache getInstance(Context context) {
+        if (mInstance == null) {
+            mInstance = new StopUserInfoCache(
+                    context.getApplicationContext().getContentResolver());
+        }
+        return mInstance;
+    }
+
+    /**
+     * @return the user data of the stop, or null if the user didn't name or star the stop
+     */
+    public UserInfo get(String stopId) {
+        return mInfo.get(stopId);
+    }
+
+    /**
+     * Sets the user data that the app just wrote to the provider for the stop
+     *
+     * @param userName the name given to the stop by the user, or null if there isn't one
+     */
+    public synchronized void put(String stopId, String userName, boolean favorite) {
+        if (userName != null || favorite) {
+            mInfo.put(stopId, new UserInfo(userName, favorite));
+        } else {
+            mInfo.remove(stopId);
+        }
+    }
+
+    /**
+     * @return the number of queries run to load the cache, for testing
+     */
+    public synchronized int getQueryCount() {
+        return mQueryCount;
+    }
+
+    private synchronized void reloadAll() {
+        Map<String, UserInfo> info = new ConcurrentHashMap<>();
+        Cursor c = mResolver.query(ObaContract.Stops.CONTENT_URI, PROJECTION, WHERE, null, null);
+        mQueryCount++;
+        if (c != null) {
+            try {
+                while (c.moveToNext()) {
+                    info.put(c.getString(0), new UserInfo(c.getString(2), c.getInt(1) == 1));
+                }
+            } finally {
+                c.close();
+            }
+        }
+        mInfo = info;
+    }
+
+    private synchronized void reloadStop(String stopId) {
+        Cursor c = mResolver.query(ObaContract.Stops.CONTENT_URI, PROJECTION,
+                ObaContract.Stops._ID + "=? AND (" + WHERE + ")", new String[]{stopId}, null);
+        mQueryCount++;
+        UserInfo info = null;
+        if (c != null) {
+            try {
+                if (c.moveToFirst()) {
+                    info = new UserInfo(c.getString(2), c.getInt(1) == 1);
+                }
+            } finally {
+                c.close();
+            }
+        }
+        if (info != null) {
+            mInfo.put(stopId, info);
+        } else {
+            mInfo.remove(stopId);
+        }
+    }
+}
@@ -23,9 +23,7 @@ import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.SearchManager;
 import android.content.ActivityNotFoundException;
-import android.content.ContentQueryMap;
 import android.content.ContentResolver;
-import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageInfo;
@@ -112,14 +110,15 @@ import org.onebusaway.android.io.elements.Occupancy;
 import org.onebusaway.android.io.elements.OccupancyState;
 import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
 import org.onebusaway.android.map.MapParams;
-import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.ui.ArrivalsListActivity;
 import org.onebusaway.android.ui.HomeActivity;
 import org.onebusaway.android.ui.RouteInfoActivity;
 import org.onebusaway.android.view.RealtimeIndicatorView;
 import org.onebusaway.util.comparators.AlphanumComparator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -365,30 +364,15 @@ public final class UIUtils {
         longNameText.setText(longName);
     }
 
-    private static final String[] STOP_USER_PROJECTION = {
-            ObaContract.Stops._ID,
-            ObaContract.Stops.FAVORITE,
-            ObaContract.Stops.USER_NAME
-    };
-
+    /**
+     * Shows the names given by the user to stops, and whether they're starred
+     */
     public static class StopUserInfoMap {
 
-        private final ContentQueryMap mMap;
+        private final StopUserInfoCache mCache;
 
         public StopUserInfoMap(Context context) {
-            ContentResolver cr = context.getContentResolver();
-            Cursor c = cr.query(ObaContract.Stops.CONTENT_URI, STOP_USER_PROJECTION, "("
-                    + ObaContract.Stops.USER_NAME + " IS NOT NULL)" + "OR ("
-                    + ObaContract.Stops.FAVORITE + "=1)", null, null);
-            mMap = new ContentQueryMap(c, ObaContract.Stops._ID, true, null);
-        }
-
-        public void close() {
-            mMap.close();
-        }
-
-        public void requery() {
-            mMap.requery();
+            mCache = StopUserInfoCache.getInstance(context);
         }
 
         public void setView(View stopRoot, String stopId, String stopName) {
@@ -400,12 +384,11 @@ public final class UIUtils {
          * This should be used with compound drawables
          */
         public void setView2(TextView nameView, String stopId, String stopName, boolean showIcon) {
-            ContentValues values = mMap.getValues(stopId);
+            StopUserInfoCache.UserInfo info = mCache.get(stopId);
             int icon = 0;
-            if (values != null) {
-                Integer i = values.getAsInteger(ObaContract.Stops.FAVORITE);
-                final boolean favorite = (i != null) && (i == 1);
-                final String userName = values.getAsString(ObaContract.Stops.USER_NAME);
+            if (info != null) {
+                final boolean favorite = info.isFavorite();
+                final String userName = info.getUserName();
 
                 nameView.setText(TextUtils.isEmpty(userName) ?
                         UIUtils.formatDisplayText(stopName) : userName);
@@ -1737,6 +1720,103 @@ public final class UIUtils {
         return rotateImageIfRequired(b, pathName);
     }
 
+    /**
+     * Decode a smaller sampled bitmap given a large bitmap, reusing the memory of the provided
+     * bitmap if it is large enough, and rotating the result based on the EXIF orientation of the
+     * image.  Must not be called on the main thread.
+     *
+     * @param pathName  path to the full size image file
+     * @param reqWidth  desired width
+     * @param reqHeight desired height
+     * @param reuse     mutable bitmap that is no longer displayed and whose memory can be reused
+     *                  for the decoded image, or null to allocate a new bitmap
+     * @return a smaller version of the image at pathName, given the desired width and height
+     */
+    public static Bitmap decodeSampledBitmapFromFile(String pathName, int reqWidth, int reqHeight,
+            Bitmap reuse) throws IOException {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(pathName, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Unable to decode image " + pathName);
+        }
+
+        options.inSampleSize = calculateInSampleSize(options, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+
+        // Estimate the size of the decoded image (rounding up, since the decoder might)
+        long width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+        long height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+        if (reuse != null && !reuse.isRecycled() && reuse.isMutable()
+                && reuse.getAllocationByteCount() >= width * height * 4) {
+            options.inBitmap = reuse;
+        }
+
+        Bitmap b;
+        try {
+            b = BitmapFactory.decodeFile(pathName, options);
+        } catch (IllegalArgumentException e) {
+            // The bitmap couldn't be reused for this image
+            options.inBitmap = null;
+            b = BitmapFactory.decodeFile(pathName, options);
+        }
+        if (b == null) {
+            throw new IOException("Unable to decode image " + pathName);
+        }
+        return rotateImageIfRequired(b, pathName);
+    }
+
+    /**
+     * Encodes the provided bitmap as a JPEG file that is no larger than the given size (if
+     * possible), using the highest quality that fits within the size.  Must not be called on the
+     * main thread.
+     *
+     * @param bitmap     image to encode
+     * @param file       file to write the JPEG to
+     * @param maxBytes   maximum size of the file, in bytes
+     * @param minQuality lowest JPEG quality to use (0-100), even if the file is then larger than
+     *                   maxBytes
+     * @param maxQuality highest JPEG quality to use (0-100)
+     * @return the JPEG quality used to encode the file
+     */
+    public static int compressToTargetSize(Bitmap bitmap, File file, int maxBytes,
+            int minQuality, int maxQuality) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(maxBytes);
+        int low = minQuality, high = maxQuality;
+        int bestQuality = minQuality;
+        byte[] best = null;
+
+        // Binary search for the highest quality under the byte budget
+        while (low <= high) {
+            int quality = (low + high) / 2;
+            buffer.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, buffer);
+            if (buffer.size() <= maxBytes) {
+                bestQuality = quality;
+                best = buffer.toByteArray();
+                low = quality + 1;
+            } else {
+                high = quality - 1;
+            }
+        }
+        if (best == null) {
+            // Nothing fits in the budget - use the lowest quality
+            buffer.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, minQuality, buffer);
+            best = buffer.toByteArray();
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(best);
+            out.flush();
+        } finally {
+            out.close();
+        }
+        return bestQuality;
+    }
+
     /**
      * Calculate an inSampleSize for use in a {@link BitmapFactory.Options} object when decoding
      * bitmaps using the decode* methods from {@link BitmapFactory}. This implementation calculates
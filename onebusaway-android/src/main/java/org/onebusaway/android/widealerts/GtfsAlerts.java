@@ -4,12 +4,18 @@ import com.google.transit.realtime.GtfsRealtime;
 
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
+import org.onebusaway.android.database.widealerts.AlertsRepository;
+import org.onebusaway.android.util.BackgroundExecutor;
 
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import androidx.lifecycle.LifecycleOwner;
+
+import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -30,10 +36,11 @@ public class GtfsAlerts {
     /**
      * Fetches GTFS alerts from a specified URL and processes them.
      *
+     * @param owner    The screen showing the alerts, which cancels the request when destroyed.
      * @param regionId The current region ID.
-     * @param callback The callback to handle the alert data.
+     * @param callback The callback to handle the alert data, called on the main thread.
      */
-    public void fetchAlerts(String regionId, GtfsAlertCallBack callback) {
+    public void fetchAlerts(LifecycleOwner owner, String regionId, GtfsAlertCallBack callback) {
         if (fetchedRegions.contains(regionId)) {
             Log.d(TAG, "Alerts already fetched for region: " + regionId);
             return;
@@ -42,43 +49,77 @@ public class GtfsAlerts {
         if (pathUrl == null) {
             return;
         }
+        // The alerts already read by the user are loaded from the database in the background
+        AlertsRepository.whenLoaded(mContext, () -> fetchAlerts(owner, regionId, pathUrl, callback));
+    }
+
+    private void fetchAlerts(LifecycleOwner owner, String regionId, String pathUrl,
+            GtfsAlertCallBack callback) {
         Log.d(TAG, "fetchAlerts for region: " + regionId);
-        new Thread(() -> {
-            try {
-                URL url = new URL(pathUrl);
-                GtfsRealtime.FeedMessage feed = GtfsRealtime.FeedMessage.parseFrom(url.openStream());
-                processAlerts(feed.getEntityList(), callback);
-                fetchedRegions.add(regionId);
+        BackgroundExecutor.getInstance().submit(owner, BackgroundExecutor.Pool.NETWORK, () -> {
+            // The alerts are processed in the background, and delivered on the main thread
+            try (InputStream in = new URL(pathUrl).openStream()) {
+                GtfsRealtime.FeedMessage feed = GtfsRealtime.FeedMessage.parseFrom(in);
+                List<GtfsRealtime.FeedEntity> alerts = new ArrayList<>();
+                GtfsRealtime.FeedEntity alert = findAlert(feed.getEntityList());
+                if (alert != null) {
+                    alerts.add(alert);
+                }
+                return alerts;
             } catch (Exception e) {
                 Log.e(TAG, "Error fetching GTFS alert data for region: " + regionId, e);
-                e.printStackTrace();
+                return null;
+            }
+        }, alerts -> {
+            if (alerts == null) {
+                return;
             }
-        }).start();
+            fetchedRegions.add(regionId);
+            for (GtfsRealtime.FeedEntity alert : alerts) {
+                showAlert(alert, callback);
+            }
+        });
     }
 
     /**
-     * Processes the list of GTFS alerts and triggers the callback for one valid alert.
+     * Processes the list of GTFS alerts and triggers the callback for one valid alert, which is
+     * then marked as read.
      *
      * @param alerts   The list of GTFS alert entities.
-     * @param callback The callback to handle each alert.
+     * @param callback The callback to handle the alert.
      */
     public void processAlerts(List<GtfsRealtime.FeedEntity> alerts, GtfsAlertCallBack callback) {
+        GtfsRealtime.FeedEntity alert = findAlert(alerts);
+        if (alert != null) {
+            showAlert(alert, callback);
+        }
+    }
+
+    /**
+     * @return the first valid alert that wasn't read yet, or null if there isn't one.
+     */
+    private GtfsRealtime.FeedEntity findAlert(List<GtfsRealtime.FeedEntity> alerts) {
         for (GtfsRealtime.FeedEntity entity : alerts) {
-            if (!GtfsAlertsHelper.isValidEntity(mContext, entity)) {
-                continue;
+            if (GtfsAlertsHelper.isValidEntity(mContext, entity)) {
+                return entity;
             }
-            GtfsRealtime.Alert alert = entity.getAlert();
-            String id = entity.getId();
-            String title = GtfsAlertsHelper.getAlertTitle(alert);
-            String description = GtfsAlertsHelper.getAlertDescription(alert);
-            String url = GtfsAlertsHelper.getAlertUrl(alert);
-
-            Log.d(TAG, "Alert: " + id + " - " + title + " - " + description + " - " + url);
-            GtfsAlertsHelper.markAlertAsRead(Application.get().getApplicationContext(), entity);
-            callback.onAlert(title, description, url);
-            // Only trigger the callback for one alert.
-            break;
         }
+        return null;
+    }
+
+    /**
+     * Triggers the callback for the alert, and only then marks it as read, so an alert that was
+     * never delivered (e.g., because the screen was destroyed first) is shown next time.
+     */
+    private void showAlert(GtfsRealtime.FeedEntity entity, GtfsAlertCallBack callback) {
+        GtfsRealtime.Alert alert = entity.getAlert();
+        String title = GtfsAlertsHelper.getAlertTitle(alert);
+        String description = GtfsAlertsHelper.getAlertDescription(alert);
+        String url = GtfsAlertsHelper.getAlertUrl(alert);
+
+        Log.d(TAG, "Alert: " + entity.getId() + " - " + title + " - " + description + " - " + url);
+        callback.onAlert(title, description, url);
+        GtfsAlertsHelper.markAlertAsRead(Application.get().getApplicationContext(), entity);
     }
 
     /**